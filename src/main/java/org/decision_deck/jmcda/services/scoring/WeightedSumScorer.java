@@ -0,0 +1,264 @@
+package org.decision_deck.jmcda.services.scoring;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.jmcda.structure.interval.Interval;
+import org.decision_deck.jmcda.structure.matrix.EvaluationsRead;
+import org.decision_deck.jmcda.structure.matrix.EvaluationsRow;
+import org.decision_deck.jmcda.structure.matrix.EvaluationsUtils;
+import org.decision_deck.jmcda.structure.scores.AlternativesScores;
+import org.decision_deck.jmcda.structure.weights.Weights;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+/**
+ * <p>
+ * Computes weighted sums of evaluations: the score of an alternative is the sum, over the weighted criteria, of the
+ * weight of the criterion multiplied by the evaluation of the alternative on that criterion. The criteria of the
+ * evaluations that have no weight are ignored. The weights are used as given; use {@link Weights#getNormalized()} to
+ * obtain scores in the range of the evaluations.
+ * </p>
+ * <p>
+ * If scales are set (see {@link #setScales(Map)}), each evaluation is first normalized on its scale, from zero for the
+ * worst value of the scale to one for its best value, thus taking the preference direction into account.
+ * </p>
+ * <p>
+ * Before scoring, the weights and the scales are compiled into one coefficient per criterion and a constant term (the
+ * normalization being affine, it is folded into the coefficients), so that the score of an alternative is a single
+ * dot product over a primitive buffer. The alternatives are scored in parallel, by blocks of consecutive rows, on a
+ * fork-join pool. The evaluations must not be modified during the computation.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public class WeightedSumScorer {
+    /**
+     * Number of alternatives below which a block is not split further.
+     */
+    private static final int BLOCK_SIZE = 1024;
+
+    /**
+     * The weights, and possibly the scales, compiled for a given traversal of the evaluations.
+     */
+    private static class Compiled {
+	/**
+	 * The weighted criteria, in the order of the coefficients.
+	 */
+	public final Criterion[] m_criteria;
+
+	/**
+	 * For each weighted criterion, its index in the rows of the traversal.
+	 */
+	public final int[] m_indexes;
+
+	public final double[] m_coefficients;
+
+	public final double m_constant;
+
+	public Compiled(List<Criterion> rowCriteria, Weights weights, Map<Criterion, Interval> scales) {
+	    final int nb = weights.size();
+	    m_criteria = new Criterion[nb];
+	    m_indexes = new int[nb];
+	    m_coefficients = new double[nb];
+	    double constant = 0d;
+	    int k = 0;
+	    for (Criterion criterion : weights.keySet()) {
+		final int index = rowCriteria.indexOf(criterion);
+		checkArgument(index >= 0, "No evaluations on " + criterion + ".");
+		final double weight = weights.getWeightBetter(criterion);
+		m_criteria[k] = criterion;
+		m_indexes[k] = index;
+		if (scales == null) {
+		    m_coefficients[k] = weight;
+		} else {
+		    final Interval scale = scales.get(criterion);
+		    checkArgument(scale != null, "No scale for " + criterion + ".");
+		    final double worst = scale.getWorst();
+		    final double range = scale.getBest() - worst;
+		    checkArgument(!Double.isInfinite(worst) && !Double.isInfinite(range) && range != 0d,
+			    "Scale of " + criterion + " can't be used for normalization: " + scale + ".");
+		    m_coefficients[k] = weight / range;
+		    constant -= m_coefficients[k] * worst;
+		}
+		++k;
+	    }
+	    m_constant = constant;
+	}
+
+	/**
+	 * @return NaN iff a value of a weighted criterion is missing.
+	 */
+	public double score(double[] values) {
+	    final int[] indexes = m_indexes;
+	    final double[] coefficients = m_coefficients;
+	    final int nb = indexes.length;
+	    final int unrolled = nb & ~3;
+	    /** Independent accumulators, to break the dependency chain of the additions. */
+	    double s0 = 0d;
+	    double s1 = 0d;
+	    double s2 = 0d;
+	    double s3 = 0d;
+	    int k = 0;
+	    for (; k < unrolled; k += 4) {
+		s0 += coefficients[k] * values[indexes[k]];
+		s1 += coefficients[k + 1] * values[indexes[k + 1]];
+		s2 += coefficients[k + 2] * values[indexes[k + 2]];
+		s3 += coefficients[k + 3] * values[indexes[k + 3]];
+	    }
+	    for (; k < nb; ++k) {
+		s0 += coefficients[k] * values[indexes[k]];
+	    }
+	    return m_constant + ((s0 + s1) + (s2 + s3));
+	}
+    }
+
+    /**
+     * Scores the rows it is given into its arrays.
+     */
+    private static class BlockScorer implements Consumer<EvaluationsRow> {
+	private final Compiled m_compiled;
+
+	private final double[] m_buffer;
+
+	public final Alternative[] m_alternatives;
+
+	public final double[] m_scores;
+
+	public int m_size;
+
+	public BlockScorer(Compiled compiled, int nbCriteria, int capacity) {
+	    m_compiled = compiled;
+	    m_buffer = new double[nbCriteria];
+	    m_alternatives = new Alternative[capacity];
+	    m_scores = new double[capacity];
+	    m_size = 0;
+	}
+
+	@Override
+	public void accept(EvaluationsRow row) {
+	    row.getValues(m_buffer);
+	    final double score = m_compiled.score(m_buffer);
+	    if (Double.isNaN(score)) {
+		for (int k = 0; k < m_compiled.m_indexes.length; ++k) {
+		    if (Double.isNaN(m_buffer[m_compiled.m_indexes[k]])) {
+			throw new IllegalArgumentException("No value at " + row.getAlternative() + ", "
+				+ m_compiled.m_criteria[k] + ".");
+		    }
+		}
+	    }
+	    m_alternatives[m_size] = row.getAlternative();
+	    m_scores[m_size] = score;
+	    ++m_size;
+	}
+    }
+
+    private static class ScoreTask extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+
+	private final Spliterator<EvaluationsRow> m_rows;
+
+	private final Compiled m_compiled;
+
+	private final int m_nbCriteria;
+
+	private final List<BlockScorer> m_blocks;
+
+	public ScoreTask(Spliterator<EvaluationsRow> rows, Compiled compiled, int nbCriteria, List<BlockScorer> blocks) {
+	    m_rows = rows;
+	    m_compiled = compiled;
+	    m_nbCriteria = nbCriteria;
+	    m_blocks = blocks;
+	}
+
+	@Override
+	protected void compute() {
+	    if (m_rows.estimateSize() > BLOCK_SIZE) {
+		final Spliterator<EvaluationsRow> prefix = m_rows.trySplit();
+		if (prefix != null) {
+		    invokeAll(new ScoreTask(prefix, m_compiled, m_nbCriteria, m_blocks), new ScoreTask(m_rows,
+			    m_compiled, m_nbCriteria, m_blocks));
+		    return;
+		}
+	    }
+	    final BlockScorer block = new BlockScorer(m_compiled, m_nbCriteria, (int) m_rows.estimateSize());
+	    m_rows.forEachRemaining(block);
+	    synchronized (m_blocks) {
+		m_blocks.add(block);
+	    }
+	}
+    }
+
+    private Map<Criterion, Interval> m_scales;
+
+    private ForkJoinPool m_pool;
+
+    /**
+     * Creates a scorer that does not normalize the evaluations and uses the common fork-join pool.
+     */
+    public WeightedSumScorer() {
+	m_scales = null;
+	m_pool = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Sets the scales used to normalize the evaluations. Each evaluation <em>v</em> on a criterion is replaced, before
+     * being weighted, by (<em>v</em> - worst) / (best - worst), where best and worst are the best and worst values of
+     * the scale of that criterion. The scales are copied.
+     *
+     * @param scales
+     *            {@code null} for no normalization; otherwise, must contain a scale with finite and different bounds
+     *            for every weighted criterion.
+     * @return this object.
+     */
+    public WeightedSumScorer setScales(Map<Criterion, Interval> scales) {
+	m_scales = scales == null ? null : ImmutableMap.copyOf(scales);
+	return this;
+    }
+
+    /**
+     * @param pool
+     *            not {@code null}, the pool used to score the alternatives.
+     * @return this object.
+     */
+    public WeightedSumScorer setPool(ForkJoinPool pool) {
+	checkNotNull(pool);
+	m_pool = pool;
+	return this;
+    }
+
+    /**
+     * Computes the score of each alternative of the given evaluations.
+     *
+     * @param evaluations
+     *            not {@code null}, must contain a value for every alternative and every weighted criterion.
+     * @param weights
+     *            not {@code null}, every weighted criterion must be a column of the evaluations.
+     * @return not {@code null}, contains an entry for every row of the given evaluations.
+     */
+    public AlternativesScores getScores(EvaluationsRead evaluations, Weights weights) {
+	checkNotNull(evaluations);
+	checkNotNull(weights);
+	final Spliterator<EvaluationsRow> rows = EvaluationsUtils.rows(evaluations);
+	final List<Criterion> rowCriteria = Lists.newArrayList(evaluations.getColumns());
+	final Compiled compiled = new Compiled(rowCriteria, weights, m_scales);
+	final List<BlockScorer> blocks = Lists.newArrayList();
+	m_pool.invoke(new ScoreTask(rows, compiled, rowCriteria.size(), blocks));
+	final AlternativesScores scores = new AlternativesScores();
+	for (BlockScorer block : blocks) {
+	    scores.putAll(block.m_alternatives, block.m_scores, block.m_size);
+	}
+	return scores;
+    }
+}
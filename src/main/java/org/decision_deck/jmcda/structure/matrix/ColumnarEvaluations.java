@@ -0,0 +1,294 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.utils.matrix.SparseMatrixDRead;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Objects.ToStringHelper;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
+
+/**
+ * <p>
+ * An immutable matrix of evaluations stored column by column: each criterion is bound to a primitive array containing
+ * the evaluations of every alternative in a fixed order, given by {@link #getAlternatives()}. An absent value is
+ * represented by a NaN in these arrays.
+ * </p>
+ * <p>
+ * This layout permits computations working on one criterion at a time, such as computing concordance indices or
+ * inferring scales, to be run as tight loops over {@link #getColumn(Criterion)}, without hashing or boxing.
+ * </p>
+ * <p>
+ * Objects of this type are immutable, thus may be shared between threads.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public class ColumnarEvaluations implements EvaluationsRead {
+    /**
+     * The alternatives, in the order of the column arrays. Each alternative has at least one value.
+     */
+    private final ImmutableList<Alternative> m_alternatives;
+
+    /**
+     * The ordinal of each alternative, i.e. its index in {@link #m_alternatives}.
+     */
+    private final ImmutableMap<Alternative, Integer> m_rowOrdinals;
+
+    /**
+     * Each column has the same size than the alternatives list. Each column contains at least one value (non NaN).
+     */
+    private final ImmutableMap<Criterion, double[]> m_columns;
+
+    private final int m_valueCount;
+
+    /**
+     * Creates a copy of the given source, with the alternatives in the iteration order of the source rows.
+     *
+     * @param source
+     *            not {@code null}, contains no NaN values.
+     */
+    ColumnarEvaluations(EvaluationsRead source) {
+	checkNotNull(source);
+	m_alternatives = ImmutableList.copyOf(source.getRows());
+	m_rowOrdinals = getOrdinals(m_alternatives);
+	final ImmutableMap.Builder<Criterion, double[]> columnsBuilder = ImmutableMap.builder();
+	int valueCount = 0;
+	for (Criterion criterion : source.getColumns()) {
+	    final double[] column = new double[m_alternatives.size()];
+	    for (int i = 0; i < column.length; ++i) {
+		final Double entry = source.getEntry(m_alternatives.get(i), criterion);
+		if (entry == null) {
+		    column[i] = Double.NaN;
+		} else {
+		    checkArgument(!entry.isNaN(), "NaN values are not accepted.");
+		    column[i] = entry.doubleValue();
+		    ++valueCount;
+		}
+	    }
+	    columnsBuilder.put(criterion, column);
+	}
+	m_columns = columnsBuilder.build();
+	m_valueCount = valueCount;
+    }
+
+    /**
+     * Creates a matrix containing the given columns. The given arrays are used directly, not copied, and must not be
+     * modified afterwards.
+     *
+     * @param alternatives
+     *            not {@code null}, the order of the values in the columns. Each alternative has at least one value.
+     * @param columns
+     *            not {@code null}, each array has the size of the alternatives list and contains at least one value
+     *            (non NaN).
+     */
+    ColumnarEvaluations(ImmutableList<Alternative> alternatives, ImmutableMap<Criterion, double[]> columns) {
+	checkNotNull(alternatives);
+	checkNotNull(columns);
+	m_alternatives = alternatives;
+	m_rowOrdinals = getOrdinals(alternatives);
+	int valueCount = 0;
+	for (double[] column : columns.values()) {
+	    checkArgument(column.length == alternatives.size());
+	    for (int i = 0; i < column.length; ++i) {
+		if (!Double.isNaN(column[i])) {
+		    ++valueCount;
+		}
+	    }
+	}
+	m_columns = columns;
+	m_valueCount = valueCount;
+    }
+
+    private static ImmutableMap<Alternative, Integer> getOrdinals(List<Alternative> alternatives) {
+	final ImmutableMap.Builder<Alternative, Integer> ordinalsBuilder = ImmutableMap.builder();
+	for (int i = 0; i < alternatives.size(); ++i) {
+	    ordinalsBuilder.put(alternatives.get(i), Integer.valueOf(i));
+	}
+	return ordinalsBuilder.build();
+    }
+
+    /**
+     * Retrieves the alternatives this matrix contains, in the order used by the columns.
+     *
+     * @return not {@code null}, the rows of this matrix.
+     * @see #getColumn(Criterion)
+     */
+    public List<Alternative> getAlternatives() {
+	return m_alternatives;
+    }
+
+    /**
+     * Retrieves the position of the given alternative in the columns of this matrix.
+     *
+     * @param alternative
+     *            not {@code null}.
+     * @return the index of the given alternative in {@link #getAlternatives()}, or a negative number iff it is not
+     *         in this matrix.
+     */
+    public int getOrdinal(Alternative alternative) {
+	checkNotNull(alternative);
+	final Integer ordinal = m_rowOrdinals.get(alternative);
+	return ordinal == null ? -1 : ordinal.intValue();
+    }
+
+    /**
+     * Retrieves a read-only view of the evaluations of every alternative according to the given criterion, in the
+     * order given by {@link #getAlternatives()}. The returned buffer is not a copy: it reads directly the values stored
+     * in this object. An absent value is represented by a NaN. The returned buffer has its position set to zero and
+     * its limit set to the number of alternatives; it is independent of other buffers returned by this method, thus
+     * may be used by one thread while an other thread uses an other one.
+     *
+     * @param criterion
+     *            must be in this matrix.
+     * @return not {@code null}.
+     * @see #getColumns()
+     */
+    public DoubleBuffer getColumn(Criterion criterion) {
+	final double[] column = m_columns.get(criterion);
+	checkArgument(column != null, "Unknown criterion: " + criterion + ".");
+	return DoubleBuffer.wrap(column).asReadOnlyBuffer();
+    }
+
+    /**
+     * Retrieves the array storing the given column. The returned array must not be modified.
+     *
+     * @return {@code null} iff the given criterion is not in this matrix.
+     */
+    double[] getColumnArray(Criterion criterion) {
+	return m_columns.get(criterion);
+    }
+
+    @Override
+    public Double getEntry(Alternative row, Criterion column) {
+	final double[] values = m_columns.get(column);
+	final Integer ordinal = m_rowOrdinals.get(row);
+	if (values == null || ordinal == null) {
+	    return null;
+	}
+	final double value = values[ordinal.intValue()];
+	if (Double.isNaN(value)) {
+	    return null;
+	}
+	return Double.valueOf(value);
+    }
+
+    @Override
+    public double getValue(Alternative row, Criterion column) {
+	final double[] values = m_columns.get(column);
+	final Integer ordinal = m_rowOrdinals.get(row);
+	final double value = (values == null || ordinal == null) ? Double.NaN : values[ordinal.intValue()];
+	if (Double.isNaN(value)) {
+	    throw new IllegalArgumentException("No value at " + row + ", " + column + ".");
+	}
+	return value;
+    }
+
+    @Override
+    public Set<Alternative> getRows() {
+	return m_rowOrdinals.keySet();
+    }
+
+    @Override
+    public Set<Criterion> getColumns() {
+	return m_columns.keySet();
+    }
+
+    @Override
+    public int getValueCount() {
+	return m_valueCount;
+    }
+
+    @Override
+    public boolean isComplete() {
+	return m_valueCount == m_alternatives.size() * m_columns.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+	return m_valueCount == 0;
+    }
+
+    @Override
+    public boolean approxEquals(SparseMatrixDRead<Alternative, Criterion> m2, double imprecision) {
+	return EvaluationsUtils.approxEqual(this, m2, imprecision);
+    }
+
+    /**
+     * Retrieves a copy of the contents of this matrix, as a table. The returned table is read-only.
+     */
+    @Override
+    public Table<Alternative, Criterion, Double> asTable() {
+	final Table<Alternative, Criterion, Double> table = HashBasedTable.create(m_alternatives.size(),
+		m_columns.size());
+	for (Map.Entry<Criterion, double[]> columnEntry : m_columns.entrySet()) {
+	    final double[] values = columnEntry.getValue();
+	    for (int i = 0; i < values.length; ++i) {
+		if (!Double.isNaN(values[i])) {
+		    table.put(m_alternatives.get(i), columnEntry.getKey(), Double.valueOf(values[i]));
+		}
+	    }
+	}
+	return Tables.unmodifiableTable(table);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (this == obj) {
+	    return true;
+	}
+	if (obj instanceof ColumnarEvaluations) {
+	    final ColumnarEvaluations c2 = (ColumnarEvaluations) obj;
+	    if (m_alternatives.equals(c2.m_alternatives) && m_columns.keySet().equals(c2.m_columns.keySet())) {
+		for (Map.Entry<Criterion, double[]> columnEntry : m_columns.entrySet()) {
+		    if (!Arrays.equals(columnEntry.getValue(), c2.m_columns.get(columnEntry.getKey()))) {
+			return false;
+		    }
+		}
+		return true;
+	    }
+	}
+	if (!(obj instanceof EvaluationsRead)) {
+	    return false;
+	}
+	return EvaluationsUtils.getEquivalence().equivalent(this, (EvaluationsRead) obj);
+    }
+
+    @Override
+    public int hashCode() {
+	int hash = 0;
+	for (Map.Entry<Criterion, double[]> columnEntry : m_columns.entrySet()) {
+	    final int columnHash = columnEntry.getKey().hashCode();
+	    final double[] values = columnEntry.getValue();
+	    for (int i = 0; i < values.length; ++i) {
+		if (!Double.isNaN(values[i])) {
+		    hash += EvaluationsUtils.getCellHash(m_alternatives.get(i).hashCode(), columnHash, values[i]);
+		}
+	    }
+	}
+	return hash;
+    }
+
+    @Override
+    public String toString() {
+	final ToStringHelper helper = Objects.toStringHelper(this);
+	helper.add("Rows", m_alternatives.size());
+	helper.add("Columns", m_columns.size());
+	helper.add("Values", m_valueCount);
+	return helper.toString();
+    }
+}
@@ -0,0 +1,503 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.utils.matrix.SparseMatrixDRead;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Objects.ToStringHelper;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
+
+/**
+ * <p>
+ * A zero-to-one matrix of alternatives storing its values in quantized form, in square tiles of primitive arrays. Each
+ * alternative, whether used as a row or as a column, is bound to an ordinal; the cell (row, column) is stored in the
+ * tile containing the ordinals of the row and the column. Tiles are allocated only when a value is first put into
+ * them, thus the areas of the matrix which never received a value use no storage.
+ * </p>
+ * <p>
+ * The values are rounded to the precision given at creation, see {@link FuzzyPrecision} for the exact guarantees.
+ * Reading a value returns the rounded value, and {@link #put(Alternative, Alternative, double)} returns the rounded
+ * previous value.
+ * </p>
+ * <p>
+ * The iteration order of the rows and columns sets is the order in which they have been added to this matrix. Two
+ * matrices are considered equal iff they contain the same values at the same positions, independently of their
+ * implementations.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+class CompactAlternativesMatrixFuzzy implements SparseAlternativesMatrixFuzzy {
+    /**
+     * Log in base two of the side of a tile.
+     */
+    private static final int TILE_SHIFT = 6;
+
+    private static final int TILE_SIDE = 1 << TILE_SHIFT;
+
+    private static final int TILE_MASK = TILE_SIDE - 1;
+
+    private static final int TILE_SIZE = TILE_SIDE * TILE_SIDE;
+
+    private final FuzzyPrecision m_precision;
+
+    /**
+     * The number of levels, as a double, zero for floats.
+     */
+    private final double m_levels;
+
+    /**
+     * The tiles, indexed by tile row times {@link #m_gridSide} plus tile column. A tile is {@code null} when it has
+     * not been used yet, or a {@code byte[]}, {@code short[]} or {@code float[]} of length {@link #TILE_SIZE}
+     * depending on the precision. In the integer arrays, zero represents an absent value, and the code <em>k</em> + 1
+     * represents the level <em>k</em>. In the float arrays, NaN represents an absent value.
+     */
+    private Object[] m_tiles;
+
+    /**
+     * The number of tiles per row and per column of the grid of tiles.
+     */
+    private int m_gridSide;
+
+    /**
+     * Every alternative used as a row or column, bound to its ordinal.
+     */
+    private final Map<Alternative, Integer> m_ordinals;
+
+    private Alternative[] m_keys;
+
+    private int[] m_rowCounts;
+
+    private int[] m_columnCounts;
+
+    private final Deque<Integer> m_freeOrdinals = new ArrayDeque<Integer>();
+
+    private int m_nextOrdinal;
+
+    /**
+     * The alternatives having at least one value as row, in order of addition.
+     */
+    private final Set<Alternative> m_rows;
+
+    private final Set<Alternative> m_columns;
+
+    private int m_valueCount;
+
+    /**
+     * Creates a new empty matrix.
+     *
+     * @param precision
+     *            not {@code null}.
+     */
+    CompactAlternativesMatrixFuzzy(FuzzyPrecision precision) {
+	checkNotNull(precision);
+	m_precision = precision;
+	m_levels = precision.getLevels();
+	m_gridSide = 1;
+	m_tiles = new Object[1];
+	m_ordinals = Maps.newHashMap();
+	m_keys = new Alternative[TILE_SIDE];
+	m_rowCounts = new int[TILE_SIDE];
+	m_columnCounts = new int[TILE_SIDE];
+	m_nextOrdinal = 0;
+	m_rows = Sets.newLinkedHashSet();
+	m_columns = Sets.newLinkedHashSet();
+	m_valueCount = 0;
+    }
+
+    /**
+     * @return the precision used by this matrix to store its values.
+     */
+    public FuzzyPrecision getPrecision() {
+	return m_precision;
+    }
+
+    /**
+     * @return -1 if the given alternative has no ordinal.
+     */
+    private int getOrdinal(Alternative alternative) {
+	final Integer ordinal = m_ordinals.get(alternative);
+	return ordinal == null ? -1 : ordinal.intValue();
+    }
+
+    private int getOrCreateOrdinal(Alternative alternative) {
+	final Integer existing = m_ordinals.get(alternative);
+	if (existing != null) {
+	    return existing.intValue();
+	}
+	final int ordinal;
+	if (m_freeOrdinals.isEmpty()) {
+	    ordinal = m_nextOrdinal;
+	    ++m_nextOrdinal;
+	    if (ordinal == m_keys.length) {
+		grow();
+	    }
+	} else {
+	    ordinal = m_freeOrdinals.pop().intValue();
+	}
+	m_ordinals.put(alternative, Integer.valueOf(ordinal));
+	m_keys[ordinal] = alternative;
+	return ordinal;
+    }
+
+    /**
+     * Releases the ordinal of the given alternative if it is used neither as a row nor as a column. The cells of such
+     * an ordinal are all empty.
+     */
+    private void releaseIfUnused(int ordinal) {
+	if (m_rowCounts[ordinal] == 0 && m_columnCounts[ordinal] == 0) {
+	    m_ordinals.remove(m_keys[ordinal]);
+	    m_keys[ordinal] = null;
+	    m_freeOrdinals.push(Integer.valueOf(ordinal));
+	}
+    }
+
+    /**
+     * Doubles the side of the grid of tiles. Only the references to the tiles are copied.
+     */
+    private void grow() {
+	final int newSide = m_gridSide * 2;
+	final Object[] newTiles = new Object[newSide * newSide];
+	for (int tr = 0; tr < m_gridSide; ++tr) {
+	    System.arraycopy(m_tiles, tr * m_gridSide, newTiles, tr * newSide, m_gridSide);
+	}
+	m_tiles = newTiles;
+	m_gridSide = newSide;
+	final int capacity = newSide * TILE_SIDE;
+	final Alternative[] newKeys = new Alternative[capacity];
+	System.arraycopy(m_keys, 0, newKeys, 0, m_keys.length);
+	m_keys = newKeys;
+	final int[] newRowCounts = new int[capacity];
+	System.arraycopy(m_rowCounts, 0, newRowCounts, 0, m_rowCounts.length);
+	m_rowCounts = newRowCounts;
+	final int[] newColumnCounts = new int[capacity];
+	System.arraycopy(m_columnCounts, 0, newColumnCounts, 0, m_columnCounts.length);
+	m_columnCounts = newColumnCounts;
+    }
+
+    private int getTileIndex(int rowOrdinal, int columnOrdinal) {
+	return (rowOrdinal >>> TILE_SHIFT) * m_gridSide + (columnOrdinal >>> TILE_SHIFT);
+    }
+
+    private static int getCellIndex(int rowOrdinal, int columnOrdinal) {
+	return ((rowOrdinal & TILE_MASK) << TILE_SHIFT) | (columnOrdinal & TILE_MASK);
+    }
+
+    /**
+     * @return NaN iff no value is stored at the given position.
+     */
+    private double read(int rowOrdinal, int columnOrdinal) {
+	final Object tile = m_tiles[getTileIndex(rowOrdinal, columnOrdinal)];
+	if (tile == null) {
+	    return Double.NaN;
+	}
+	final int cell = getCellIndex(rowOrdinal, columnOrdinal);
+	switch (m_precision) {
+	case BYTE:
+	    return decode(((byte[]) tile)[cell] & 0xFF);
+	case SHORT:
+	    return decode(((short[]) tile)[cell] & 0xFFFF);
+	case FLOAT:
+	    return ((float[]) tile)[cell];
+	default:
+	    throw new IllegalStateException();
+	}
+    }
+
+    private double decode(int code) {
+	if (code == 0) {
+	    return Double.NaN;
+	}
+	return (code - 1) / m_levels;
+    }
+
+    /**
+     * @param value
+     *            NaN for removing the value.
+     */
+    private void write(int rowOrdinal, int columnOrdinal, double value) {
+	final int tileIndex = getTileIndex(rowOrdinal, columnOrdinal);
+	Object tile = m_tiles[tileIndex];
+	if (tile == null) {
+	    if (Double.isNaN(value)) {
+		return;
+	    }
+	    tile = newTile();
+	    m_tiles[tileIndex] = tile;
+	}
+	final int cell = getCellIndex(rowOrdinal, columnOrdinal);
+	switch (m_precision) {
+	case BYTE:
+	    ((byte[]) tile)[cell] = (byte) encode(value);
+	    break;
+	case SHORT:
+	    ((short[]) tile)[cell] = (short) encode(value);
+	    break;
+	case FLOAT:
+	    ((float[]) tile)[cell] = (float) value;
+	    break;
+	default:
+	    throw new IllegalStateException();
+	}
+    }
+
+    private int encode(double value) {
+	if (Double.isNaN(value)) {
+	    return 0;
+	}
+	return (int) Math.round(value * m_levels) + 1;
+    }
+
+    private Object newTile() {
+	switch (m_precision) {
+	case BYTE:
+	    return new byte[TILE_SIZE];
+	case SHORT:
+	    return new short[TILE_SIZE];
+	case FLOAT:
+	    final float[] tile = new float[TILE_SIZE];
+	    Arrays.fill(tile, Float.NaN);
+	    return tile;
+	default:
+	    throw new IllegalStateException();
+	}
+    }
+
+    private void onAdded(int rowOrdinal, int columnOrdinal) {
+	if (m_rowCounts[rowOrdinal]++ == 0) {
+	    m_rows.add(m_keys[rowOrdinal]);
+	}
+	if (m_columnCounts[columnOrdinal]++ == 0) {
+	    m_columns.add(m_keys[columnOrdinal]);
+	}
+	++m_valueCount;
+    }
+
+    /**
+     * Must be called after the value has been cleared.
+     */
+    private void onRemoved(int rowOrdinal, int columnOrdinal) {
+	--m_valueCount;
+	if (--m_rowCounts[rowOrdinal] == 0) {
+	    m_rows.remove(m_keys[rowOrdinal]);
+	}
+	if (--m_columnCounts[columnOrdinal] == 0) {
+	    m_columns.remove(m_keys[columnOrdinal]);
+	}
+	releaseIfUnused(rowOrdinal);
+	if (columnOrdinal != rowOrdinal) {
+	    releaseIfUnused(columnOrdinal);
+	}
+    }
+
+    @Override
+    public Double put(Alternative row, Alternative column, double value) {
+	checkNotNull(row);
+	checkNotNull(column);
+	checkArgument(value >= 0d && value <= 1d, "Value " + value + " is not between zero and one.");
+	final int rowOrdinal = getOrCreateOrdinal(row);
+	final int columnOrdinal = getOrCreateOrdinal(column);
+	final double previous = read(rowOrdinal, columnOrdinal);
+	write(rowOrdinal, columnOrdinal, value);
+	if (Double.isNaN(previous)) {
+	    onAdded(rowOrdinal, columnOrdinal);
+	    return null;
+	}
+	return Double.valueOf(previous);
+    }
+
+    @Override
+    public Double remove(Alternative row, Alternative column) {
+	final int rowOrdinal = getOrdinal(row);
+	final int columnOrdinal = getOrdinal(column);
+	if (rowOrdinal < 0 || columnOrdinal < 0) {
+	    return null;
+	}
+	final double previous = read(rowOrdinal, columnOrdinal);
+	if (Double.isNaN(previous)) {
+	    return null;
+	}
+	write(rowOrdinal, columnOrdinal, Double.NaN);
+	onRemoved(rowOrdinal, columnOrdinal);
+	return Double.valueOf(previous);
+    }
+
+    @Override
+    public boolean removeRow(Alternative row) {
+	final int rowOrdinal = getOrdinal(row);
+	if (rowOrdinal < 0 || m_rowCounts[rowOrdinal] == 0) {
+	    return false;
+	}
+	for (int columnOrdinal = 0; columnOrdinal < m_nextOrdinal && m_rowCounts[rowOrdinal] > 0; ++columnOrdinal) {
+	    if (!Double.isNaN(read(rowOrdinal, columnOrdinal))) {
+		write(rowOrdinal, columnOrdinal, Double.NaN);
+		/** Might release the row ordinal, but only when its row count reaches zero, which ends the loop. */
+		onRemoved(rowOrdinal, columnOrdinal);
+	    }
+	}
+	return true;
+    }
+
+    @Override
+    public boolean removeColumn(Alternative column) {
+	final int columnOrdinal = getOrdinal(column);
+	if (columnOrdinal < 0 || m_columnCounts[columnOrdinal] == 0) {
+	    return false;
+	}
+	for (int rowOrdinal = 0; rowOrdinal < m_nextOrdinal && m_columnCounts[columnOrdinal] > 0; ++rowOrdinal) {
+	    if (!Double.isNaN(read(rowOrdinal, columnOrdinal))) {
+		write(rowOrdinal, columnOrdinal, Double.NaN);
+		onRemoved(rowOrdinal, columnOrdinal);
+	    }
+	}
+	return true;
+    }
+
+    @Override
+    public Double getEntry(Alternative row, Alternative column) {
+	final int rowOrdinal = getOrdinal(row);
+	final int columnOrdinal = getOrdinal(column);
+	if (rowOrdinal < 0 || columnOrdinal < 0) {
+	    return null;
+	}
+	final double value = read(rowOrdinal, columnOrdinal);
+	if (Double.isNaN(value)) {
+	    return null;
+	}
+	return Double.valueOf(value);
+    }
+
+    @Override
+    public double getValue(Alternative row, Alternative column) {
+	final int rowOrdinal = getOrdinal(row);
+	final int columnOrdinal = getOrdinal(column);
+	final double value = (rowOrdinal < 0 || columnOrdinal < 0) ? Double.NaN : read(rowOrdinal, columnOrdinal);
+	if (Double.isNaN(value)) {
+	    throw new IllegalArgumentException("No value at " + row + ", " + column + ".");
+	}
+	return value;
+    }
+
+    @Override
+    public Set<Alternative> getRows() {
+	return Collections.unmodifiableSet(m_rows);
+    }
+
+    @Override
+    public Set<Alternative> getColumns() {
+	return Collections.unmodifiableSet(m_columns);
+    }
+
+    @Override
+    public int getValueCount() {
+	return m_valueCount;
+    }
+
+    @Override
+    public boolean isComplete() {
+	return (long) m_valueCount == (long) m_rows.size() * m_columns.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+	return m_valueCount == 0;
+    }
+
+    @Override
+    public boolean approxEquals(SparseMatrixDRead<Alternative, Alternative> m2, double imprecision) {
+	if (m2 == null || m_valueCount != m2.getValueCount() || !m_rows.equals(m2.getRows())
+		|| !m_columns.equals(m2.getColumns())) {
+	    return false;
+	}
+	for (Alternative row : m_rows) {
+	    final int rowOrdinal = getOrdinal(row);
+	    for (Alternative column : m_columns) {
+		final double value = read(rowOrdinal, getOrdinal(column));
+		final Double entry2 = m2.getEntry(row, column);
+		if (Double.isNaN(value) != (entry2 == null)) {
+		    return false;
+		}
+		if (entry2 != null && Math.abs(value - entry2.doubleValue()) > imprecision) {
+		    return false;
+		}
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Retrieves a copy of the contents of this matrix, as a table. The returned table is read-only.
+     */
+    @Override
+    public Table<Alternative, Alternative, Double> asTable() {
+	final Table<Alternative, Alternative, Double> table = HashBasedTable.create(m_rows.size(), m_columns.size());
+	for (Alternative row : m_rows) {
+	    final int rowOrdinal = getOrdinal(row);
+	    for (Alternative column : m_columns) {
+		final double value = read(rowOrdinal, getOrdinal(column));
+		if (!Double.isNaN(value)) {
+		    table.put(row, column, Double.valueOf(value));
+		}
+	    }
+	}
+	return Tables.unmodifiableTable(table);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (this == obj) {
+	    return true;
+	}
+	if (!(obj instanceof SparseMatrixDRead<?, ?>)) {
+	    return false;
+	}
+	final SparseMatrixDRead<?, ?> m2 = (SparseMatrixDRead<?, ?>) obj;
+	if (m_valueCount != m2.getValueCount() || !m_rows.equals(m2.getRows()) || !m_columns.equals(m2.getColumns())) {
+	    return false;
+	}
+	@SuppressWarnings("unchecked")
+	final SparseMatrixDRead<Alternative, Alternative> typed = (SparseMatrixDRead<Alternative, Alternative>) m2;
+	return approxEquals(typed, 0d);
+    }
+
+    @Override
+    public int hashCode() {
+	int hash = 0;
+	for (Alternative row : m_rows) {
+	    final int rowOrdinal = getOrdinal(row);
+	    final int rowHash = row.hashCode();
+	    for (Alternative column : m_columns) {
+		final double value = read(rowOrdinal, getOrdinal(column));
+		if (!Double.isNaN(value)) {
+		    hash += EvaluationsUtils.getCellHash(rowHash, column.hashCode(), value);
+		}
+	    }
+	}
+	return hash;
+    }
+
+    @Override
+    public String toString() {
+	final ToStringHelper helper = Objects.toStringHelper(this);
+	helper.add("Precision", m_precision);
+	helper.add("Rows", m_rows.size());
+	helper.add("Columns", m_columns.size());
+	helper.add("Values", m_valueCount);
+	return helper.toString();
+    }
+}
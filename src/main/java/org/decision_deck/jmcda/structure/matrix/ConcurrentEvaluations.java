@@ -0,0 +1,391 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.utils.matrix.SparseMatrixDRead;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
+
+/**
+ * <p>
+ * A matrix of evaluations which may be read and written concurrently by several threads, without external
+ * synchronization.
+ * </p>
+ * <p>
+ * Each alternative is bound to one of a fixed number of stripes. A stripe has its own lock and its own counts of the
+ * values of its alternatives, in total and by criterion, so that writers modifying alternatives bound to different
+ * stripes do not wait for each other nor update shared counters. Reading a single value (
+ * {@link #getEntry(Alternative, Criterion)}, {@link #getValue(Alternative, Criterion)}) does not lock.
+ * </p>
+ * <p>
+ * The methods observing the matrix as a whole ({@link #getRows()}, {@link #getColumns()}, {@link #getValueCount()},
+ * {@link #isEmpty()}, {@link #isComplete()}, {@link #asTable()}, {@link #getSnapshot()}, {@link #equals(Object)},
+ * {@link #hashCode()}) hold every stripe during their execution, thus they wait for the running modifications to
+ * complete and block new ones, and observe a state of the matrix that existed at some point in time, where each
+ * modification is either completely done or not started. Two such calls may however observe different states: use
+ * {@link #getSnapshot()}, which returns an immutable copy, to observe several aspects of a single state.
+ * </p>
+ * <p>
+ * A single modification is atomic: this includes {@link #putRow(Alternative, Criterion[], double[])} and
+ * {@link #removeRow(Alternative)}. The method {@link #removeColumn(Criterion)} blocks every other modification during
+ * its execution. The methods {@link #putColumn(Criterion, Alternative[], double[])} and
+ * {@link #putAll(EvaluationsRead)} are not atomic: they put the values one row at a time.
+ * </p>
+ * <p>
+ * The sets returned by {@link #getRows()} and {@link #getColumns()} are immutable copies, thus are not affected by
+ * later modifications of this matrix. This matrix does not accept NaN values.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public class ConcurrentEvaluations implements Evaluations {
+    private static final int NB_STRIPES = 64;
+
+    /**
+     * The lock and the counts of the alternatives bound to a stripe. The counts are read and modified only when
+     * holding the lock.
+     */
+    private static class Stripe {
+	public final ReentrantLock m_lock = new ReentrantLock();
+
+	/**
+	 * The number of values of the alternatives of this stripe in each column, only for non-empty columns.
+	 */
+	public final Map<Criterion, int[]> m_columnCounts = Maps.newHashMap();
+
+	public int m_valueCount;
+
+	public void add(Criterion column) {
+	    final int[] count = m_columnCounts.get(column);
+	    if (count == null) {
+		m_columnCounts.put(column, new int[] { 1 });
+	    } else {
+		++count[0];
+	    }
+	    ++m_valueCount;
+	}
+
+	public void remove(Criterion column) {
+	    final int[] count = m_columnCounts.get(column);
+	    if (--count[0] == 0) {
+		m_columnCounts.remove(column);
+	    }
+	    --m_valueCount;
+	}
+    }
+
+    /**
+     * Contains only non-empty rows. A row is added or removed, and its content is modified, only when holding the
+     * stripe of its alternative.
+     */
+    private final ConcurrentHashMap<Alternative, ConcurrentHashMap<Criterion, Double>> m_rows;
+
+    private final Stripe[] m_stripes;
+
+    ConcurrentEvaluations() {
+	m_rows = new ConcurrentHashMap<Alternative, ConcurrentHashMap<Criterion, Double>>();
+	m_stripes = new Stripe[NB_STRIPES];
+	for (int i = 0; i < NB_STRIPES; ++i) {
+	    m_stripes[i] = new Stripe();
+	}
+    }
+
+    private Stripe getStripe(Alternative row) {
+	final int hash = row.hashCode();
+	return m_stripes[(hash ^ (hash >>> 16)) & (NB_STRIPES - 1)];
+    }
+
+    /**
+     * Acquires every stripe, always in the same order.
+     */
+    private void lockAll() {
+	for (Stripe stripe : m_stripes) {
+	    stripe.m_lock.lock();
+	}
+    }
+
+    private void unlockAll() {
+	for (int i = m_stripes.length - 1; i >= 0; --i) {
+	    m_stripes[i].m_lock.unlock();
+	}
+    }
+
+    /**
+     * Puts a value, while holding the given stripe, which is the one of the given row.
+     */
+    private Double putLocked(Stripe stripe, Alternative row, Criterion column, double value) {
+	ConcurrentHashMap<Criterion, Double> rowMap = m_rows.get(row);
+	if (rowMap == null) {
+	    rowMap = new ConcurrentHashMap<Criterion, Double>();
+	    m_rows.put(row, rowMap);
+	}
+	final Double previous = rowMap.put(column, Double.valueOf(value));
+	if (previous == null) {
+	    stripe.add(column);
+	}
+	return previous;
+    }
+
+    /**
+     * Removes a value, while holding the given stripe, which is the one of the given row.
+     */
+    private Double removeLocked(Stripe stripe, Alternative row, Criterion column) {
+	final ConcurrentHashMap<Criterion, Double> rowMap = m_rows.get(row);
+	if (rowMap == null) {
+	    return null;
+	}
+	final Double previous = rowMap.remove(column);
+	if (previous != null) {
+	    stripe.remove(column);
+	    if (rowMap.isEmpty()) {
+		m_rows.remove(row);
+	    }
+	}
+	return previous;
+    }
+
+    @Override
+    public Double put(Alternative row, Criterion column, double value) {
+	checkNotNull(row);
+	checkNotNull(column);
+	checkArgument(!Double.isNaN(value), "NaN values are not accepted.");
+	final Stripe stripe = getStripe(row);
+	stripe.m_lock.lock();
+	try {
+	    return putLocked(stripe, row, column, value);
+	} finally {
+	    stripe.m_lock.unlock();
+	}
+    }
+
+    @Override
+    public void putRow(Alternative row, Criterion[] columns, double[] values) {
+	checkNotNull(row);
+	checkArgument(columns.length == values.length);
+	for (int i = 0; i < columns.length; ++i) {
+	    checkNotNull(columns[i]);
+	    checkArgument(!Double.isNaN(values[i]), "NaN values are not accepted.");
+	}
+	final Stripe stripe = getStripe(row);
+	stripe.m_lock.lock();
+	try {
+	    for (int i = 0; i < columns.length; ++i) {
+		putLocked(stripe, row, columns[i], values[i]);
+	    }
+	} finally {
+	    stripe.m_lock.unlock();
+	}
+    }
+
+    @Override
+    public void putColumn(Criterion column, Alternative[] rows, double[] values) {
+	checkNotNull(column);
+	checkArgument(rows.length == values.length);
+	for (int i = 0; i < rows.length; ++i) {
+	    checkNotNull(rows[i]);
+	    checkArgument(!Double.isNaN(values[i]), "NaN values are not accepted.");
+	}
+	for (int i = 0; i < rows.length; ++i) {
+	    put(rows[i], column, values[i]);
+	}
+    }
+
+    @Override
+    public Double remove(Alternative row, Criterion column) {
+	if (row == null || column == null) {
+	    return null;
+	}
+	final Stripe stripe = getStripe(row);
+	stripe.m_lock.lock();
+	try {
+	    return removeLocked(stripe, row, column);
+	} finally {
+	    stripe.m_lock.unlock();
+	}
+    }
+
+    @Override
+    public boolean removeRow(Alternative row) {
+	if (row == null) {
+	    return false;
+	}
+	final Stripe stripe = getStripe(row);
+	stripe.m_lock.lock();
+	try {
+	    final ConcurrentHashMap<Criterion, Double> rowMap = m_rows.remove(row);
+	    if (rowMap == null) {
+		return false;
+	    }
+	    for (Criterion column : rowMap.keySet()) {
+		stripe.remove(column);
+	    }
+	    return true;
+	} finally {
+	    stripe.m_lock.unlock();
+	}
+    }
+
+    @Override
+    public boolean removeColumn(Criterion column) {
+	if (column == null) {
+	    return false;
+	}
+	lockAll();
+	try {
+	    boolean found = false;
+	    for (Map.Entry<Alternative, ConcurrentHashMap<Criterion, Double>> rowEntry : m_rows.entrySet()) {
+		if (rowEntry.getValue().containsKey(column)) {
+		    removeLocked(getStripe(rowEntry.getKey()), rowEntry.getKey(), column);
+		    found = true;
+		}
+	    }
+	    return found;
+	} finally {
+	    unlockAll();
+	}
+    }
+
+    @Override
+    public Double getEntry(Alternative row, Criterion column) {
+	if (row == null || column == null) {
+	    return null;
+	}
+	final ConcurrentHashMap<Criterion, Double> rowMap = m_rows.get(row);
+	if (rowMap == null) {
+	    return null;
+	}
+	return rowMap.get(column);
+    }
+
+    @Override
+    public double getValue(Alternative row, Criterion column) {
+	final Double entry = getEntry(row, column);
+	if (entry == null) {
+	    throw new IllegalArgumentException("No value at " + row + ", " + column + ".");
+	}
+	return entry.doubleValue();
+    }
+
+    @Override
+    public Set<Alternative> getRows() {
+	lockAll();
+	try {
+	    return ImmutableSet.copyOf(m_rows.keySet());
+	} finally {
+	    unlockAll();
+	}
+    }
+
+    @Override
+    public Set<Criterion> getColumns() {
+	lockAll();
+	try {
+	    final ImmutableSet.Builder<Criterion> columns = ImmutableSet.builder();
+	    for (Stripe stripe : m_stripes) {
+		columns.addAll(stripe.m_columnCounts.keySet());
+	    }
+	    return columns.build();
+	} finally {
+	    unlockAll();
+	}
+    }
+
+    @Override
+    public int getValueCount() {
+	lockAll();
+	try {
+	    int count = 0;
+	    for (Stripe stripe : m_stripes) {
+		count += stripe.m_valueCount;
+	    }
+	    return count;
+	} finally {
+	    unlockAll();
+	}
+    }
+
+    @Override
+    public boolean isComplete() {
+	lockAll();
+	try {
+	    return getValueCount() == (long) m_rows.size() * getColumns().size();
+	} finally {
+	    unlockAll();
+	}
+    }
+
+    @Override
+    public boolean isEmpty() {
+	return getValueCount() == 0;
+    }
+
+    /**
+     * Retrieves an immutable copy of the current content of this matrix. The modifications of this matrix running
+     * concurrently are either entirely seen or not at all in the returned copy.
+     *
+     * @return not {@code null}.
+     */
+    public EvaluationsRead getSnapshot() {
+	lockAll();
+	try {
+	    return EvaluationsUtils.freeze(this);
+	} finally {
+	    unlockAll();
+	}
+    }
+
+    @Override
+    public boolean approxEquals(SparseMatrixDRead<Alternative, Criterion> m2, double imprecision) {
+	return EvaluationsUtils.approxEqual(getSnapshot(), m2, imprecision);
+    }
+
+    @Override
+    public Table<Alternative, Criterion, Double> asTable() {
+	lockAll();
+	try {
+	    final Table<Alternative, Criterion, Double> table = HashBasedTable.create(m_rows.size(), getColumns()
+		    .size());
+	    for (Map.Entry<Alternative, ConcurrentHashMap<Criterion, Double>> rowEntry : m_rows.entrySet()) {
+		table.row(rowEntry.getKey()).putAll(rowEntry.getValue());
+	    }
+	    return Tables.unmodifiableTable(table);
+	} finally {
+	    unlockAll();
+	}
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (this == obj) {
+	    return true;
+	}
+	if (!(obj instanceof EvaluationsRead)) {
+	    return false;
+	}
+	return EvaluationsUtils.getEquivalence().equivalent(getSnapshot(), (EvaluationsRead) obj);
+    }
+
+    @Override
+    public int hashCode() {
+	return EvaluationsUtils.getEquivalence().hash(getSnapshot());
+    }
+
+    @Override
+    public String toString() {
+	return Objects.toStringHelper(this).add("Rows", m_rows.size()).add("Values", getValueCount()).toString();
+    }
+}
@@ -0,0 +1,630 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.utils.matrix.SparseMatrixDRead;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Objects.ToStringHelper;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
+
+/**
+ * <p>
+ * A matrix of evaluations storing its values in a single primitive array, row by row, where each alternative (row) and
+ * each criterion (column) is bound to an ordinal, i.e., an index in that array. An absent value is represented
+ * internally by a NaN, thus this matrix does not accept NaN values.
+ * </p>
+ * <p>
+ * This implementation is appropriate for matrices which are complete or nearly complete, as it uses one
+ * {@code double} per (alternative, criterion) pair, whether a value is present or not. It is not appropriate for very
+ * sparse matrices. Ordinals of rows and columns that become empty are reused by rows and columns that are added later.
+ * </p>
+ * <p>
+ * The iteration order of the rows and columns sets is the order in which they have been added to this matrix.
+ * </p>
+ * <p>
+ * Two matrices are considered equal iff they contain the same values at the same positions, independently of their
+ * implementations. The hash code is the one of the table containing the same values (see {@link Table#hashCode()}).
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public class DenseEvaluations implements Evaluations, VersionedEvaluationsRead {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The values, row-major, with a row length equal to the columns capacity (the length of {@link #m_columnKeys}). A
+     * NaN value means no value. Never {@code null}.
+     */
+    double[] m_values;
+
+    /**
+     * The alternatives having at least one value, bound to their ordinal. Iteration order is the order of addition.
+     */
+    final Map<Alternative, Integer> m_rowOrdinals;
+
+    /**
+     * The criteria having at least one value, bound to their ordinal. Iteration order is the order of addition.
+     */
+    final Map<Criterion, Integer> m_columnOrdinals;
+
+    /**
+     * The alternative bound to each ordinal, {@code null} for unused ordinals. The length of this array is the row
+     * capacity.
+     */
+    Alternative[] m_rowKeys;
+
+    /**
+     * The criterion bound to each ordinal, {@code null} for unused ordinals. The length of this array is the column
+     * capacity, and the length of one row in {@link #m_values}.
+     */
+    Criterion[] m_columnKeys;
+
+    /**
+     * Number of values in each row, indexed by row ordinal.
+     */
+    private int[] m_rowCounts;
+
+    /**
+     * Number of values in each column, indexed by column ordinal.
+     */
+    private int[] m_columnCounts;
+
+    /**
+     * Row ordinals which have been used and are now free. Ordinals not yet used are the ones at least equal to
+     * {@link #m_nextRow}.
+     */
+    private final Deque<Integer> m_freeRows = new ArrayDeque<Integer>();
+
+    private final Deque<Integer> m_freeColumns = new ArrayDeque<Integer>();
+
+    private int m_nextRow;
+
+    private int m_nextColumn;
+
+    private int m_valueCount;
+
+    /**
+     * Increased at each modification.
+     */
+    private long m_version;
+
+    /**
+     * Creates a new, empty, matrix, with space reserved for the given number of alternatives and criteria. The
+     * capacities are only hints: this matrix grows as required.
+     *
+     * @param alternativesCapacity
+     *            at least zero.
+     * @param criteriaCapacity
+     *            at least zero.
+     */
+    DenseEvaluations(int alternativesCapacity, int criteriaCapacity) {
+	checkArgument(alternativesCapacity >= 0);
+	checkArgument(criteriaCapacity >= 0);
+	m_rowOrdinals = Maps.newLinkedHashMap();
+	m_columnOrdinals = Maps.newLinkedHashMap();
+	m_rowKeys = new Alternative[alternativesCapacity];
+	m_columnKeys = new Criterion[criteriaCapacity];
+	m_rowCounts = new int[alternativesCapacity];
+	m_columnCounts = new int[criteriaCapacity];
+	m_values = new double[alternativesCapacity * criteriaCapacity];
+	Arrays.fill(m_values, Double.NaN);
+	m_nextRow = 0;
+	m_nextColumn = 0;
+	m_valueCount = 0;
+    }
+
+    DenseEvaluations() {
+	this(DEFAULT_CAPACITY, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a matrix containing the given values. The given arrays are used directly, not copied, and must not be
+     * used by the caller afterwards.
+     *
+     * @param rows
+     *            not {@code null}, no duplicates, no {@code null} elements; each row must have at least one value.
+     * @param columns
+     *            not {@code null}, no duplicates, no {@code null} elements; each column must have at least one value.
+     * @param values
+     *            not {@code null}, row-major, of length the number of rows times the number of columns, with NaN
+     *            representing an absent value.
+     */
+    DenseEvaluations(Alternative[] rows, Criterion[] columns, double[] values) {
+	checkArgument(values.length == rows.length * columns.length);
+	m_rowOrdinals = Maps.newLinkedHashMap();
+	m_columnOrdinals = Maps.newLinkedHashMap();
+	m_rowKeys = rows;
+	m_columnKeys = columns;
+	m_rowCounts = new int[rows.length];
+	m_columnCounts = new int[columns.length];
+	m_values = values;
+	int valueCount = 0;
+	for (int r = 0; r < rows.length; ++r) {
+	    final int offset = r * columns.length;
+	    for (int c = 0; c < columns.length; ++c) {
+		if (!Double.isNaN(values[offset + c])) {
+		    ++m_rowCounts[r];
+		    ++m_columnCounts[c];
+		    ++valueCount;
+		}
+	    }
+	    checkArgument(m_rowCounts[r] > 0, "Row " + rows[r] + " has no value.");
+	    checkArgument(m_rowOrdinals.put(checkNotNull(rows[r]), Integer.valueOf(r)) == null, "Duplicate row "
+		    + rows[r] + ".");
+	}
+	for (int c = 0; c < columns.length; ++c) {
+	    checkArgument(m_columnCounts[c] > 0, "Column " + columns[c] + " has no value.");
+	    checkArgument(m_columnOrdinals.put(checkNotNull(columns[c]), Integer.valueOf(c)) == null,
+		    "Duplicate column " + columns[c] + ".");
+	}
+	m_nextRow = rows.length;
+	m_nextColumn = columns.length;
+	m_valueCount = valueCount;
+    }
+
+    @Override
+    public Double put(Alternative row, Criterion column, double value) {
+	checkNotNull(row);
+	checkNotNull(column);
+	checkArgument(!Double.isNaN(value), "NaN values are not accepted.");
+	final int columnOrdinal = getOrCreateColumnOrdinal(column);
+	final int rowOrdinal = getOrCreateRowOrdinal(row);
+	final int index = rowOrdinal * m_columnKeys.length + columnOrdinal;
+	final double previous = m_values[index];
+	m_values[index] = value;
+	++m_version;
+	if (Double.isNaN(previous)) {
+	    ++m_rowCounts[rowOrdinal];
+	    ++m_columnCounts[columnOrdinal];
+	    ++m_valueCount;
+	    return null;
+	}
+	return Double.valueOf(previous);
+    }
+
+    /**
+     * Sets the value at the given position, without returning the previous value. The given ordinals must be in use.
+     */
+    private void set(int rowOrdinal, int columnOrdinal, double value) {
+	final int index = rowOrdinal * m_columnKeys.length + columnOrdinal;
+	if (Double.isNaN(m_values[index])) {
+	    ++m_rowCounts[rowOrdinal];
+	    ++m_columnCounts[columnOrdinal];
+	    ++m_valueCount;
+	}
+	m_values[index] = value;
+	++m_version;
+    }
+
+    /**
+     * Does not allocate memory, except when new rows or columns are added and this matrix must grow.
+     */
+    @Override
+    public void putRow(Alternative row, Criterion[] columns, double[] values) {
+	checkNotNull(row);
+	checkArgument(columns.length == values.length);
+	/** Validates everything before modifying anything. */
+	for (int i = 0; i < values.length; ++i) {
+	    checkNotNull(columns[i]);
+	    checkArgument(!Double.isNaN(values[i]), "NaN values are not accepted.");
+	}
+	if (columns.length == 0) {
+	    return;
+	}
+	final int rowOrdinal = getOrCreateRowOrdinal(row);
+	for (int i = 0; i < columns.length; ++i) {
+	    set(rowOrdinal, getOrCreateColumnOrdinal(columns[i]), values[i]);
+	}
+    }
+
+    /**
+     * Does not allocate memory, except when new rows or columns are added and this matrix must grow.
+     */
+    @Override
+    public void putColumn(Criterion column, Alternative[] rows, double[] values) {
+	checkNotNull(column);
+	checkArgument(rows.length == values.length);
+	/** Validates everything before modifying anything. */
+	for (int i = 0; i < values.length; ++i) {
+	    checkNotNull(rows[i]);
+	    checkArgument(!Double.isNaN(values[i]), "NaN values are not accepted.");
+	}
+	if (rows.length == 0) {
+	    return;
+	}
+	final int columnOrdinal = getOrCreateColumnOrdinal(column);
+	for (int i = 0; i < rows.length; ++i) {
+	    set(getOrCreateRowOrdinal(rows[i]), columnOrdinal, values[i]);
+	}
+    }
+
+    /**
+     * When the given source is also a {@link DenseEvaluations}, values are copied without boxing.
+     */
+    @Override
+    public void putAll(EvaluationsRead source) {
+	checkNotNull(source);
+	if (source == this) {
+	    return;
+	}
+	if (source instanceof DenseEvaluations) {
+	    putAllDense((DenseEvaluations) source);
+	    return;
+	}
+	for (Criterion criterion : source.getColumns()) {
+	    int columnOrdinal = -1;
+	    for (Alternative alternative : source.getRows()) {
+		final Double entry = source.getEntry(alternative, criterion);
+		if (entry == null) {
+		    continue;
+		}
+		final double value = entry.doubleValue();
+		checkArgument(!Double.isNaN(value), "NaN values are not accepted.");
+		if (columnOrdinal < 0) {
+		    columnOrdinal = getOrCreateColumnOrdinal(criterion);
+		}
+		set(getOrCreateRowOrdinal(alternative), columnOrdinal, value);
+	    }
+	}
+    }
+
+    private void putAllDense(DenseEvaluations source) {
+	final int sourceStride = source.m_columnKeys.length;
+	/** Maps source column ordinals to ordinals in this matrix. */
+	final int[] columnOrdinals = new int[sourceStride];
+	for (Map.Entry<Criterion, Integer> columnEntry : source.m_columnOrdinals.entrySet()) {
+	    columnOrdinals[columnEntry.getValue().intValue()] = getOrCreateColumnOrdinal(columnEntry.getKey());
+	}
+	for (Map.Entry<Alternative, Integer> rowEntry : source.m_rowOrdinals.entrySet()) {
+	    final int rowOrdinal = getOrCreateRowOrdinal(rowEntry.getKey());
+	    final int sourceRowStart = rowEntry.getValue().intValue() * sourceStride;
+	    for (int c = 0; c < sourceStride; ++c) {
+		final double value = source.m_values[sourceRowStart + c];
+		if (!Double.isNaN(value)) {
+		    set(rowOrdinal, columnOrdinals[c], value);
+		}
+	    }
+	}
+    }
+
+    @Override
+    public Double remove(Alternative row, Criterion column) {
+	final Integer rowOrdinal = m_rowOrdinals.get(row);
+	final Integer columnOrdinal = m_columnOrdinals.get(column);
+	if (rowOrdinal == null || columnOrdinal == null) {
+	    return null;
+	}
+	final int index = rowOrdinal.intValue() * m_columnKeys.length + columnOrdinal.intValue();
+	final double previous = m_values[index];
+	if (Double.isNaN(previous)) {
+	    return null;
+	}
+	clear(rowOrdinal.intValue(), columnOrdinal.intValue());
+	return Double.valueOf(previous);
+    }
+
+    @Override
+    public boolean removeRow(Alternative row) {
+	final Integer rowOrdinal = m_rowOrdinals.get(row);
+	if (rowOrdinal == null) {
+	    return false;
+	}
+	final int r = rowOrdinal.intValue();
+	final int stride = m_columnKeys.length;
+	for (int c = 0; c < stride && m_rowCounts[r] > 0; ++c) {
+	    if (!Double.isNaN(m_values[r * stride + c])) {
+		clear(r, c);
+	    }
+	}
+	assert !m_rowOrdinals.containsKey(row);
+	return true;
+    }
+
+    @Override
+    public boolean removeColumn(Criterion column) {
+	final Integer columnOrdinal = m_columnOrdinals.get(column);
+	if (columnOrdinal == null) {
+	    return false;
+	}
+	final int c = columnOrdinal.intValue();
+	final int stride = m_columnKeys.length;
+	for (int r = 0; r < m_rowKeys.length && m_columnCounts[c] > 0; ++r) {
+	    if (!Double.isNaN(m_values[r * stride + c])) {
+		clear(r, c);
+	    }
+	}
+	assert !m_columnOrdinals.containsKey(column);
+	return true;
+    }
+
+    /**
+     * Removes the value at the given position, which must be present, and releases the corresponding row and column
+     * ordinals if they become empty.
+     */
+    private void clear(int rowOrdinal, int columnOrdinal) {
+	m_values[rowOrdinal * m_columnKeys.length + columnOrdinal] = Double.NaN;
+	++m_version;
+	--m_valueCount;
+	--m_rowCounts[rowOrdinal];
+	--m_columnCounts[columnOrdinal];
+	if (m_rowCounts[rowOrdinal] == 0) {
+	    m_rowOrdinals.remove(m_rowKeys[rowOrdinal]);
+	    m_rowKeys[rowOrdinal] = null;
+	    m_freeRows.push(Integer.valueOf(rowOrdinal));
+	}
+	if (m_columnCounts[columnOrdinal] == 0) {
+	    m_columnOrdinals.remove(m_columnKeys[columnOrdinal]);
+	    m_columnKeys[columnOrdinal] = null;
+	    m_freeColumns.push(Integer.valueOf(columnOrdinal));
+	}
+    }
+
+    private int getOrCreateRowOrdinal(Alternative row) {
+	final Integer existing = m_rowOrdinals.get(row);
+	if (existing != null) {
+	    return existing.intValue();
+	}
+	final int ordinal;
+	if (!m_freeRows.isEmpty()) {
+	    ordinal = m_freeRows.pop().intValue();
+	} else {
+	    if (m_nextRow == m_rowKeys.length) {
+		growRows();
+	    }
+	    ordinal = m_nextRow;
+	    ++m_nextRow;
+	}
+	m_rowKeys[ordinal] = row;
+	m_rowOrdinals.put(row, Integer.valueOf(ordinal));
+	return ordinal;
+    }
+
+    private int getOrCreateColumnOrdinal(Criterion column) {
+	final Integer existing = m_columnOrdinals.get(column);
+	if (existing != null) {
+	    return existing.intValue();
+	}
+	final int ordinal;
+	if (!m_freeColumns.isEmpty()) {
+	    ordinal = m_freeColumns.pop().intValue();
+	} else {
+	    if (m_nextColumn == m_columnKeys.length) {
+		growColumns();
+	    }
+	    ordinal = m_nextColumn;
+	    ++m_nextColumn;
+	}
+	m_columnKeys[ordinal] = column;
+	m_columnOrdinals.put(column, Integer.valueOf(ordinal));
+	return ordinal;
+    }
+
+    private void growRows() {
+	final int oldCapacity = m_rowKeys.length;
+	final int newCapacity = Math.max(DEFAULT_CAPACITY, oldCapacity + (oldCapacity >> 1));
+	final int stride = m_columnKeys.length;
+	m_rowKeys = Arrays.copyOf(m_rowKeys, newCapacity);
+	m_rowCounts = Arrays.copyOf(m_rowCounts, newCapacity);
+	m_values = Arrays.copyOf(m_values, newCapacity * stride);
+	Arrays.fill(m_values, oldCapacity * stride, newCapacity * stride, Double.NaN);
+    }
+
+    /**
+     * Changes the length of the rows, thus moves every value.
+     */
+    private void growColumns() {
+	final int oldStride = m_columnKeys.length;
+	final int newStride = Math.max(DEFAULT_CAPACITY, oldStride + (oldStride >> 1));
+	final int rowCapacity = m_rowKeys.length;
+	final double[] newValues = new double[rowCapacity * newStride];
+	Arrays.fill(newValues, Double.NaN);
+	for (int r = 0; r < rowCapacity; ++r) {
+	    System.arraycopy(m_values, r * oldStride, newValues, r * newStride, oldStride);
+	}
+	m_values = newValues;
+	m_columnKeys = Arrays.copyOf(m_columnKeys, newStride);
+	m_columnCounts = Arrays.copyOf(m_columnCounts, newStride);
+    }
+
+    @Override
+    public Double getEntry(Alternative row, Criterion column) {
+	final Integer rowOrdinal = m_rowOrdinals.get(row);
+	final Integer columnOrdinal = m_columnOrdinals.get(column);
+	if (rowOrdinal == null || columnOrdinal == null) {
+	    return null;
+	}
+	final double value = m_values[rowOrdinal.intValue() * m_columnKeys.length + columnOrdinal.intValue()];
+	if (Double.isNaN(value)) {
+	    return null;
+	}
+	return Double.valueOf(value);
+    }
+
+    @Override
+    public double getValue(Alternative row, Criterion column) {
+	final Integer rowOrdinal = m_rowOrdinals.get(row);
+	final Integer columnOrdinal = m_columnOrdinals.get(column);
+	final double value = (rowOrdinal == null || columnOrdinal == null) ? Double.NaN : m_values[rowOrdinal
+		.intValue() * m_columnKeys.length + columnOrdinal.intValue()];
+	if (Double.isNaN(value)) {
+	    throw new IllegalArgumentException("No value at " + row + ", " + column + ".");
+	}
+	return value;
+    }
+
+    @Override
+    public Set<Alternative> getRows() {
+	return Collections.unmodifiableSet(m_rowOrdinals.keySet());
+    }
+
+    @Override
+    public Set<Criterion> getColumns() {
+	return Collections.unmodifiableSet(m_columnOrdinals.keySet());
+    }
+
+    @Override
+    public int getValueCount() {
+	return m_valueCount;
+    }
+
+    @Override
+    public long getVersion() {
+	return m_version;
+    }
+
+    /**
+     * This matrix does not record its changes.
+     * 
+     * @return {@code null}.
+     */
+    @Override
+    public List<EvaluationChange> getChangesSince(long version) {
+	checkArgument(version <= m_version);
+	return null;
+    }
+
+    @Override
+    public boolean isComplete() {
+	return m_valueCount == m_rowOrdinals.size() * m_columnOrdinals.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+	return m_valueCount == 0;
+    }
+
+    @Override
+    public boolean approxEquals(SparseMatrixDRead<Alternative, Criterion> m2, double imprecision) {
+	if (m2 == null) {
+	    return false;
+	}
+	if (m2 == this) {
+	    return true;
+	}
+	if (m2 instanceof EvaluationsRead) {
+	    return EvaluationsComparisons.equal(this, (EvaluationsRead) m2, imprecision, false);
+	}
+	if (m_valueCount != m2.getValueCount()) {
+	    return false;
+	}
+	if (!getRows().equals(m2.getRows()) || !getColumns().equals(m2.getColumns())) {
+	    return false;
+	}
+	final int stride = m_columnKeys.length;
+	for (Map.Entry<Alternative, Integer> rowEntry : m_rowOrdinals.entrySet()) {
+	    final int rowStart = rowEntry.getValue().intValue() * stride;
+	    for (Map.Entry<Criterion, Integer> columnEntry : m_columnOrdinals.entrySet()) {
+		final double value = m_values[rowStart + columnEntry.getValue().intValue()];
+		final Double value2 = m2.getEntry(rowEntry.getKey(), columnEntry.getKey());
+		if (Double.isNaN(value) != (value2 == null)) {
+		    return false;
+		}
+		if (value2 != null && Math.abs(value - value2.doubleValue()) > imprecision) {
+		    return false;
+		}
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Retrieves a copy of the contents of this matrix, as a table. The returned table is read-only and is not a view:
+     * it does not reflect later changes to this matrix.
+     */
+    @Override
+    public Table<Alternative, Criterion, Double> asTable() {
+	final Table<Alternative, Criterion, Double> table = HashBasedTable.create(m_rowOrdinals.size(),
+		m_columnOrdinals.size());
+	final int stride = m_columnKeys.length;
+	for (Map.Entry<Alternative, Integer> rowEntry : m_rowOrdinals.entrySet()) {
+	    final int rowStart = rowEntry.getValue().intValue() * stride;
+	    for (Map.Entry<Criterion, Integer> columnEntry : m_columnOrdinals.entrySet()) {
+		final double value = m_values[rowStart + columnEntry.getValue().intValue()];
+		if (!Double.isNaN(value)) {
+		    table.put(rowEntry.getKey(), columnEntry.getKey(), Double.valueOf(value));
+		}
+	    }
+	}
+	return Tables.unmodifiableTable(table);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (this == obj) {
+	    return true;
+	}
+	if (obj instanceof EvaluationsRead) {
+	    return EvaluationsComparisons.equal(this, (EvaluationsRead) obj, 0d, true);
+	}
+	if (!(obj instanceof SparseMatrixDRead<?, ?>)) {
+	    return false;
+	}
+	final SparseMatrixDRead<?, ?> m2 = (SparseMatrixDRead<?, ?>) obj;
+	if (m_valueCount != m2.getValueCount()) {
+	    return false;
+	}
+	if (!getRows().equals(m2.getRows()) || !getColumns().equals(m2.getColumns())) {
+	    return false;
+	}
+	@SuppressWarnings("unchecked")
+	final SparseMatrixDRead<Alternative, Criterion> m2Typed = (SparseMatrixDRead<Alternative, Criterion>) m2;
+	final int stride = m_columnKeys.length;
+	for (Map.Entry<Alternative, Integer> rowEntry : m_rowOrdinals.entrySet()) {
+	    final int rowStart = rowEntry.getValue().intValue() * stride;
+	    for (Map.Entry<Criterion, Integer> columnEntry : m_columnOrdinals.entrySet()) {
+		final double value = m_values[rowStart + columnEntry.getValue().intValue()];
+		final Double value2 = m2Typed.getEntry(rowEntry.getKey(), columnEntry.getKey());
+		if (Double.isNaN(value)) {
+		    if (value2 != null) {
+			return false;
+		    }
+		} else if (value2 == null || Double.doubleToLongBits(value) != Double.doubleToLongBits(value2.doubleValue())) {
+		    return false;
+		}
+	    }
+	}
+	return true;
+    }
+
+    @Override
+    public int hashCode() {
+	int hash = 0;
+	final int stride = m_columnKeys.length;
+	for (Map.Entry<Alternative, Integer> rowEntry : m_rowOrdinals.entrySet()) {
+	    final int rowStart = rowEntry.getValue().intValue() * stride;
+	    final int rowHash = rowEntry.getKey().hashCode();
+	    for (Map.Entry<Criterion, Integer> columnEntry : m_columnOrdinals.entrySet()) {
+		final double value = m_values[rowStart + columnEntry.getValue().intValue()];
+		if (!Double.isNaN(value)) {
+		    hash += EvaluationsUtils.getCellHash(rowHash, columnEntry.getKey().hashCode(), value);
+		}
+	    }
+	}
+	return hash;
+    }
+
+    @Override
+    public String toString() {
+	final ToStringHelper helper = Objects.toStringHelper(this);
+	helper.add("Rows", m_rowOrdinals.size());
+	helper.add("Columns", m_columnOrdinals.size());
+	helper.add("Values", m_valueCount);
+	return helper.toString();
+    }
+}
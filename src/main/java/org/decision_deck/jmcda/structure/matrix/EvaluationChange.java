@@ -0,0 +1,114 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+
+import com.google.common.base.Objects;
+
+/**
+ * <p>
+ * A change of one evaluation in a matrix of evaluations: the position of the change, the value before and after the
+ * change, and the version of the matrix resulting from the change (see {@link VersionedEvaluationsRead}).
+ * </p>
+ * <p>
+ * Objects of this class are immutable.
+ * </p>
+ * 
+ * @author Olivier Cailloux
+ * 
+ */
+public class EvaluationChange {
+    private final Alternative m_alternative;
+
+    private final Criterion m_criterion;
+
+    private final Double m_oldValue;
+
+    private final Double m_newValue;
+
+    private final long m_version;
+
+    /**
+     * @param alternative
+     *            not {@code null}.
+     * @param criterion
+     *            not {@code null}.
+     * @param oldValue
+     *            {@code null} iff there was no value.
+     * @param newValue
+     *            {@code null} iff there is no value any more.
+     * @param version
+     *            the version of the matrix after the change.
+     */
+    public EvaluationChange(Alternative alternative, Criterion criterion, Double oldValue, Double newValue,
+	    long version) {
+	checkNotNull(alternative);
+	checkNotNull(criterion);
+	checkArgument(oldValue != null || newValue != null);
+	m_alternative = alternative;
+	m_criterion = criterion;
+	m_oldValue = oldValue;
+	m_newValue = newValue;
+	m_version = version;
+    }
+
+    /**
+     * @return not {@code null}.
+     */
+    public Alternative getAlternative() {
+	return m_alternative;
+    }
+
+    /**
+     * @return not {@code null}.
+     */
+    public Criterion getCriterion() {
+	return m_criterion;
+    }
+
+    /**
+     * @return {@code null} iff there was no value at this position before the change.
+     */
+    public Double getOldValue() {
+	return m_oldValue;
+    }
+
+    /**
+     * @return {@code null} iff there is no value at this position after the change.
+     */
+    public Double getNewValue() {
+	return m_newValue;
+    }
+
+    /**
+     * @return the version of the matrix resulting from this change.
+     */
+    public long getVersion() {
+	return m_version;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (!(obj instanceof EvaluationChange)) {
+	    return false;
+	}
+	final EvaluationChange c2 = (EvaluationChange) obj;
+	return m_alternative.equals(c2.m_alternative) && m_criterion.equals(c2.m_criterion)
+		&& Objects.equal(m_oldValue, c2.m_oldValue) && Objects.equal(m_newValue, c2.m_newValue)
+		&& m_version == c2.m_version;
+    }
+
+    @Override
+    public int hashCode() {
+	return Objects.hashCode(m_alternative, m_criterion, m_oldValue, m_newValue, Long.valueOf(m_version));
+    }
+
+    @Override
+    public String toString() {
+	return Objects.toStringHelper(this).add("Alternative", m_alternative).add("Criterion", m_criterion)
+		.add("Old", m_oldValue).add("New", m_newValue).add("Version", m_version).toString();
+    }
+}
@@ -1,5 +1,7 @@
 package org.decision_deck.jmcda.structure.matrix;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import org.decision_deck.jmcda.structure.Alternative;
 import org.decision_deck.jmcda.structure.Criterion;
 import org.decision_deck.utils.matrix.ForwardingSparseMatrix;
@@ -11,6 +13,11 @@ import org.decision_deck.utils.matrix.SparseMatrixD;
  * A matrix which is able to store, at specific positions given by an alternative (as the row) and a criterion (as the
  * column), an evaluation of how the given alternative performs from the point of view of the given criterion.
  * </p>
+ * <p>
+ * This class does not expose a version (see {@link VersionedEvaluationsRead}), as an object of this class may be built
+ * by reference to an existing matrix, whose direct modifications it could not see. The matrices returned by
+ * {@link EvaluationsUtils#newEvaluationMatrix()} own their storage and do expose a version.
+ * </p>
  * 
  * @author Olivier Cailloux
  * 
@@ -30,4 +37,13 @@ public class EvaluationMatrixImpl extends ForwardingSparseMatrix<Alternative, Cr
     public EvaluationMatrixImpl(SparseMatrixD<Alternative, Criterion> matrix) {
 	super(matrix);
     }
+
+    @Override
+    public void putAll(EvaluationsRead source) {
+	checkNotNull(source);
+	if (source == this) {
+	    return;
+	}
+	Matrixes.putAll(source, this);
+    }
 }
@@ -1,5 +1,8 @@
 package org.decision_deck.jmcda.structure.matrix;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import org.decision_deck.jmcda.structure.Alternative;
 import org.decision_deck.jmcda.structure.Criterion;
 import org.decision_deck.utils.matrix.SparseMatrixD;
@@ -11,5 +14,70 @@ import org.decision_deck.utils.matrix.SparseMatrixD;
  * 
  */
 public interface Evaluations extends SparseMatrixD<Alternative, Criterion>, EvaluationsRead {
-    /** Nothing more. */
+    /**
+     * Sets the evaluations of the given alternative on the given criteria. This is equivalent to calling
+     * {@link #put(Object, Object, double)} for each given criterion, but implementations may perform this more
+     * efficiently, notably as the previous values are not returned. The default implementation calls
+     * {@link #put(Object, Object, double)} for each value.
+     * 
+     * @param row
+     *            not {@code null}.
+     * @param columns
+     *            not {@code null}, no {@code null} elements.
+     * @param values
+     *            not {@code null}, the values to associate to the given criteria, in the same order, thus has the same
+     *            length as the given criteria array.
+     */
+    public default void putRow(Alternative row, Criterion[] columns, double[] values) {
+	checkNotNull(row);
+	checkArgument(columns.length == values.length);
+	for (int i = 0; i < columns.length; ++i) {
+	    put(row, columns[i], values[i]);
+	}
+    }
+
+    /**
+     * Sets the evaluations of the given alternatives on the given criterion. This is equivalent to calling
+     * {@link #put(Object, Object, double)} for each given alternative, but implementations may perform this more
+     * efficiently, notably as the previous values are not returned. The default implementation calls
+     * {@link #put(Object, Object, double)} for each value.
+     * 
+     * @param column
+     *            not {@code null}.
+     * @param rows
+     *            not {@code null}, no {@code null} elements.
+     * @param values
+     *            not {@code null}, the values to associate to the given alternatives, in the same order, thus has the
+     *            same length as the given alternatives array.
+     */
+    public default void putColumn(Criterion column, Alternative[] rows, double[] values) {
+	checkNotNull(column);
+	checkArgument(rows.length == values.length);
+	for (int i = 0; i < rows.length; ++i) {
+	    put(rows[i], column, values[i]);
+	}
+    }
+
+    /**
+     * Copies every value from the given source into this matrix, replacing the values possibly existing at the same
+     * positions. Values in this matrix whose position does not exist in the given source are left untouched. The default
+     * implementation calls {@link #put(Object, Object, double)} for each value of the source.
+     * 
+     * @param source
+     *            not {@code null}.
+     */
+    public default void putAll(EvaluationsRead source) {
+	checkNotNull(source);
+	if (source == this) {
+	    return;
+	}
+	for (Alternative row : source.getRows()) {
+	    for (Criterion column : source.getColumns()) {
+		final Double entry = source.getEntry(row, column);
+		if (entry != null) {
+		    put(row, column, entry.doubleValue());
+		}
+	    }
+	}
+    }
 }
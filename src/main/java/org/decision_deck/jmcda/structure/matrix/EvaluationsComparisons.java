@@ -0,0 +1,408 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * <p>
+ * Compares matrices of evaluations value by value. The shapes (value counts, then rows and columns) are compared
+ * first. Then, when both matrices store their values in primitive arrays ({@link DenseEvaluations}, matrices returned
+ * by {@link EvaluationsUtils#freeze(EvaluationsRead)}, {@link ColumnarEvaluations}), the arrays are compared directly,
+ * the positions of the rows and columns being resolved once per row or column instead of once per value. Comparisons
+ * stop at the first difference. Large matrices are compared in parallel, using the common fork-join pool.
+ * </p>
+ * <p>
+ * Two values are the same iff both are absent or both are present and, for exact comparisons, have the same bits (as
+ * {@link Double#equals(Object)}), or for approximate comparisons, differ by at most the given imprecision.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+class EvaluationsComparisons {
+    /**
+     * Number of cells from which a comparison is run in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 18;
+
+    /**
+     * Bound on the absolute value of the quantized values used for bucketing, small enough that the sum of the quanta
+     * of a matrix does not overflow.
+     */
+    private static final double MAX_QUANTUM = 1 << 30;
+
+    /**
+     * A view of a matrix stored row-major in a primitive array, NaN representing absent values.
+     */
+    private static abstract class RowMajor {
+	public final double[] m_values;
+
+	public RowMajor(double[] values) {
+	    m_values = values;
+	}
+
+	/**
+	 * @return the index in the values of the start of the given row, which must be in the matrix.
+	 */
+	public abstract int getRowStart(Alternative row);
+
+	/**
+	 * @return the offset in a row of the given column, which must be in the matrix.
+	 */
+	public abstract int getColumnOffset(Criterion column);
+    }
+
+    private EvaluationsComparisons() {
+	/** Static methods only. */
+    }
+
+    /**
+     * @return {@code null} iff the given matrix is not stored row-major.
+     */
+    private static RowMajor asRowMajor(EvaluationsRead matrix) {
+	if (matrix instanceof DenseEvaluations) {
+	    final DenseEvaluations dense = (DenseEvaluations) matrix;
+	    final int stride = dense.m_columnKeys.length;
+	    return new RowMajor(dense.m_values) {
+		@Override
+		public int getRowStart(Alternative row) {
+		    return dense.m_rowOrdinals.get(row).intValue() * stride;
+		}
+
+		@Override
+		public int getColumnOffset(Criterion column) {
+		    return dense.m_columnOrdinals.get(column).intValue();
+		}
+	    };
+	}
+	if (matrix instanceof FrozenEvaluations) {
+	    final FrozenEvaluations frozen = (FrozenEvaluations) matrix;
+	    final int stride = frozen.m_columns.length;
+	    return new RowMajor(frozen.m_values) {
+		@Override
+		public int getRowStart(Alternative row) {
+		    return Arrays.binarySearch(frozen.m_rows, row) * stride;
+		}
+
+		@Override
+		public int getColumnOffset(Criterion column) {
+		    return Arrays.binarySearch(frozen.m_columns, column);
+		}
+	    };
+	}
+	return null;
+    }
+
+    static boolean same(double value1, double value2, double imprecision, boolean exact) {
+	if (exact) {
+	    return Double.doubleToLongBits(value1) == Double.doubleToLongBits(value2);
+	}
+	if (Double.isNaN(value1) != Double.isNaN(value2)) {
+	    return false;
+	}
+	return !(Math.abs(value1 - value2) > imprecision);
+    }
+
+    /**
+     * @param imprecision
+     *            ignored if exact.
+     * @param exact
+     *            <code>true</code> to compare the values exactly.
+     * @return <code>true</code> iff the given matrices have the same rows and columns and the same values at the same
+     *         positions.
+     */
+    static boolean equal(EvaluationsRead m1, EvaluationsRead m2, double imprecision, boolean exact) {
+	if (m1 == m2) {
+	    return true;
+	}
+	if (m1.getValueCount() != m2.getValueCount() || m1.getRows().size() != m2.getRows().size()
+		|| m1.getColumns().size() != m2.getColumns().size()) {
+	    return false;
+	}
+	if (!m1.getRows().equals(m2.getRows()) || !m1.getColumns().equals(m2.getColumns())) {
+	    return false;
+	}
+	if (m1 instanceof FrozenEvaluations && m2 instanceof FrozenEvaluations) {
+	    /** Same sets of rows and columns, thus same sorted arrays: the values are aligned. */
+	    return equalArrays(((FrozenEvaluations) m1).m_values, ((FrozenEvaluations) m2).m_values, imprecision,
+		    exact);
+	}
+	final RowMajor r1 = asRowMajor(m1);
+	final RowMajor r2 = asRowMajor(m2);
+	if (r1 != null && r2 != null) {
+	    return equalRowMajor(m1, r1, r2, imprecision, exact);
+	}
+	if (m1 instanceof ColumnarEvaluations && m2 instanceof ColumnarEvaluations) {
+	    return equalColumnar((ColumnarEvaluations) m1, (ColumnarEvaluations) m2, imprecision, exact);
+	}
+	return equalGeneric(m1, m2, imprecision, exact);
+    }
+
+    private static boolean allMatch(int size, long nbCells, IntPredicate predicate) {
+	if (nbCells >= PARALLEL_THRESHOLD) {
+	    return IntStream.range(0, size).parallel().allMatch(predicate);
+	}
+	for (int i = 0; i < size; ++i) {
+	    if (!predicate.test(i)) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    private static boolean equalArrays(final double[] values1, final double[] values2, final double imprecision,
+	    final boolean exact) {
+	if (exact && values1.length < PARALLEL_THRESHOLD) {
+	    return Arrays.equals(values1, values2);
+	}
+	final int blockSize = 4096;
+	final int nbBlocks = (values1.length + blockSize - 1) / blockSize;
+	return allMatch(nbBlocks, values1.length, new IntPredicate() {
+	    @Override
+	    public boolean test(int block) {
+		final int end = Math.min(values1.length, (block + 1) * blockSize);
+		for (int i = block * blockSize; i < end; ++i) {
+		    if (!same(values1[i], values2[i], imprecision, exact)) {
+			return false;
+		    }
+		}
+		return true;
+	    }
+	});
+    }
+
+    private static boolean equalRowMajor(EvaluationsRead m1, final RowMajor r1, final RowMajor r2,
+	    final double imprecision, final boolean exact) {
+	final Alternative[] rows = m1.getRows().toArray(new Alternative[m1.getRows().size()]);
+	final int nbColumns = m1.getColumns().size();
+	final int[] offsets1 = new int[nbColumns];
+	final int[] offsets2 = new int[nbColumns];
+	int k = 0;
+	for (Criterion column : m1.getColumns()) {
+	    offsets1[k] = r1.getColumnOffset(column);
+	    offsets2[k] = r2.getColumnOffset(column);
+	    ++k;
+	}
+	final double[] values1 = r1.m_values;
+	final double[] values2 = r2.m_values;
+	return allMatch(rows.length, (long) rows.length * nbColumns, new IntPredicate() {
+	    @Override
+	    public boolean test(int r) {
+		final int start1 = r1.getRowStart(rows[r]);
+		final int start2 = r2.getRowStart(rows[r]);
+		for (int c = 0; c < nbColumns; ++c) {
+		    if (!same(values1[start1 + offsets1[c]], values2[start2 + offsets2[c]], imprecision, exact)) {
+			return false;
+		    }
+		}
+		return true;
+	    }
+	});
+    }
+
+    private static boolean equalColumnar(final ColumnarEvaluations m1, final ColumnarEvaluations m2,
+	    final double imprecision, final boolean exact) {
+	final List<Alternative> alternatives = m1.getAlternatives();
+	/** The position in the columns of m2 of each alternative, in the order of m1; null if it is the same order. */
+	final int[] permutation;
+	if (alternatives.equals(m2.getAlternatives())) {
+	    permutation = null;
+	} else {
+	    permutation = new int[alternatives.size()];
+	    for (int i = 0; i < permutation.length; ++i) {
+		permutation[i] = m2.getOrdinal(alternatives.get(i));
+	    }
+	}
+	final Criterion[] columns = m1.getColumns().toArray(new Criterion[m1.getColumns().size()]);
+	return allMatch(columns.length, (long) columns.length * alternatives.size(), new IntPredicate() {
+	    @Override
+	    public boolean test(int c) {
+		final double[] column1 = m1.getColumnArray(columns[c]);
+		final double[] column2 = m2.getColumnArray(columns[c]);
+		for (int i = 0; i < column1.length; ++i) {
+		    final double value2 = permutation == null ? column2[i] : column2[permutation[i]];
+		    if (!same(column1[i], value2, imprecision, exact)) {
+			return false;
+		    }
+		}
+		return true;
+	    }
+	});
+    }
+
+    private static boolean equalGeneric(EvaluationsRead m1, EvaluationsRead m2, double imprecision, boolean exact) {
+	final RowMajor r1 = asRowMajor(m1);
+	if (r1 != null) {
+	    final Criterion[] columns = m1.getColumns().toArray(new Criterion[m1.getColumns().size()]);
+	    final int[] offsets = new int[columns.length];
+	    for (int c = 0; c < columns.length; ++c) {
+		offsets[c] = r1.getColumnOffset(columns[c]);
+	    }
+	    for (Alternative row : m1.getRows()) {
+		final int start = r1.getRowStart(row);
+		for (int c = 0; c < columns.length; ++c) {
+		    final Double entry2 = m2.getEntry(row, columns[c]);
+		    final double value2 = entry2 == null ? Double.NaN : entry2.doubleValue();
+		    if (!same(r1.m_values[start + offsets[c]], value2, imprecision, exact)) {
+			return false;
+		    }
+		}
+	    }
+	    return true;
+	}
+	for (Alternative row : m1.getRows()) {
+	    for (Criterion column : m1.getColumns()) {
+		final Double entry1 = m1.getEntry(row, column);
+		final Double entry2 = m2.getEntry(row, column);
+		final double value1 = entry1 == null ? Double.NaN : entry1.doubleValue();
+		final double value2 = entry2 == null ? Double.NaN : entry2.doubleValue();
+		if (!same(value1, value2, imprecision, exact)) {
+		    return false;
+		}
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * @return the present values of the given matrix, except NaN values, in an unspecified order.
+     */
+    private static double[] getValues(EvaluationsRead matrix) {
+	final double[] values = new double[matrix.getValueCount()];
+	int nb = 0;
+	if (matrix instanceof FrozenEvaluations) {
+	    for (double value : ((FrozenEvaluations) matrix).m_values) {
+		if (!Double.isNaN(value)) {
+		    values[nb++] = value;
+		}
+	    }
+	    return Arrays.copyOf(values, nb);
+	}
+	if (matrix instanceof ColumnarEvaluations) {
+	    final ColumnarEvaluations columnar = (ColumnarEvaluations) matrix;
+	    for (Criterion column : columnar.getColumns()) {
+		for (double value : columnar.getColumnArray(column)) {
+		    if (!Double.isNaN(value)) {
+			values[nb++] = value;
+		    }
+		}
+	    }
+	    return Arrays.copyOf(values, nb);
+	}
+	for (Alternative row : matrix.getRows()) {
+	    for (Criterion column : matrix.getColumns()) {
+		final Double entry = matrix.getEntry(row, column);
+		if (entry != null && !Double.isNaN(entry.doubleValue())) {
+		    values[nb++] = entry.doubleValue();
+		}
+	    }
+	}
+	return Arrays.copyOf(values, nb);
+    }
+
+    /**
+     * <p>
+     * Retrieves the bucket of the given matrix, which depends only on the multiset of its values, not on the order in
+     * which they are visited. Matrices equal with the given tolerance are in the same bucket, or, for a finite non
+     * zero tolerance, possibly in adjacent buckets.
+     * </p>
+     * <p>
+     * With a zero tolerance, the bucket is the sum of the values, summed in increasing order so that the floating
+     * point rounding is the same for equal matrices. Otherwise, each value is quantized into the number of tolerances
+     * it contains, clamped to {@link #MAX_QUANTUM} so that the sum of the quanta is exact: two values differing by at
+     * most the tolerance have quanta differing by at most two, thus the sums of the quanta of two approximately equal
+     * matrices differ by at most twice the value count, which is the width of the buckets.
+     * </p>
+     */
+    private static long getBucket(EvaluationsRead matrix, int count, double tolerance) {
+	if (Double.isInfinite(tolerance)) {
+	    return 0L;
+	}
+	final double[] values = getValues(matrix);
+	if (tolerance == 0d) {
+	    Arrays.sort(values);
+	    double sum = 0d;
+	    for (double value : values) {
+		sum += value;
+	    }
+	    return Double.doubleToLongBits(sum == 0d ? 0d : sum);
+	}
+	long quanta = 0L;
+	for (double value : values) {
+	    final double quantum = Math.floor(value / tolerance);
+	    quanta += (long) Math.max(-MAX_QUANTUM, Math.min(MAX_QUANTUM, quantum));
+	}
+	return Math.floorDiv(quanta, 2L * Math.max(1, count));
+    }
+
+    /**
+     * See {@link EvaluationsUtils#pairwiseApproxEquals(List, double)}.
+     */
+    static List<List<Integer>> partition(List<? extends EvaluationsRead> matrices, double tolerance) {
+	final List<List<Integer>> classes = Lists.newArrayList();
+	/**
+	 * Bound to a shape and a bucket (see getBucket), the index of the representative (the first member) of each class
+	 * having that shape and whose representative is in that bucket.
+	 */
+	final Map<List<Object>, List<Integer>> representatives = Maps.newHashMap();
+	/** The class of each representative, by index of the representative. */
+	final Map<Integer, List<Integer>> classOf = Maps.newHashMap();
+	for (int i = 0; i < matrices.size(); ++i) {
+	    final EvaluationsRead matrix = matrices.get(i);
+	    final int count = matrix.getValueCount();
+	    final long bucket = getBucket(matrix, count, tolerance);
+	    final ImmutableSet<Alternative> rows = ImmutableSet.copyOf(matrix.getRows());
+	    final ImmutableSet<Criterion> columns = ImmutableSet.copyOf(matrix.getColumns());
+	    final Integer index = Integer.valueOf(i);
+	    /**
+	     * The first representative in list order approximately equal to the matrix, which may be in any of the probed
+	     * buckets. The representatives of a bucket are in increasing order.
+	     */
+	    Integer first = null;
+	    final int maxDelta = tolerance == 0d || Double.isInfinite(tolerance) ? 0 : 1;
+	    for (int delta = -maxDelta; delta <= maxDelta; ++delta) {
+		final List<Integer> candidates = representatives.get(ImmutableList.<Object> of(rows, columns,
+			Integer.valueOf(count), Long.valueOf(bucket + delta)));
+		if (candidates == null) {
+		    continue;
+		}
+		for (Integer candidate : candidates) {
+		    if (first != null && candidate.intValue() >= first.intValue()) {
+			break;
+		    }
+		    if (equal(matrices.get(candidate.intValue()), matrix, tolerance, false)) {
+			first = candidate;
+			break;
+		    }
+		}
+	    }
+	    List<Integer> found = first == null ? null : classOf.get(first);
+	    if (found == null) {
+		found = Lists.newArrayList();
+		classes.add(found);
+		classOf.put(index, found);
+		final List<Object> key = ImmutableList.<Object> of(rows, columns, Integer.valueOf(count),
+			Long.valueOf(bucket));
+		List<Integer> inBucket = representatives.get(key);
+		if (inBucket == null) {
+		    inBucket = Lists.newArrayList();
+		    representatives.put(key, inBucket);
+		}
+		inBucket.add(index);
+	    }
+	    found.add(index);
+	}
+	return classes;
+    }
+}
@@ -0,0 +1,285 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Set;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.utils.matrix.SparseMatrixDRead;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Objects.ToStringHelper;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
+
+/**
+ * <p>
+ * A read-only filtered view of a delegate matrix of evaluations, which sees only the alternatives and criteria
+ * satisfying the given predicates. Contrary to {@link EvaluationsUtils#getFilteredView}, this view does not apply the
+ * predicates at each access: it computes once the sets of rows and columns to be seen, and serves every access from
+ * these sets. Those sets are computed again only when they are detected as being invalid.
+ * </p>
+ * <p>
+ * If the delegate is a {@link VersionedEvaluationsRead}, any modification of the delegate is detected by a change of
+ * its version. Otherwise, the only modifications detected are those that change the number of rows, of columns, or of
+ * values of the delegate. In that case, and in any case if the predicates may change their answers (e.g. because they
+ * depend on a mutable collection), {@link #invalidate()} must be called to force this view to see the changes.
+ * </p>
+ * <p>
+ * This view is meant for data that are read much more often than they are modified. Each time the sets are computed,
+ * the whole filtered part of the delegate is read. This object is not thread-safe, even when used only for reading.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public class EvaluationsFilteredView implements EvaluationsRead {
+    private final EvaluationsRead m_delegate;
+
+    private final Predicate<Alternative> m_alternativePredicate;
+
+    private final Predicate<Criterion> m_criterionPredicate;
+
+    /**
+     * The alternatives admitted by the predicate and having at least one value in an admitted criterion. Valid iff
+     * {@link #m_valid}.
+     */
+    private ImmutableSet<Alternative> m_rows;
+
+    /**
+     * The criteria admitted by the predicate and having at least one value in an admitted alternative. Valid iff
+     * {@link #m_valid}.
+     */
+    private ImmutableSet<Criterion> m_columns;
+
+    private int m_valueCount;
+
+    /**
+     * <code>false</code> iff the sets must be computed again, independently of the delegate state.
+     */
+    private boolean m_valid;
+
+    /**
+     * The version of the delegate when the sets have been computed, meaningful only when the delegate is versioned.
+     */
+    private long m_delegateVersion;
+
+    /**
+     * The number of rows, columns, and values of the delegate when the sets have been computed, used only when the
+     * delegate is not versioned.
+     */
+    private int m_delegateRowCount;
+
+    private int m_delegateColumnCount;
+
+    private int m_delegateValueCount;
+
+    /**
+     * Creates a new filtered view.
+     *
+     * @param delegate
+     *            not {@code null}.
+     * @param alternativePredicate
+     *            {@code null} to not filter alternatives.
+     * @param criterionPredicate
+     *            {@code null} to not filter criteria.
+     */
+    EvaluationsFilteredView(EvaluationsRead delegate, Predicate<Alternative> alternativePredicate,
+	    Predicate<Criterion> criterionPredicate) {
+	checkNotNull(delegate);
+	m_delegate = delegate;
+	m_alternativePredicate = alternativePredicate == null ? Predicates.<Alternative> alwaysTrue()
+		: alternativePredicate;
+	m_criterionPredicate = criterionPredicate == null ? Predicates.<Criterion> alwaysTrue() : criterionPredicate;
+	m_valid = false;
+    }
+
+    /**
+     * Forces this view to compute again the alternatives and criteria it sees, at the next access. This is necessary
+     * only if the predicates have changed their answers, or if the delegate is not versioned and has been changed
+     * without changing its number of rows, columns, or values.
+     */
+    public void invalidate() {
+	m_valid = false;
+    }
+
+    /**
+     * Retrieves the matrix this object is a view of.
+     *
+     * @return not {@code null}.
+     */
+    public EvaluationsRead getDelegate() {
+	return m_delegate;
+    }
+
+    private void ensureValid() {
+	if (m_valid) {
+	    if (m_delegate instanceof VersionedEvaluationsRead) {
+		if (((VersionedEvaluationsRead) m_delegate).getVersion() == m_delegateVersion) {
+		    return;
+		}
+	    } else if (m_delegate.getRows().size() == m_delegateRowCount
+		    && m_delegate.getColumns().size() == m_delegateColumnCount
+		    && m_delegate.getValueCount() == m_delegateValueCount) {
+		return;
+	    }
+	}
+	materialize();
+    }
+
+    private void materialize() {
+	if (m_delegate instanceof VersionedEvaluationsRead) {
+	    m_delegateVersion = ((VersionedEvaluationsRead) m_delegate).getVersion();
+	}
+	m_delegateRowCount = m_delegate.getRows().size();
+	m_delegateColumnCount = m_delegate.getColumns().size();
+	m_delegateValueCount = m_delegate.getValueCount();
+
+	final ImmutableSet.Builder<Criterion> admittedColumnsBuilder = ImmutableSet.builder();
+	for (Criterion criterion : m_delegate.getColumns()) {
+	    if (m_criterionPredicate.apply(criterion)) {
+		admittedColumnsBuilder.add(criterion);
+	    }
+	}
+	final ImmutableSet<Criterion> admittedColumns = admittedColumnsBuilder.build();
+
+	final ImmutableSet.Builder<Alternative> rowsBuilder = ImmutableSet.builder();
+	final Set<Criterion> seenColumns = Sets.newHashSet();
+	int valueCount = 0;
+	for (Alternative alternative : m_delegate.getRows()) {
+	    if (!m_alternativePredicate.apply(alternative)) {
+		continue;
+	    }
+	    boolean seen = false;
+	    for (Criterion criterion : admittedColumns) {
+		if (m_delegate.getEntry(alternative, criterion) != null) {
+		    seen = true;
+		    seenColumns.add(criterion);
+		    ++valueCount;
+		}
+	    }
+	    if (seen) {
+		rowsBuilder.add(alternative);
+	    }
+	}
+	m_rows = rowsBuilder.build();
+	final ImmutableSet.Builder<Criterion> columnsBuilder = ImmutableSet.builder();
+	for (Criterion criterion : admittedColumns) {
+	    if (seenColumns.contains(criterion)) {
+		columnsBuilder.add(criterion);
+	    }
+	}
+	m_columns = columnsBuilder.build();
+	m_valueCount = valueCount;
+	m_valid = true;
+    }
+
+    @Override
+    public Double getEntry(Alternative row, Criterion column) {
+	ensureValid();
+	if (!m_rows.contains(row) || !m_columns.contains(column)) {
+	    return null;
+	}
+	return m_delegate.getEntry(row, column);
+    }
+
+    @Override
+    public double getValue(Alternative row, Criterion column) {
+	final Double entry = getEntry(row, column);
+	checkArgument(entry != null, "No value at " + row + ", " + column + ".");
+	return entry.doubleValue();
+    }
+
+    /**
+     * Retrieves the rows this view sees. The returned set is a copy, it does not reflect later changes of this view.
+     */
+    @Override
+    public Set<Alternative> getRows() {
+	ensureValid();
+	return m_rows;
+    }
+
+    /**
+     * Retrieves the columns this view sees. The returned set is a copy, it does not reflect later changes of this
+     * view.
+     */
+    @Override
+    public Set<Criterion> getColumns() {
+	ensureValid();
+	return m_columns;
+    }
+
+    @Override
+    public int getValueCount() {
+	ensureValid();
+	return m_valueCount;
+    }
+
+    @Override
+    public boolean isComplete() {
+	ensureValid();
+	return m_valueCount == m_rows.size() * m_columns.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+	ensureValid();
+	return m_valueCount == 0;
+    }
+
+    @Override
+    public boolean approxEquals(SparseMatrixDRead<Alternative, Criterion> m2, double imprecision) {
+	return EvaluationsUtils.approxEqual(this, m2, imprecision);
+    }
+
+    /**
+     * Retrieves a copy of the contents of this view, as a table. The returned table is read-only.
+     */
+    @Override
+    public Table<Alternative, Criterion, Double> asTable() {
+	ensureValid();
+	final Table<Alternative, Criterion, Double> table = HashBasedTable.create(m_rows.size(), m_columns.size());
+	for (Alternative alternative : m_rows) {
+	    for (Criterion criterion : m_columns) {
+		final Double entry = m_delegate.getEntry(alternative, criterion);
+		if (entry != null) {
+		    table.put(alternative, criterion, entry);
+		}
+	    }
+	}
+	return Tables.unmodifiableTable(table);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (this == obj) {
+	    return true;
+	}
+	if (!(obj instanceof EvaluationsRead)) {
+	    return false;
+	}
+	return EvaluationsUtils.getEquivalence().equivalent(this, (EvaluationsRead) obj);
+    }
+
+    @Override
+    public int hashCode() {
+	return EvaluationsUtils.getEquivalence().hash(this);
+    }
+
+    @Override
+    public String toString() {
+	ensureValid();
+	final ToStringHelper helper = Objects.toStringHelper(this);
+	helper.add("Rows", m_rows.size());
+	helper.add("Columns", m_columns.size());
+	helper.add("Values", m_valueCount);
+	return helper.toString();
+    }
+}
@@ -0,0 +1,408 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.jmcda.structure.interval.PreferenceDirection;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * <p>
+ * An index over a matrix of evaluations which keeps, for each indexed criterion, the alternatives sorted by their
+ * evaluation on that criterion, from the worst to the best according to the preference direction of the criterion.
+ * It answers in logarithmic time (plus the size of the answer) the questions of which and how many alternatives are
+ * at least as good as a given value, or between two given values, and what is the rank of an alternative.
+ * </p>
+ * <p>
+ * When the indexed matrix is a {@link VersionedEvaluationsRead}, this index is brought up to date automatically before
+ * answering a query. If the matrix records its changes (see {@link VersionedEvaluationsRead#getChangesSince(long)}),
+ * and these are few, they are applied incrementally, each change costing a binary search and a move of the following
+ * entries; otherwise, the index is rebuilt. When the indexed matrix is not versioned, its changes can't be detected and
+ * {@link #rebuild()} must be called after each change.
+ * </p>
+ * <p>
+ * Ex-æquo alternatives are sorted by alternative. Objects of this type are not thread-safe.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public class EvaluationsIndex {
+    /**
+     * If the number of changes to apply is more than the number of values divided by this ratio, the index is rebuilt
+     * instead.
+     */
+    private static final int REBUILD_RATIO = 8;
+
+    private static class Entry implements Comparable<Entry> {
+	public final double m_key;
+
+	public final Alternative m_alternative;
+
+	public Entry(double key, Alternative alternative) {
+	    m_key = key;
+	    m_alternative = alternative;
+	}
+
+	@Override
+	public int compareTo(Entry e2) {
+	    if (m_key < e2.m_key) {
+		return -1;
+	    }
+	    if (m_key > e2.m_key) {
+		return 1;
+	    }
+	    return m_alternative.compareTo(e2.m_alternative);
+	}
+    }
+
+    /**
+     * The alternatives having a value on one criterion, sorted by key, where the key is the value multiplied by the
+     * sign of the preference direction, thus the keys increase from the worst to the best value; then by
+     * alternative.
+     */
+    private static class SortedColumn {
+	private final double m_sign;
+
+	private double[] m_keys;
+
+	private Alternative[] m_alternatives;
+
+	private int m_size;
+
+	public SortedColumn(PreferenceDirection direction) {
+	    m_sign = direction == PreferenceDirection.MAXIMIZE ? 1d : -1d;
+	    m_keys = new double[0];
+	    m_alternatives = new Alternative[0];
+	    m_size = 0;
+	}
+
+	public double getKey(double value) {
+	    return m_sign * value;
+	}
+
+	public double getValue(int index) {
+	    return m_sign * m_keys[index];
+	}
+
+	/**
+	 * @return the first index whose key is at least the given one, or the size if there is none.
+	 */
+	public int lowerBound(double key) {
+	    int low = 0;
+	    int high = m_size;
+	    while (low < high) {
+		final int middle = (low + high) >>> 1;
+		if (m_keys[middle] < key) {
+		    low = middle + 1;
+		} else {
+		    high = middle;
+		}
+	    }
+	    return low;
+	}
+
+	/**
+	 * @return the first index whose key is greater than the given one, or the size if there is none.
+	 */
+	public int upperBound(double key) {
+	    int low = 0;
+	    int high = m_size;
+	    while (low < high) {
+		final int middle = (low + high) >>> 1;
+		if (m_keys[middle] <= key) {
+		    low = middle + 1;
+		} else {
+		    high = middle;
+		}
+	    }
+	    return low;
+	}
+
+	/**
+	 * @return the index of the given entry if it is in this column; otherwise, (-(insertion point) - 1).
+	 */
+	public int find(double key, Alternative alternative) {
+	    int low = lowerBound(key);
+	    int high = upperBound(key) - 1;
+	    while (low <= high) {
+		final int middle = (low + high) >>> 1;
+		final int comparison = m_alternatives[middle].compareTo(alternative);
+		if (comparison < 0) {
+		    low = middle + 1;
+		} else if (comparison > 0) {
+		    high = middle - 1;
+		} else {
+		    return middle;
+		}
+	    }
+	    return -(low + 1);
+	}
+
+	public void insert(double value, Alternative alternative) {
+	    final double key = getKey(value);
+	    final int found = find(key, alternative);
+	    assert found < 0;
+	    final int index = -(found + 1);
+	    if (m_size == m_keys.length) {
+		final int capacity = Math.max(16, m_size * 2);
+		m_keys = Arrays.copyOf(m_keys, capacity);
+		m_alternatives = Arrays.copyOf(m_alternatives, capacity);
+	    }
+	    System.arraycopy(m_keys, index, m_keys, index + 1, m_size - index);
+	    System.arraycopy(m_alternatives, index, m_alternatives, index + 1, m_size - index);
+	    m_keys[index] = key;
+	    m_alternatives[index] = alternative;
+	    ++m_size;
+	}
+
+	public void remove(double value, Alternative alternative) {
+	    final int index = find(getKey(value), alternative);
+	    assert index >= 0;
+	    System.arraycopy(m_keys, index + 1, m_keys, index, m_size - index - 1);
+	    System.arraycopy(m_alternatives, index + 1, m_alternatives, index, m_size - index - 1);
+	    --m_size;
+	    m_alternatives[m_size] = null;
+	}
+
+	public void fill(EvaluationsRead source, Criterion criterion) {
+	    final Entry[] entries = new Entry[source.getRows().size()];
+	    int size = 0;
+	    for (Alternative alternative : source.getRows()) {
+		final Double entry = source.getEntry(alternative, criterion);
+		if (entry != null) {
+		    checkArgument(!entry.isNaN(), "NaN values are not accepted.");
+		    entries[size] = new Entry(getKey(entry.doubleValue()), alternative);
+		    ++size;
+		}
+	    }
+	    Arrays.sort(entries, 0, size);
+	    m_keys = new double[size];
+	    m_alternatives = new Alternative[size];
+	    for (int i = 0; i < size; ++i) {
+		m_keys[i] = entries[i].m_key;
+		m_alternatives[i] = entries[i].m_alternative;
+	    }
+	    m_size = size;
+	}
+
+	public List<Alternative> getAlternatives(int from, int to) {
+	    return ImmutableList.copyOf(Arrays.asList(m_alternatives).subList(from, to));
+	}
+
+	public int size() {
+	    return m_size;
+	}
+    }
+
+    private final EvaluationsRead m_source;
+
+    private final ImmutableMap<Criterion, SortedColumn> m_columns;
+
+    /**
+     * The version of the source this index reflects, meaningless if the source is not versioned.
+     */
+    private long m_version;
+
+    /**
+     * The number of values indexed, over all criteria.
+     */
+    private int m_valueCount;
+
+    /**
+     * Builds an index of the given source.
+     *
+     * @param source
+     *            not {@code null}, contains no NaN values.
+     * @param directions
+     *            not {@code null}, the criteria to index, with their preference direction.
+     */
+    EvaluationsIndex(EvaluationsRead source, Map<Criterion, PreferenceDirection> directions) {
+	checkNotNull(source);
+	checkNotNull(directions);
+	m_source = source;
+	final ImmutableMap.Builder<Criterion, SortedColumn> builder = ImmutableMap.builder();
+	for (Map.Entry<Criterion, PreferenceDirection> entry : directions.entrySet()) {
+	    checkNotNull(entry.getValue());
+	    builder.put(entry.getKey(), new SortedColumn(entry.getValue()));
+	}
+	m_columns = builder.build();
+	rebuild();
+    }
+
+    /**
+     * Reads again the whole source.
+     */
+    public void rebuild() {
+	if (m_source instanceof VersionedEvaluationsRead) {
+	    m_version = ((VersionedEvaluationsRead) m_source).getVersion();
+	}
+	int valueCount = 0;
+	for (Map.Entry<Criterion, SortedColumn> entry : m_columns.entrySet()) {
+	    entry.getValue().fill(m_source, entry.getKey());
+	    valueCount += entry.getValue().size();
+	}
+	m_valueCount = valueCount;
+    }
+
+    /**
+     * Brings this index up to date if the source is versioned and has changed.
+     */
+    private void refresh() {
+	if (!(m_source instanceof VersionedEvaluationsRead)) {
+	    return;
+	}
+	final VersionedEvaluationsRead versioned = (VersionedEvaluationsRead) m_source;
+	if (versioned.getVersion() == m_version) {
+	    return;
+	}
+	final List<EvaluationChange> changes = versioned.getChangesSince(m_version);
+	if (changes == null || changes.size() > m_valueCount / REBUILD_RATIO) {
+	    rebuild();
+	    return;
+	}
+	for (EvaluationChange change : changes) {
+	    final SortedColumn column = m_columns.get(change.getCriterion());
+	    if (column == null) {
+		continue;
+	    }
+	    if (change.getOldValue() != null) {
+		column.remove(change.getOldValue().doubleValue(), change.getAlternative());
+		--m_valueCount;
+	    }
+	    if (change.getNewValue() != null) {
+		column.insert(change.getNewValue().doubleValue(), change.getAlternative());
+		++m_valueCount;
+	    }
+	}
+	m_version = versioned.getVersion();
+    }
+
+    private SortedColumn getColumn(Criterion criterion) {
+	checkNotNull(criterion);
+	final SortedColumn column = m_columns.get(criterion);
+	checkArgument(column != null, "Criterion " + criterion + " is not indexed.");
+	refresh();
+	return column;
+    }
+
+    /**
+     * Retrieves the alternatives whose evaluation on the given criterion is at least as good as the given value.
+     *
+     * @param criterion
+     *            an indexed criterion.
+     * @param value
+     *            a value.
+     * @return not {@code null}, immutable, ordered from the worst to the best alternative.
+     */
+    public List<Alternative> alternativesAtLeast(Criterion criterion, double value) {
+	final SortedColumn column = getColumn(criterion);
+	return column.getAlternatives(column.lowerBound(column.getKey(value)), column.size());
+    }
+
+    /**
+     * Retrieves the number of alternatives whose evaluation on the given criterion is at least as good as the given
+     * value.
+     *
+     * @param criterion
+     *            an indexed criterion.
+     * @param value
+     *            a value.
+     * @return at least zero.
+     */
+    public int countAtLeast(Criterion criterion, double value) {
+	final SortedColumn column = getColumn(criterion);
+	return column.size() - column.lowerBound(column.getKey(value));
+    }
+
+    /**
+     * Retrieves the number of alternatives whose evaluation on the given criterion is at least as good as the given
+     * worst value and at most as good as the given best value.
+     *
+     * @param criterion
+     *            an indexed criterion.
+     * @param worst
+     *            the lower bound of the range, in the sense of the preference direction of the criterion.
+     * @param best
+     *            the upper bound of the range, in the sense of the preference direction of the criterion.
+     * @return at least zero, zero if the best value is worst than the worst value.
+     */
+    public int countBetween(Criterion criterion, double worst, double best) {
+	final SortedColumn column = getColumn(criterion);
+	return Math.max(0, column.upperBound(column.getKey(best)) - column.lowerBound(column.getKey(worst)));
+    }
+
+    /**
+     * Retrieves the rank of the given alternative on the given criterion, that is, the number of alternatives having a
+     * strictly better evaluation on that criterion. The best alternatives have rank zero.
+     *
+     * @param alternative
+     *            not {@code null}, must have an evaluation on the given criterion.
+     * @param criterion
+     *            an indexed criterion.
+     * @return at least zero.
+     */
+    public int getRank(Alternative alternative, Criterion criterion) {
+	checkNotNull(alternative);
+	final SortedColumn column = getColumn(criterion);
+	final Double entry = m_source.getEntry(alternative, criterion);
+	checkArgument(entry != null, "No value at " + alternative + ", " + criterion + ".");
+	return column.size() - column.upperBound(column.getKey(entry.doubleValue()));
+    }
+
+    /**
+     * Retrieves the alternative at the given rank on the given criterion, ex-æquo alternatives being sorted by
+     * alternative, in reverse order.
+     *
+     * @param criterion
+     *            an indexed criterion.
+     * @param rank
+     *            zero for the best alternative, less than the number of alternatives evaluated on that criterion.
+     * @return not {@code null}.
+     */
+    public Alternative getAlternativeAtRank(Criterion criterion, int rank) {
+	final SortedColumn column = getColumn(criterion);
+	checkArgument(rank >= 0 && rank < column.size());
+	return column.m_alternatives[column.size() - 1 - rank];
+    }
+
+    /**
+     * Retrieves the best evaluation on the given criterion.
+     *
+     * @param criterion
+     *            an indexed criterion, evaluated for at least one alternative.
+     * @return the best evaluation.
+     */
+    public double getBestValue(Criterion criterion) {
+	final SortedColumn column = getColumn(criterion);
+	checkArgument(column.size() >= 1, "No evaluations on " + criterion + ".");
+	return column.getValue(column.size() - 1);
+    }
+
+    /**
+     * Retrieves the worst evaluation on the given criterion.
+     *
+     * @param criterion
+     *            an indexed criterion, evaluated for at least one alternative.
+     * @return the worst evaluation.
+     */
+    public double getWorstValue(Criterion criterion) {
+	final SortedColumn column = getColumn(criterion);
+	checkArgument(column.size() >= 1, "No evaluations on " + criterion + ".");
+	return column.getValue(0);
+    }
+
+    @Override
+    public String toString() {
+	return Objects.toStringHelper(this).add("Criteria", m_columns.keySet()).add("Values", m_valueCount).toString();
+    }
+}
@@ -0,0 +1,70 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableTable;
+
+/**
+ * <p>
+ * The result of merging several matrices of evaluations: the merged matrix, and the conflicts found during the merge.
+ * </p>
+ * <p>
+ * A conflict occurs when several source matrices contain a value at the same position, and these values are not all
+ * equal. The merged matrix then contains, at that position, the value of the first source (in the order of the
+ * sources given to the merge) having a value there.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public class EvaluationsMergeResult {
+    private final Evaluations m_merged;
+
+    private final ImmutableTable<Alternative, Criterion, List<Double>> m_conflicts;
+
+    EvaluationsMergeResult(Evaluations merged, ImmutableTable<Alternative, Criterion, List<Double>> conflicts) {
+	checkNotNull(merged);
+	checkNotNull(conflicts);
+	m_merged = merged;
+	m_conflicts = conflicts;
+    }
+
+    /**
+     * Retrieves the merged matrix. It contains every position having a value in at least one source. The returned
+     * matrix belongs to the caller, who may modify it.
+     *
+     * @return not {@code null}.
+     */
+    public Evaluations getMerged() {
+	return m_merged;
+    }
+
+    /**
+     * Retrieves the positions where the sources disagree. For each such position, the table contains the different
+     * values found at that position, without duplicates, in the order of the sources; the first one is the value
+     * retained in the merged matrix.
+     *
+     * @return not {@code null}, immutable, empty iff there is no conflict.
+     */
+    public ImmutableTable<Alternative, Criterion, List<Double>> getConflicts() {
+	return m_conflicts;
+    }
+
+    /**
+     * @return <code>true</code> iff at least one conflict has been found.
+     */
+    public boolean hasConflicts() {
+	return !m_conflicts.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+	return Objects.toStringHelper(this).add("Merged", m_merged).add("Conflicts", m_conflicts.size()).toString();
+    }
+}
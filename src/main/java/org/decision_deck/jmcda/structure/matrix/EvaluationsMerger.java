@@ -0,0 +1,269 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.jmcda.structure.matrix.mess.EvaluationsByRows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * <p>
+ * Merges several matrices of evaluations into a new one. The union of the alternatives is partitioned into ranges of
+ * consecutive alternatives, each range being merged by a separate task on a fork-join pool. Each task reads the
+ * sources (which must therefore not be modified during the merge) and writes only into its own part of the target
+ * storage.
+ * </p>
+ * <p>
+ * When the merged matrix is dense enough, the tasks write directly into the primitive array of a pre-sized
+ * {@link DenseEvaluations}; otherwise, the tasks build the map of values of each row of their range, and these maps
+ * are finally adopted, without copying the values, by an {@link EvaluationsByRows} sized to the number of rows.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+class EvaluationsMerger {
+    /**
+     * Number of alternatives below which a range is not split further.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 512;
+
+    /**
+     * The merge target is dense iff the number of values is at least this ratio of the number of cells.
+     */
+    private static final double DENSITY_THRESHOLD = 0.5d;
+
+    private final List<EvaluationsRead> m_sources;
+
+    /**
+     * The union of the rows of the sources, in order of first appearance.
+     */
+    private final Alternative[] m_rows;
+
+    private final Criterion[] m_columns;
+
+    /**
+     * For each source, indexed as the columns of the union, the column if the source has it, {@code null} otherwise.
+     */
+    private final Criterion[][] m_sourceColumns;
+
+    /**
+     * When the target is dense, its values, row-major, NaN for absent values; {@code null} otherwise.
+     */
+    private final double[] m_denseValues;
+
+    /**
+     * When the target is sparse, the values of each row of the union, {@code null} for rows having no value;
+     * {@code null} otherwise. Each task writes only the rows of its range; read after all tasks have completed.
+     */
+    private final AlternativeEvaluations[] m_sparseRows;
+
+    /**
+     * The conflicts found by the leaf tasks, indexed by the first row of the task. Written by tasks, read after all
+     * tasks have completed.
+     */
+    private final SortedMap<Integer, ImmutableTable<Alternative, Criterion, List<Double>>> m_conflictParts;
+
+    /**
+     * @param sources
+     *            not {@code null}, no {@code null} elements, the sources contain no NaN values (checked during the
+     *            merge).
+     */
+    public EvaluationsMerger(Collection<? extends EvaluationsRead> sources) {
+	checkNotNull(sources);
+	m_sources = ImmutableList.copyOf(sources);
+	final Set<Alternative> rows = Sets.newLinkedHashSet();
+	final Set<Criterion> columns = Sets.newLinkedHashSet();
+	long valueCount = 0;
+	for (EvaluationsRead source : m_sources) {
+	    rows.addAll(source.getRows());
+	    columns.addAll(source.getColumns());
+	    valueCount += source.getValueCount();
+	}
+	m_rows = rows.toArray(new Alternative[rows.size()]);
+	m_columns = columns.toArray(new Criterion[columns.size()]);
+	m_sourceColumns = new Criterion[m_sources.size()][];
+	for (int s = 0; s < m_sources.size(); ++s) {
+	    final Set<Criterion> sourceColumns = m_sources.get(s).getColumns();
+	    m_sourceColumns[s] = new Criterion[m_columns.length];
+	    for (int c = 0; c < m_columns.length; ++c) {
+		m_sourceColumns[s][c] = sourceColumns.contains(m_columns[c]) ? m_columns[c] : null;
+	    }
+	}
+	final long nbCells = (long) m_rows.length * m_columns.length;
+	/** The sum of the value counts is an upper bound of the merged value count, thus this is optimistic. */
+	final boolean dense = nbCells <= Integer.MAX_VALUE && valueCount >= DENSITY_THRESHOLD * nbCells;
+	if (dense) {
+	    m_denseValues = new double[(int) nbCells];
+	    Arrays.fill(m_denseValues, Double.NaN);
+	    m_sparseRows = null;
+	} else {
+	    m_denseValues = null;
+	    m_sparseRows = new AlternativeEvaluations[m_rows.length];
+	}
+	m_conflictParts = Maps.newTreeMap();
+    }
+
+    /**
+     * Runs the merge. This method may be called only once.
+     *
+     * @param pool
+     *            not {@code null}.
+     * @return not {@code null}.
+     */
+    public EvaluationsMergeResult merge(ForkJoinPool pool) {
+	checkNotNull(pool);
+	checkArgument(m_conflictParts.isEmpty());
+	if (m_rows.length > 0) {
+	    pool.invoke(new MergeTask(0, m_rows.length));
+	}
+	final ImmutableTable.Builder<Alternative, Criterion, List<Double>> conflicts = ImmutableTable.builder();
+	for (ImmutableTable<Alternative, Criterion, List<Double>> part : m_conflictParts.values()) {
+	    conflicts.putAll(part);
+	}
+	final Evaluations merged;
+	if (m_denseValues != null) {
+	    merged = new DenseEvaluations(m_rows, m_columns, m_denseValues);
+	} else {
+	    final EvaluationsByRows byRows = new EvaluationsByRows(m_rows.length);
+	    for (int r = 0; r < m_rows.length; ++r) {
+		if (m_sparseRows[r] != null) {
+		    byRows.put(m_rows[r], m_sparseRows[r]);
+		}
+	    }
+	    merged = byRows;
+	}
+	return new EvaluationsMergeResult(merged, conflicts.build());
+    }
+
+    /**
+     * Merges the given row of the union, reading only the given sources, and writes the result in the given target,
+     * with NaN for absent values.
+     *
+     * @param target
+     *            of length the number of columns.
+     * @param sourcesWithRow
+     *            the sources containing the row.
+     * @param columnsOfSources
+     *            the columns of each of these sources (see {@link #m_sourceColumns}).
+     * @return the number of values written.
+     * @throws IllegalArgumentException
+     *             if a source has a NaN value in the given row.
+     */
+    private int mergeRow(int r, double[] target, List<EvaluationsRead> sourcesWithRow,
+	    List<Criterion[]> columnsOfSources, ImmutableTable.Builder<Alternative, Criterion, List<Double>> conflicts) {
+	final Alternative row = m_rows[r];
+	int count = 0;
+	for (int c = 0; c < m_columns.length; ++c) {
+	    boolean present = false;
+	    double value = Double.NaN;
+	    List<Double> conflicting = null;
+	    for (int s = 0; s < sourcesWithRow.size(); ++s) {
+		final Criterion column = columnsOfSources.get(s)[c];
+		if (column == null) {
+		    continue;
+		}
+		final Double entry = sourcesWithRow.get(s).getEntry(row, column);
+		if (entry == null) {
+		    continue;
+		}
+		if (entry.isNaN()) {
+		    /** NaN is the marker of absent values in the targets, thus can't be merged. */
+		    throw new IllegalArgumentException("NaN value in source " + sourcesWithRow.get(s) + " at " + row
+			    + ", " + column + ".");
+		}
+		if (!present) {
+		    present = true;
+		    value = entry.doubleValue();
+		} else if (entry.doubleValue() != value) {
+		    if (conflicting == null) {
+			conflicting = Lists.newArrayList(Double.valueOf(value));
+		    }
+		    if (!conflicting.contains(entry)) {
+			conflicting.add(entry);
+		    }
+		}
+	    }
+	    target[c] = value;
+	    if (present) {
+		++count;
+	    }
+	    if (conflicting != null) {
+		conflicts.put(row, m_columns[c], ImmutableList.copyOf(conflicting));
+	    }
+	}
+	return count;
+    }
+
+    private class MergeTask extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+
+	private final int m_from;
+
+	private final int m_to;
+
+	/**
+	 * @param from
+	 *            inclusive.
+	 * @param to
+	 *            exclusive.
+	 */
+	public MergeTask(int from, int to) {
+	    m_from = from;
+	    m_to = to;
+	}
+
+	@Override
+	protected void compute() {
+	    if (m_to - m_from > SEQUENTIAL_THRESHOLD) {
+		final int middle = (m_from + m_to) >>> 1;
+		invokeAll(new MergeTask(m_from, middle), new MergeTask(middle, m_to));
+		return;
+	    }
+	    final ImmutableTable.Builder<Alternative, Criterion, List<Double>> conflicts = ImmutableTable.builder();
+	    final double[] rowValues = new double[m_columns.length];
+	    final List<EvaluationsRead> sourcesWithRow = Lists.newArrayListWithCapacity(m_sources.size());
+	    final List<Criterion[]> columnsOfSources = Lists.newArrayListWithCapacity(m_sources.size());
+	    for (int r = m_from; r < m_to; ++r) {
+		sourcesWithRow.clear();
+		columnsOfSources.clear();
+		for (int s = 0; s < m_sources.size(); ++s) {
+		    if (m_sources.get(s).getRows().contains(m_rows[r])) {
+			sourcesWithRow.add(m_sources.get(s));
+			columnsOfSources.add(m_sourceColumns[s]);
+		    }
+		}
+		final int count = mergeRow(r, rowValues, sourcesWithRow, columnsOfSources, conflicts);
+		if (m_denseValues != null) {
+		    System.arraycopy(rowValues, 0, m_denseValues, r * m_columns.length, m_columns.length);
+		} else if (count > 0) {
+		    final AlternativeEvaluations row = new AlternativeEvaluations();
+		    for (int c = 0; c < m_columns.length; ++c) {
+			if (!Double.isNaN(rowValues[c])) {
+			    row.getEvaluations().put(m_columns[c], Double.valueOf(rowValues[c]));
+			}
+		    }
+		    m_sparseRows[r] = row;
+		}
+	    }
+	    synchronized (EvaluationsMerger.this) {
+		m_conflictParts.put(Integer.valueOf(m_from), conflicts.build());
+	    }
+	}
+    }
+}
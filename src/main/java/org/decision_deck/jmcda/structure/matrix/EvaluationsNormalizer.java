@@ -0,0 +1,213 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.jmcda.structure.interval.Interval;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+/**
+ * <p>
+ * Computes normalized copies of matrices of evaluations: each evaluation <em>v</em> on a criterion is replaced by (
+ * <em>v</em> - worst) / (best - worst), where best and worst are the best and worst values of the scale of that
+ * criterion. The normalized values are thus in the interval [0, 1] when the evaluations are in their scales, and
+ * higher is better whatever the preference direction of the scale.
+ * </p>
+ * <p>
+ * The normalized matrix is stored column by column (see {@link ColumnarEvaluations}); the columns are computed in
+ * parallel, one task per criterion, on a fork-join pool. The source must not be modified during the computation.
+ * </p>
+ * <p>
+ * The results are cached, so that asking again for the normalization of the same source object with equal scales
+ * returns the same result, without computing it again, as long as the source has not changed. A change of the source
+ * is detected thanks to its version when it is a {@link VersionedEvaluationsRead}. The immutable matrices
+ * {@link ColumnarEvaluations}, {@link MappedEvaluations} and those returned by
+ * {@link EvaluationsUtils#freeze(EvaluationsRead)} are also cached. The results for other sources, whose changes can't
+ * be detected, are not cached. The cache references the sources weakly, thus does not prevent their garbage
+ * collection.
+ * </p>
+ * <p>
+ * Objects of this type may be used concurrently by several threads.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public class EvaluationsNormalizer {
+    private static class Normalized {
+	public final long m_version;
+
+	public final ImmutableMap<Criterion, Interval> m_scales;
+
+	public final ColumnarEvaluations m_result;
+
+	public Normalized(long version, ImmutableMap<Criterion, Interval> scales, ColumnarEvaluations result) {
+	    m_version = version;
+	    m_scales = scales;
+	    m_result = result;
+	}
+    }
+
+    private static class NormalizeColumnTask extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+
+	private final EvaluationsRead m_source;
+
+	private final List<Alternative> m_alternatives;
+
+	private final Criterion m_criterion;
+
+	private final Interval m_scale;
+
+	private final double[] m_target;
+
+	public NormalizeColumnTask(EvaluationsRead source, List<Alternative> alternatives, Criterion criterion,
+		Interval scale, double[] target) {
+	    m_source = source;
+	    m_alternatives = alternatives;
+	    m_criterion = criterion;
+	    m_scale = scale;
+	    m_target = target;
+	}
+
+	@Override
+	protected void compute() {
+	    final double origin = m_scale.getWorst();
+	    final double factor = 1d / (m_scale.getBest() - origin);
+	    final double[] sourceColumn = m_source instanceof ColumnarEvaluations ? ((ColumnarEvaluations) m_source)
+		    .getColumnArray(m_criterion) : null;
+	    if (sourceColumn != null) {
+		/** Same alternatives order, absent values stay NaN. */
+		for (int i = 0; i < m_target.length; ++i) {
+		    m_target[i] = (sourceColumn[i] - origin) * factor;
+		}
+		return;
+	    }
+	    for (int i = 0; i < m_target.length; ++i) {
+		final Double entry = m_source.getEntry(m_alternatives.get(i), m_criterion);
+		if (entry == null) {
+		    m_target[i] = Double.NaN;
+		} else {
+		    checkArgument(!entry.isNaN(), "NaN values are not accepted.");
+		    m_target[i] = (entry.doubleValue() - origin) * factor;
+		}
+	    }
+	}
+    }
+
+    private final ForkJoinPool m_pool;
+
+    private final Cache<EvaluationsRead, Normalized> m_cache;
+
+    /**
+     * Creates a normalizer that uses the common fork-join pool.
+     */
+    public EvaluationsNormalizer() {
+	this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool
+     *            not {@code null}, the pool used to compute the columns.
+     */
+    public EvaluationsNormalizer(ForkJoinPool pool) {
+	checkNotNull(pool);
+	m_pool = pool;
+	m_cache = CacheBuilder.newBuilder().weakKeys().build();
+    }
+
+    /**
+     * @return the version of the given source, or a negative number iff its changes can't be detected.
+     */
+    private static long getVersion(EvaluationsRead source) {
+	if (source instanceof VersionedEvaluationsRead) {
+	    return ((VersionedEvaluationsRead) source).getVersion();
+	}
+	if (source instanceof ColumnarEvaluations || source instanceof MappedEvaluations
+		|| source instanceof FrozenEvaluations) {
+	    return 0;
+	}
+	return -1;
+    }
+
+    /**
+     * Retrieves the normalization of the given source, from the cache if possible. The alternatives in the columns of
+     * the result are in the iteration order of the rows of the source.
+     *
+     * @param source
+     *            not {@code null}, contains no NaN values.
+     * @param scales
+     *            not {@code null}, must contain, for each criterion of the source, a scale with a preference
+     *            direction and finite and different bounds. May contain other criteria.
+     * @return not {@code null}, immutable, with the same rows and columns as the source.
+     */
+    public ColumnarEvaluations getNormalized(EvaluationsRead source, Map<Criterion, Interval> scales) {
+	checkNotNull(source);
+	checkNotNull(scales);
+	final long version = getVersion(source);
+	if (version >= 0) {
+	    final Normalized cached = m_cache.getIfPresent(source);
+	    if (cached != null && cached.m_version == version && cached.m_scales.equals(scales)) {
+		return cached.m_result;
+	    }
+	}
+	final ImmutableMap<Criterion, Interval> scalesCopy = ImmutableMap.copyOf(scales);
+	final ColumnarEvaluations result = compute(source, scalesCopy);
+	if (version >= 0 && getVersion(source) == version) {
+	    m_cache.put(source, new Normalized(version, scalesCopy, result));
+	}
+	return result;
+    }
+
+    private ColumnarEvaluations compute(EvaluationsRead source, Map<Criterion, Interval> scales) {
+	/** For a columnar source, this is the order of its columns. */
+	final ImmutableList<Alternative> alternatives = ImmutableList.copyOf(source.getRows());
+	final ImmutableMap.Builder<Criterion, double[]> columns = ImmutableMap.builder();
+	final List<NormalizeColumnTask> tasks = Lists.newArrayList();
+	for (Criterion criterion : source.getColumns()) {
+	    final Interval scale = scales.get(criterion);
+	    checkArgument(scale != null, "No scale for " + criterion + ".");
+	    checkArgument(scale.getPreferenceDirection() != null, "Scale " + scale + " has no preference direction.");
+	    checkArgument(!Double.isInfinite(scale.getMinimum()) && !Double.isInfinite(scale.getMaximum()), "Scale "
+		    + scale + " is not bounded.");
+	    checkArgument(scale.getMinimum() < scale.getMaximum(), "Scale " + scale + " is reduced to a point.");
+	    final double[] column = new double[alternatives.size()];
+	    columns.put(criterion, column);
+	    tasks.add(new NormalizeColumnTask(source, alternatives, criterion, scale, column));
+	}
+	m_pool.invoke(new RecursiveAction() {
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected void compute() {
+		invokeAll(tasks);
+	    }
+	});
+	return new ColumnarEvaluations(alternatives, columns.build());
+    }
+
+    /**
+     * Empties the cache of this object.
+     */
+    public void invalidate() {
+	m_cache.invalidateAll();
+    }
+
+    @Override
+    public String toString() {
+	return Objects.toStringHelper(this).add("Cached", m_cache.size()).toString();
+    }
+}
@@ -0,0 +1,69 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import java.util.List;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+
+/**
+ * <p>
+ * A cursor over one row of a matrix of evaluations, giving primitive access to the evaluations of one alternative.
+ * The criteria are indexed in a fixed order, given by {@link #getCriteria()}, which is the same for every row of a
+ * given traversal.
+ * </p>
+ * <p>
+ * Objects of this type are reused during a traversal (see {@link EvaluationsUtils#rows(EvaluationsRead)}): an object
+ * given to an action is valid only during that action, and its content changes afterwards. Use
+ * {@link #getValues(double[])} to keep the values of a row.
+ * </p>
+ * 
+ * @author Olivier Cailloux
+ * 
+ */
+public interface EvaluationsRow {
+    /**
+     * @return the alternative this row concerns, not {@code null}.
+     */
+    public Alternative getAlternative();
+
+    /**
+     * Retrieves the criteria of the matrix being traversed, in the order used to index the values. The returned list
+     * is the same object for every row of a given traversal.
+     * 
+     * @return not {@code null}, immutable.
+     */
+    public List<Criterion> getCriteria();
+
+    /**
+     * Retrieves the evaluation of the current alternative on the criterion at the given index.
+     * 
+     * @param criterionIndex
+     *            between zero (inclusive) and the number of criteria (exclusive).
+     * @return NaN iff there is no evaluation at that position.
+     */
+    public double getValue(int criterionIndex);
+
+    /**
+     * Retrieves the evaluation of the current alternative on the given criterion.
+     * 
+     * @param criterion
+     *            not {@code null}.
+     * @return NaN iff there is no evaluation at that position, including if the given criterion is not in the
+     *         traversed matrix.
+     */
+    public double getValue(Criterion criterion);
+
+    /**
+     * Copies the evaluations of the current alternative into the given array, indexed as the criteria, with NaN for
+     * absent values.
+     * 
+     * @param target
+     *            not {@code null}, at least as long as the number of criteria.
+     */
+    public void getValues(double[] target);
+
+    /**
+     * @return the number of evaluations of the current alternative, at least one.
+     */
+    public int getValueCount();
+}
@@ -0,0 +1,302 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * <p>
+ * A spliterator over the rows of a matrix of evaluations. The rows and columns of the matrix are captured when the
+ * spliterator is created, the matrix must not be modified during the traversal.
+ * </p>
+ * <p>
+ * Each spliterator uses a single {@link EvaluationsRow} object, filled when advancing to a row. Filling a row reads
+ * the primitive storage directly, without boxing, when the matrix is a {@link DenseEvaluations}, a
+ * {@link ColumnarEvaluations} or a frozen matrix, and uses {@link EvaluationsRead#getEntry} otherwise. The positions
+ * of the columns in the storage are looked up once per traversal; for a frozen matrix, the position of a row is its
+ * position in the traversal, thus reading a row involves no lookup at all.
+ * </p>
+ * 
+ * @author Olivier Cailloux
+ * 
+ */
+class EvaluationsRowSpliterator implements Spliterator<EvaluationsRow> {
+    /**
+     * The data shared by a spliterator and the ones split from it.
+     */
+    static private class Traversal {
+	final EvaluationsRead m_source;
+
+	final Alternative[] m_rows;
+
+	final Criterion[] m_columns;
+
+	final ImmutableList<Criterion> m_criteria;
+
+	final ImmutableMap<Criterion, Integer> m_criterionIndexes;
+
+	/**
+	 * When the source is dense, its values array and the ordinal of each column; {@code null} otherwise.
+	 */
+	final double[] m_denseValues;
+
+	final int[] m_denseColumnOrdinals;
+
+	final int m_denseStride;
+
+	/**
+	 * When the source is frozen, its values array and the position of each column in its storage; {@code null}
+	 * otherwise. The rows of this traversal are then in the order of the storage.
+	 */
+	final double[] m_frozenValues;
+
+	final int[] m_frozenColumnPositions;
+
+	final int m_frozenStride;
+
+	/**
+	 * When the source is columnar, the array of each column; {@code null} otherwise.
+	 */
+	final double[][] m_columnArrays;
+
+	public Traversal(EvaluationsRead source) {
+	    checkNotNull(source);
+	    m_source = source;
+	    if (source instanceof FrozenEvaluations) {
+		m_rows = ((FrozenEvaluations) source).m_rows;
+	    } else {
+		m_rows = source.getRows().toArray(new Alternative[source.getRows().size()]);
+	    }
+	    m_columns = source.getColumns().toArray(new Criterion[source.getColumns().size()]);
+	    m_criteria = ImmutableList.copyOf(m_columns);
+	    final ImmutableMap.Builder<Criterion, Integer> indexesBuilder = ImmutableMap.builder();
+	    for (int c = 0; c < m_columns.length; ++c) {
+		indexesBuilder.put(m_columns[c], Integer.valueOf(c));
+	    }
+	    m_criterionIndexes = indexesBuilder.build();
+	    if (source instanceof DenseEvaluations) {
+		final DenseEvaluations dense = (DenseEvaluations) source;
+		m_denseValues = dense.m_values;
+		m_denseStride = dense.m_columnKeys.length;
+		m_denseColumnOrdinals = new int[m_columns.length];
+		for (int c = 0; c < m_columns.length; ++c) {
+		    m_denseColumnOrdinals[c] = dense.m_columnOrdinals.get(m_columns[c]).intValue();
+		}
+	    } else {
+		m_denseValues = null;
+		m_denseStride = 0;
+		m_denseColumnOrdinals = null;
+	    }
+	    if (source instanceof ColumnarEvaluations) {
+		final ColumnarEvaluations columnar = (ColumnarEvaluations) source;
+		m_columnArrays = new double[m_columns.length][];
+		for (int c = 0; c < m_columns.length; ++c) {
+		    m_columnArrays[c] = columnar.getColumnArray(m_columns[c]);
+		}
+	    } else {
+		m_columnArrays = null;
+	    }
+	    if (source instanceof FrozenEvaluations) {
+		final FrozenEvaluations frozen = (FrozenEvaluations) source;
+		m_frozenValues = frozen.m_values;
+		m_frozenStride = frozen.m_columns.length;
+		m_frozenColumnPositions = new int[m_columns.length];
+		for (int c = 0; c < m_columns.length; ++c) {
+		    m_frozenColumnPositions[c] = Arrays.binarySearch(frozen.m_columns, m_columns[c]);
+		}
+	    } else {
+		m_frozenValues = null;
+		m_frozenStride = 0;
+		m_frozenColumnPositions = null;
+	    }
+	}
+
+	/**
+	 * Writes the values of the row at the given position in this traversal in the given target, NaN for absent
+	 * values.
+	 * 
+	 * @return the number of values.
+	 */
+	int fill(int position, double[] target) {
+	    final Alternative row = m_rows[position];
+	    if (m_denseValues != null) {
+		final int offset = ((DenseEvaluations) m_source).m_rowOrdinals.get(row).intValue() * m_denseStride;
+		for (int c = 0; c < m_columns.length; ++c) {
+		    target[c] = m_denseValues[offset + m_denseColumnOrdinals[c]];
+		}
+	    } else if (m_columnArrays != null) {
+		final int ordinal = ((ColumnarEvaluations) m_source).getOrdinal(row);
+		for (int c = 0; c < m_columns.length; ++c) {
+		    target[c] = m_columnArrays[c][ordinal];
+		}
+	    } else if (m_frozenValues != null) {
+		final int offset = position * m_frozenStride;
+		for (int c = 0; c < m_columns.length; ++c) {
+		    target[c] = m_frozenValues[offset + m_frozenColumnPositions[c]];
+		}
+	    } else {
+		for (int c = 0; c < m_columns.length; ++c) {
+		    final Double entry = m_source.getEntry(row, m_columns[c]);
+		    target[c] = entry == null ? Double.NaN : entry.doubleValue();
+		}
+	    }
+	    int count = 0;
+	    for (int c = 0; c < m_columns.length; ++c) {
+		if (!Double.isNaN(target[c])) {
+		    ++count;
+		}
+	    }
+	    return count;
+	}
+    }
+
+    static private class Row implements EvaluationsRow {
+	private final Traversal m_traversal;
+
+	private final double[] m_values;
+
+	private Alternative m_alternative;
+
+	private int m_valueCount;
+
+	public Row(Traversal traversal) {
+	    m_traversal = traversal;
+	    m_values = new double[traversal.m_columns.length];
+	}
+
+	void moveTo(int position) {
+	    m_alternative = m_traversal.m_rows[position];
+	    m_valueCount = m_traversal.fill(position, m_values);
+	}
+
+	@Override
+	public Alternative getAlternative() {
+	    return m_alternative;
+	}
+
+	@Override
+	public List<Criterion> getCriteria() {
+	    return m_traversal.m_criteria;
+	}
+
+	@Override
+	public double getValue(int criterionIndex) {
+	    return m_values[criterionIndex];
+	}
+
+	@Override
+	public double getValue(Criterion criterion) {
+	    final Integer index = m_traversal.m_criterionIndexes.get(criterion);
+	    return index == null ? Double.NaN : m_values[index.intValue()];
+	}
+
+	@Override
+	public void getValues(double[] target) {
+	    System.arraycopy(m_values, 0, target, 0, m_values.length);
+	}
+
+	@Override
+	public int getValueCount() {
+	    return m_valueCount;
+	}
+
+	@Override
+	public String toString() {
+	    return "Row of " + m_alternative;
+	}
+    }
+
+    private final Traversal m_traversal;
+
+    /**
+     * The index of the next row to traverse.
+     */
+    private int m_next;
+
+    /**
+     * Exclusive.
+     */
+    private final int m_end;
+
+    /**
+     * Created lazily, as split spliterators may not be traversed by the thread creating them.
+     */
+    private Row m_row;
+
+    /**
+     * Creates a spliterator over all the rows of the given source.
+     * 
+     * @param source
+     *            not {@code null}.
+     */
+    EvaluationsRowSpliterator(EvaluationsRead source) {
+	this(new Traversal(source), 0, source.getRows().size());
+    }
+
+    private EvaluationsRowSpliterator(Traversal traversal, int from, int end) {
+	m_traversal = traversal;
+	m_next = from;
+	m_end = end;
+	m_row = null;
+    }
+
+    private Row getRow() {
+	if (m_row == null) {
+	    m_row = new Row(m_traversal);
+	}
+	return m_row;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super EvaluationsRow> action) {
+	checkNotNull(action);
+	if (m_next >= m_end) {
+	    return false;
+	}
+	final Row row = getRow();
+	row.moveTo(m_next);
+	++m_next;
+	action.accept(row);
+	return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super EvaluationsRow> action) {
+	checkNotNull(action);
+	final Row row = getRow();
+	for (; m_next < m_end; ++m_next) {
+	    row.moveTo(m_next);
+	    action.accept(row);
+	}
+    }
+
+    @Override
+    public Spliterator<EvaluationsRow> trySplit() {
+	final int middle = (m_next + m_end) >>> 1;
+	if (middle <= m_next) {
+	    return null;
+	}
+	final EvaluationsRowSpliterator prefix = new EvaluationsRowSpliterator(m_traversal, m_next, middle);
+	m_next = middle;
+	return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+	return m_end - m_next;
+    }
+
+    @Override
+    public int characteristics() {
+	return ORDERED | SIZED | SUBSIZED | NONNULL;
+    }
+}
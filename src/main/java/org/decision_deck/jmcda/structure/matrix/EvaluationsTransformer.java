@@ -0,0 +1,521 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.jmcda.structure.interval.Interval;
+import org.decision_deck.utils.matrix.SparseMatrixDRead;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.base.Objects;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Collections2;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
+
+/**
+ * <p>
+ * A transformation of evaluation matrices which filters, rescales, renames and reorders the alternatives and criteria
+ * of a source matrix. The transformation is configured by the setters of this object, then applied to any number of
+ * source matrices, either by copy ({@link #transform(EvaluationsRead)}) or as a view ({@link #getView(EvaluationsRead)}
+ * ).
+ * </p>
+ * <p>
+ * Whatever the order in which the setters have been called, the operations are applied in this order: filtering,
+ * rescaling, renaming, ordering. Thus, the filters and the scales refer to the alternatives and criteria of the source
+ * matrix, whereas the comparators refer to the renamed alternatives and criteria. Each operation is optional, an object
+ * of this class with nothing set copies its source.
+ * </p>
+ * <p>
+ * Applying the transformation first computes a plan from the rows and columns of the source: the filtered rows and
+ * columns, their new names, and their final order, are all computed once. The values are then read in a single pass
+ * over the source.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public class EvaluationsTransformer {
+    private Predicate<? super Alternative> m_alternativesFilter;
+
+    private Predicate<? super Criterion> m_criteriaFilter;
+
+    private Function<? super Alternative, Alternative> m_alternativesRenamer;
+
+    private Function<? super Criterion, Criterion> m_criteriaRenamer;
+
+    /**
+     * {@code null} for keeping the source order.
+     */
+    private Comparator<? super Alternative> m_alternativesOrder;
+
+    /**
+     * {@code null} for keeping the source order.
+     */
+    private Comparator<? super Criterion> m_criteriaOrder;
+
+    private Map<Criterion, Interval> m_scales;
+
+    /**
+     * Creates a transformation that does nothing, thus copies its source.
+     */
+    public EvaluationsTransformer() {
+	m_alternativesFilter = Predicates.alwaysTrue();
+	m_criteriaFilter = Predicates.alwaysTrue();
+	m_alternativesRenamer = Functions.identity();
+	m_criteriaRenamer = Functions.identity();
+	m_alternativesOrder = null;
+	m_criteriaOrder = null;
+	m_scales = ImmutableMap.of();
+    }
+
+    /**
+     * Restricts the alternatives to those satisfying the given predicate.
+     *
+     * @param alternativesFilter
+     *            {@code null} for no restriction.
+     * @return this object, for chaining.
+     */
+    public EvaluationsTransformer setAlternativesFilter(Predicate<? super Alternative> alternativesFilter) {
+	m_alternativesFilter = alternativesFilter == null ? Predicates.alwaysTrue() : alternativesFilter;
+	return this;
+    }
+
+    /**
+     * Restricts the criteria to those satisfying the given predicate.
+     *
+     * @param criteriaFilter
+     *            {@code null} for no restriction.
+     * @return this object, for chaining.
+     */
+    public EvaluationsTransformer setCriteriaFilter(Predicate<? super Criterion> criteriaFilter) {
+	m_criteriaFilter = criteriaFilter == null ? Predicates.alwaysTrue() : criteriaFilter;
+	return this;
+    }
+
+    /**
+     * Sets the function used to rename the alternatives. The function must give a different alternative to each
+     * different alternative of the source that passes the filter.
+     *
+     * @param alternativesRenamer
+     *            {@code null} for no renaming. The function must return non {@code null} results.
+     * @return this object, for chaining.
+     */
+    public EvaluationsTransformer setAlternativesRenamer(
+	    Function<? super Alternative, Alternative> alternativesRenamer) {
+	m_alternativesRenamer = alternativesRenamer == null ? Functions.<Alternative> identity() : alternativesRenamer;
+	return this;
+    }
+
+    /**
+     * Sets the function used to rename the criteria. The function must give a different criterion to each different
+     * criterion of the source that passes the filter.
+     *
+     * @param criteriaRenamer
+     *            {@code null} for no renaming. The function must return non {@code null} results.
+     * @return this object, for chaining.
+     */
+    public EvaluationsTransformer setCriteriaRenamer(Function<? super Criterion, Criterion> criteriaRenamer) {
+	m_criteriaRenamer = criteriaRenamer == null ? Functions.<Criterion> identity() : criteriaRenamer;
+	return this;
+    }
+
+    /**
+     * Sets the iteration order of the alternatives in the results. The comparator applies to the renamed alternatives.
+     *
+     * @param alternativesOrder
+     *            {@code null} to keep the iteration order of the source.
+     * @return this object, for chaining.
+     */
+    public EvaluationsTransformer setAlternativesOrder(Comparator<? super Alternative> alternativesOrder) {
+	m_alternativesOrder = alternativesOrder;
+	return this;
+    }
+
+    /**
+     * Sets the iteration order of the criteria in the results. The comparator applies to the renamed criteria.
+     *
+     * @param criteriaOrder
+     *            {@code null} to keep the iteration order of the source.
+     * @return this object, for chaining.
+     */
+    public EvaluationsTransformer setCriteriaOrder(Comparator<? super Criterion> criteriaOrder) {
+	m_criteriaOrder = criteriaOrder;
+	return this;
+    }
+
+    /**
+     * Sets the scales used to rescale the evaluations. The evaluations on a criterion bound to a scale in the given map
+     * are mapped linearly to the interval [0, 1], the worst value of the scale being mapped to zero and the best value
+     * to one. The evaluations on the other criteria are left unchanged. Each given scale must have a preference
+     * direction and finite, distinct, bounds. The given map is copied.
+     *
+     * @param scales
+     *            {@code null} for no rescaling.
+     * @return this object, for chaining.
+     */
+    public EvaluationsTransformer setScales(Map<Criterion, Interval> scales) {
+	if (scales == null) {
+	    m_scales = ImmutableMap.of();
+	    return this;
+	}
+	for (Interval scale : scales.values()) {
+	    checkArgument(scale.getPreferenceDirection() != null, "Scale " + scale + " has no preference direction.");
+	    checkArgument(!Double.isInfinite(scale.getMinimum()) && !Double.isInfinite(scale.getMaximum()),
+		    "Scale " + scale + " is not bounded.");
+	    checkArgument(scale.getMinimum() < scale.getMaximum(), "Scale " + scale + " is reduced to a point.");
+	}
+	m_scales = ImmutableMap.copyOf(scales);
+	return this;
+    }
+
+    /**
+     * Retrieves a new matrix containing the given source transformed by this object. The new matrix iterates over its
+     * rows and columns in the order set in this object.
+     *
+     * @param source
+     *            not {@code null}.
+     * @return not {@code null}.
+     */
+    public Evaluations transform(EvaluationsRead source) {
+	final Plan plan = new Plan(source);
+	final int nbColumns = plan.m_targetColumns.length;
+	final Evaluations target = EvaluationsUtils.newEvaluationMatrix();
+	final Criterion[] rowCriteria = new Criterion[nbColumns];
+	final double[] rowValues = new double[nbColumns];
+	for (int r = 0; r < plan.m_sourceRows.length; ++r) {
+	    int count = 0;
+	    for (int c = 0; c < nbColumns; ++c) {
+		final Double entry = source.getEntry(plan.m_sourceRows[r], plan.m_sourceColumns[c]);
+		if (entry != null) {
+		    rowCriteria[count] = plan.m_targetColumns[c];
+		    rowValues[count] = plan.rescale(c, entry.doubleValue());
+		    ++count;
+		}
+	    }
+	    if (count == nbColumns) {
+		target.putRow(plan.m_targetRows[r], rowCriteria, rowValues);
+	    } else if (count > 0) {
+		final Criterion[] someCriteria = new Criterion[count];
+		final double[] someValues = new double[count];
+		System.arraycopy(rowCriteria, 0, someCriteria, 0, count);
+		System.arraycopy(rowValues, 0, someValues, 0, count);
+		target.putRow(plan.m_targetRows[r], someCriteria, someValues);
+	    }
+	}
+	return target;
+    }
+
+    /**
+     * <p>
+     * Retrieves a read-only view of the given source transformed by this object. The values are read from the source
+     * and rescaled at each access, thus the view reflects the changes of values in the source. The plan (the rows and
+     * columns that the view sees, and their names) and the number of values of the view are computed when the view is
+     * created, in a single pass over the source, thus {@link EvaluationsRead#getValueCount()} and
+     * {@link EvaluationsRead#isComplete()} answer in constant time. They are computed again when the source changes
+     * only if the source is a {@link VersionedEvaluationsRead}; otherwise, the view does not reflect the rows and
+     * columns added to or removed from the source after its creation, and its value count and completeness are the
+     * ones of the source at that time.
+     * </p>
+     * <p>
+     * The returned view keeps references to the setting of this object at the time this method is called: changing
+     * this object afterwards does not change the view.
+     * </p>
+     *
+     * @param source
+     *            not {@code null}.
+     * @return not {@code null}.
+     */
+    public EvaluationsRead getView(EvaluationsRead source) {
+	return new TransformedView(source, copy());
+    }
+
+    private EvaluationsTransformer copy() {
+	final EvaluationsTransformer copy = new EvaluationsTransformer();
+	copy.m_alternativesFilter = m_alternativesFilter;
+	copy.m_criteriaFilter = m_criteriaFilter;
+	copy.m_alternativesRenamer = m_alternativesRenamer;
+	copy.m_criteriaRenamer = m_criteriaRenamer;
+	copy.m_alternativesOrder = m_alternativesOrder;
+	copy.m_criteriaOrder = m_criteriaOrder;
+	copy.m_scales = m_scales;
+	return copy;
+    }
+
+    /**
+     * The result of planning the transformation of a given source: the source rows and columns that pass the filters,
+     * in their final order, each one with its new name, and for each column, the affine transformation to apply to its
+     * values.
+     */
+    private class Plan {
+	/**
+	 * In the final order. Index r of this array corresponds to index r of the target rows.
+	 */
+	final Alternative[] m_sourceRows;
+
+	final Alternative[] m_targetRows;
+
+	final Criterion[] m_sourceColumns;
+
+	final Criterion[] m_targetColumns;
+
+	/**
+	 * The value rescaled is (value - origin) / span. The identity transformation has origin zero and span one.
+	 */
+	final double[] m_origins;
+
+	final double[] m_spans;
+
+	public Plan(EvaluationsRead source) {
+	    checkNotNull(source);
+	    final Ordering<? super Alternative> alternativesOrdering;
+	    if (m_alternativesOrder == null) {
+		alternativesOrdering = null;
+	    } else {
+		alternativesOrdering = Ordering.from(m_alternativesOrder).onResultOf(m_alternativesRenamer);
+	    }
+	    final Ordering<? super Criterion> criteriaOrdering;
+	    if (m_criteriaOrder == null) {
+		criteriaOrdering = null;
+	    } else {
+		criteriaOrdering = Ordering.from(m_criteriaOrder).onResultOf(m_criteriaRenamer);
+	    }
+	    m_sourceRows = toSortedArray(Collections2.filter(source.getRows(), m_alternativesFilter),
+		    alternativesOrdering, new Alternative[0]);
+	    m_sourceColumns = toSortedArray(Collections2.filter(source.getColumns(), m_criteriaFilter),
+		    criteriaOrdering, new Criterion[0]);
+	    m_targetRows = new Alternative[m_sourceRows.length];
+	    for (int r = 0; r < m_sourceRows.length; ++r) {
+		m_targetRows[r] = checkNotNull(m_alternativesRenamer.apply(m_sourceRows[r]));
+	    }
+	    checkArgument(ImmutableSet.copyOf(m_targetRows).size() == m_targetRows.length,
+		    "Renaming yields duplicate alternatives.");
+	    m_targetColumns = new Criterion[m_sourceColumns.length];
+	    m_origins = new double[m_sourceColumns.length];
+	    m_spans = new double[m_sourceColumns.length];
+	    for (int c = 0; c < m_sourceColumns.length; ++c) {
+		m_targetColumns[c] = checkNotNull(m_criteriaRenamer.apply(m_sourceColumns[c]));
+		final Interval scale = m_scales.get(m_sourceColumns[c]);
+		if (scale == null) {
+		    m_origins[c] = 0d;
+		    m_spans[c] = 1d;
+		} else {
+		    m_origins[c] = scale.getWorst();
+		    m_spans[c] = scale.getBest() - scale.getWorst();
+		}
+	    }
+	    checkArgument(ImmutableSet.copyOf(m_targetColumns).size() == m_targetColumns.length,
+		    "Renaming yields duplicate criteria.");
+	}
+
+	double rescale(int column, double value) {
+	    return (value - m_origins[column]) / m_spans[column];
+	}
+    }
+
+    static private <T> T[] toSortedArray(Collection<T> elements, Ordering<? super T> ordering, T[] type) {
+	if (ordering == null) {
+	    return elements.toArray(type);
+	}
+	final List<T> sorted = ordering.sortedCopy(elements);
+	return sorted.toArray(type);
+    }
+
+    /**
+     * A read-only view of a source through a transformation.
+     */
+    static private class TransformedView implements EvaluationsRead {
+	private final EvaluationsRead m_source;
+
+	private final EvaluationsTransformer m_transformer;
+
+	private Plan m_plan;
+
+	/**
+	 * Meaningful iff the source is versioned.
+	 */
+	private long m_sourceVersion;
+
+	/**
+	 * Target row to its index in the plan, restricted to the rows having at least one value.
+	 */
+	private ImmutableMap<Alternative, Integer> m_rowIndexes;
+
+	/**
+	 * Target column to its index in the plan, restricted to the columns having at least one value.
+	 */
+	private ImmutableMap<Criterion, Integer> m_columnIndexes;
+
+	/**
+	 * The number of values seen through the plan, computed with it.
+	 */
+	private int m_valueCount;
+
+	public TransformedView(EvaluationsRead source, EvaluationsTransformer transformer) {
+	    checkNotNull(source);
+	    checkNotNull(transformer);
+	    m_source = source;
+	    m_transformer = transformer;
+	    m_plan = null;
+	    ensurePlanned();
+	}
+
+	private void ensurePlanned() {
+	    if (m_plan != null) {
+		if (!(m_source instanceof VersionedEvaluationsRead)
+			|| ((VersionedEvaluationsRead) m_source).getVersion() == m_sourceVersion) {
+		    return;
+		}
+	    }
+	    if (m_source instanceof VersionedEvaluationsRead) {
+		m_sourceVersion = ((VersionedEvaluationsRead) m_source).getVersion();
+	    }
+	    m_plan = m_transformer.new Plan(m_source);
+	    final boolean[] seenColumns = new boolean[m_plan.m_sourceColumns.length];
+	    final ImmutableMap.Builder<Alternative, Integer> rowsBuilder = ImmutableMap.builder();
+	    int valueCount = 0;
+	    for (int r = 0; r < m_plan.m_sourceRows.length; ++r) {
+		boolean seen = false;
+		for (int c = 0; c < m_plan.m_sourceColumns.length; ++c) {
+		    if (m_source.getEntry(m_plan.m_sourceRows[r], m_plan.m_sourceColumns[c]) != null) {
+			seen = true;
+			seenColumns[c] = true;
+			++valueCount;
+		    }
+		}
+		if (seen) {
+		    rowsBuilder.put(m_plan.m_targetRows[r], Integer.valueOf(r));
+		}
+	    }
+	    m_rowIndexes = rowsBuilder.build();
+	    final ImmutableMap.Builder<Criterion, Integer> columnsBuilder = ImmutableMap.builder();
+	    for (int c = 0; c < m_plan.m_sourceColumns.length; ++c) {
+		if (seenColumns[c]) {
+		    columnsBuilder.put(m_plan.m_targetColumns[c], Integer.valueOf(c));
+		}
+	    }
+	    m_columnIndexes = columnsBuilder.build();
+	    m_valueCount = valueCount;
+	}
+
+	@Override
+	public Double getEntry(Alternative row, Criterion column) {
+	    ensurePlanned();
+	    final Integer r = m_rowIndexes.get(row);
+	    final Integer c = m_columnIndexes.get(column);
+	    if (r == null || c == null) {
+		return null;
+	    }
+	    final Double entry = m_source.getEntry(m_plan.m_sourceRows[r.intValue()],
+		    m_plan.m_sourceColumns[c.intValue()]);
+	    if (entry == null) {
+		return null;
+	    }
+	    return Double.valueOf(m_plan.rescale(c.intValue(), entry.doubleValue()));
+	}
+
+	@Override
+	public double getValue(Alternative row, Criterion column) {
+	    final Double entry = getEntry(row, column);
+	    checkArgument(entry != null, "No value at " + row + ", " + column + ".");
+	    return entry.doubleValue();
+	}
+
+	@Override
+	public Set<Alternative> getRows() {
+	    ensurePlanned();
+	    return m_rowIndexes.keySet();
+	}
+
+	@Override
+	public Set<Criterion> getColumns() {
+	    ensurePlanned();
+	    return m_columnIndexes.keySet();
+	}
+
+	@Override
+	public int getValueCount() {
+	    ensurePlanned();
+	    return m_valueCount;
+	}
+
+	@Override
+	public boolean isComplete() {
+	    ensurePlanned();
+	    return m_valueCount == m_rowIndexes.size() * m_columnIndexes.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+	    ensurePlanned();
+	    return m_rowIndexes.isEmpty();
+	}
+
+	@Override
+	public boolean approxEquals(SparseMatrixDRead<Alternative, Criterion> m2, double imprecision) {
+	    return EvaluationsUtils.approxEqual(this, m2, imprecision);
+	}
+
+	/**
+	 * Retrieves a copy of the contents of this view, as a table. The returned table is read-only.
+	 */
+	@Override
+	public Table<Alternative, Criterion, Double> asTable() {
+	    ensurePlanned();
+	    final Table<Alternative, Criterion, Double> table = HashBasedTable.create(m_rowIndexes.size(),
+		    m_columnIndexes.size());
+	    for (Map.Entry<Alternative, Integer> rowEntry : m_rowIndexes.entrySet()) {
+		for (Map.Entry<Criterion, Integer> columnEntry : m_columnIndexes.entrySet()) {
+		    final int c = columnEntry.getValue().intValue();
+		    final Double entry = m_source.getEntry(m_plan.m_sourceRows[rowEntry.getValue().intValue()],
+			    m_plan.m_sourceColumns[c]);
+		    if (entry != null) {
+			table.put(rowEntry.getKey(), columnEntry.getKey(),
+				Double.valueOf(m_plan.rescale(c, entry.doubleValue())));
+		    }
+		}
+	    }
+	    return Tables.unmodifiableTable(table);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+	    if (this == obj) {
+		return true;
+	    }
+	    if (!(obj instanceof EvaluationsRead)) {
+		return false;
+	    }
+	    return EvaluationsUtils.getEquivalence().equivalent(this, (EvaluationsRead) obj);
+	}
+
+	@Override
+	public int hashCode() {
+	    return EvaluationsUtils.getEquivalence().hash(this);
+	}
+
+	@Override
+	public String toString() {
+	    return Objects.toStringHelper(this).add("Source", m_source).toString();
+	}
+    }
+
+    @Override
+    public String toString() {
+	return Objects.toStringHelper(this).add("Rescaled criteria", m_scales.keySet()).toString();
+    }
+}
@@ -1,12 +1,20 @@
 package org.decision_deck.jmcda.structure.matrix;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.decision_deck.jmcda.structure.Alternative;
 import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.jmcda.structure.interval.PreferenceDirection;
 import org.decision_deck.utils.collection.SetBackedMap;
 import org.decision_deck.utils.matrix.Matrixes;
 import org.decision_deck.utils.matrix.MatrixesHelper;
@@ -14,11 +22,11 @@ import org.decision_deck.utils.matrix.MatrixesHelper.MatrixFactory;
 import org.decision_deck.utils.matrix.SparseMatrixD;
 import org.decision_deck.utils.matrix.SparseMatrixDRead;
 
+import com.google.common.base.Equivalence;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Ordering;
 
 public class EvaluationsUtils {
 
@@ -44,6 +52,33 @@ public class EvaluationsUtils {
 	return new EvaluationsView(Matrixes.getFilteredView(unfiltered, alternativePredicate, criterionPredicate));
     }
 
+    /**
+     * <p>
+     * Returns a matrix containing the mappings in {@code unfiltered} satisfying the given predicates. The returned
+     * matrix is a view of {@code unfiltered} that computes the set of alternatives and criteria it sees only when
+     * {@code unfiltered} has changed, instead of applying the predicates at each access as the view returned by
+     * {@link #getFilteredView(EvaluationsRead, Predicate, Predicate)} does. It is thus much faster to read when the
+     * source is read much more often than it is modified.
+     * </p>
+     * <p>
+     * The changes to the source are reliably detected only if the source is a {@link VersionedEvaluationsRead}, and
+     * the returned view assumes that the predicates always give the same answers. See {@link EvaluationsFilteredView}
+     * for details.
+     * </p>
+     * 
+     * @param unfiltered
+     *            not {@code null}.
+     * @param alternativePredicate
+     *            {@code null} for no restriction.
+     * @param criterionPredicate
+     *            {@code null} for no restriction.
+     * @return not {@code null}.
+     */
+    static public EvaluationsFilteredView getMaterializedFilteredView(EvaluationsRead unfiltered,
+	    Predicate<Alternative> alternativePredicate, Predicate<Criterion> criterionPredicate) {
+	return new EvaluationsFilteredView(unfiltered, alternativePredicate, criterionPredicate);
+    }
+
     /**
      * Returns an evaluation matrix representing a copy of the source data. Changing the source does not change the
      * copy.
@@ -55,12 +90,141 @@ public class EvaluationsUtils {
     public static Evaluations newEvaluationMatrix(EvaluationsRead source) {
 	checkNotNull(source);
 	final Evaluations target = newEvaluationMatrix();
-	Matrixes.putAll(source, target);
+	target.putAll(source);
 	return target;
     }
 
     static public Evaluations newEvaluationMatrix() {
-	return new EvaluationMatrixImpl();
+	return new VersionedEvaluationMatrix();
+    }
+
+    /**
+     * Returns a matrix decorating the given one, which records its changes. See {@link VersionedEvaluations}. The log
+     * of changes remembers at most 65536 changes.
+     * 
+     * @param delegate
+     *            not {@code null}, must not be modified afterwards except through the returned object.
+     * @return not {@code null}.
+     */
+    static public VersionedEvaluations newVersionedEvaluations(Evaluations delegate) {
+	return new VersionedEvaluations(delegate, VersionedEvaluations.DEFAULT_MAX_LOG_SIZE);
+    }
+
+    /**
+     * Returns a matrix decorating the given one, which records its changes. See {@link VersionedEvaluations}.
+     * 
+     * @param delegate
+     *            not {@code null}, must not be modified afterwards except through the returned object.
+     * @param maxLogSize
+     *            the number of changes the log may contain before being automatically compacted, at least one.
+     * @return not {@code null}.
+     */
+    static public VersionedEvaluations newVersionedEvaluations(Evaluations delegate, int maxLogSize) {
+	return new VersionedEvaluations(delegate, maxLogSize);
+    }
+
+    /**
+     * Returns a new, empty, evaluation matrix that stores its values in a primitive array. Such a matrix is much more
+     * compact than the one returned by {@link #newEvaluationMatrix()} when it is complete or nearly complete, but
+     * wastes space when it is very sparse. The returned matrix does not accept NaN values.
+     * 
+     * @return not {@code null}.
+     * @see DenseEvaluations
+     */
+    static public Evaluations newDenseEvaluationMatrix() {
+	return new DenseEvaluations();
+    }
+
+    /**
+     * Returns a new, empty, evaluation matrix that stores its values in a primitive array, with space reserved for the
+     * given number of alternatives and criteria. The matrix grows as needed if more alternatives or criteria are added.
+     * 
+     * @param alternativesCapacity
+     *            at least zero.
+     * @param criteriaCapacity
+     *            at least zero.
+     * @return not {@code null}.
+     * @see #newDenseEvaluationMatrix()
+     */
+    static public Evaluations newDenseEvaluationMatrix(int alternativesCapacity, int criteriaCapacity) {
+	return new DenseEvaluations(alternativesCapacity, criteriaCapacity);
+    }
+
+    /**
+     * Returns an evaluation matrix that stores its values in a primitive array, representing a copy of the source data.
+     * Changing the source does not change the copy.
+     * 
+     * @param source
+     *            not {@code null}, contains no NaN values.
+     * @return not {@code null}.
+     * @see #newDenseEvaluationMatrix()
+     */
+    static public Evaluations newDenseEvaluationMatrix(EvaluationsRead source) {
+	checkNotNull(source);
+	final Evaluations target = new DenseEvaluations(source.getRows().size(), source.getColumns().size());
+	target.putAll(source);
+	return target;
+    }
+
+    /**
+     * Returns a new, empty, evaluation matrix that may be read and written concurrently by several threads without
+     * external synchronization. The returned matrix does not accept NaN values.
+     * 
+     * @return not {@code null}.
+     * @see ConcurrentEvaluations
+     */
+    static public ConcurrentEvaluations newConcurrentEvaluationMatrix() {
+	return new ConcurrentEvaluations();
+    }
+
+    /**
+     * Builds an index of the given matrix, which sorts the alternatives by their evaluations on each given criterion.
+     * See {@link EvaluationsIndex}.
+     * 
+     * @param source
+     *            not {@code null}, contains no NaN values.
+     * @param directions
+     *            not {@code null}, the criteria to index, with their preference direction.
+     * @return not {@code null}.
+     */
+    static public EvaluationsIndex newIndex(EvaluationsRead source, Map<Criterion, PreferenceDirection> directions) {
+	return new EvaluationsIndex(source, directions);
+    }
+
+    /**
+     * Returns an immutable copy of the source data, stored column by column, that gives access to the evaluations of
+     * all alternatives on a given criterion as a primitive buffer. The order of the alternatives in the columns is the
+     * iteration order of the source rows.
+     * 
+     * @param source
+     *            not {@code null}, contains no NaN values.
+     * @return not {@code null}.
+     * @see ColumnarEvaluations#getColumn(Criterion)
+     */
+    static public ColumnarEvaluations newColumnarEvaluations(EvaluationsRead source) {
+	return new ColumnarEvaluations(source);
+    }
+
+    /**
+     * <p>
+     * Returns an immutable copy of the source data. The returned matrix is compact, may be shared between threads, and
+     * its hash code is computed once. Two matrices returned by this method are compared in constant time when their
+     * hash codes differ, which makes such copies suitable as keys for caches or for detecting duplicates.
+     * </p>
+     * <p>
+     * If the given source has itself been returned by this method, it is returned as is.
+     * </p>
+     * 
+     * @param source
+     *            not {@code null}, contains no NaN values.
+     * @return not {@code null}.
+     */
+    static public EvaluationsRead freeze(EvaluationsRead source) {
+	checkNotNull(source);
+	if (source instanceof FrozenEvaluations) {
+	    return source;
+	}
+	return new FrozenEvaluations(source);
     }
 
     static public boolean contains(EvaluationsRead evaluations, AlternativeEvaluations content) {
@@ -91,9 +255,84 @@ public class EvaluationsUtils {
 	return (Evaluations) helper.merge(m1, m2);
     }
 
+    /**
+     * <p>
+     * Merges the given matrices into a new matrix, in parallel, using the common fork-join pool. The merged matrix
+     * contains every position having a value in at least one source. When several sources have different values at
+     * the same position, the value of the first such source, in the iteration order of the given collection, is
+     * retained, and the conflict is reported in the result.
+     * </p>
+     * <p>
+     * The merged matrix is a {@link DenseEvaluations} when the number of values is large compared to the number of
+     * positions, and a sparse matrix otherwise. The sources must not be modified during the merge.
+     * </p>
+     * 
+     * @param sources
+     *            not {@code null}, no {@code null} elements, the sources contain no NaN values.
+     * @return not {@code null}.
+     */
+    static public EvaluationsMergeResult merge(Collection<? extends EvaluationsRead> sources) {
+	return merge(sources, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Merges the given matrices into a new matrix, in parallel, using the given pool. See
+     * {@link #merge(Collection)}.
+     * 
+     * @param sources
+     *            not {@code null}, no {@code null} elements, the sources contain no NaN values.
+     * @param pool
+     *            not {@code null}.
+     * @return not {@code null}.
+     */
+    static public EvaluationsMergeResult merge(Collection<? extends EvaluationsRead> sources, ForkJoinPool pool) {
+	return new EvaluationsMerger(sources).merge(pool);
+    }
+
+    /**
+     * <p>
+     * Retrieves a spliterator over the rows of the given matrix, in the iteration order of its rows, which gives
+     * primitive access to the evaluations of each row through an {@link EvaluationsRow} cursor. The criteria are
+     * indexed in the iteration order of the columns of the given matrix. The spliterator splits in balanced halves,
+     * thus is appropriate for parallel streams (see {@link #rowStream(EvaluationsRead, boolean)}).
+     * </p>
+     * <p>
+     * The rows and columns are captured when this method is called. The given matrix must not be modified until the
+     * traversal is over. A cursor given to an action is reused for the next rows of the same spliterator: it must not
+     * be kept by the action. Traversing a {@link DenseEvaluations}, a {@link ColumnarEvaluations} or a matrix returned
+     * by {@link #freeze(EvaluationsRead)} involves no allocation per row.
+     * </p>
+     * 
+     * @param evaluations
+     *            not {@code null}.
+     * @return not {@code null}.
+     */
+    static public Spliterator<EvaluationsRow> rows(EvaluationsRead evaluations) {
+	return new EvaluationsRowSpliterator(evaluations);
+    }
+
+    /**
+     * Retrieves a stream over the rows of the given matrix. See {@link #rows(EvaluationsRead)} for the restrictions
+     * that apply: in particular, the cursors must not be collected.
+     * 
+     * @param evaluations
+     *            not {@code null}.
+     * @param parallel
+     *            <code>true</code> for a parallel stream.
+     * @return not {@code null}.
+     */
+    static public Stream<EvaluationsRow> rowStream(EvaluationsRead evaluations, boolean parallel) {
+	return StreamSupport.stream(rows(evaluations), parallel);
+    }
+
     /**
      * Should be replaced by Matrix.asTable().columnMap() but table view is not yet fully implemented.
      * 
+     * <p>
+     * The returned map accesses the given matrix for each value read. To scan the values of a criterion many times,
+     * consider using {@link #newColumnarEvaluations(EvaluationsRead)} instead.
+     * </p>
+     * 
      * @param evaluations
      *            not {@code null}.
      * @return not {@code null}.
@@ -127,6 +366,7 @@ public class EvaluationsUtils {
      * in a different order. The given comparators indicate the iteration order on the new sets of alternatives and
      * criteria, thus, after rename.
      * 
+     * @see EvaluationsTransformer
      * @param source
      *            not {@code null}.
      * @param renameAlternatives
@@ -143,19 +383,147 @@ public class EvaluationsUtils {
 	    Function<? super Alternative, Alternative> renameAlternatives,
 	    Function<? super Criterion, Criterion> renameCriteria, Comparator<? super Alternative> orderAlternatives,
 	    Comparator<? super Criterion> orderCriteria) {
-	final Evaluations newMatrix = newEvaluationMatrix();
-	for (Alternative alternative : Ordering.from(orderAlternatives).onResultOf(renameAlternatives)
-		.sortedCopy(source.getRows())) {
-	    for (Criterion criterion : Ordering.from(orderCriteria).onResultOf(renameCriteria)
-		    .sortedCopy(source.getColumns())) {
-		final Double entry = source.getEntry(alternative, criterion);
-		if (entry == null) {
-		    continue;
+	checkNotNull(renameAlternatives);
+	checkNotNull(renameCriteria);
+	checkNotNull(orderAlternatives);
+	checkNotNull(orderCriteria);
+	final EvaluationsTransformer transformer = new EvaluationsTransformer();
+	transformer.setAlternativesRenamer(renameAlternatives).setCriteriaRenamer(renameCriteria);
+	transformer.setAlternativesOrder(orderAlternatives).setCriteriaOrder(orderCriteria);
+	return transformer.transform(source);
+    }
+
+    /**
+     * <p>
+     * Retrieves an equivalence relation on evaluations matrices, according to which two matrices are equivalent iff
+     * they contain the same values at the same positions, thus have the same rows, the same columns and, for each
+     * position, either both no value or both the same value. The iteration order of rows and columns is not taken into
+     * account.
+     * </p>
+     * <p>
+     * The hash code given by this equivalence is equal to the hash code of a {@link com.google.common.collect.Table}
+     * containing the same values.
+     * </p>
+     * 
+     * @return not {@code null}.
+     */
+    static public Equivalence<EvaluationsRead> getEquivalence() {
+	return new Equivalence<EvaluationsRead>() {
+	    @Override
+	    public boolean doEquivalent(EvaluationsRead m1, EvaluationsRead m2) {
+		return EvaluationsComparisons.equal(m1, m2, 0d, true);
+	    }
+
+	    @Override
+	    public int doHash(EvaluationsRead m) {
+		if (m instanceof DenseEvaluations || m instanceof FrozenEvaluations || m instanceof ColumnarEvaluations) {
+		    /** Computed on the primitive values, or cached. */
+		    return m.hashCode();
+		}
+		int hash = 0;
+		for (Alternative alternative : m.getRows()) {
+		    final int rowHash = alternative.hashCode();
+		    for (Criterion criterion : m.getColumns()) {
+			final Double entry = m.getEntry(alternative, criterion);
+			if (entry != null) {
+			    hash += getCellHash(rowHash, criterion.hashCode(), entry.doubleValue());
+			}
+		    }
 		}
-		final double value = entry.doubleValue();
-		newMatrix.put(renameAlternatives.apply(alternative), renameCriteria.apply(criterion), value);
+		return hash;
 	    }
+	};
+    }
+
+    /**
+     * Two matrices are approximately equal to a given degree of precision iff they have the same rows and columns, a
+     * value at the same positions, and values that are not more different than the given allowed imprecision.
+     * 
+     * @param m1
+     *            not {@code null}.
+     * @param m2
+     *            if {@code null}, this method returns {@code false}.
+     * @param imprecision
+     *            the maximal imprecision allowed for accepting equality.
+     * @return {@code true} iff the given matrices are approximately equal.
+     */
+    static public boolean approxEqual(SparseMatrixDRead<Alternative, Criterion> m1,
+	    SparseMatrixDRead<Alternative, Criterion> m2, double imprecision) {
+	checkNotNull(m1);
+	if (m1 == m2) {
+	    return true;
+	}
+	if (m2 == null) {
+	    return false;
 	}
-	return newMatrix;
+	if (m1 instanceof EvaluationsRead && m2 instanceof EvaluationsRead) {
+	    return EvaluationsComparisons.equal((EvaluationsRead) m1, (EvaluationsRead) m2, imprecision, false);
+	}
+	if (m1.getValueCount() != m2.getValueCount()) {
+	    return false;
+	}
+	if (!m1.getRows().equals(m2.getRows()) || !m1.getColumns().equals(m2.getColumns())) {
+	    return false;
+	}
+	for (Alternative alternative : m1.getRows()) {
+	    for (Criterion criterion : m1.getColumns()) {
+		final Double value1 = m1.getEntry(alternative, criterion);
+		final Double value2 = m2.getEntry(alternative, criterion);
+		if ((value1 == null) != (value2 == null)) {
+		    return false;
+		}
+		if (value1 != null && Math.abs(value1.doubleValue() - value2.doubleValue()) > imprecision) {
+		    return false;
+		}
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * <p>
+     * Groups the given matrices into classes of approximately equal matrices (see
+     * {@link #approxEqual(SparseMatrixDRead, SparseMatrixDRead, double)}). Each class is represented by its first
+     * member, in the order of the given list, and each matrix is put into the class of the first representative it is
+     * approximately equal to, or starts a new class. As approximate equality is not transitive, two members of a same
+     * class may be farther apart than the given tolerance, and the result depends on the order of the list; with a
+     * zero tolerance, the classes are exactly the classes of equal matrices.
+     * </p>
+     * <p>
+     * To avoid comparing every pair, the matrices are bucketed by shape (rows, columns and value count) and by a sum
+     * of their values which does not depend on the order of the values: only the representatives whose sum is close
+     * enough to the one of a given matrix are compared to it.
+     * </p>
+     * 
+     * @param matrices
+     *            not {@code null}, no {@code null} elements, must not be modified during this call.
+     * @param tolerance
+     *            the maximal imprecision allowed for accepting equality, not negative.
+     * @return not {@code null}, the classes, in the order of their representatives, each containing the indexes in
+     *         the given list of its members, in increasing order. Every index belongs to exactly one class.
+     */
+    static public List<List<Integer>> pairwiseApproxEquals(List<? extends EvaluationsRead> matrices, double tolerance) {
+	checkNotNull(matrices);
+	checkArgument(tolerance >= 0d);
+	return EvaluationsComparisons.partition(matrices, tolerance);
+    }
+
+    /**
+     * Computes the hash code of a table cell having the given row, column and value, as defined by
+     * {@link com.google.common.collect.Table.Cell#hashCode()}, without boxing the value. Summing these hashes over all
+     * the values of a matrix gives the hash code of the table view of that matrix.
+     * 
+     * @param rowHash
+     *            the hash code of the row.
+     * @param columnHash
+     *            the hash code of the column.
+     * @param value
+     *            the value.
+     * @return the hash code of the cell.
+     */
+    static int getCellHash(int rowHash, int columnHash, double value) {
+	final long bits = Double.doubleToLongBits(value);
+	final int valueHash = (int) (bits ^ (bits >>> 32));
+	return ((31 + rowHash) * 31 + columnHash) * 31 + valueHash;
     }
 }
@@ -0,0 +1,202 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.utils.matrix.SparseMatrixDRead;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Objects.ToStringHelper;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
+
+/**
+ * <p>
+ * An immutable copy of a matrix of evaluations. The alternatives and criteria are stored in arrays sorted in their
+ * natural order, and located by binary search; the values are stored in a single primitive array, row by row, with a
+ * NaN representing an absent value. The hash code is computed once, at creation.
+ * </p>
+ * <p>
+ * Two frozen matrices are compared first by their hash codes, thus comparing two different frozen matrices is, in
+ * most cases, immediate. Objects of this type may be shared between threads.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+class FrozenEvaluations implements EvaluationsRead {
+    /**
+     * Sorted in natural order, each alternative has at least one value.
+     */
+    final Alternative[] m_rows;
+
+    /**
+     * Sorted in natural order, each criterion has at least one value.
+     */
+    final Criterion[] m_columns;
+
+    private final ImmutableSortedSet<Alternative> m_rowsSet;
+
+    private final ImmutableSortedSet<Criterion> m_columnsSet;
+
+    /**
+     * Row-major, NaN for absent values.
+     */
+    final double[] m_values;
+
+    private final int m_valueCount;
+
+    private final int m_hashCode;
+
+    /**
+     * @param source
+     *            not {@code null}, contains no NaN values.
+     */
+    FrozenEvaluations(EvaluationsRead source) {
+	checkNotNull(source);
+	m_rowsSet = ImmutableSortedSet.copyOf(source.getRows());
+	m_columnsSet = ImmutableSortedSet.copyOf(source.getColumns());
+	m_rows = m_rowsSet.toArray(new Alternative[m_rowsSet.size()]);
+	m_columns = m_columnsSet.toArray(new Criterion[m_columnsSet.size()]);
+	m_values = new double[m_rows.length * m_columns.length];
+	int valueCount = 0;
+	int hashCode = 0;
+	for (int r = 0; r < m_rows.length; ++r) {
+	    final int rowHash = m_rows[r].hashCode();
+	    for (int c = 0; c < m_columns.length; ++c) {
+		final Double entry = source.getEntry(m_rows[r], m_columns[c]);
+		if (entry == null) {
+		    m_values[r * m_columns.length + c] = Double.NaN;
+		} else {
+		    final double value = entry.doubleValue();
+		    checkArgument(!Double.isNaN(value), "NaN values are not accepted.");
+		    m_values[r * m_columns.length + c] = value;
+		    ++valueCount;
+		    hashCode += EvaluationsUtils.getCellHash(rowHash, m_columns[c].hashCode(), value);
+		}
+	    }
+	}
+	m_valueCount = valueCount;
+	m_hashCode = hashCode;
+    }
+
+    /**
+     * @return NaN iff there is no value at the given position.
+     */
+    double read(Alternative row, Criterion column) {
+	if (row == null || column == null) {
+	    return Double.NaN;
+	}
+	final int r = Arrays.binarySearch(m_rows, row);
+	final int c = Arrays.binarySearch(m_columns, column);
+	if (r < 0 || c < 0) {
+	    return Double.NaN;
+	}
+	return m_values[r * m_columns.length + c];
+    }
+
+    @Override
+    public Double getEntry(Alternative row, Criterion column) {
+	final double value = read(row, column);
+	if (Double.isNaN(value)) {
+	    return null;
+	}
+	return Double.valueOf(value);
+    }
+
+    @Override
+    public double getValue(Alternative row, Criterion column) {
+	final double value = read(row, column);
+	if (Double.isNaN(value)) {
+	    throw new IllegalArgumentException("No value at " + row + ", " + column + ".");
+	}
+	return value;
+    }
+
+    @Override
+    public Set<Alternative> getRows() {
+	return m_rowsSet;
+    }
+
+    @Override
+    public Set<Criterion> getColumns() {
+	return m_columnsSet;
+    }
+
+    @Override
+    public int getValueCount() {
+	return m_valueCount;
+    }
+
+    @Override
+    public boolean isComplete() {
+	return m_valueCount == m_values.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+	return m_valueCount == 0;
+    }
+
+    @Override
+    public boolean approxEquals(SparseMatrixDRead<Alternative, Criterion> m2, double imprecision) {
+	if (m2 instanceof EvaluationsRead) {
+	    return EvaluationsComparisons.equal(this, (EvaluationsRead) m2, imprecision, false);
+	}
+	return EvaluationsUtils.approxEqual(this, m2, imprecision);
+    }
+
+    /**
+     * Retrieves a copy of the contents of this matrix, as a table. The returned table is read-only.
+     */
+    @Override
+    public Table<Alternative, Criterion, Double> asTable() {
+	final Table<Alternative, Criterion, Double> table = HashBasedTable.create(m_rows.length, m_columns.length);
+	for (int r = 0; r < m_rows.length; ++r) {
+	    for (int c = 0; c < m_columns.length; ++c) {
+		final double value = m_values[r * m_columns.length + c];
+		if (!Double.isNaN(value)) {
+		    table.put(m_rows[r], m_columns[c], Double.valueOf(value));
+		}
+	    }
+	}
+	return Tables.unmodifiableTable(table);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (this == obj) {
+	    return true;
+	}
+	if (obj instanceof FrozenEvaluations) {
+	    final FrozenEvaluations f2 = (FrozenEvaluations) obj;
+	    return m_hashCode == f2.m_hashCode && m_valueCount == f2.m_valueCount && Arrays.equals(m_rows, f2.m_rows)
+		    && Arrays.equals(m_columns, f2.m_columns) && Arrays.equals(m_values, f2.m_values);
+	}
+	if (!(obj instanceof EvaluationsRead)) {
+	    return false;
+	}
+	return EvaluationsComparisons.equal(this, (EvaluationsRead) obj, 0d, true);
+    }
+
+    @Override
+    public int hashCode() {
+	return m_hashCode;
+    }
+
+    @Override
+    public String toString() {
+	final ToStringHelper helper = Objects.toStringHelper(this);
+	helper.add("Rows", m_rows.length);
+	helper.add("Columns", m_columns.length);
+	helper.add("Values", m_valueCount);
+	return helper.toString();
+    }
+}
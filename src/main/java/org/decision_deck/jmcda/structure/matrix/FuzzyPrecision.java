@@ -0,0 +1,49 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+/**
+ * <p>
+ * The storage precision of a compact fuzzy matrix (see {@link MatrixesMC#newAlternativesFuzzy(FuzzyPrecision)}). The
+ * values put into such a matrix, which are between zero and one, are rounded to the precision of the matrix.
+ * </p>
+ * <p>
+ * With the precisions {@link #BYTE} and {@link #SHORT}, a value is stored as one of the <em>L</em> + 1 levels
+ * <em>k</em> / <em>L</em>, with <em>k</em> an integer between zero and <em>L</em>: a value <em>v</em> is stored as
+ * the nearest level, <code>Math.round(v * L) / (double) L</code>. Thus, the values zero and one, and every value
+ * computed as <code>k / (double) L</code>, are read back exactly as they were put, and any other value is read back
+ * with an absolute error at most 1 / (2 <em>L</em>).
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public enum FuzzyPrecision {
+    /**
+     * One byte per value, <em>L</em> = 254.
+     */
+    BYTE(254),
+    /**
+     * Two bytes per value, <em>L</em> = 65534.
+     */
+    SHORT(65534),
+    /**
+     * Four bytes per value, each value is stored as the nearest {@code float}. Values exactly representable as
+     * {@code float}s, such as zero, one, or one half, are read back exactly; other values are read back with a relative
+     * error at most 2<sup>-24</sup>.
+     */
+    FLOAT(0);
+
+    private final int m_levels;
+
+    private FuzzyPrecision(int levels) {
+	m_levels = levels;
+    }
+
+    /**
+     * Retrieves the number <em>L</em> such that the values are stored as <em>k</em> / <em>L</em>.
+     *
+     * @return zero for {@link #FLOAT}, a positive number otherwise.
+     */
+    public int getLevels() {
+	return m_levels;
+    }
+}
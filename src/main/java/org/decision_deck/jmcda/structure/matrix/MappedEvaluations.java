@@ -0,0 +1,483 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.utils.matrix.SparseMatrixDRead;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Objects.ToStringHelper;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
+
+/**
+ * <p>
+ * A read-only matrix of evaluations whose values live in a memory-mapped file, thus outside of the heap. Opening such a
+ * matrix only reads the header of the file: the values, and the alternatives identifiers, are paged in lazily by the
+ * operating system when they are accessed. Reading a value using {@link #getValue(Alternative, Criterion)} does not
+ * allocate any object.
+ * </p>
+ * <p>
+ * The file contains a header with the criteria identifiers, then the alternatives identifiers sorted in their natural
+ * order, then the values as fixed-width doubles, row after row (an alternative per row), with a NaN representing an
+ * absent value. An alternative is located by a binary search among the identifiers in the file. Such a file is created
+ * with {@link #write(EvaluationsRead, File)}.
+ * </p>
+ * <p>
+ * The rows of this matrix iterate in the natural order of the alternatives; the columns iterate in the order of the
+ * columns of the matrix that has been written. This object is immutable as long as the underlying file is not
+ * modified. The file must not be truncated while this object is in use.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public class MappedEvaluations implements EvaluationsRead {
+    private static final int MAGIC = 0x4A4D4556;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 48;
+
+    /**
+     * A region of a file, mapped by chunks because a single mapped buffer can not exceed two gigabytes. As the chunk
+     * size is a multiple of eight, a primitive value whose position is aligned on its size never straddles two chunks.
+     */
+    private static class MappedFile {
+	private static final int CHUNK_BITS = 30;
+
+	private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+	private final MappedByteBuffer[] m_chunks;
+
+	public MappedFile(File file) throws IOException {
+	    final RandomAccessFile raf = new RandomAccessFile(file, "r");
+	    try {
+		final FileChannel channel = raf.getChannel();
+		final long size = channel.size();
+		final int nbChunks = (int) ((size + CHUNK_MASK) >>> CHUNK_BITS);
+		m_chunks = new MappedByteBuffer[nbChunks];
+		for (int i = 0; i < nbChunks; ++i) {
+		    final long start = ((long) i) << CHUNK_BITS;
+		    m_chunks[i] = channel.map(MapMode.READ_ONLY, start, Math.min(CHUNK_MASK + 1, size - start));
+		}
+	    } finally {
+		raf.close();
+	    }
+	}
+
+	public char getChar(long position) {
+	    return m_chunks[(int) (position >>> CHUNK_BITS)].getChar((int) (position & CHUNK_MASK));
+	}
+
+	public double getDouble(long position) {
+	    return m_chunks[(int) (position >>> CHUNK_BITS)].getDouble((int) (position & CHUNK_MASK));
+	}
+
+	public int getInt(long position) {
+	    return m_chunks[(int) (position >>> CHUNK_BITS)].getInt((int) (position & CHUNK_MASK));
+	}
+
+	public long getLong(long position) {
+	    return m_chunks[(int) (position >>> CHUNK_BITS)].getLong((int) (position & CHUNK_MASK));
+	}
+
+	public long size() {
+	    if (m_chunks.length == 0) {
+		return 0;
+	    }
+	    return (((long) m_chunks.length - 1) << CHUNK_BITS) + m_chunks[m_chunks.length - 1].capacity();
+	}
+    }
+
+    private class RowsView extends AbstractSet<Alternative> {
+	public RowsView() {
+	    /** Public constructor. */
+	}
+
+	@Override
+	public boolean contains(Object o) {
+	    if (!(o instanceof Alternative)) {
+		return false;
+	    }
+	    return getRowOrdinal((Alternative) o) >= 0;
+	}
+
+	@Override
+	public Iterator<Alternative> iterator() {
+	    return new Iterator<Alternative>() {
+		private int m_next = 0;
+
+		@Override
+		public boolean hasNext() {
+		    return m_next < m_nbAlternatives;
+		}
+
+		@Override
+		public Alternative next() {
+		    if (!hasNext()) {
+			throw new NoSuchElementException();
+		    }
+		    final Alternative alternative = new Alternative(getId(m_next));
+		    ++m_next;
+		    return alternative;
+		}
+
+		@Override
+		public void remove() {
+		    throw new UnsupportedOperationException("This object is read-only.");
+		}
+	    };
+	}
+
+	@Override
+	public int size() {
+	    return m_nbAlternatives;
+	}
+    }
+
+    /**
+     * Opens the given file, which must have been written by {@link #write(EvaluationsRead, File)}. Only the header is
+     * read by this method.
+     *
+     * @param file
+     *            not {@code null}.
+     * @return not {@code null}.
+     * @throws IOException
+     *             if an error occurs while reading the file, or if the file is not in the expected format.
+     */
+    static public MappedEvaluations open(File file) throws IOException {
+	checkNotNull(file);
+	return new MappedEvaluations(new MappedFile(file));
+    }
+
+    /**
+     * Writes the given matrix to the given file, in the format read by {@link #open(File)}. The file is overwritten if
+     * it exists.
+     *
+     * @param source
+     *            not {@code null}, contains no NaN values.
+     * @param file
+     *            not {@code null}.
+     * @throws IOException
+     *             if an error occurs while writing.
+     */
+    static public void write(EvaluationsRead source, File file) throws IOException {
+	checkNotNull(source);
+	checkNotNull(file);
+	final List<Criterion> criteria = ImmutableList.copyOf(source.getColumns());
+	final List<Alternative> alternatives = Ordering.natural().sortedCopy(source.getRows());
+
+	long criteriaSize = 0;
+	for (Criterion criterion : criteria) {
+	    criteriaSize += align(4 + 2L * criterion.getId().length(), 4);
+	}
+	long nbChars = 0;
+	for (Alternative alternative : alternatives) {
+	    nbChars += alternative.getId().length();
+	}
+	final long indexOffset = align(HEADER_SIZE + criteriaSize, 8);
+	final long charsOffset = indexOffset + 8L * (alternatives.size() + 1);
+	final long valuesOffset = align(charsOffset + 2 * nbChars, 8);
+
+	final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file),
+		1 << 16));
+	try {
+	    out.writeInt(MAGIC);
+	    out.writeInt(VERSION);
+	    out.writeInt(criteria.size());
+	    out.writeInt(alternatives.size());
+	    out.writeInt(source.getValueCount());
+	    out.writeInt(0);
+	    out.writeLong(indexOffset);
+	    out.writeLong(charsOffset);
+	    out.writeLong(valuesOffset);
+	    long position = HEADER_SIZE;
+	    for (Criterion criterion : criteria) {
+		final String id = criterion.getId();
+		out.writeInt(id.length());
+		out.writeChars(id);
+		position += 4 + 2L * id.length();
+		position = pad(out, position, 4);
+	    }
+	    position = pad(out, position, 8);
+	    assert position == indexOffset;
+	    long charIndex = 0;
+	    out.writeLong(charIndex);
+	    for (Alternative alternative : alternatives) {
+		charIndex += alternative.getId().length();
+		out.writeLong(charIndex);
+	    }
+	    for (Alternative alternative : alternatives) {
+		out.writeChars(alternative.getId());
+	    }
+	    position = charsOffset + 2 * nbChars;
+	    position = pad(out, position, 8);
+	    assert position == valuesOffset;
+	    for (Alternative alternative : alternatives) {
+		for (Criterion criterion : criteria) {
+		    final Double entry = source.getEntry(alternative, criterion);
+		    if (entry == null) {
+			out.writeDouble(Double.NaN);
+		    } else {
+			checkArgument(!entry.isNaN(), "NaN values are not accepted.");
+			out.writeDouble(entry.doubleValue());
+		    }
+		}
+	    }
+	} finally {
+	    out.close();
+	}
+    }
+
+    private static long align(long position, int alignment) {
+	final long remainder = position % alignment;
+	return remainder == 0 ? position : position + alignment - remainder;
+    }
+
+    private static long pad(DataOutputStream out, long position, int alignment) throws IOException {
+	final long aligned = align(position, alignment);
+	for (long i = position; i < aligned; ++i) {
+	    out.writeByte(0);
+	}
+	return aligned;
+    }
+
+    private final MappedFile m_file;
+
+    private final int m_nbAlternatives;
+
+    private final int m_nbCriteria;
+
+    private final int m_valueCount;
+
+    private final long m_indexOffset;
+
+    private final long m_charsOffset;
+
+    private final long m_valuesOffset;
+
+    /**
+     * The criteria, bound to their ordinal. Iteration order is the ordinal order.
+     */
+    private final ImmutableMap<Criterion, Integer> m_columnOrdinals;
+
+    private final RowsView m_rows;
+
+    private MappedEvaluations(MappedFile file) throws IOException {
+	m_file = file;
+	if (m_file.size() < HEADER_SIZE || m_file.getInt(0) != MAGIC) {
+	    throw new IOException("Not an evaluations file.");
+	}
+	if (m_file.getInt(4) != VERSION) {
+	    throw new IOException("Unsupported version: " + m_file.getInt(4) + ".");
+	}
+	m_nbCriteria = m_file.getInt(8);
+	m_nbAlternatives = m_file.getInt(12);
+	m_valueCount = m_file.getInt(16);
+	m_indexOffset = m_file.getLong(24);
+	m_charsOffset = m_file.getLong(32);
+	m_valuesOffset = m_file.getLong(40);
+	if (m_file.size() < m_valuesOffset + 8L * m_nbAlternatives * m_nbCriteria) {
+	    throw new IOException("Truncated evaluations file.");
+	}
+	final ImmutableMap.Builder<Criterion, Integer> builder = ImmutableMap.builder();
+	long position = HEADER_SIZE;
+	for (int c = 0; c < m_nbCriteria; ++c) {
+	    final int length = m_file.getInt(position);
+	    position += 4;
+	    final char[] chars = new char[length];
+	    for (int i = 0; i < length; ++i) {
+		chars[i] = m_file.getChar(position);
+		position += 2;
+	    }
+	    position = align(position, 4);
+	    builder.put(new Criterion(new String(chars)), Integer.valueOf(c));
+	}
+	m_columnOrdinals = builder.build();
+	m_rows = new RowsView();
+    }
+
+    private long getCharStart(int rowOrdinal) {
+	return m_file.getLong(m_indexOffset + 8L * rowOrdinal);
+    }
+
+    String getId(int rowOrdinal) {
+	final long start = getCharStart(rowOrdinal);
+	final int length = (int) (getCharStart(rowOrdinal + 1) - start);
+	final char[] chars = new char[length];
+	for (int i = 0; i < length; ++i) {
+	    chars[i] = m_file.getChar(m_charsOffset + 2 * (start + i));
+	}
+	return new String(chars);
+    }
+
+    /**
+     * Compares the identifier stored at the given ordinal to the given one, as {@link String#compareTo(String)} does,
+     * without reading the stored identifier into a string.
+     */
+    private int compareId(int rowOrdinal, String id) {
+	final long start = getCharStart(rowOrdinal);
+	final int length = (int) (getCharStart(rowOrdinal + 1) - start);
+	final int common = Math.min(length, id.length());
+	for (int i = 0; i < common; ++i) {
+	    final char stored = m_file.getChar(m_charsOffset + 2 * (start + i));
+	    final char given = id.charAt(i);
+	    if (stored != given) {
+		return stored - given;
+	    }
+	}
+	return length - id.length();
+    }
+
+    /**
+     * @return the ordinal of the given alternative, or a negative number iff it is not in this matrix.
+     */
+    int getRowOrdinal(Alternative alternative) {
+	final String id = alternative.getId();
+	int low = 0;
+	int high = m_nbAlternatives - 1;
+	while (low <= high) {
+	    final int middle = (low + high) >>> 1;
+	    final int comparison = compareId(middle, id);
+	    if (comparison < 0) {
+		low = middle + 1;
+	    } else if (comparison > 0) {
+		high = middle - 1;
+	    } else {
+		return middle;
+	    }
+	}
+	return -1;
+    }
+
+    /**
+     * @return NaN iff there is no value at the given position.
+     */
+    private double read(Alternative row, Criterion column) {
+	final Integer columnOrdinal = column == null ? null : m_columnOrdinals.get(column);
+	if (row == null || columnOrdinal == null) {
+	    return Double.NaN;
+	}
+	final int rowOrdinal = getRowOrdinal(row);
+	if (rowOrdinal < 0) {
+	    return Double.NaN;
+	}
+	return m_file.getDouble(m_valuesOffset + 8L * ((long) rowOrdinal * m_nbCriteria + columnOrdinal.intValue()));
+    }
+
+    @Override
+    public Double getEntry(Alternative row, Criterion column) {
+	final double value = read(row, column);
+	if (Double.isNaN(value)) {
+	    return null;
+	}
+	return Double.valueOf(value);
+    }
+
+    @Override
+    public double getValue(Alternative row, Criterion column) {
+	final double value = read(row, column);
+	if (Double.isNaN(value)) {
+	    throw new IllegalArgumentException("No value at " + row + ", " + column + ".");
+	}
+	return value;
+    }
+
+    @Override
+    public Set<Alternative> getRows() {
+	return m_rows;
+    }
+
+    @Override
+    public Set<Criterion> getColumns() {
+	return m_columnOrdinals.keySet();
+    }
+
+    @Override
+    public int getValueCount() {
+	return m_valueCount;
+    }
+
+    @Override
+    public boolean isComplete() {
+	return m_valueCount == (long) m_nbAlternatives * m_nbCriteria;
+    }
+
+    @Override
+    public boolean isEmpty() {
+	return m_valueCount == 0;
+    }
+
+    @Override
+    public boolean approxEquals(SparseMatrixDRead<Alternative, Criterion> m2, double imprecision) {
+	return EvaluationsUtils.approxEqual(this, m2, imprecision);
+    }
+
+    /**
+     * Retrieves a copy of the contents of this matrix, as a table. The returned table is read-only. This loads all the
+     * values in the heap, thus should be avoided on large matrices.
+     */
+    @Override
+    public Table<Alternative, Criterion, Double> asTable() {
+	final Table<Alternative, Criterion, Double> table = HashBasedTable.create(m_nbAlternatives, m_nbCriteria);
+	for (int r = 0; r < m_nbAlternatives; ++r) {
+	    Alternative alternative = null;
+	    for (Map.Entry<Criterion, Integer> columnEntry : m_columnOrdinals.entrySet()) {
+		final double value = m_file.getDouble(m_valuesOffset + 8L
+			* ((long) r * m_nbCriteria + columnEntry.getValue().intValue()));
+		if (!Double.isNaN(value)) {
+		    if (alternative == null) {
+			alternative = new Alternative(getId(r));
+		    }
+		    table.put(alternative, columnEntry.getKey(), Double.valueOf(value));
+		}
+	    }
+	}
+	return Tables.unmodifiableTable(table);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (!(obj instanceof EvaluationsRead)) {
+	    return false;
+	}
+	return EvaluationsUtils.getEquivalence().equivalent(this, (EvaluationsRead) obj);
+    }
+
+    @Override
+    public int hashCode() {
+	return EvaluationsUtils.getEquivalence().hash(this);
+    }
+
+    @Override
+    public String toString() {
+	final ToStringHelper helper = Objects.toStringHelper(this);
+	helper.add("Rows", m_nbAlternatives);
+	helper.add("Columns", m_nbCriteria);
+	helper.add("Values", m_valueCount);
+	return helper.toString();
+    }
+}
@@ -6,4 +6,25 @@ public class MatrixesMC {
     static public <R, C> SparseAlternativesMatrixFuzzy newAlternativesFuzzy() {
 	return new SparseAlternativesMatrixFuzzyImpl();
     }
+
+    /**
+     * <p>
+     * Retrieves a new, empty, zero-to-one matrix of alternatives which stores its values in compact form, rounded to
+     * the given precision (see {@link FuzzyPrecision} for the exact guarantees). The values are stored in square
+     * tiles of primitive arrays, allocated only when a value is first put into them.
+     * </p>
+     * <p>
+     * This matrix is appropriate for large, fairly dense, relations, such as a full outranking relation over many
+     * alternatives. With {@link FuzzyPrecision#BYTE}, a complete relation over fifty thousand alternatives uses about
+     * two and a half gigabytes, instead of several tens of gigabytes for the matrix returned by
+     * {@link #newAlternativesFuzzy()}.
+     * </p>
+     * 
+     * @param precision
+     *            not {@code null}.
+     * @return not {@code null}.
+     */
+    static public SparseAlternativesMatrixFuzzy newAlternativesFuzzy(FuzzyPrecision precision) {
+	return new CompactAlternativesMatrixFuzzy(precision);
+    }
 }
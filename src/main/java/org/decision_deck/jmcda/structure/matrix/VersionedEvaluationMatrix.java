@@ -0,0 +1,80 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.List;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+
+/**
+ * <p>
+ * An evaluation matrix which owns its storage, and thus is able to expose a version (see
+ * {@link VersionedEvaluationsRead}) that sees every modification. The version is increased only when a modification
+ * actually changes the content: putting the value already present, or removing an absent value, row or column, leaves
+ * the version unchanged.
+ * </p>
+ * 
+ * @author Olivier Cailloux
+ * 
+ */
+class VersionedEvaluationMatrix extends EvaluationMatrixImpl implements VersionedEvaluationsRead {
+    private long m_version;
+
+    VersionedEvaluationMatrix() {
+	super();
+	m_version = 0;
+    }
+
+    @Override
+    public Double put(Alternative row, Criterion column, double value) {
+	final Double previous = super.put(row, column, value);
+	if (previous == null || Double.doubleToLongBits(previous.doubleValue()) != Double.doubleToLongBits(value)) {
+	    ++m_version;
+	}
+	return previous;
+    }
+
+    @Override
+    public Double remove(Alternative row, Criterion column) {
+	final Double previous = super.remove(row, column);
+	if (previous != null) {
+	    ++m_version;
+	}
+	return previous;
+    }
+
+    @Override
+    public boolean removeRow(Alternative row) {
+	final boolean changed = super.removeRow(row);
+	if (changed) {
+	    ++m_version;
+	}
+	return changed;
+    }
+
+    @Override
+    public boolean removeColumn(Criterion column) {
+	final boolean changed = super.removeColumn(column);
+	if (changed) {
+	    ++m_version;
+	}
+	return changed;
+    }
+
+    @Override
+    public long getVersion() {
+	return m_version;
+    }
+
+    /**
+     * This matrix does not record its changes.
+     * 
+     * @return {@code null}.
+     */
+    @Override
+    public List<EvaluationChange> getChangesSince(long version) {
+	checkArgument(version <= m_version);
+	return null;
+    }
+}
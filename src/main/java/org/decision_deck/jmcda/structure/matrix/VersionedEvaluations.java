@@ -0,0 +1,263 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.utils.matrix.SparseMatrixDRead;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
+
+/**
+ * <p>
+ * A matrix of evaluations decorating a delegate matrix, which records every change of value in a log, and increases
+ * its version by one for each such change. The changes since a given version can be retrieved with
+ * {@link #getChangesSince(long)}, which permits objects depending on this matrix to update incrementally.
+ * </p>
+ * <p>
+ * Putting a value equal to the current one is not a change, thus it is not recorded and does not change the version.
+ * Removing a row or a column records one change per removed value.
+ * </p>
+ * <p>
+ * The log is compacted, i.e. its oldest changes are forgotten, when asked by {@link #compact(long)}, and automatically
+ * when it exceeds its maximal size: the oldest half is then forgotten. A consumer asking for changes older than the
+ * oldest change remembered receives {@code null} and must then read the whole matrix again.
+ * </p>
+ * <p>
+ * The delegate must not be modified except through this object, otherwise the version and the log of this object are
+ * meaningless.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public class VersionedEvaluations implements Evaluations, VersionedEvaluationsRead {
+    static final int DEFAULT_MAX_LOG_SIZE = 1 << 16;
+
+    private final Evaluations m_delegate;
+
+    /**
+     * The changes, in increasing version order: the change at index i has version {@link #m_logBase} + i + 1.
+     */
+    private final List<EvaluationChange> m_log;
+
+    /**
+     * The version just before the oldest change in the log: the changes since this version are known.
+     */
+    private long m_logBase;
+
+    private long m_version;
+
+    private final int m_maxLogSize;
+
+    /**
+     * @param delegate
+     *            not {@code null}. Its current content is considered as the content at version zero.
+     * @param maxLogSize
+     *            at least one.
+     */
+    VersionedEvaluations(Evaluations delegate, int maxLogSize) {
+	checkNotNull(delegate);
+	checkArgument(maxLogSize >= 1);
+	m_delegate = delegate;
+	m_maxLogSize = maxLogSize;
+	m_log = Lists.newArrayList();
+	m_logBase = 0;
+	m_version = 0;
+    }
+
+    private void record(Alternative row, Criterion column, Double oldValue, Double newValue) {
+	++m_version;
+	m_log.add(new EvaluationChange(row, column, oldValue, newValue, m_version));
+	if (m_log.size() > m_maxLogSize) {
+	    compact(m_logBase + m_log.size() / 2);
+	}
+    }
+
+    /**
+     * Forgets the changes up to the given version, included. After this call, {@link #getChangesSince(long)} returns
+     * {@code null} for the versions lower than the given one. Has no effect if these changes are already forgotten.
+     *
+     * @param version
+     *            at most the current version.
+     */
+    public void compact(long version) {
+	checkArgument(version <= m_version);
+	if (version <= m_logBase) {
+	    return;
+	}
+	m_log.subList(0, (int) (version - m_logBase)).clear();
+	m_logBase = version;
+    }
+
+    /**
+     * Retrieves the oldest version since which the changes are known.
+     *
+     * @return at most the current version.
+     */
+    public long getOldestVersion() {
+	return m_logBase;
+    }
+
+    @Override
+    public long getVersion() {
+	return m_version;
+    }
+
+    @Override
+    public List<EvaluationChange> getChangesSince(long version) {
+	checkArgument(version <= m_version);
+	if (version < m_logBase) {
+	    return null;
+	}
+	/** The net change per position, ordered by version of the last change, thus re-inserted at each change. */
+	final Map<Map.Entry<Alternative, Criterion>, EvaluationChange> net = Maps.newLinkedHashMap();
+	for (EvaluationChange change : m_log.subList((int) (version - m_logBase), m_log.size())) {
+	    final Map.Entry<Alternative, Criterion> position = Maps.immutableEntry(change.getAlternative(),
+		    change.getCriterion());
+	    final EvaluationChange previous = net.remove(position);
+	    if (previous == null) {
+		net.put(position, change);
+	    } else if (!Objects.equal(previous.getOldValue(), change.getNewValue())) {
+		net.put(position, new EvaluationChange(change.getAlternative(), change.getCriterion(),
+			previous.getOldValue(), change.getNewValue(), change.getVersion()));
+	    }
+	}
+	return ImmutableList.copyOf(net.values());
+    }
+
+    @Override
+    public Double put(Alternative row, Criterion column, double value) {
+	checkArgument(!Double.isNaN(value), "NaN values are not accepted.");
+	final Double previous = m_delegate.put(row, column, value);
+	if (previous == null || previous.doubleValue() != value) {
+	    record(row, column, previous, Double.valueOf(value));
+	}
+	return previous;
+    }
+
+    @Override
+    public Double remove(Alternative row, Criterion column) {
+	final Double previous = m_delegate.remove(row, column);
+	if (previous != null) {
+	    record(row, column, previous, null);
+	}
+	return previous;
+    }
+
+    @Override
+    public boolean removeRow(Alternative row) {
+	if (!m_delegate.getRows().contains(row)) {
+	    return false;
+	}
+	for (Criterion column : Lists.newArrayList(m_delegate.getColumns())) {
+	    remove(row, column);
+	}
+	return true;
+    }
+
+    @Override
+    public boolean removeColumn(Criterion column) {
+	if (!m_delegate.getColumns().contains(column)) {
+	    return false;
+	}
+	for (Alternative row : Lists.newArrayList(m_delegate.getRows())) {
+	    remove(row, column);
+	}
+	return true;
+    }
+
+    @Override
+    public void putRow(Alternative row, Criterion[] columns, double[] values) {
+	checkArgument(columns.length == values.length);
+	for (int i = 0; i < columns.length; ++i) {
+	    checkArgument(!Double.isNaN(values[i]), "NaN values are not accepted.");
+	}
+	for (int i = 0; i < columns.length; ++i) {
+	    put(row, columns[i], values[i]);
+	}
+    }
+
+    @Override
+    public void putColumn(Criterion column, Alternative[] rows, double[] values) {
+	checkArgument(rows.length == values.length);
+	for (int i = 0; i < rows.length; ++i) {
+	    checkArgument(!Double.isNaN(values[i]), "NaN values are not accepted.");
+	}
+	for (int i = 0; i < rows.length; ++i) {
+	    put(rows[i], column, values[i]);
+	}
+    }
+
+    @Override
+    public Double getEntry(Alternative row, Criterion column) {
+	return m_delegate.getEntry(row, column);
+    }
+
+    @Override
+    public double getValue(Alternative row, Criterion column) {
+	return m_delegate.getValue(row, column);
+    }
+
+    @Override
+    public Set<Alternative> getRows() {
+	return m_delegate.getRows();
+    }
+
+    @Override
+    public Set<Criterion> getColumns() {
+	return m_delegate.getColumns();
+    }
+
+    @Override
+    public int getValueCount() {
+	return m_delegate.getValueCount();
+    }
+
+    @Override
+    public boolean isComplete() {
+	return m_delegate.isComplete();
+    }
+
+    @Override
+    public boolean isEmpty() {
+	return m_delegate.isEmpty();
+    }
+
+    @Override
+    public boolean approxEquals(SparseMatrixDRead<Alternative, Criterion> m2, double imprecision) {
+	return m_delegate.approxEquals(m2, imprecision);
+    }
+
+    @Override
+    public Table<Alternative, Criterion, Double> asTable() {
+	return m_delegate.asTable();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (this == obj) {
+	    return true;
+	}
+	return m_delegate.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+	return m_delegate.hashCode();
+    }
+
+    @Override
+    public String toString() {
+	return Objects.toStringHelper(this).add("Version", m_version).add("Delegate", m_delegate).toString();
+    }
+}
@@ -0,0 +1,48 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import java.util.List;
+
+/**
+ * <p>
+ * A matrix of evaluations which is able to tell whether it has been modified, by exposing a version number that
+ * changes each time its content is modified.
+ * </p>
+ * <p>
+ * This permits objects caching information computed from the matrix to check cheaply whether their cache is still
+ * valid.
+ * </p>
+ * 
+ * @author Olivier Cailloux
+ * 
+ */
+public interface VersionedEvaluationsRead extends EvaluationsRead {
+    /**
+     * Retrieves the current version of this matrix. The version is increased each time this matrix is modified. If the
+     * version has not changed between two calls, the content of this matrix has not changed between these calls. The
+     * converse does not necessarily hold: a version change does not guarantee that the content is different, e.g. if a
+     * value has been replaced by the same value.
+     * 
+     * @return the version number.
+     */
+    public long getVersion();
+
+    /**
+     * <p>
+     * Retrieves the net changes of this matrix since the given version, if this matrix is able to tell. The returned
+     * list contains one change per position whose value differs between the given version and the current one, with
+     * the value at the given version as old value and the current value as new value, ordered by the version of the
+     * last change at each position.
+     * </p>
+     * <p>
+     * This permits objects depending on the content of this matrix to update incrementally instead of reading the
+     * whole matrix again.
+     * </p>
+     * 
+     * @param version
+     *            at most the current version.
+     * @return {@code null} iff this matrix does not record its changes since the given version, in which case the
+     *         caller must consider that the whole matrix may have changed. Otherwise, an immutable list, empty iff
+     *         nothing changed.
+     */
+    public List<EvaluationChange> getChangesSince(long version);
+}
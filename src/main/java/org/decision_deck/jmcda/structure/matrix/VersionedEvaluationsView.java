@@ -0,0 +1,34 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import java.util.List;
+
+/**
+ * A read-only view of a delegate matrix which exposes the version of the delegate.
+ * 
+ * @author Olivier Cailloux
+ * 
+ */
+public class VersionedEvaluationsView extends EvaluationsView implements VersionedEvaluationsRead {
+    private final VersionedEvaluationsRead m_versioned;
+
+    /**
+     * Builds a new evaluations view delegating to the given evaluations.
+     * 
+     * @param delegate
+     *            not {@code null}.
+     */
+    public VersionedEvaluationsView(VersionedEvaluationsRead delegate) {
+	super(delegate);
+	m_versioned = delegate;
+    }
+
+    @Override
+    public long getVersion() {
+	return m_versioned.getVersion();
+    }
+
+    @Override
+    public List<EvaluationChange> getChangesSince(long version) {
+	return m_versioned.getChangesSince(version);
+    }
+}
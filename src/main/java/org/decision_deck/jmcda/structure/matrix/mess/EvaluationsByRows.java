@@ -3,8 +3,12 @@
  */
 package org.decision_deck.jmcda.structure.matrix.mess;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
@@ -12,13 +16,33 @@ import org.decision_deck.jmcda.structure.Alternative;
 import org.decision_deck.jmcda.structure.Criterion;
 import org.decision_deck.jmcda.structure.matrix.AlternativeEvaluations;
 import org.decision_deck.jmcda.structure.matrix.Evaluations;
+import org.decision_deck.jmcda.structure.matrix.EvaluationsRead;
+import org.decision_deck.jmcda.structure.matrix.EvaluationsUtils;
 import org.decision_deck.utils.matrix.SparseMatrixDRead;
 
+import com.google.common.base.Objects;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
 import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
 
 /**
- * Better use a normal evaluations matrix and wrap things into {@link AlternativeEvaluations} to provide view of single
- * rows.
+ * <p>
+ * A matrix of evaluations stored row by row: each alternative is bound to an {@link AlternativeEvaluations} object
+ * containing its values. A whole row can thus be read with {@link #getRow(Alternative)}, or replaced with
+ * {@link #put(Alternative, AlternativeEvaluations)}, without copying the values.
+ * </p>
+ * <p>
+ * The number of values in each column is maintained incrementally, thus {@link #getColumns()},
+ * {@link #getValueCount()} and {@link #isComplete()} answer in constant time.
+ * </p>
+ * <p>
+ * The {@link AlternativeEvaluations} objects bound to the rows are owned by this matrix: they must not be modified
+ * except through this matrix, otherwise the column counts of this matrix become wrong. This matrix does not accept
+ * NaN values.
+ * </p>
  * 
  * @author Olivier Cailloux
  * 
@@ -26,70 +50,196 @@ import com.google.common.collect.Table;
 public class EvaluationsByRows implements Evaluations {
     private int m_values;
 
+    /**
+     * Contains no empty evaluations.
+     */
+    private final Map<Alternative, AlternativeEvaluations> m_evaluations;
+
+    /**
+     * The number of values in each column. Contains only the non-empty columns.
+     */
+    private final Multiset<Criterion> m_columnCounts = HashMultiset.create();
+
+    private final Set<Alternative> m_rowsView;
+
+    private final Set<Criterion> m_columnsView = Collections.unmodifiableSet(m_columnCounts.elementSet());
+
     public EvaluationsByRows() {
+	this(16);
+    }
+
+    /**
+     * @param expectedRows
+     *            the number of rows this matrix is expected to contain, at least zero.
+     */
+    public EvaluationsByRows(int expectedRows) {
 	m_values = 0;
+	m_evaluations = Maps.newHashMapWithExpectedSize(expectedRows);
+	m_rowsView = Collections.unmodifiableSet(m_evaluations.keySet());
     }
 
+    /**
+     * Retrieves the rows of this matrix. The returned objects must not be modified.
+     *
+     * @return not {@code null}, a read-only view, contains no empty evaluations.
+     */
     public Collection<AlternativeEvaluations> values() {
-	return m_evaluations.values();
+	return Collections.unmodifiableCollection(m_evaluations.values());
     }
 
     public boolean contains(AlternativeEvaluations evaluations) {
 	return m_evaluations.values().contains(evaluations);
     }
 
+    /**
+     * Retrieves the values of the given row. The returned object must not be modified.
+     *
+     * @param row
+     *            not {@code null}.
+     * @return {@code null} iff the given row contains no value.
+     */
+    public AlternativeEvaluations getRow(Alternative row) {
+	checkNotNull(row);
+	return m_evaluations.get(row);
+    }
+
+    /**
+     * Replaces the values of the given row with the given ones. The given object is not copied: it becomes owned by
+     * this matrix, and must not be modified afterwards except through this matrix. Modifications of this row done
+     * through this matrix are reflected in the given object.
+     *
+     * @param row
+     *            not {@code null}.
+     * @param evaluations
+     *            not {@code null}, contains no {@code null} or NaN values, not bound to an other row of this
+     *            matrix. If empty, the row is removed from this matrix.
+     */
     public void put(Alternative row, AlternativeEvaluations evaluations) {
-	final AlternativeEvaluations previous = m_evaluations.put(row, evaluations);
-	final int previousValues = previous == null ? 0 : previous.getEvaluations().size();
-	m_values += (evaluations.getEvaluations().size() - previousValues);
+	checkNotNull(row);
+	checkNotNull(evaluations);
+	for (Double value : evaluations.getEvaluations().values()) {
+	    checkArgument(value != null && !value.isNaN(), "Null or NaN values are not accepted.");
+	}
+	final AlternativeEvaluations previous;
+	if (evaluations.getEvaluations().isEmpty()) {
+	    previous = m_evaluations.remove(row);
+	} else {
+	    previous = m_evaluations.put(row, evaluations);
+	}
+	if (previous != null) {
+	    unregister(previous);
+	}
+	for (Criterion column : evaluations.getEvaluations().keySet()) {
+	    m_columnCounts.add(column);
+	}
+	m_values += evaluations.getEvaluations().size();
     }
 
     /**
-     * Contains no empty evaluations.
+     * Decrements the counts of the columns of the given row, which has been removed.
      */
-    private final Map<Alternative, AlternativeEvaluations> m_evaluations = new HashMap<Alternative, AlternativeEvaluations>();
+    private void unregister(AlternativeEvaluations removed) {
+	for (Criterion column : removed.getEvaluations().keySet()) {
+	    m_columnCounts.remove(column);
+	}
+	m_values -= removed.getEvaluations().size();
+    }
 
     @Override
     public Double put(Alternative row, Criterion column, double value) {
-	final AlternativeEvaluations eval;
-	if (m_evaluations.get(row) == null) {
-	    eval = new AlternativeEvaluations(new HashMap<Criterion, Double>());
+	checkNotNull(row);
+	checkNotNull(column);
+	checkArgument(!Double.isNaN(value), "NaN values are not accepted.");
+	AlternativeEvaluations eval = m_evaluations.get(row);
+	if (eval == null) {
+	    eval = new AlternativeEvaluations();
 	    m_evaluations.put(row, eval);
-	} else {
-	    eval = m_evaluations.get(row);
 	}
 	final Double previous = eval.getEvaluations().put(column, Double.valueOf(value));
 	if (previous == null) {
+	    m_columnCounts.add(column);
 	    ++m_values;
 	}
 	return previous;
     }
 
+    @Override
+    public void putRow(Alternative row, Criterion[] columns, double[] values) {
+	checkNotNull(row);
+	checkArgument(columns.length == values.length);
+	for (int i = 0; i < columns.length; ++i) {
+	    checkNotNull(columns[i]);
+	    checkArgument(!Double.isNaN(values[i]), "NaN values are not accepted.");
+	}
+	if (columns.length == 0) {
+	    return;
+	}
+	AlternativeEvaluations eval = m_evaluations.get(row);
+	if (eval == null) {
+	    eval = new AlternativeEvaluations();
+	    m_evaluations.put(row, eval);
+	}
+	final Map<Criterion, Double> evaluations = eval.getEvaluations();
+	for (int i = 0; i < columns.length; ++i) {
+	    if (evaluations.put(columns[i], Double.valueOf(values[i])) == null) {
+		m_columnCounts.add(columns[i]);
+		++m_values;
+	    }
+	}
+    }
+
+    @Override
+    public void putColumn(Criterion column, Alternative[] rows, double[] values) {
+	checkNotNull(column);
+	checkArgument(rows.length == values.length);
+	for (int i = 0; i < rows.length; ++i) {
+	    put(rows[i], column, values[i]);
+	}
+    }
+
+    @Override
+    public void putAll(EvaluationsRead source) {
+	checkNotNull(source);
+	if (source == this) {
+	    return;
+	}
+	for (Alternative row : source.getRows()) {
+	    for (Criterion column : source.getColumns()) {
+		final Double value = source.getEntry(row, column);
+		if (value != null) {
+		    put(row, column, value.doubleValue());
+		}
+	    }
+	}
+    }
+
     @Override
     public Double remove(Alternative row, Criterion column) {
-	if (m_evaluations.get(row) == null) {
+	final AlternativeEvaluations eval = m_evaluations.get(row);
+	if (eval == null) {
 	    return null;
 	}
-	final Map<Criterion, Double> evaluations = m_evaluations.get(row).getEvaluations();
-	if (!evaluations.containsKey(column)) {
+	final Map<Criterion, Double> evaluations = eval.getEvaluations();
+	final Double value = evaluations.remove(column);
+	if (value == null) {
 	    return null;
 	}
-	final Double value = evaluations.remove(column);
 	if (evaluations.isEmpty()) {
 	    m_evaluations.remove(row);
 	}
+	m_columnCounts.remove(column);
 	--m_values;
 	return value;
     }
 
     @Override
     public boolean approxEquals(SparseMatrixDRead<Alternative, Criterion> m2, double imprecision) {
-	throw new UnsupportedOperationException();
+	return EvaluationsUtils.approxEqual(this, m2, imprecision);
     }
 
     @Override
     public Set<Criterion> getColumns() {
-	throw new UnsupportedOperationException();
+	return m_columnsView;
     }
 
     @Override
@@ -103,7 +253,7 @@ public class EvaluationsByRows implements Evaluations {
 
     @Override
     public Set<Alternative> getRows() {
-	return m_evaluations.keySet();
+	return m_rowsView;
     }
 
     @Override
@@ -113,7 +263,7 @@ public class EvaluationsByRows implements Evaluations {
 
     @Override
     public boolean isComplete() {
-	throw new UnsupportedOperationException();
+	return m_values == (long) m_evaluations.size() * m_columnCounts.elementSet().size();
     }
 
     @Override
@@ -123,28 +273,40 @@ public class EvaluationsByRows implements Evaluations {
 
     @Override
     public Table<Alternative, Criterion, Double> asTable() {
-        throw new UnsupportedOperationException();
+	final Table<Alternative, Criterion, Double> table = HashBasedTable.create(m_evaluations.size(),
+		m_columnCounts.elementSet().size());
+	for (Map.Entry<Alternative, AlternativeEvaluations> rowEntry : m_evaluations.entrySet()) {
+	    table.row(rowEntry.getKey()).putAll(rowEntry.getValue().getEvaluations());
+	}
+	return Tables.unmodifiableTable(table);
     }
 
     @Override
     public boolean removeColumn(Criterion column) {
-        if (!getColumns().contains(column)) {
+	if (!m_columnCounts.contains(column)) {
             return false;
         }
-        for (Alternative row : getRows()) {
-            remove(row, column);
+	final Iterator<AlternativeEvaluations> iterator = m_evaluations.values().iterator();
+	while (iterator.hasNext()) {
+	    final Map<Criterion, Double> evaluations = iterator.next().getEvaluations();
+	    if (evaluations.remove(column) != null) {
+		--m_values;
+		if (evaluations.isEmpty()) {
+		    iterator.remove();
         }
+	    }
+	}
+	m_columnCounts.setCount(column, 0);
         return true;
     }
 
     @Override
     public boolean removeRow(Alternative row) {
-        if (!getRows().contains(row)) {
+	final AlternativeEvaluations removed = m_evaluations.remove(row);
+	if (removed == null) {
             return false;
         }
-	for (Criterion column : getColumns()) {
-            remove(row, column);
-        }
+	unregister(removed);
         return true;
     }
 
@@ -157,4 +319,22 @@ public class EvaluationsByRows implements Evaluations {
         return entry.doubleValue();
     }
 
+    @Override
+    public boolean equals(Object obj) {
+	if (!(obj instanceof EvaluationsRead)) {
+	    return false;
+	}
+	return EvaluationsUtils.getEquivalence().equivalent(this, (EvaluationsRead) obj);
+    }
+
+    @Override
+    public int hashCode() {
+	return EvaluationsUtils.getEquivalence().hash(this);
+    }
+
+    @Override
+    public String toString() {
+	return Objects.toStringHelper(this).add("Rows", m_evaluations.size())
+		.add("Columns", m_columnCounts.elementSet().size()).add("Values", m_values).toString();
+    }
 }
\ No newline at end of file
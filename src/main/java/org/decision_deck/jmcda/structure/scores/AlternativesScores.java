@@ -1,6 +1,7 @@
 package org.decision_deck.jmcda.structure.scores;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Map;
 import java.util.NavigableMap;
@@ -111,4 +112,25 @@ public class AlternativesScores extends ForwardingNavigableMap<Alternative, Doub
 	return put(alternative, Double.valueOf(score));
     }
 
+    /**
+     * Puts the given scores into this map, as if by putting each alternative with its score in turn. The arguments
+     * are checked before this map is modified.
+     * 
+     * @param alternatives
+     *            not {@code null}, the first <code>length</code> elements must not be {@code null}.
+     * @param scores
+     *            not {@code null}, the score of each alternative, at the same index.
+     * @param length
+     *            the number of alternatives to put, at most the length of both arrays.
+     */
+    public void putAll(Alternative[] alternatives, double[] scores, int length) {
+	checkArgument(length >= 0 && length <= alternatives.length && length <= scores.length);
+	for (int i = 0; i < length; ++i) {
+	    checkNotNull(alternatives[i]);
+	}
+	for (int i = 0; i < length; ++i) {
+	    put(alternatives[i], Double.valueOf(scores[i]));
+	}
+    }
+
 }
@@ -0,0 +1,94 @@
+package org.decision_deck.jmcda.structure.thresholds;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Objects;
+
+/**
+ * <p>
+ * A threshold whose value depends on the evaluation it applies to, of the form α · <em>g</em> + β, where <em>g</em>
+ * is the evaluation (typically, the evaluation of a profile on the criterion the threshold is bound to), α is the
+ * slope and β is the intercept. A constant threshold has a slope of zero.
+ * </p>
+ * <p>
+ * Objects of this type are immutable.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public final class AffineThreshold {
+    private final double m_slope;
+
+    private final double m_intercept;
+
+    /**
+     * @param slope
+     *            a finite number.
+     * @param intercept
+     *            a finite number.
+     */
+    public AffineThreshold(double slope, double intercept) {
+	checkArgument(!Double.isNaN(slope) && !Double.isInfinite(slope), "Invalid slope: " + slope + ".");
+	checkArgument(!Double.isNaN(intercept) && !Double.isInfinite(intercept), "Invalid intercept: " + intercept
+		+ ".");
+	m_slope = slope;
+	m_intercept = intercept;
+    }
+
+    /**
+     * @param value
+     *            a finite number.
+     * @return a threshold whose value is the given one, whatever the evaluation.
+     */
+    static public AffineThreshold constant(double value) {
+	return new AffineThreshold(0d, value);
+    }
+
+    public double getSlope() {
+	return m_slope;
+    }
+
+    public double getIntercept() {
+	return m_intercept;
+    }
+
+    /**
+     * @return {@code true} iff the slope is zero.
+     */
+    public boolean isConstant() {
+	return m_slope == 0d;
+    }
+
+    /**
+     * @param evaluation
+     *            the evaluation the threshold applies to; ignored if this threshold is constant.
+     * @return the value of this threshold for the given evaluation.
+     */
+    public double getValue(double evaluation) {
+	if (m_slope == 0d) {
+	    return m_intercept;
+	}
+	return m_slope * evaluation + m_intercept;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (!(obj instanceof AffineThreshold)) {
+	    return false;
+	}
+	final AffineThreshold t2 = (AffineThreshold) obj;
+	return Double.doubleToLongBits(m_slope) == Double.doubleToLongBits(t2.m_slope)
+		&& Double.doubleToLongBits(m_intercept) == Double.doubleToLongBits(t2.m_intercept);
+    }
+
+    @Override
+    public int hashCode() {
+	return Objects.hashCode(Double.valueOf(m_slope), Double.valueOf(m_intercept));
+    }
+
+    @Override
+    public String toString() {
+	return Objects.toStringHelper(this).add("Slope", m_slope).add("Intercept", m_intercept).toString();
+    }
+}
@@ -0,0 +1,183 @@
+package org.decision_deck.jmcda.structure.thresholds;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.utils.collection.CollectionUtils;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Objects.ToStringHelper;
+import com.google.common.collect.Sets;
+
+/**
+ * <p>
+ * Preference, indifference and veto thresholds associated to criteria, whose values may depend on the evaluation they
+ * apply to (see {@link AffineThreshold}). This generalizes {@link Thresholds}, whose thresholds are constant.
+ * </p>
+ * <p>
+ * Engines should not evaluate these thresholds at each comparison: use
+ * {@link ThresholdsUtils#compile(AffineThresholds, org.decision_deck.jmcda.structure.matrix.EvaluationsRead, java.util.List, java.util.List)}
+ * to evaluate them once for each profile and criterion.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public class AffineThresholds {
+    /**
+     * Never {@code null}.
+     */
+    private final Map<Criterion, AffineThreshold> m_prefs = CollectionUtils.newMapNoNull();
+
+    /**
+     * Never {@code null}.
+     */
+    private final Map<Criterion, AffineThreshold> m_indiffs = CollectionUtils.newMapNoNull();
+
+    /**
+     * Never {@code null}.
+     */
+    private final Map<Criterion, AffineThreshold> m_vetoes = CollectionUtils.newMapNoNull();
+
+    AffineThresholds() {
+	/** Use the factory methods. */
+    }
+
+    /**
+     * Retrieves a view of the set of criteria contained in this object, i.e., each criterion to which at least one
+     * threshold is bound.
+     *
+     * @return not {@code null}.
+     */
+    public Set<Criterion> getCriteria() {
+	return Sets.union(m_prefs.keySet(), Sets.union(m_indiffs.keySet(), m_vetoes.keySet()));
+    }
+
+    public boolean isEmpty() {
+	return m_prefs.isEmpty() && m_indiffs.isEmpty() && m_vetoes.isEmpty();
+    }
+
+    /**
+     * @return not {@code null}, a read-only view.
+     */
+    public Map<Criterion, AffineThreshold> getPreferenceThresholds() {
+	return Collections.unmodifiableMap(m_prefs);
+    }
+
+    /**
+     * @return not {@code null}, a read-only view.
+     */
+    public Map<Criterion, AffineThreshold> getIndifferenceThresholds() {
+	return Collections.unmodifiableMap(m_indiffs);
+    }
+
+    /**
+     * @return not {@code null}, a read-only view.
+     */
+    public Map<Criterion, AffineThreshold> getVetoThresholds() {
+	return Collections.unmodifiableMap(m_vetoes);
+    }
+
+    /**
+     * @param criterion
+     *            must have a preference threshold.
+     * @return not {@code null}.
+     */
+    public AffineThreshold getPreferenceThreshold(Criterion criterion) {
+	final AffineThreshold threshold = m_prefs.get(criterion);
+	checkArgument(threshold != null);
+	return threshold;
+    }
+
+    /**
+     * @param criterion
+     *            must have an indifference threshold.
+     * @return not {@code null}.
+     */
+    public AffineThreshold getIndifferenceThreshold(Criterion criterion) {
+	final AffineThreshold threshold = m_indiffs.get(criterion);
+	checkArgument(threshold != null);
+	return threshold;
+    }
+
+    /**
+     * @param criterion
+     *            must have a veto threshold.
+     * @return not {@code null}.
+     */
+    public AffineThreshold getVetoThreshold(Criterion criterion) {
+	final AffineThreshold threshold = m_vetoes.get(criterion);
+	checkArgument(threshold != null);
+	return threshold;
+    }
+
+    /**
+     * @param criterion
+     *            not {@code null}.
+     * @param threshold
+     *            {@code null} to remove the threshold.
+     * @return the previous threshold, or {@code null} if there was none.
+     */
+    public AffineThreshold setPreferenceThreshold(Criterion criterion, AffineThreshold threshold) {
+	return set(m_prefs, criterion, threshold);
+    }
+
+    /**
+     * @param criterion
+     *            not {@code null}.
+     * @param threshold
+     *            {@code null} to remove the threshold.
+     * @return the previous threshold, or {@code null} if there was none.
+     */
+    public AffineThreshold setIndifferenceThreshold(Criterion criterion, AffineThreshold threshold) {
+	return set(m_indiffs, criterion, threshold);
+    }
+
+    /**
+     * @param criterion
+     *            not {@code null}.
+     * @param threshold
+     *            {@code null} to remove the threshold.
+     * @return the previous threshold, or {@code null} if there was none.
+     */
+    public AffineThreshold setVetoThreshold(Criterion criterion, AffineThreshold threshold) {
+	return set(m_vetoes, criterion, threshold);
+    }
+
+    private static AffineThreshold set(Map<Criterion, AffineThreshold> thresholds, Criterion criterion,
+	    AffineThreshold threshold) {
+	checkNotNull(criterion);
+	if (threshold == null) {
+	    return thresholds.remove(criterion);
+	}
+	return thresholds.put(criterion, threshold);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (!(obj instanceof AffineThresholds)) {
+	    return false;
+	}
+	final AffineThresholds t2 = (AffineThresholds) obj;
+	return m_prefs.equals(t2.m_prefs) && m_indiffs.equals(t2.m_indiffs) && m_vetoes.equals(t2.m_vetoes);
+    }
+
+    @Override
+    public int hashCode() {
+	return Objects.hashCode(m_prefs, m_indiffs, m_vetoes);
+    }
+
+    @Override
+    public String toString() {
+	final ToStringHelper helper = Objects.toStringHelper(this);
+	helper.add("Preferences", m_prefs);
+	helper.add("Indifferences", m_indiffs);
+	helper.add("Vetoes", m_vetoes);
+	return helper.toString();
+    }
+}
@@ -0,0 +1,169 @@
+package org.decision_deck.jmcda.structure.thresholds;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.decision_deck.jmcda.structure.Criterion;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * <p>
+ * An immutable snapshot of a thresholds object, stored in three primitive arrays (one for the preference thresholds,
+ * one for the indifference thresholds and one for the veto thresholds) aligned to a given order of criteria: the
+ * thresholds at index <em>i</em> are the ones of the <em>i</em>-th criterion of that order. An absent threshold is
+ * represented by NaN. Reading a threshold is thus a single array access, without map lookup, unboxing or check.
+ * Objects of this type are obtained with {@link ThresholdsUtils#compile(Thresholds, List)}.
+ * </p>
+ * <p>
+ * Objects of this type may be shared among threads.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public final class CompiledThresholds {
+    private final ImmutableList<Criterion> m_criteria;
+
+    private final ImmutableMap<Criterion, Integer> m_indexes;
+
+    private final double[] m_preference;
+
+    private final double[] m_indifference;
+
+    private final double[] m_veto;
+
+    /**
+     * @param thresholds
+     *            not {@code null}.
+     * @param criteria
+     *            not {@code null}, no {@code null} or duplicate elements.
+     */
+    CompiledThresholds(Thresholds thresholds, List<Criterion> criteria) {
+	checkNotNull(thresholds);
+	m_criteria = ImmutableList.copyOf(criteria);
+	final ImmutableMap.Builder<Criterion, Integer> indexes = ImmutableMap.builder();
+	for (int i = 0; i < m_criteria.size(); ++i) {
+	    indexes.put(m_criteria.get(i), Integer.valueOf(i));
+	}
+	/** Fails on duplicate criteria. */
+	m_indexes = indexes.build();
+	m_preference = toArray(thresholds.getPreferenceThresholds());
+	m_indifference = toArray(thresholds.getIndifferenceThresholds());
+	m_veto = toArray(thresholds.getVetoThresholds());
+    }
+
+    private double[] toArray(Map<Criterion, Double> thresholds) {
+	final double[] array = new double[m_criteria.size()];
+	for (int i = 0; i < array.length; ++i) {
+	    final Double threshold = thresholds.get(m_criteria.get(i));
+	    array[i] = threshold == null ? Double.NaN : threshold.doubleValue();
+	}
+	return array;
+    }
+
+    /**
+     * @return not {@code null}, the order of the thresholds in this object.
+     */
+    public ImmutableList<Criterion> getCriteria() {
+	return m_criteria;
+    }
+
+    /**
+     * @return the number of criteria in the order of this object.
+     */
+    public int size() {
+	return m_criteria.size();
+    }
+
+    /**
+     * @param criterion
+     *            a criterion in the order of this object.
+     * @return the index of the given criterion in the order of this object.
+     */
+    public int getIndex(Criterion criterion) {
+	final Integer index = m_indexes.get(criterion);
+	checkArgument(index != null, "Unknown criterion: " + criterion + ".");
+	return index.intValue();
+    }
+
+    /**
+     * @param index
+     *            at least zero, less than the size of this object.
+     * @return the preference threshold of the criterion at the given index, or NaN if it has none.
+     */
+    public double getPreferenceThreshold(int index) {
+	return m_preference[index];
+    }
+
+    /**
+     * @param index
+     *            at least zero, less than the size of this object.
+     * @return the indifference threshold of the criterion at the given index, or NaN if it has none.
+     */
+    public double getIndifferenceThreshold(int index) {
+	return m_indifference[index];
+    }
+
+    /**
+     * @param index
+     *            at least zero, less than the size of this object.
+     * @return the veto threshold of the criterion at the given index, or NaN if it has none.
+     */
+    public double getVetoThreshold(int index) {
+	return m_veto[index];
+    }
+
+    /**
+     * @return a new array containing the preference thresholds, in the order of this object, NaN for absent ones.
+     */
+    public double[] toPreferenceArray() {
+	return m_preference.clone();
+    }
+
+    /**
+     * @return a new array containing the indifference thresholds, in the order of this object, NaN for absent ones.
+     */
+    public double[] toIndifferenceArray() {
+	return m_indifference.clone();
+    }
+
+    /**
+     * @return a new array containing the veto thresholds, in the order of this object, NaN for absent ones.
+     */
+    public double[] toVetoArray() {
+	return m_veto.clone();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (this == obj) {
+	    return true;
+	}
+	if (!(obj instanceof CompiledThresholds)) {
+	    return false;
+	}
+	final CompiledThresholds t2 = (CompiledThresholds) obj;
+	return m_criteria.equals(t2.m_criteria) && Arrays.equals(m_preference, t2.m_preference)
+		&& Arrays.equals(m_indifference, t2.m_indifference) && Arrays.equals(m_veto, t2.m_veto);
+    }
+
+    @Override
+    public int hashCode() {
+	return Objects.hashCode(m_criteria, Integer.valueOf(Arrays.hashCode(m_preference)),
+		Integer.valueOf(Arrays.hashCode(m_indifference)), Integer.valueOf(Arrays.hashCode(m_veto)));
+    }
+
+    @Override
+    public String toString() {
+	return Objects.toStringHelper(this).add("Criteria", m_criteria)
+		.add("Preferences", Arrays.toString(m_preference)).add("Indifferences", Arrays.toString(m_indifference))
+		.add("Vetoes", Arrays.toString(m_veto)).toString();
+    }
+}
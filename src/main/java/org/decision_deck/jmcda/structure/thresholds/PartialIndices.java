@@ -0,0 +1,318 @@
+package org.decision_deck.jmcda.structure.thresholds;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.jmcda.structure.interval.DiscreteInterval;
+import org.decision_deck.jmcda.structure.interval.Interval;
+import org.decision_deck.jmcda.structure.matrix.EvaluationsRead;
+
+import com.google.common.base.Objects;
+
+/**
+ * <p>
+ * Computes the partial concordance and discordance indices of an alternative over each profile of a
+ * {@link ProfilesThresholds} object, on each of its criteria, as defined in the ELECTRE methods. Let <em>d</em> be the
+ * difference between the evaluation of the alternative and the one of the profile, oriented by the preference
+ * direction of the criterion (positive when the alternative is better); <em>q</em>, <em>p</em> and <em>v</em> the
+ * indifference, preference and veto thresholds of the profile. The partial concordance index is one if <em>d</em> ≥
+ * −<em>q</em>, zero if <em>d</em> &lt; −<em>p</em>, and linear in between. The partial discordance index is zero if
+ * <em>d</em> ≥ −<em>p</em>, one if <em>d</em> ≤ −<em>v</em>, and linear in between. An absent indifference threshold
+ * is considered as zero, an absent preference threshold as equal to the indifference threshold, and an absent veto
+ * threshold as infinite.
+ * </p>
+ * <p>
+ * When the scale of a criterion is discrete with at most a given number of steps, the evaluations of the alternatives
+ * on that criterion may only take that number of values, and so may the partial indices. For such criteria, the
+ * partial indices are computed once per profile and step, when this object is created, and are then read from a
+ * table indexed by the step number. For the other criteria, and for values that are not on the grid of the discrete
+ * scale, they are computed at each call. Both ways give the same results.
+ * </p>
+ * <p>
+ * Objects of this type are obtained with
+ * {@link ThresholdsUtils#newPartialIndices(ProfilesThresholds, EvaluationsRead, Map, int)}. They are immutable and may
+ * be shared among threads.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public final class PartialIndices {
+    /**
+     * The maximal number of steps of the scales for which tables are built, when not specified.
+     */
+    public static final int DEFAULT_MAX_STEPS = 1024;
+
+    private final ProfilesThresholds m_thresholds;
+
+    /**
+     * Indexed by criterion: the sign of the preference direction.
+     */
+    private final int[] m_signs;
+
+    /**
+     * Indexed by criterion: the discrete scale, or {@code null} if no tables are built for that criterion.
+     */
+    private final DiscreteInterval[] m_discreteScales;
+
+    /**
+     * Row major by profile, then criterion, like the thresholds: the evaluations of the profiles.
+     */
+    private final double[] m_profileValues;
+
+    /**
+     * Row major by profile, then criterion: the partial concordance indices indexed by step number, or {@code null}
+     * for criteria having no tables.
+     */
+    private final double[][] m_concordances;
+
+    /**
+     * Row major by profile, then criterion: the partial discordance indices indexed by step number, or {@code null}
+     * for criteria having no tables.
+     */
+    private final double[][] m_discordances;
+
+    /**
+     * @param thresholds
+     *            not {@code null}.
+     * @param profilesEvaluations
+     *            not {@code null}, must contain an evaluation for each profile and criterion of the given thresholds.
+     * @param scales
+     *            not {@code null}, must contain a scale with a preference direction for each criterion of the given
+     *            thresholds.
+     * @param maxSteps
+     *            at least zero; zero to never build tables.
+     */
+    PartialIndices(ProfilesThresholds thresholds, EvaluationsRead profilesEvaluations, Map<Criterion, Interval> scales,
+	    int maxSteps) {
+	checkNotNull(thresholds);
+	checkNotNull(profilesEvaluations);
+	checkNotNull(scales);
+	checkArgument(maxSteps >= 0, "Invalid maximal number of steps: " + maxSteps + ".");
+	m_thresholds = thresholds;
+	final int nbProfiles = thresholds.getProfiles().size();
+	final int nbCriteria = thresholds.getCriteria().size();
+	m_signs = new int[nbCriteria];
+	m_discreteScales = new DiscreteInterval[nbCriteria];
+	for (int c = 0; c < nbCriteria; ++c) {
+	    final Criterion criterion = thresholds.getCriteria().get(c);
+	    final Interval scale = scales.get(criterion);
+	    checkArgument(scale != null && scale.getPreferenceDirection() != null, "No preference direction for "
+		    + criterion + ".");
+	    m_signs[c] = scale.getDirectionAsSign();
+	    if (scale.getStepSize() != null && !Double.isInfinite(scale.getMaximum())) {
+		final DiscreteInterval discrete = scale.getAsDiscreteInterval();
+		if (discrete.getNbSteps() <= maxSteps) {
+		    m_discreteScales[c] = discrete;
+		}
+	    }
+	}
+	m_profileValues = new double[nbProfiles * nbCriteria];
+	m_concordances = new double[nbProfiles * nbCriteria][];
+	m_discordances = new double[nbProfiles * nbCriteria][];
+	for (int p = 0; p < nbProfiles; ++p) {
+	    final Alternative profile = thresholds.getProfiles().get(p);
+	    for (int c = 0; c < nbCriteria; ++c) {
+		final Criterion criterion = thresholds.getCriteria().get(c);
+		final Double entry = profilesEvaluations.getEntry(profile, criterion);
+		checkArgument(entry != null, "No value at " + profile + ", " + criterion + ".");
+		final int cell = p * nbCriteria + c;
+		m_profileValues[cell] = entry.doubleValue();
+		final DiscreteInterval discrete = m_discreteScales[c];
+		if (discrete == null) {
+		    continue;
+		}
+		final int nbSteps = discrete.getNbSteps();
+		final double[] concordances = new double[nbSteps];
+		final double[] discordances = new double[nbSteps];
+		for (int s = 0; s < nbSteps; ++s) {
+		    final double value = discrete.getMinimum() + s * discrete.getNonNullStepSize();
+		    concordances[s] = computeConcordance(p, c, value);
+		    discordances[s] = computeDiscordance(p, c, value);
+		}
+		m_concordances[cell] = concordances;
+		m_discordances[cell] = discordances;
+	    }
+	}
+    }
+
+    /**
+     * @return not {@code null}, the thresholds this object has been built from, which also determine the order of the
+     *         profiles and criteria.
+     */
+    public ProfilesThresholds getThresholds() {
+	return m_thresholds;
+    }
+
+    /**
+     * @param criterion
+     *            at least zero, less than the number of criteria.
+     * @return {@code true} iff the partial indices on the given criterion are read from precomputed tables.
+     */
+    public boolean isTabulated(int criterion) {
+	return m_discreteScales[criterion] != null;
+    }
+
+    /**
+     * The given criterion must be tabulated.
+     *
+     * @param criterion
+     *            at least zero, less than the number of criteria.
+     * @param value
+     *            a value of the discrete scale of the given criterion.
+     * @return the step number of the given value in the scale of the given criterion, at least zero and less than the
+     *         number of steps of the scale.
+     */
+    public int getStep(int criterion, double value) {
+	final DiscreteInterval discrete = m_discreteScales[criterion];
+	checkArgument(discrete != null, "Criterion not tabulated: " + criterion + ".");
+	final int step = findStep(discrete, value);
+	if (step < 0) {
+	    /** Not using checkArgument, which would build the message at every call. */
+	    throw new IllegalArgumentException("Value " + value + " not in " + discrete + ".");
+	}
+	return step;
+    }
+
+    /**
+     * @return the step number of the given value in the given scale, or -1 if the value is not on the grid of the
+     *         scale.
+     */
+    private static int findStep(DiscreteInterval discrete, double value) {
+	final double exact = (value - discrete.getMinimum()) / discrete.getNonNullStepSize();
+	final long step = Math.round(exact);
+	if (step < 0 || step >= discrete.getNbSteps() || Math.abs(exact - step) > 1e-6) {
+	    return -1;
+	}
+	return (int) step;
+    }
+
+    /**
+     * The given criterion must be tabulated.
+     *
+     * @param profile
+     *            at least zero, less than the number of profiles.
+     * @param criterion
+     *            at least zero, less than the number of criteria.
+     * @param step
+     *            at least zero, less than the number of steps of the scale of the given criterion.
+     * @return the partial concordance index of an alternative evaluated at the given step over the given profile.
+     */
+    public double getConcordanceAtStep(int profile, int criterion, int step) {
+	return m_concordances[profile * m_signs.length + criterion][step];
+    }
+
+    /**
+     * The given criterion must be tabulated.
+     *
+     * @param profile
+     *            at least zero, less than the number of profiles.
+     * @param criterion
+     *            at least zero, less than the number of criteria.
+     * @param step
+     *            at least zero, less than the number of steps of the scale of the given criterion.
+     * @return the partial discordance index of an alternative evaluated at the given step over the given profile.
+     */
+    public double getDiscordanceAtStep(int profile, int criterion, int step) {
+	return m_discordances[profile * m_signs.length + criterion][step];
+    }
+
+    /**
+     * @param profile
+     *            at least zero, less than the number of profiles.
+     * @param criterion
+     *            at least zero, less than the number of criteria.
+     * @param value
+     *            the evaluation of the alternative on the given criterion. If the criterion is tabulated and the
+     *            value is not on the grid of its discrete scale, the index is computed instead of read.
+     * @return the partial concordance index of the alternative over the given profile, between zero and one.
+     */
+    public double getConcordance(int profile, int criterion, double value) {
+	final double[] concordances = m_concordances[profile * m_signs.length + criterion];
+	if (concordances == null) {
+	    return computeConcordance(profile, criterion, value);
+	}
+	final int step = findStep(m_discreteScales[criterion], value);
+	if (step < 0) {
+	    return computeConcordance(profile, criterion, value);
+	}
+	return concordances[step];
+    }
+
+    /**
+     * @param profile
+     *            at least zero, less than the number of profiles.
+     * @param criterion
+     *            at least zero, less than the number of criteria.
+     * @param value
+     *            the evaluation of the alternative on the given criterion. If the criterion is tabulated and the
+     *            value is not on the grid of its discrete scale, the index is computed instead of read.
+     * @return the partial discordance index of the alternative over the given profile, between zero and one.
+     */
+    public double getDiscordance(int profile, int criterion, double value) {
+	final double[] discordances = m_discordances[profile * m_signs.length + criterion];
+	if (discordances == null) {
+	    return computeDiscordance(profile, criterion, value);
+	}
+	final int step = findStep(m_discreteScales[criterion], value);
+	if (step < 0) {
+	    return computeDiscordance(profile, criterion, value);
+	}
+	return discordances[step];
+    }
+
+    private double computeConcordance(int profile, int criterion, double value) {
+	final double difference = m_signs[criterion] * (value - m_profileValues[profile * m_signs.length + criterion]);
+	final double q = getIndifference(profile, criterion);
+	final double p = getPreference(profile, criterion, q);
+	if (difference >= -q) {
+	    return 1d;
+	}
+	if (difference < -p) {
+	    return 0d;
+	}
+	return (p + difference) / (p - q);
+    }
+
+    private double computeDiscordance(int profile, int criterion, double value) {
+	final double v = m_thresholds.getVetoThreshold(profile, criterion);
+	if (Double.isNaN(v)) {
+	    return 0d;
+	}
+	final double difference = m_signs[criterion] * (value - m_profileValues[profile * m_signs.length + criterion]);
+	final double p = getPreference(profile, criterion, getIndifference(profile, criterion));
+	if (difference >= -p) {
+	    return 0d;
+	}
+	if (difference <= -v) {
+	    return 1d;
+	}
+	return (-difference - p) / (v - p);
+    }
+
+    private double getIndifference(int profile, int criterion) {
+	final double q = m_thresholds.getIndifferenceThreshold(profile, criterion);
+	return Double.isNaN(q) ? 0d : q;
+    }
+
+    private double getPreference(int profile, int criterion, double indifference) {
+	final double p = m_thresholds.getPreferenceThreshold(profile, criterion);
+	return Double.isNaN(p) ? indifference : p;
+    }
+
+    @Override
+    public String toString() {
+	int nbTabulated = 0;
+	for (DiscreteInterval discrete : m_discreteScales) {
+	    if (discrete != null) {
+		++nbTabulated;
+	    }
+	}
+	return Objects.toStringHelper(this).add("Thresholds", m_thresholds).add("Tabulated criteria", nbTabulated)
+		.toString();
+    }
+}
@@ -0,0 +1,232 @@
+package org.decision_deck.jmcda.structure.thresholds;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.jmcda.structure.matrix.EvaluationsRead;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * <p>
+ * An immutable table of the values of a set of {@link AffineThresholds} for each profile and criterion, each threshold
+ * being evaluated once, on the evaluation of the profile on the criterion, when this object is created. The values are
+ * stored in three primitive arrays (one for the preference thresholds, one for the indifference thresholds and one for
+ * the veto thresholds) aligned to given orders of profiles and criteria. An absent threshold is represented by NaN.
+ * Objects of this type are obtained with {@link ThresholdsUtils#compile(AffineThresholds, EvaluationsRead, List, List)}.
+ * </p>
+ * <p>
+ * Objects of this type may be shared among threads.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public final class ProfilesThresholds {
+    private final ImmutableList<Alternative> m_profiles;
+
+    private final ImmutableList<Criterion> m_criteria;
+
+    private final ImmutableMap<Alternative, Integer> m_profileIndexes;
+
+    private final ImmutableMap<Criterion, Integer> m_criterionIndexes;
+
+    /**
+     * Row major: the value for the profile <em>p</em> and the criterion <em>c</em> is at <em>p</em> × number of
+     * criteria + <em>c</em>.
+     */
+    private final double[] m_preference;
+
+    private final double[] m_indifference;
+
+    private final double[] m_veto;
+
+    /**
+     * @param thresholds
+     *            not {@code null}.
+     * @param profilesEvaluations
+     *            not {@code null}, must contain an evaluation for each profile and criterion having a non constant
+     *            threshold.
+     * @param profiles
+     *            not {@code null}, no {@code null} or duplicate elements.
+     * @param criteria
+     *            not {@code null}, no {@code null} or duplicate elements.
+     */
+    ProfilesThresholds(AffineThresholds thresholds, EvaluationsRead profilesEvaluations, List<Alternative> profiles,
+	    List<Criterion> criteria) {
+	checkNotNull(thresholds);
+	checkNotNull(profilesEvaluations);
+	m_profiles = ImmutableList.copyOf(profiles);
+	m_criteria = ImmutableList.copyOf(criteria);
+	/** Fails on duplicates. */
+	m_profileIndexes = getIndexes(m_profiles);
+	m_criterionIndexes = getIndexes(m_criteria);
+	final int size = m_profiles.size() * m_criteria.size();
+	m_preference = new double[size];
+	m_indifference = new double[size];
+	m_veto = new double[size];
+	for (int c = 0; c < m_criteria.size(); ++c) {
+	    final Criterion criterion = m_criteria.get(c);
+	    final AffineThreshold preference = thresholds.getPreferenceThresholds().get(criterion);
+	    final AffineThreshold indifference = thresholds.getIndifferenceThresholds().get(criterion);
+	    final AffineThreshold veto = thresholds.getVetoThresholds().get(criterion);
+	    final boolean needsEvaluation = !isConstant(preference) || !isConstant(indifference) || !isConstant(veto);
+	    for (int p = 0; p < m_profiles.size(); ++p) {
+		final double evaluation;
+		if (needsEvaluation) {
+		    final Alternative profile = m_profiles.get(p);
+		    final Double entry = profilesEvaluations.getEntry(profile, criterion);
+		    checkArgument(entry != null, "No value at " + profile + ", " + criterion + ".");
+		    evaluation = entry.doubleValue();
+		} else {
+		    evaluation = Double.NaN;
+		}
+		final int cell = p * m_criteria.size() + c;
+		m_preference[cell] = getValue(preference, evaluation);
+		m_indifference[cell] = getValue(indifference, evaluation);
+		m_veto[cell] = getValue(veto, evaluation);
+	    }
+	}
+    }
+
+    private static <T> ImmutableMap<T, Integer> getIndexes(List<T> elements) {
+	final ImmutableMap.Builder<T, Integer> indexes = ImmutableMap.builder();
+	for (int i = 0; i < elements.size(); ++i) {
+	    indexes.put(elements.get(i), Integer.valueOf(i));
+	}
+	return indexes.build();
+    }
+
+    private static boolean isConstant(AffineThreshold threshold) {
+	return threshold == null || threshold.isConstant();
+    }
+
+    private static double getValue(AffineThreshold threshold, double evaluation) {
+	return threshold == null ? Double.NaN : threshold.getValue(evaluation);
+    }
+
+    /**
+     * @return not {@code null}, the order of the profiles in this object.
+     */
+    public ImmutableList<Alternative> getProfiles() {
+	return m_profiles;
+    }
+
+    /**
+     * @return not {@code null}, the order of the criteria in this object.
+     */
+    public ImmutableList<Criterion> getCriteria() {
+	return m_criteria;
+    }
+
+    /**
+     * @param profile
+     *            a profile in the order of this object.
+     * @return the index of the given profile in the order of this object.
+     */
+    public int getProfileIndex(Alternative profile) {
+	final Integer index = m_profileIndexes.get(profile);
+	checkArgument(index != null, "Unknown profile: " + profile + ".");
+	return index.intValue();
+    }
+
+    /**
+     * @param criterion
+     *            a criterion in the order of this object.
+     * @return the index of the given criterion in the order of this object.
+     */
+    public int getCriterionIndex(Criterion criterion) {
+	final Integer index = m_criterionIndexes.get(criterion);
+	checkArgument(index != null, "Unknown criterion: " + criterion + ".");
+	return index.intValue();
+    }
+
+    /**
+     * @param profile
+     *            at least zero, less than the number of profiles.
+     * @param criterion
+     *            at least zero, less than the number of criteria.
+     * @return the preference threshold of the given profile on the given criterion, or NaN if there is none.
+     */
+    public double getPreferenceThreshold(int profile, int criterion) {
+	return m_preference[profile * m_criteria.size() + criterion];
+    }
+
+    /**
+     * @param profile
+     *            at least zero, less than the number of profiles.
+     * @param criterion
+     *            at least zero, less than the number of criteria.
+     * @return the indifference threshold of the given profile on the given criterion, or NaN if there is none.
+     */
+    public double getIndifferenceThreshold(int profile, int criterion) {
+	return m_indifference[profile * m_criteria.size() + criterion];
+    }
+
+    /**
+     * @param profile
+     *            at least zero, less than the number of profiles.
+     * @param criterion
+     *            at least zero, less than the number of criteria.
+     * @return the veto threshold of the given profile on the given criterion, or NaN if there is none.
+     */
+    public double getVetoThreshold(int profile, int criterion) {
+	return m_veto[profile * m_criteria.size() + criterion];
+    }
+
+    /**
+     * @param profile
+     *            at least zero, less than the number of profiles.
+     * @return the thresholds of the given profile, as constant thresholds, omitting the absent ones.
+     */
+    public Thresholds getThresholds(int profile) {
+	checkArgument(profile >= 0 && profile < m_profiles.size(), "Invalid profile index: " + profile + ".");
+	final Thresholds thresholds = ThresholdsUtils.newThresholds();
+	for (int c = 0; c < m_criteria.size(); ++c) {
+	    final int cell = profile * m_criteria.size() + c;
+	    final Criterion criterion = m_criteria.get(c);
+	    if (!Double.isNaN(m_preference[cell])) {
+		thresholds.setPreferenceThreshold(criterion, m_preference[cell]);
+	    }
+	    if (!Double.isNaN(m_indifference[cell])) {
+		thresholds.setIndifferenceThreshold(criterion, m_indifference[cell]);
+	    }
+	    if (!Double.isNaN(m_veto[cell])) {
+		thresholds.setVetoThreshold(criterion, m_veto[cell]);
+	    }
+	}
+	return thresholds;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (this == obj) {
+	    return true;
+	}
+	if (!(obj instanceof ProfilesThresholds)) {
+	    return false;
+	}
+	final ProfilesThresholds t2 = (ProfilesThresholds) obj;
+	return m_profiles.equals(t2.m_profiles) && m_criteria.equals(t2.m_criteria)
+		&& Arrays.equals(m_preference, t2.m_preference) && Arrays.equals(m_indifference, t2.m_indifference)
+		&& Arrays.equals(m_veto, t2.m_veto);
+    }
+
+    @Override
+    public int hashCode() {
+	return Objects.hashCode(m_profiles, m_criteria, Integer.valueOf(Arrays.hashCode(m_preference)),
+		Integer.valueOf(Arrays.hashCode(m_indifference)), Integer.valueOf(Arrays.hashCode(m_veto)));
+    }
+
+    @Override
+    public String toString() {
+	return Objects.toStringHelper(this).add("Profiles", m_profiles).add("Criteria", m_criteria).toString();
+    }
+}
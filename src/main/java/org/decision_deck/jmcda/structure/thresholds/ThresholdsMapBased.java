@@ -68,8 +68,9 @@ public abstract class ThresholdsMapBased implements Thresholds {
 
     @Override
     public double getVetoThreshold(Criterion criterion) {
-	checkArgument(containsVetoThreshold(criterion));
-	return getVetoThresholds().get(criterion).doubleValue();
+	final Double threshold = getVetoThresholds().get(criterion);
+	checkArgument(threshold != null);
+	return threshold.doubleValue();
     }
 
     @Override
@@ -89,14 +90,16 @@ public abstract class ThresholdsMapBased implements Thresholds {
 
     @Override
     public double getIndifferenceThreshold(Criterion criterion) {
-	checkArgument(containsIndifferenceThreshold(criterion));
-	return getIndifferenceThresholds().get(criterion).doubleValue();
+	final Double threshold = getIndifferenceThresholds().get(criterion);
+	checkArgument(threshold != null);
+	return threshold.doubleValue();
     }
 
     @Override
     public double getPreferenceThreshold(Criterion criterion) {
-	checkArgument(containsPreferenceThreshold(criterion));
-	return getPreferenceThresholds().get(criterion).doubleValue();
+	final Double threshold = getPreferenceThresholds().get(criterion);
+	checkArgument(threshold != null);
+	return threshold.doubleValue();
     }
 
     @Override
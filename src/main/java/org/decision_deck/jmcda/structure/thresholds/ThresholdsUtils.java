@@ -1,15 +1,22 @@
 package org.decision_deck.jmcda.structure.thresholds;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.decision_deck.jmcda.structure.Alternative;
 import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.jmcda.structure.interval.Interval;
+import org.decision_deck.jmcda.structure.matrix.EvaluationsRead;
 
 import com.google.common.base.Equivalence;
 import com.google.common.base.Objects;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
 
@@ -81,6 +88,133 @@ public class ThresholdsUtils {
 		: vetoThresholds);
     }
 
+    /**
+     * Retrieves an immutable snapshot of the given thresholds, stored in primitive arrays aligned to the given order of
+     * criteria, NaN representing absent thresholds. The returned object does not reflect later changes to the given
+     * thresholds.
+     * 
+     * @param thresholds
+     *            not {@code null}.
+     * @param criteria
+     *            not {@code null}, no {@code null} or duplicate elements. May contain criteria having no thresholds,
+     *            and may omit some criteria of the given thresholds.
+     * @return not {@code null}.
+     */
+    static public CompiledThresholds compile(Thresholds thresholds, List<Criterion> criteria) {
+	return new CompiledThresholds(thresholds, criteria);
+    }
+
+    /**
+     * Retrieves an immutable snapshot of the given thresholds, stored in primitive arrays aligned to the iteration
+     * order of the criteria of the given thresholds.
+     * 
+     * @param thresholds
+     *            not {@code null}.
+     * @return not {@code null}.
+     * @see #compile(Thresholds, List)
+     */
+    static public CompiledThresholds compile(Thresholds thresholds) {
+	checkNotNull(thresholds);
+	return new CompiledThresholds(thresholds, ImmutableList.copyOf(thresholds.getCriteria()));
+    }
+
+    /**
+     * Retrieves a new, empty, set of affine thresholds.
+     * 
+     * @return not {@code null}.
+     */
+    static public AffineThresholds newAffineThresholds() {
+	return new AffineThresholds();
+    }
+
+    /**
+     * Retrieves a new set of affine thresholds containing, as constant thresholds, the thresholds of the given source.
+     * The returned object does not reflect later changes to the given thresholds.
+     * 
+     * @param constantSource
+     *            not {@code null}.
+     * @return not {@code null}.
+     */
+    static public AffineThresholds newAffineThresholds(Thresholds constantSource) {
+	checkNotNull(constantSource);
+	final AffineThresholds thresholds = new AffineThresholds();
+	for (Map.Entry<Criterion, Double> entry : constantSource.getPreferenceThresholds().entrySet()) {
+	    thresholds.setPreferenceThreshold(entry.getKey(), AffineThreshold.constant(entry.getValue().doubleValue()));
+	}
+	for (Map.Entry<Criterion, Double> entry : constantSource.getIndifferenceThresholds().entrySet()) {
+	    thresholds.setIndifferenceThreshold(entry.getKey(), AffineThreshold.constant(entry.getValue().doubleValue()));
+	}
+	for (Map.Entry<Criterion, Double> entry : constantSource.getVetoThresholds().entrySet()) {
+	    thresholds.setVetoThreshold(entry.getKey(), AffineThreshold.constant(entry.getValue().doubleValue()));
+	}
+	return thresholds;
+    }
+
+    /**
+     * Evaluates the given affine thresholds once for each given profile and criterion, on the evaluation of that
+     * profile on that criterion, and stores the resulting values in primitive arrays aligned to the given orders, NaN
+     * representing absent thresholds. The returned object does not reflect later changes to the given thresholds or
+     * evaluations.
+     * 
+     * @param thresholds
+     *            not {@code null}.
+     * @param profilesEvaluations
+     *            not {@code null}, must contain an evaluation for each given profile on each given criterion having a
+     *            non constant threshold.
+     * @param profiles
+     *            not {@code null}, no {@code null} or duplicate elements.
+     * @param criteria
+     *            not {@code null}, no {@code null} or duplicate elements. May contain criteria having no thresholds,
+     *            and may omit some criteria of the given thresholds.
+     * @return not {@code null}.
+     */
+    static public ProfilesThresholds compile(AffineThresholds thresholds, EvaluationsRead profilesEvaluations,
+	    List<Alternative> profiles, List<Criterion> criteria) {
+	return new ProfilesThresholds(thresholds, profilesEvaluations, profiles, criteria);
+    }
+
+    /**
+     * Retrieves an object computing the partial concordance and discordance indices of alternatives over the profiles
+     * of the given thresholds. On each criterion whose scale is discrete with at most the given number of steps, the
+     * indices are precomputed for each profile and step. The returned object does not reflect later changes to the
+     * given evaluations or scales.
+     * 
+     * @param thresholds
+     *            not {@code null}.
+     * @param profilesEvaluations
+     *            not {@code null}, must contain an evaluation for each profile and criterion of the given thresholds.
+     * @param scales
+     *            not {@code null}, must contain a scale with a preference direction for each criterion of the given
+     *            thresholds.
+     * @param maxSteps
+     *            at least zero; zero to never precompute the indices.
+     * @return not {@code null}.
+     */
+    static public PartialIndices newPartialIndices(ProfilesThresholds thresholds, EvaluationsRead profilesEvaluations,
+	    Map<Criterion, Interval> scales, int maxSteps) {
+	return new PartialIndices(thresholds, profilesEvaluations, scales, maxSteps);
+    }
+
+    /**
+     * Retrieves an object computing the partial concordance and discordance indices of alternatives over the profiles
+     * of the given thresholds, precomputing them on the criteria whose scale is discrete with at most
+     * {@link PartialIndices#DEFAULT_MAX_STEPS} steps.
+     * 
+     * @param thresholds
+     *            not {@code null}.
+     * @param profilesEvaluations
+     *            not {@code null}, must contain an evaluation for each profile and criterion of the given thresholds.
+     * @param scales
+     *            not {@code null}, must contain a scale with a preference direction for each criterion of the given
+     *            thresholds.
+     * @return not {@code null}.
+     * @see #newPartialIndices(ProfilesThresholds, EvaluationsRead, Map, int)
+     */
+    static public PartialIndices newPartialIndices(ProfilesThresholds thresholds, EvaluationsRead profilesEvaluations,
+	    Map<Criterion, Interval> scales) {
+	return new PartialIndices(thresholds, profilesEvaluations, scales, PartialIndices.DEFAULT_MAX_STEPS);
+    }
+
     static public Thresholds newThresholds(Thresholds source) {
 	return new ThresholdsImpl(source);
     }
@@ -9,6 +9,7 @@ import org.decision_deck.jmcda.structure.Criterion;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Objects.ToStringHelper;
+import com.google.common.collect.ImmutableList;
 
 public class CoalitionsImpl implements Coalitions {
     @Override
@@ -76,11 +77,55 @@ public class CoalitionsImpl implements Coalitions {
 	}
 	final Double old = m_lambda;
 	m_lambda = Double.valueOf(majorityThreshold);
+	++m_thresholdChanges;
 	return old;
     }
 
     private final Weights m_weights;
 
+    /**
+     * Incremented at each change of the majority threshold.
+     */
+    private long m_thresholdChanges;
+
+    /**
+     * Retrieves a number that changes whenever this object changes, thus permitting to cache data computed from this
+     * object.
+     *
+     * @return a negative number iff the changes of this object can't be detected, which is the case when it wraps
+     *         weights that do not track their changes.
+     */
+    long getModificationCount() {
+	if (!(m_weights instanceof WeightsImpl)) {
+	    return -1;
+	}
+	final long weightsCount = ((WeightsImpl) m_weights).getModificationCount();
+	return weightsCount < 0 ? -1 : weightsCount + m_thresholdChanges;
+    }
+
+    /**
+     * The last table built, possibly outdated. {@code null} iff no table has been built yet.
+     */
+    private CoalitionsTable m_table;
+
+    /**
+     * Retrieves the table of this object, building it only if this object changed since the last table was built: the
+     * weights are compiled by {@link Weights#compile(java.util.List)}, which returns the same object as long as they do
+     * not change.
+     *
+     * @return not {@code null}.
+     */
+    CoalitionsTable getTable() {
+	final CompiledWeights weights = m_weights.compile(ImmutableList.copyOf(m_weights.keySet()));
+	final double threshold = m_lambda == null ? Double.NaN : m_lambda.doubleValue();
+	if (m_table == null || m_table.getCompiledWeights() != weights
+		|| m_table.containsMajorityThreshold() != (m_lambda != null)
+		|| (m_lambda != null && m_table.getMajorityThreshold() != threshold)) {
+	    m_table = new CoalitionsTable(weights, threshold);
+	}
+	return m_table;
+    }
+
     @Override
     public double getWeight(Criterion criterion) {
 	checkState(m_weights.containsKey(criterion));
@@ -119,6 +164,7 @@ public class CoalitionsImpl implements Coalitions {
 	    throw new IllegalArgumentException("Valid value required.");
 	}
 	m_lambda = majorityThreshold;
+	++m_thresholdChanges;
     }
 
     @Override
@@ -130,6 +176,7 @@ public class CoalitionsImpl implements Coalitions {
     public Double removeMajorityThreshold() {
 	final Double old = m_lambda;
 	m_lambda = null;
+	++m_thresholdChanges;
 	return old;
     }
 
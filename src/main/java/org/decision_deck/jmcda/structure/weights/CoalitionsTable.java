@@ -0,0 +1,229 @@
+package org.decision_deck.jmcda.structure.weights;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.Collection;
+
+import org.decision_deck.jmcda.structure.Criterion;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * <p>
+ * An immutable snapshot of a set of coalitions, answering in constant time whether a subset of the criteria is a
+ * winning coalition, i.e. has a total weight at least equal to the majority threshold, and what its total weight is.
+ * Objects of this type are obtained with {@link CoalitionsUtils#getTable(Coalitions)}.
+ * </p>
+ * <p>
+ * A subset of criteria is represented by a bit mask: the criterion at index <em>i</em> in the order of this object
+ * (see {@link #getCriteria()}) is in the subset iff the bit <em>i</em> of the mask is set. This object thus supports
+ * at most {@value #MAX_CRITERIA} criteria.
+ * </p>
+ * <p>
+ * The total weights are computed from precomputed sums of the weights of each subset of each group of eight
+ * consecutive criteria, thus with one table lookup per group. With at most {@value #MAX_INDEXED_CRITERIA} criteria,
+ * the winning coalitions are additionally precomputed, in a table of one bit per subset. Note that the total weight
+ * of a subset is not necessarily exactly equal to the sum of its weights computed in an other order, because of the
+ * floating point imprecision; the winning status of a subset is always consistent with the total weight given by
+ * this object. See the usage note in {@link Coalitions} about lowering the majority threshold a bit.
+ * </p>
+ * <p>
+ * Objects of this type may be shared among threads.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public final class CoalitionsTable {
+    /**
+     * Maximal number of criteria supported by this class.
+     */
+    public static final int MAX_CRITERIA = 64;
+
+    /**
+     * Maximal number of criteria for which the winning coalitions are precomputed.
+     */
+    public static final int MAX_INDEXED_CRITERIA = 24;
+
+    private static final int CHUNK_SIZE = 8;
+
+    private final CompiledWeights m_weights;
+
+    private final ImmutableMap<Criterion, Integer> m_indexes;
+
+    /**
+     * NaN iff not set.
+     */
+    private final double m_majorityThreshold;
+
+    /**
+     * The mask containing all the criteria.
+     */
+    private final long m_all;
+
+    /**
+     * For each group of {@link #CHUNK_SIZE} consecutive criteria, the sum of the weights of each subset of that group,
+     * indexed by the bits of that group.
+     */
+    private final double[][] m_chunkSums;
+
+    /**
+     * One bit per subset of criteria, set iff it is a winning coalition. {@code null} iff there are too many criteria
+     * or the majority threshold is not set.
+     */
+    private final long[] m_winning;
+
+    /**
+     * @param weights
+     *            not {@code null}, at most {@link #MAX_CRITERIA} criteria.
+     * @param majorityThreshold
+     *            NaN if not set.
+     */
+    CoalitionsTable(CompiledWeights weights, double majorityThreshold) {
+	checkNotNull(weights);
+	final int nb = weights.size();
+	checkArgument(nb <= MAX_CRITERIA, "Too many criteria: " + nb + ".");
+	m_weights = weights;
+	m_majorityThreshold = majorityThreshold;
+	final ImmutableMap.Builder<Criterion, Integer> indexes = ImmutableMap.builder();
+	for (int i = 0; i < nb; ++i) {
+	    indexes.put(weights.getCriteria().get(i), Integer.valueOf(i));
+	}
+	m_indexes = indexes.build();
+	m_all = nb == MAX_CRITERIA ? -1L : (1L << nb) - 1L;
+
+	final int nbChunks = (nb + CHUNK_SIZE - 1) / CHUNK_SIZE;
+	m_chunkSums = new double[nbChunks][];
+	for (int k = 0; k < nbChunks; ++k) {
+	    final int first = k * CHUNK_SIZE;
+	    final int size = Math.min(CHUNK_SIZE, nb - first);
+	    final double[] sums = new double[1 << size];
+	    for (int mask = 1; mask < sums.length; ++mask) {
+		/** Adds the weight of the lowest criterion to the sum of the others, already computed. */
+		sums[mask] = sums[mask & (mask - 1)] + weights.getWeight(first + Integer.numberOfTrailingZeros(mask));
+	    }
+	    m_chunkSums[k] = sums;
+	}
+
+	if (nb <= MAX_INDEXED_CRITERIA && !Double.isNaN(majorityThreshold)) {
+	    final int nbSubsets = 1 << nb;
+	    m_winning = new long[Math.max(1, nbSubsets >>> 6)];
+	    for (int mask = 0; mask < nbSubsets; ++mask) {
+		if (sum(mask) >= majorityThreshold) {
+		    m_winning[mask >>> 6] |= 1L << mask;
+		}
+	    }
+	} else {
+	    m_winning = null;
+	}
+    }
+
+    /**
+     * @return not {@code null}, the order of the criteria in the masks.
+     */
+    public ImmutableList<Criterion> getCriteria() {
+	return m_weights.getCriteria();
+    }
+
+    /**
+     * @return not {@code null}, the weights this object has been built from.
+     */
+    public CompiledWeights getCompiledWeights() {
+	return m_weights;
+    }
+
+    public boolean containsMajorityThreshold() {
+	return !Double.isNaN(m_majorityThreshold);
+    }
+
+    /**
+     * The majority threshold must be defined.
+     *
+     * @return a number greater than or equal to zero.
+     */
+    public double getMajorityThreshold() {
+	checkState(containsMajorityThreshold());
+	return m_majorityThreshold;
+    }
+
+    /**
+     * @param criteria
+     *            not {@code null}, each criterion must be in this object.
+     * @return the mask representing the given subset of criteria.
+     */
+    public long getMask(Collection<Criterion> criteria) {
+	long mask = 0L;
+	for (Criterion criterion : criteria) {
+	    mask |= getMask(criterion);
+	}
+	return mask;
+    }
+
+    /**
+     * @param criterion
+     *            must be in this object.
+     * @return the mask representing the subset containing only the given criterion.
+     */
+    public long getMask(Criterion criterion) {
+	final Integer index = m_indexes.get(criterion);
+	checkArgument(index != null, "Unknown criterion: " + criterion + ".");
+	return 1L << index.intValue();
+    }
+
+    /**
+     * @param coalition
+     *            a mask using only the bits of the criteria of this object.
+     * @return the total weight of the given subset of criteria.
+     */
+    public double getWeight(long coalition) {
+	checkCoalition(coalition);
+	return sum(coalition);
+    }
+
+    private void checkCoalition(long coalition) {
+	if ((coalition & ~m_all) != 0L) {
+	    /** Not using checkArgument, which would build the message at every call. */
+	    throw new IllegalArgumentException("Unknown criteria in " + Long.toBinaryString(coalition) + ".");
+	}
+    }
+
+    /**
+     * @param coalition
+     *            a mask using only the bits of the criteria of this object, not checked.
+     */
+    private double sum(long coalition) {
+	double sum = 0d;
+	long remaining = coalition;
+	for (int k = 0; k < m_chunkSums.length; ++k) {
+	    sum += m_chunkSums[k][(int) (remaining & 0xFF)];
+	    remaining >>>= CHUNK_SIZE;
+	}
+	return sum;
+    }
+
+    /**
+     * The majority threshold must be defined.
+     *
+     * @param coalition
+     *            a mask using only the bits of the criteria of this object.
+     * @return {@code true} iff the total weight of the given subset of criteria is at least the majority threshold.
+     */
+    public boolean isWinning(long coalition) {
+	checkState(containsMajorityThreshold());
+	checkCoalition(coalition);
+	if (m_winning == null) {
+	    return sum(coalition) >= m_majorityThreshold;
+	}
+	return (m_winning[(int) (coalition >>> 6)] & (1L << coalition)) != 0L;
+    }
+
+    @Override
+    public String toString() {
+	return Objects.toStringHelper(this).add("Criteria", getCriteria()).add("Majority", m_majorityThreshold)
+		.toString();
+    }
+}
@@ -9,10 +9,41 @@ import org.decision_deck.jmcda.structure.Criterion;
 
 import com.google.common.base.Equivalence;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import com.google.common.primitives.Doubles;
 
 public class CoalitionsUtils {
+    private static final Equivalence<Coalitions> EQUIVALENCE = new Equivalence<Coalitions>() {
+	@Override
+	public boolean doEquivalent(Coalitions c1, Coalitions c2) {
+	    if (c1.containsMajorityThreshold() != c2.containsMajorityThreshold()) {
+		return false;
+	    } else if (c1.containsMajorityThreshold() && c2.containsMajorityThreshold()) {
+		if (c1.getMajorityThreshold() != c2.getMajorityThreshold()) {
+		    return false;
+		}
+	    }
+	    if (c1.getWeights() == null) {
+		if (c2.getWeights() != null) {
+		    return false;
+		}
+	    } else if (!c1.getWeights().equals(c2.getWeights())) {
+		return false;
+	    }
+	    return true;
+	}
+
+	@Override
+	public int doHash(Coalitions c) {
+	    final int prime = 31;
+	    int result = 1;
+	    result = prime * result
+		    + ((!c.containsMajorityThreshold()) ? 0 : Doubles.hashCode(c.getMajorityThreshold()));
+	    result = prime * result + c.getWeights().hashCode();
+	    return result;
+	}
+    };
 
     public Set<Criterion> getAllCriteria(Collection<Coalitions> allCoals) {
 	final Set<Criterion> allCrits = Sets.newLinkedHashSet();
@@ -64,38 +95,11 @@ public class CoalitionsUtils {
 	return new CoalitionsView(delegate, predicateCriteria);
     }
 
+    /**
+     * Returns the equivalence relation used by the coalitions objects, which is stateless, thus shared.
+     */
     public static Equivalence<Coalitions> getCoalitionsEquivalenceRelation() {
-	return new Equivalence<Coalitions>() {
-	    @Override
-	    public boolean doEquivalent(Coalitions c1, Coalitions c2) {
-		if (c1.containsMajorityThreshold() != c2.containsMajorityThreshold()) {
-		    return false;
-		} else if (c1.containsMajorityThreshold() && c2.containsMajorityThreshold()) {
-		    if (c1.getMajorityThreshold() != c2.getMajorityThreshold()) {
-			return false;
-		    }
-		}
-		if (c1.getWeights() == null) {
-		    if (c2.getWeights() != null) {
-			return false;
-		    }
-		} else if (!c1.getWeights().equals(c2.getWeights())) {
-		    return false;
-		}
-		return true;
-	    }
-
-	    @Override
-	    public int doHash(Coalitions c) {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result
-			+ ((!c.containsMajorityThreshold()) ? 0 : Doubles.hashCode(c.getMajorityThreshold()));
-		result = prime * result + c.getWeights().hashCode();
-		return result;
-	    }
-
-	};
+	return EQUIVALENCE;
     }
 
     static public boolean approxEqual(Coalitions c1, Coalitions c2, double tolerance) {
@@ -137,6 +141,82 @@ public class CoalitionsUtils {
 	return coalitions;
     }
 
+    /**
+     * <p>
+     * Retrieves a table answering in constant time whether a subset of the criteria of the given coalitions is a
+     * winning coalition, and what its total weight is. The criteria in the table are in the iteration order of the
+     * criteria of the given coalitions.
+     * </p>
+     * <p>
+     * The returned table is a snapshot: it does not reflect later changes to the given coalitions. When the given
+     * object is a coalitions object created by this class, including views, the table is cached by that object and
+     * built again only when its weights or its majority threshold change. Tables of interned coalitions are built
+     * once.
+     * </p>
+     * 
+     * @param coalitions
+     *            not {@code null}, at most {@value CoalitionsTable#MAX_CRITERIA} criteria.
+     * @return not {@code null}.
+     */
+    static public CoalitionsTable getTable(Coalitions coalitions) {
+	checkNotNull(coalitions);
+	if (coalitions instanceof CoalitionsImpl) {
+	    return ((CoalitionsImpl) coalitions).getTable();
+	}
+	if (coalitions instanceof ImmutableCoalitions) {
+	    return ((ImmutableCoalitions) coalitions).getTable();
+	}
+	if (coalitions instanceof CoalitionsView) {
+	    return ((CoalitionsView) coalitions).getTable();
+	}
+	final CompiledWeights weights = coalitions.getWeights().compile(
+		ImmutableList.copyOf(coalitions.getCriteria()));
+	return new CoalitionsTable(weights, coalitions.containsMajorityThreshold() ? coalitions.getMajorityThreshold()
+		: Double.NaN);
+    }
+
+    /**
+     * <p>
+     * Retrieves the canonical, immutable, coalitions equal to the given ones. Interning equal coalitions, for example
+     * those of many decision makers, returns the same object, so that they are stored once, and equality among
+     * canonical coalitions amounts to comparing references. Their weights are canonical as well (see
+     * {@link WeightsUtils#intern(Weights)}), and their hash code is computed once.
+     * </p>
+     * <p>
+     * The canonical instances are kept in a pool that does not prevent their garbage collection. The returned object
+     * may be shared among threads; its mutators throw {@link UnsupportedOperationException}. Its table (see
+     * {@link #getTable(Coalitions)}) is built once.
+     * </p>
+     * 
+     * @param coalitions
+     *            not {@code null}.
+     * @return not {@code null}.
+     */
+    static public Coalitions intern(Coalitions coalitions) {
+	return ImmutableCoalitions.intern(coalitions);
+    }
+
+    /**
+     * Retrieves a number that changes whenever the given coalitions change, thus permitting to cache data computed
+     * from them.
+     * 
+     * @param coalitions
+     *            not {@code null}.
+     * @return a negative number iff the changes of the given coalitions can't be detected.
+     */
+    static long getModificationCount(Coalitions coalitions) {
+	if (coalitions instanceof CoalitionsImpl) {
+	    return ((CoalitionsImpl) coalitions).getModificationCount();
+	}
+	if (coalitions instanceof ImmutableCoalitions) {
+	    return 0;
+	}
+	if (coalitions instanceof CoalitionsView) {
+	    return ((CoalitionsView) coalitions).getModificationCount();
+	}
+	return -1;
+    }
+
     static public Coalitions wrap(Weights weights) {
 	return new CoalitionsImpl(weights);
     }
@@ -2,25 +2,91 @@ package org.decision_deck.jmcda.structure.weights;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.List;
 import java.util.Set;
 
 import org.decision_deck.jmcda.structure.Criterion;
 
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 /**
+ * <p>
  * An read-only view wrapping an other {@link Coalitions} object.
+ * </p>
+ * <p>
+ * The filtered criteria, the sum of their weights, their compiled weights (see {@link Weights#compile(List)}) and the
+ * table of this view (see {@link CoalitionsUtils#getTable(Coalitions)}) are cached, and computed again only when the
+ * delegate changes, as detected by its modification count. When the changes of the delegate can't be detected, they
+ * are computed again at each request.
+ * </p>
  * 
  * @author Olivier Cailloux
  * 
  */
 class CoalitionsView implements Coalitions {
+    /**
+     * The weights of the filtered criteria, whose sum and compiled forms are cached by the view.
+     */
+    private class FilteredWeights extends ForwardingWeights {
+	public FilteredWeights(Weights delegate) {
+	    super(delegate);
+	}
+
+	@Override
+	public double getSum() {
+	    refresh();
+	    return m_sum;
+	}
+
+	@Override
+	public CompiledWeights compile(List<Criterion> criteria) {
+	    checkNotNull(criteria);
+	    refresh();
+	    if (m_compiled == null || !m_compiled.getCriteria().equals(criteria)) {
+		m_compiled = new CompiledWeights(criteria, this);
+	    }
+	    return m_compiled;
+	}
+
+	@Override
+	public Weights getNormalized() {
+	    return new WeightsImpl.NormalizedWeights(this);
+	}
+    }
+
     private final Coalitions m_delegate;
     private final Predicate<Criterion> m_criteriaPredicate;
-    private final WeightsImpl m_filteredWeights;
+    private final Weights m_filteredWeights;
+
+    /**
+     * The modification count of the delegate when the cached data has been computed. Negative iff the cached data must
+     * be computed again at the next request.
+     */
+    private long m_modificationCount;
+
+    /**
+     * The filtered criteria. {@code null} iff not computed yet.
+     */
+    private ImmutableList<Criterion> m_criteria;
+
+    /**
+     * The sum of the weights of the filtered criteria.
+     */
+    private double m_sum;
+
+    /**
+     * The last compiled form of the filtered weights, {@code null} if none is valid.
+     */
+    private CompiledWeights m_compiled;
+
+    /**
+     * {@code null} if not valid.
+     */
+    private CoalitionsTable m_table;
 
     /**
      * @param delegate
@@ -44,7 +110,47 @@ class CoalitionsView implements Coalitions {
 	checkNotNull(criteriaPredicate);
 	m_delegate = delegate;
 	m_criteriaPredicate = criteriaPredicate;
-	m_filteredWeights = WeightsImpl.wrap(Maps.filterKeys(m_delegate.getWeights(), m_criteriaPredicate));
+	m_filteredWeights = new FilteredWeights(WeightsImpl.wrap(Maps.filterKeys(m_delegate.getWeights(),
+		m_criteriaPredicate)));
+	m_modificationCount = -1;
+    }
+
+    /**
+     * Computes again the cached data iff the delegate changed since it was computed.
+     */
+    private void refresh() {
+	final long count = CoalitionsUtils.getModificationCount(m_delegate);
+	if (count >= 0 && count == m_modificationCount) {
+	    return;
+	}
+	m_criteria = ImmutableList.copyOf(Sets.filter(m_delegate.getCriteria(), m_criteriaPredicate));
+	double sum = 0d;
+	for (Criterion criterion : m_criteria) {
+	    sum += m_delegate.getWeight(criterion);
+	}
+	m_sum = sum;
+	m_compiled = null;
+	m_table = null;
+	m_modificationCount = count;
+    }
+
+    /**
+     * @return not {@code null}.
+     */
+    CoalitionsTable getTable() {
+	refresh();
+	if (m_table == null) {
+	    m_table = new CoalitionsTable(m_filteredWeights.compile(m_criteria),
+		    containsMajorityThreshold() ? getMajorityThreshold() : Double.NaN);
+	}
+	return m_table;
+    }
+
+    /**
+     * @return the modification count of the delegate.
+     */
+    long getModificationCount() {
+	return CoalitionsUtils.getModificationCount(m_delegate);
     }
 
     @Override
@@ -0,0 +1,158 @@
+package org.decision_deck.jmcda.structure.weights;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.decision_deck.jmcda.structure.Criterion;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * <p>
+ * An immutable snapshot of a set of weights, stored in primitive arrays aligned to a given order of criteria: the
+ * weight at index <em>i</em> is the one of the <em>i</em>-th criterion of that order. Both the weights and the
+ * normalized weights (each weight divided by the sum of the weights) are computed once, when this object is created.
+ * Objects of this type are obtained with {@link Weights#compile(List)}.
+ * </p>
+ * <p>
+ * A criterion of the order that has no weight has a weight of zero. The sum is the one of all the weights, including
+ * those of criteria absent from the order, so that the normalized weights equal the ones given by
+ * {@link Weights#getNormalized()}.
+ * </p>
+ * <p>
+ * Objects of this type may be shared among threads.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public final class CompiledWeights {
+    private final ImmutableList<Criterion> m_criteria;
+
+    private final double[] m_weights;
+
+    private final double[] m_normalized;
+
+    private final double m_sum;
+
+    /**
+     * @param criteria
+     *            not {@code null}, no {@code null} or duplicate elements.
+     * @param weights
+     *            not {@code null}.
+     */
+    CompiledWeights(List<Criterion> criteria, Weights weights) {
+	checkNotNull(weights);
+	m_criteria = ImmutableList.copyOf(criteria);
+	checkArgument(ImmutableSet.copyOf(m_criteria).size() == m_criteria.size(), "Duplicate criteria in "
+		+ m_criteria + ".");
+	m_weights = new double[m_criteria.size()];
+	m_normalized = new double[m_criteria.size()];
+	m_sum = weights.getSum();
+	for (int i = 0; i < m_weights.length; ++i) {
+	    final Double weight = weights.get(m_criteria.get(i));
+	    m_weights[i] = weight == null ? 0d : weight.doubleValue();
+	    m_normalized[i] = m_weights[i] / m_sum;
+	}
+    }
+
+    private CompiledWeights(ImmutableList<Criterion> criteria, double[] weights, double[] normalized, double sum) {
+	m_criteria = criteria;
+	m_weights = weights;
+	m_normalized = normalized;
+	m_sum = sum;
+    }
+
+    /**
+     * @return not {@code null}, the order of the weights in this object.
+     */
+    public ImmutableList<Criterion> getCriteria() {
+	return m_criteria;
+    }
+
+    /**
+     * @return the number of weights in this object, which is the number of criteria in its order.
+     */
+    public int size() {
+	return m_weights.length;
+    }
+
+    /**
+     * @param index
+     *            at least zero, less than the size of this object.
+     * @return the weight of the criterion at the given index in the order of this object, or zero if that criterion
+     *         has no weight.
+     */
+    public double getWeight(int index) {
+	return m_weights[index];
+    }
+
+    /**
+     * @param index
+     *            at least zero, less than the size of this object.
+     * @return the weight of the criterion at the given index divided by the sum of the weights.
+     */
+    public double getNormalizedWeight(int index) {
+	return m_normalized[index];
+    }
+
+    /**
+     * @return the sum of the weights this object has been compiled from.
+     */
+    public double getSum() {
+	return m_sum;
+    }
+
+    /**
+     * @return a new array containing the weights, in the order of this object.
+     */
+    public double[] toArray() {
+	return m_weights.clone();
+    }
+
+    /**
+     * @return a new array containing the normalized weights, in the order of this object.
+     */
+    public double[] toNormalizedArray() {
+	return m_normalized.clone();
+    }
+
+    /**
+     * Retrieves the normalized form of this object, whose weights and normalized weights are the normalized weights
+     * of this object, and whose sum is considered to be one.
+     *
+     * @return not {@code null}.
+     */
+    public CompiledWeights getNormalized() {
+	return new CompiledWeights(m_criteria, m_normalized, m_normalized, 1d);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (this == obj) {
+	    return true;
+	}
+	if (!(obj instanceof CompiledWeights)) {
+	    return false;
+	}
+	final CompiledWeights c2 = (CompiledWeights) obj;
+	return m_criteria.equals(c2.m_criteria) && Arrays.equals(m_weights, c2.m_weights)
+		&& Double.doubleToLongBits(m_sum) == Double.doubleToLongBits(c2.m_sum);
+    }
+
+    @Override
+    public int hashCode() {
+	return Objects.hashCode(m_criteria, Integer.valueOf(Arrays.hashCode(m_weights)), Double.valueOf(m_sum));
+    }
+
+    @Override
+    public String toString() {
+	return Objects.toStringHelper(this).add("Criteria", m_criteria).add("Weights", Arrays.toString(m_weights))
+		.toString();
+    }
+}
@@ -2,6 +2,8 @@ package org.decision_deck.jmcda.structure.weights;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.List;
+
 import org.decision_deck.jmcda.structure.Criterion;
 
 import com.google.common.collect.ForwardingMap;
@@ -20,6 +22,11 @@ public class ForwardingWeights extends ForwardingMap<Criterion, Double> implemen
 	return m_delegate.approxEquals(w2, tolerance);
     }
 
+    @Override
+    public CompiledWeights compile(List<Criterion> criteria) {
+	return m_delegate.compile(criteria);
+    }
+
     @Override
     public Weights getNormalized() {
 	return m_delegate.getNormalized();
@@ -0,0 +1,169 @@
+package org.decision_deck.jmcda.structure.weights;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.Set;
+
+import org.decision_deck.jmcda.structure.Criterion;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * <p>
+ * An immutable set of coalitions, whose weights are canonical {@link ImmutableWeights} and whose hash code is computed
+ * once. Instances are only obtained through {@link #intern(Coalitions)}, which returns a canonical instance: two
+ * instances that are simultaneously reachable are equal iff they are the same object. The pool of canonical instances
+ * references them weakly, thus does not prevent their garbage collection.
+ * </p>
+ * <p>
+ * The mutators throw {@link UnsupportedOperationException}. Objects of this type may be shared among threads.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+class ImmutableCoalitions implements Coalitions {
+    private static final Interner<ImmutableCoalitions> POOL = Interners.newWeakInterner();
+
+    private final ImmutableWeights m_weights;
+
+    /**
+     * Never an infinite or NaN value. When not set, is {@code null}.
+     */
+    private final Double m_lambda;
+
+    private final int m_hashCode;
+
+    /**
+     * {@code null} iff not built yet.
+     */
+    private volatile CoalitionsTable m_table;
+
+    private ImmutableCoalitions(ImmutableWeights weights, Double lambda) {
+	m_weights = weights;
+	m_lambda = lambda;
+	m_hashCode = CoalitionsUtils.getCoalitionsEquivalenceRelation().hash(this);
+    }
+
+    /**
+     * Retrieves the canonical instance equal to the given coalitions.
+     *
+     * @param source
+     *            not {@code null}.
+     * @return not {@code null}.
+     */
+    static ImmutableCoalitions intern(Coalitions source) {
+	checkNotNull(source);
+	if (source instanceof ImmutableCoalitions) {
+	    return (ImmutableCoalitions) source;
+	}
+	final Double lambda = source.containsMajorityThreshold() ? Double.valueOf(source.getMajorityThreshold()) : null;
+	return POOL.intern(new ImmutableCoalitions(ImmutableWeights.intern(source.getWeights()), lambda));
+    }
+
+    /**
+     * @return not {@code null}, built at the first call.
+     */
+    CoalitionsTable getTable() {
+	CoalitionsTable table = m_table;
+	if (table == null) {
+	    table = new CoalitionsTable(m_weights.compile(ImmutableList.copyOf(m_weights.keySet())),
+		    m_lambda == null ? Double.NaN : m_lambda.doubleValue());
+	    m_table = table;
+	}
+	return table;
+    }
+
+    @Override
+    public Set<Criterion> getCriteria() {
+	return m_weights.keySet();
+    }
+
+    @Override
+    public double getMajorityThreshold() {
+	checkState(m_lambda != null);
+	return m_lambda.doubleValue();
+    }
+
+    @Override
+    public boolean containsMajorityThreshold() {
+	return m_lambda != null;
+    }
+
+    @Override
+    public double getWeight(Criterion criterion) {
+	checkState(m_weights.containsKey(criterion));
+	return m_weights.getWeightBetter(criterion);
+    }
+
+    @Override
+    public Double removeWeight(Criterion criterion) {
+	throw new UnsupportedOperationException("This object is immutable.");
+    }
+
+    @Override
+    public Double putWeight(Criterion criterion, double weight) {
+	throw new UnsupportedOperationException("This object is immutable.");
+    }
+
+    @Override
+    public Double setMajorityThreshold(double majorityThreshold) {
+	throw new UnsupportedOperationException("This object is immutable.");
+    }
+
+    @Override
+    public Double removeMajorityThreshold() {
+	throw new UnsupportedOperationException("This object is immutable.");
+    }
+
+    @Override
+    public Weights getWeights() {
+	return m_weights;
+    }
+
+    @Override
+    public boolean approxEquals(Coalitions c2, double tolerance) {
+	return CoalitionsUtils.approxEqual(this, c2, tolerance);
+    }
+
+    @Override
+    public boolean isEmpty() {
+	return m_lambda == null && m_weights.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (this == obj) {
+	    return true;
+	}
+	if (obj instanceof ImmutableCoalitions) {
+	    final ImmutableCoalitions c2 = (ImmutableCoalitions) obj;
+	    if (m_hashCode != c2.m_hashCode || m_weights != c2.m_weights) {
+		/** The weights are canonical. */
+		return false;
+	    }
+	    if (m_lambda == null || c2.m_lambda == null) {
+		return m_lambda == c2.m_lambda;
+	    }
+	    return m_lambda.doubleValue() == c2.m_lambda.doubleValue();
+	}
+	if (!(obj instanceof Coalitions)) {
+	    return false;
+	}
+	return CoalitionsUtils.getCoalitionsEquivalenceRelation().equivalent(this, (Coalitions) obj);
+    }
+
+    @Override
+    public int hashCode() {
+	return m_hashCode;
+    }
+
+    @Override
+    public String toString() {
+	return Objects.toStringHelper(this).add("Weights", m_weights).add("Majority", m_lambda).toString();
+    }
+}
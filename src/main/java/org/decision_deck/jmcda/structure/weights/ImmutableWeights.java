@@ -0,0 +1,164 @@
+package org.decision_deck.jmcda.structure.weights;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Map;
+
+import org.decision_deck.jmcda.structure.Criterion;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ForwardingMap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.Maps;
+
+/**
+ * <p>
+ * An immutable set of weights, whose hash code and sum are computed once. Instances are only obtained through
+ * {@link #intern(Weights)}, which returns a canonical instance: two instances that are simultaneously reachable are
+ * equal iff they are the same object. The pool of canonical instances references them weakly, thus does not prevent
+ * their garbage collection. As equality of weights does not consider the iteration order, the canonical instance
+ * iterates in the order of the first equal weights that have been interned.
+ * </p>
+ * <p>
+ * The mutators throw {@link UnsupportedOperationException}. Objects of this type may be shared among threads.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+class ImmutableWeights extends ForwardingMap<Criterion, Double> implements Weights {
+    private static final Interner<ImmutableWeights> POOL = Interners.newWeakInterner();
+
+    private final ImmutableMap<Criterion, Double> m_delegate;
+
+    private final double m_sum;
+
+    private final int m_hashCode;
+
+    /**
+     * The last compiled form of this object, {@code null} iff none has been asked yet.
+     */
+    private volatile CompiledWeights m_compiled;
+
+    private ImmutableWeights(Map<Criterion, Double> source) {
+	m_delegate = ImmutableMap.copyOf(source);
+	double sum = 0d;
+	for (Double weight : m_delegate.values()) {
+	    checkArgument(weight.doubleValue() >= 0d, "Invalid value: " + weight + ".");
+	    sum += weight.doubleValue();
+	}
+	m_sum = sum;
+	m_hashCode = m_delegate.hashCode();
+    }
+
+    /**
+     * Retrieves the canonical instance equal to the given weights.
+     *
+     * @param source
+     *            not {@code null}.
+     * @return not {@code null}.
+     */
+    static ImmutableWeights intern(Weights source) {
+	checkNotNull(source);
+	if (source instanceof ImmutableWeights) {
+	    return (ImmutableWeights) source;
+	}
+	return POOL.intern(new ImmutableWeights(source));
+    }
+
+    @Override
+    protected Map<Criterion, Double> delegate() {
+	return m_delegate;
+    }
+
+    @Override
+    public boolean approxEquals(Weights w2, double tolerance) {
+	if (this == w2) {
+	    return true;
+	}
+	if (w2 == null) {
+	    return false;
+	}
+	if (!keySet().equals(w2.keySet())) {
+	    return false;
+	}
+	for (Map.Entry<Criterion, Double> entry : m_delegate.entrySet()) {
+	    if (Math.abs(entry.getValue().doubleValue() - w2.getWeightBetter(entry.getKey())) > tolerance) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    @Override
+    public CompiledWeights compile(List<Criterion> criteria) {
+	checkNotNull(criteria);
+	final CompiledWeights last = m_compiled;
+	if (last != null && last.getCriteria().equals(criteria)) {
+	    return last;
+	}
+	final CompiledWeights compiled = new CompiledWeights(criteria, this);
+	m_compiled = compiled;
+	return compiled;
+    }
+
+    /**
+     * Returns the canonical instance of the normalized weights. When the sum is zero, the normalized weights would be
+     * NaN, which weights do not accept: returns then the same view as {@link WeightsImpl#getNormalized()}, which
+     * contains no weights, instead of failing.
+     */
+    @Override
+    public Weights getNormalized() {
+	if (m_sum == 0d) {
+	    return new WeightsImpl.NormalizedWeights(this);
+	}
+	final Map<Criterion, Double> normalized = Maps.newLinkedHashMap();
+	for (Map.Entry<Criterion, Double> entry : m_delegate.entrySet()) {
+	    normalized.put(entry.getKey(), Double.valueOf(entry.getValue().doubleValue() / m_sum));
+	}
+	return POOL.intern(new ImmutableWeights(normalized));
+    }
+
+    @Override
+    public double getSum() {
+	return m_sum;
+    }
+
+    @Override
+    public double getWeightBetter(Criterion criterion) {
+	final Double weight = m_delegate.get(criterion);
+	checkArgument(weight != null, "No weight for " + criterion + ".");
+	return weight.doubleValue();
+    }
+
+    @Override
+    public Double putWeight(Criterion criterion, double weight) {
+	throw new UnsupportedOperationException("This object is immutable.");
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (this == obj) {
+	    return true;
+	}
+	if (obj instanceof ImmutableWeights) {
+	    final ImmutableWeights w2 = (ImmutableWeights) obj;
+	    return m_hashCode == w2.m_hashCode && m_delegate.equals(w2.m_delegate);
+	}
+	return m_delegate.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+	return m_hashCode;
+    }
+
+    @Override
+    public String toString() {
+	return Objects.toStringHelper(this).addValue(m_delegate).toString();
+    }
+}
@@ -1,5 +1,6 @@
 package org.decision_deck.jmcda.structure.weights;
 
+import java.util.List;
 import java.util.Map;
 
 import org.decision_deck.jmcda.structure.Criterion;
@@ -19,6 +20,25 @@ import org.decision_deck.jmcda.structure.Criterion;
 public interface Weights extends Map<Criterion, Double> {
     public boolean approxEquals(Weights w2, double tolerance);
 
+    /**
+     * <p>
+     * Retrieves an immutable snapshot of these weights and of the normalized weights, stored in primitive arrays
+     * aligned to the given order of criteria. Criteria in the given order that have no weight get a weight of zero.
+     * </p>
+     * <p>
+     * Implementations may cache the returned object until this object changes, so that compiling again with the same
+     * order costs no more than a lookup. The returned object does not reflect later changes to this object. The
+     * default implementation compiles a new snapshot at each call.
+     * </p>
+     * 
+     * @param criteria
+     *            not {@code null}, no {@code null} or duplicate elements.
+     * @return not {@code null}.
+     */
+    public default CompiledWeights compile(List<Criterion> criteria) {
+	return new CompiledWeights(criteria, this);
+    }
+
     /**
      * <p>
      * A weight instance equals a map of criterion and double values iff they contain the same weight mappings, thus the
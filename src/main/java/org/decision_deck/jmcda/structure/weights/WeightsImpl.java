@@ -4,6 +4,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -24,7 +25,8 @@ import com.google.common.eventbus.Subscribe;
 
 public class WeightsImpl extends ObservableMap<Criterion, Double> implements Weights {
 
-    private static class NormalizedWeights extends ForwardingWeights implements Weights {
+    static class NormalizedWeights extends ForwardingWeights implements Weights {
+	private final Weights m_source;
 
 	public NormalizedWeights(final Weights delegate) {
 	    super(wrap(Maps.transformValues(delegate, new Function<Double, Double>() {
@@ -33,6 +35,12 @@ public class WeightsImpl extends ObservableMap<Criterion, Double> implements Wei
 		    return Double.valueOf(input.doubleValue() / delegate.getSum());
 		}
 	    })));
+	    m_source = delegate;
+	}
+
+	@Override
+	public CompiledWeights compile(List<Criterion> criteria) {
+	    return m_source.compile(criteria).getNormalized();
 	}
 
 	@Override
@@ -83,6 +91,11 @@ public class WeightsImpl extends ObservableMap<Criterion, Double> implements Wei
 	}
     }
 
+    /**
+     * Number of compiled forms kept at most in the cache.
+     */
+    private static final int MAX_COMPILED = 16;
+
     private static final Predicate<Criterion> KEY_PREDICATE = Predicates.<Criterion> notNull();
     private static final Predicate<Double> VALUE_PREDICATE = Predicates.<Double> and(Predicates.<Double> notNull(),
 	    PredicateUtils.atLeast(0d));
@@ -113,10 +126,28 @@ public class WeightsImpl extends ObservableMap<Criterion, Double> implements Wei
      */
     private double m_sum;
 
+    /**
+     * The compiled forms of this object, by order of the criteria. Emptied whenever this object changes.
+     */
+    private final Map<List<Criterion>, CompiledWeights> m_compiled = Maps.newHashMap();
+
+    /**
+     * {@code false} iff this object wraps a map that may be changed by other means than this object (which is the
+     * case of the views created by {@link #wrap(Map)}), thus without notifying it. The compiled forms are then not
+     * cached.
+     */
+    private final boolean m_cacheCompiled;
+
+    /**
+     * Incremented at each change of this object.
+     */
+    private long m_modificationCount;
+
     private WeightsImpl() {
 	super(Maps.filterEntries(Maps.<Criterion, Double> newLinkedHashMap(), ZE_PREDICATE));
 	m_sum = 0d;
 	m_dirty = false;
+	m_cacheCompiled = true;
 	register(this);
     }
 
@@ -130,6 +161,7 @@ public class WeightsImpl extends ObservableMap<Criterion, Double> implements Wei
 	super(Maps.filterEntries(delegateMap, ZE_PREDICATE));
 	assert (Iterables.all(delegateMap.entrySet(), ZE_PREDICATE));
 	m_dirty = true;
+	m_cacheCompiled = false;
 	register(this);
     }
 
@@ -137,6 +169,7 @@ public class WeightsImpl extends ObservableMap<Criterion, Double> implements Wei
 	super(Maps.filterEntries(Maps.<Criterion, Double> newLinkedHashMap(), ZE_PREDICATE));
 	m_sum = source.m_sum;
 	m_dirty = source.m_dirty;
+	m_cacheCompiled = true;
 	putAll(source);
 	register(this);
     }
@@ -169,6 +202,34 @@ public class WeightsImpl extends ObservableMap<Criterion, Double> implements Wei
 	return true;
     }
 
+    /**
+     * Retrieves a number that changes whenever this object changes, thus permitting to cache data computed from this
+     * object.
+     * 
+     * @return a negative number iff the changes of this object can't be detected, which is the case of the views
+     *         created by {@link #wrap(Map)}.
+     */
+    long getModificationCount() {
+	return m_cacheCompiled ? m_modificationCount : -1;
+    }
+
+    @Override
+    public CompiledWeights compile(List<Criterion> criteria) {
+	checkNotNull(criteria);
+	if (!m_cacheCompiled) {
+	    return new CompiledWeights(criteria, this);
+	}
+	CompiledWeights compiled = m_compiled.get(criteria);
+	if (compiled == null) {
+	    compiled = new CompiledWeights(criteria, this);
+	    if (m_compiled.size() >= MAX_COMPILED) {
+		m_compiled.clear();
+	    }
+	    m_compiled.put(compiled.getCriteria(), compiled);
+	}
+	return compiled;
+    }
+
     private void computeSum() {
 	m_sum = 0d;
 	for (Double weight : values()) {
@@ -233,6 +294,18 @@ public class WeightsImpl extends ObservableMap<Criterion, Double> implements Wei
 	return helper.toString();
     }
 
+    @Subscribe
+    public void invalidateCompiled(PreAdditionEvent<Criterion, Double> addition) {
+	m_compiled.clear();
+	++m_modificationCount;
+    }
+
+    @Subscribe
+    public void invalidateCompiled(PreRemovalEvent<Criterion, Double> removal) {
+	m_compiled.clear();
+	++m_modificationCount;
+    }
+
     @Subscribe
     public void updateSum(PreAdditionEvent<Criterion, Double> addition) {
 	if (m_dirty) {
@@ -0,0 +1,287 @@
+package org.decision_deck.jmcda.structure.weights;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.decision_deck.jmcda.structure.Criterion;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * <p>
+ * Samples weight vectors uniformly distributed over the simplex, that is, normalized weights (non negative and summing
+ * to one), as used in stochastic multicriteria acceptability analysis. The vectors are written into primitive buffers
+ * provided by the caller, aligned to the order of the criteria given to this object, so that sampling allocates
+ * nothing. Use {@link #toWeights(double[], int)} to materialize a vector as a {@link Weights} object when needed.
+ * </p>
+ * <p>
+ * The sampled space may be constrained by a rank order of the criteria (see {@link #setRankOrder(List)}), in which
+ * case the vectors are uniformly distributed over the part of the simplex respecting that order, and by bounds on the
+ * weights (see {@link #setBounds(Criterion, double, double)}), which are enforced by rejection.
+ * </p>
+ * <p>
+ * The sequence of vectors is determined by the seed. For parallel sampling, {@link #split()} returns a new sampler,
+ * with the same constraints, whose sequence is independent of the sequence of this object; each thread must use its
+ * own sampler, as objects of this type are not thread safe.
+ * </p>
+ *
+ * @author Olivier Cailloux
+ *
+ */
+public class WeightsSampler {
+    /**
+     * Number of consecutive rejected vectors after which the bounds are considered too tight.
+     */
+    private static final int MAX_ATTEMPTS = 1 << 20;
+
+    private final ImmutableList<Criterion> m_criteria;
+
+    private final SplittableRandom m_random;
+
+    /**
+     * Lower bound of each weight, in the order of the criteria.
+     */
+    private final double[] m_lower;
+
+    /**
+     * Upper bound of each weight, in the order of the criteria.
+     */
+    private final double[] m_upper;
+
+    /**
+     * <code>true</code> iff some bound differs from the whole interval [0, 1].
+     */
+    private boolean m_bounded;
+
+    /**
+     * The indexes of the criteria, from the one with the biggest weight to the one with the smallest weight, or
+     * {@code null} for no rank order.
+     */
+    private int[] m_rankOrder;
+
+    /**
+     * Used to sort the weights when there is a rank order.
+     */
+    private final double[] m_scratch;
+
+    /**
+     * @param criteria
+     *            not {@code null}, not empty, no {@code null} or duplicate elements: the order of the weights in the
+     *            sampled vectors.
+     * @param seed
+     *            the seed determining the sequence of sampled vectors.
+     */
+    public WeightsSampler(List<Criterion> criteria, long seed) {
+	this(ImmutableList.copyOf(criteria), new SplittableRandom(seed));
+	checkArgument(!m_criteria.isEmpty(), "No criteria.");
+	checkArgument(ImmutableSet.copyOf(m_criteria).size() == m_criteria.size(), "Duplicate criteria in "
+		+ m_criteria + ".");
+    }
+
+    private WeightsSampler(ImmutableList<Criterion> criteria, SplittableRandom random) {
+	m_criteria = criteria;
+	m_random = random;
+	m_lower = new double[criteria.size()];
+	m_upper = new double[criteria.size()];
+	Arrays.fill(m_upper, 1d);
+	m_bounded = false;
+	m_rankOrder = null;
+	m_scratch = new double[criteria.size()];
+    }
+
+    /**
+     * @return not {@code null}, the order of the weights in the sampled vectors.
+     */
+    public ImmutableList<Criterion> getCriteria() {
+	return m_criteria;
+    }
+
+    /**
+     * Restricts the sampled vectors to those whose weights are ordered as given.
+     *
+     * @param rankOrder
+     *            {@code null} for no restriction; otherwise, a permutation of the criteria of this object, from the
+     *            one having the biggest weight to the one having the smallest weight.
+     * @return this object.
+     */
+    public WeightsSampler setRankOrder(List<Criterion> rankOrder) {
+	if (rankOrder == null) {
+	    m_rankOrder = null;
+	    return this;
+	}
+	checkArgument(rankOrder.size() == m_criteria.size()
+		&& ImmutableSet.copyOf(rankOrder).equals(ImmutableSet.copyOf(m_criteria)), "Not a permutation of "
+		+ m_criteria + ": " + rankOrder + ".");
+	final int[] order = new int[rankOrder.size()];
+	for (int r = 0; r < order.length; ++r) {
+	    order[r] = m_criteria.indexOf(rankOrder.get(r));
+	}
+	m_rankOrder = order;
+	return this;
+    }
+
+    /**
+     * Restricts the sampled vectors to those whose weight for the given criterion is in the given bounds. Tight
+     * bounds slow down sampling, as vectors outside the bounds are rejected.
+     *
+     * @param criterion
+     *            a criterion of this object.
+     * @param lower
+     *            in [0, upper].
+     * @param upper
+     *            in [lower, 1].
+     * @return this object.
+     */
+    public WeightsSampler setBounds(Criterion criterion, double lower, double upper) {
+	final int index = m_criteria.indexOf(criterion);
+	checkArgument(index >= 0, "Unknown criterion: " + criterion + ".");
+	checkArgument(0d <= lower && lower <= upper && upper <= 1d, "Invalid bounds: [" + lower + ", " + upper + "].");
+	double lowerSum = 0d;
+	double upperSum = 0d;
+	boolean bounded = false;
+	for (int i = 0; i < m_lower.length; ++i) {
+	    final double lowerI = i == index ? lower : m_lower[i];
+	    final double upperI = i == index ? upper : m_upper[i];
+	    lowerSum += lowerI;
+	    upperSum += upperI;
+	    bounded |= lowerI > 0d || upperI < 1d;
+	}
+	checkArgument(lowerSum <= 1d && upperSum >= 1d, "No weights satisfy the bounds.");
+	m_lower[index] = lower;
+	m_upper[index] = upper;
+	m_bounded = bounded;
+	return this;
+    }
+
+    /**
+     * Returns a new sampler with the same criteria and constraints as this one, whose sequence of vectors is
+     * determined by this object but independent of the one of this object. This object advances its own sequence.
+     *
+     * @return not {@code null}.
+     */
+    public WeightsSampler split() {
+	final WeightsSampler split = new WeightsSampler(m_criteria, m_random.split());
+	System.arraycopy(m_lower, 0, split.m_lower, 0, m_lower.length);
+	System.arraycopy(m_upper, 0, split.m_upper, 0, m_upper.length);
+	split.m_bounded = m_bounded;
+	split.m_rankOrder = m_rankOrder;
+	return split;
+    }
+
+    /**
+     * Samples one vector and writes it into the given buffer, starting at the given offset, in the order of the
+     * criteria of this object.
+     *
+     * @param target
+     *            not {@code null}, with room for the number of criteria of this object from the given offset.
+     * @param offset
+     *            at least zero.
+     * @throws IllegalStateException
+     *             if the bounds are so tight that no vector has been found within a large number of attempts.
+     */
+    public void sample(double[] target, int offset) {
+	checkNotNull(target);
+	final int nb = m_criteria.size();
+	if (offset < 0 || offset + nb > target.length) {
+	    /** Not using checkArgument, which would build the message at every call. */
+	    throw new IllegalArgumentException("No room for " + nb + " weights at " + offset + ".");
+	}
+	for (int attempt = 0; attempt < MAX_ATTEMPTS; ++attempt) {
+	    sampleSimplex(target, offset);
+	    if (!m_bounded || isWithinBounds(target, offset)) {
+		return;
+	    }
+	}
+	throw new IllegalStateException("Bounds too tight, no weights sampled after " + MAX_ATTEMPTS + " attempts.");
+    }
+
+    /**
+     * Samples the given number of vectors and writes them consecutively into the given buffer.
+     *
+     * @param target
+     *            not {@code null}, with room for the given number of vectors.
+     * @param count
+     *            at least zero.
+     * @see #sample(double[], int)
+     */
+    public void sampleAll(double[] target, int count) {
+	checkNotNull(target);
+	checkArgument(count >= 0 && (long) count * m_criteria.size() <= target.length, "No room for " + count
+		+ " vectors.");
+	for (int k = 0; k < count; ++k) {
+	    sample(target, k * m_criteria.size());
+	}
+    }
+
+    /**
+     * Uses the spacings of exponential variables: normalized, they are uniformly distributed over the simplex. Sorting
+     * them, by symmetry, yields a uniform distribution over the part of the simplex respecting the rank order.
+     */
+    private void sampleSimplex(double[] target, int offset) {
+	final int nb = m_criteria.size();
+	double sum;
+	do {
+	    sum = 0d;
+	    for (int i = 0; i < nb; ++i) {
+		/** In ]0, 1]. */
+		final double uniform = 1d - m_random.nextDouble();
+		final double exponential = -Math.log(uniform);
+		m_scratch[i] = exponential;
+		sum += exponential;
+	    }
+	} while (sum == 0d);
+	if (m_rankOrder == null) {
+	    for (int i = 0; i < nb; ++i) {
+		target[offset + i] = m_scratch[i] / sum;
+	    }
+	    return;
+	}
+	Arrays.sort(m_scratch);
+	for (int r = 0; r < nb; ++r) {
+	    target[offset + m_rankOrder[r]] = m_scratch[nb - 1 - r] / sum;
+	}
+    }
+
+    private boolean isWithinBounds(double[] target, int offset) {
+	for (int i = 0; i < m_lower.length; ++i) {
+	    final double weight = target[offset + i];
+	    if (weight < m_lower[i] || weight > m_upper[i]) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Materializes a sampled vector.
+     *
+     * @param source
+     *            not {@code null}, contains a vector from the given offset, in the order of the criteria of this
+     *            object.
+     * @param offset
+     *            at least zero.
+     * @return a new weights object, iterating in the order of the criteria of this object.
+     */
+    public Weights toWeights(double[] source, int offset) {
+	checkNotNull(source);
+	final int nb = m_criteria.size();
+	checkArgument(offset >= 0 && offset + nb <= source.length, "No " + nb + " weights at " + offset + ".");
+	final Weights weights = WeightsUtils.newWeights();
+	for (int i = 0; i < nb; ++i) {
+	    weights.putWeight(m_criteria.get(i), source[offset + i]);
+	}
+	return weights;
+    }
+
+    @Override
+    public String toString() {
+	return Objects.toStringHelper(this).add("Criteria", m_criteria).add("Bounded", m_bounded)
+		.add("Ordered", m_rankOrder != null).toString();
+    }
+}
@@ -27,6 +27,26 @@ public class WeightsUtils {
 	return weights;
     }
 
+    /**
+     * <p>
+     * Retrieves the canonical, immutable, weights equal to the given ones. Interning equal weights returns the same
+     * object, so that they are stored once, and equality among canonical weights amounts to comparing references.
+     * The hash code and the sum of the returned weights are computed once.
+     * </p>
+     * <p>
+     * The canonical instances are kept in a pool that does not prevent their garbage collection. The returned object
+     * may be shared among threads; its mutators throw {@link UnsupportedOperationException}. Its iteration order is
+     * the one of the first weights equal to the given ones that have been interned.
+     * </p>
+     * 
+     * @param weights
+     *            not {@code null}.
+     * @return not {@code null}.
+     */
+    static public Weights intern(Weights weights) {
+	return ImmutableWeights.intern(weights);
+    }
+
     /**
      * <p>
      * Returns a new weights object containing the same data than the source one, with possibly renamed criteria and
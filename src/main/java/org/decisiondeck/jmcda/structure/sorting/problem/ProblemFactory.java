@@ -11,6 +11,8 @@ import org.decision_deck.jmcda.structure.Criterion;
 import org.decision_deck.jmcda.structure.DecisionMaker;
 import org.decision_deck.jmcda.structure.interval.Interval;
 import org.decision_deck.jmcda.structure.matrix.EvaluationsRead;
+import org.decision_deck.jmcda.structure.matrix.EvaluationsUtils;
+import org.decision_deck.jmcda.structure.matrix.VersionedEvaluationsRead;
 import org.decision_deck.jmcda.structure.sorting.category.Category;
 import org.decision_deck.jmcda.structure.sorting.category.CatsAndProfs;
 import org.decision_deck.jmcda.structure.thresholds.Thresholds;
@@ -98,6 +100,18 @@ public class ProblemFactory {
 	return new SortingDataImpl();
     }
 
+    /**
+     * Creates a sorting problem object whose evaluations record their changes: the view returned by
+     * {@link ISortingData#getAlternativesEvaluations()} is a {@link VersionedEvaluationsRead}, which permits to
+     * retrieve the changes of the evaluations since a given version. Recording the changes costs an allocation per
+     * change of the evaluations and memory for the log, thus should be asked only when the changes are read.
+     * 
+     * @return not {@code null}.
+     */
+    public static ISortingData newSortingDataRecordingChanges() {
+	return new SortingDataImpl(EvaluationsUtils.newVersionedEvaluations(EvaluationsUtils.newEvaluationMatrix()));
+    }
+
     /**
      * Creates a problem data object that contains the given evaluations and scales. The scales and evaluations may
      * concern different sets of criteria.
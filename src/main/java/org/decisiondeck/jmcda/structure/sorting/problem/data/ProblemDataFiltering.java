@@ -9,6 +9,7 @@ import java.util.Set;
 import org.decision_deck.jmcda.structure.Alternative;
 import org.decision_deck.jmcda.structure.Criterion;
 import org.decision_deck.jmcda.structure.interval.Interval;
+import org.decision_deck.jmcda.structure.matrix.EvaluationsFilteredView;
 import org.decision_deck.jmcda.structure.matrix.EvaluationsRead;
 import org.decision_deck.jmcda.structure.matrix.EvaluationsUtils;
 
@@ -40,6 +41,14 @@ public class ProblemDataFiltering implements IProblemData {
     private final Predicate<Alternative> m_predicateAlternatives;
     private final IProblemData m_delegate;
     private final Predicate<Criterion> m_predicateCriteria;
+    /**
+     * <code>true</code> iff the evaluations view materializes the filtered alternatives and criteria.
+     */
+    private final boolean m_materialized;
+    /**
+     * The last materialized evaluations view, or {@code null} if not yet built or if this object does not materialize.
+     */
+    private EvaluationsFilteredView m_evaluations;
 
     /**
      * Creates a read-only view of the given data.
@@ -65,10 +74,43 @@ public class ProblemDataFiltering implements IProblemData {
      */
     public ProblemDataFiltering(IProblemData delegate, Predicate<Alternative> predicateAlternatives,
 	    Predicate<Criterion> predicateCriteria) {
+	this(delegate, predicateAlternatives, predicateCriteria, false);
+    }
+
+    /**
+     * Creates a view that only view the alternatives and criteria admitted by the given filters. If
+     * {@code materialized} is <code>true</code>, the evaluations view returned by this object computes the set of
+     * alternatives and criteria it sees only when the evaluations in the delegate change, instead of applying the
+     * predicates at each access (see {@link EvaluationsUtils#getMaterializedFilteredView}). In that case, the
+     * predicates must always give the same answers, or {@link #invalidate()} must be called when they change.
+     * 
+     * @param delegate
+     *            not {@code null}.
+     * @param predicateAlternatives
+     *            {@code null} to allow everything (equivalent to {@link Predicates#alwaysTrue()}.
+     * @param predicateCriteria
+     *            {@code null} to allow everything (equivalent to {@link Predicates#alwaysTrue()}.
+     * @param materialized
+     *            <code>true</code> to materialize the filtered evaluations.
+     */
+    public ProblemDataFiltering(IProblemData delegate, Predicate<Alternative> predicateAlternatives,
+	    Predicate<Criterion> predicateCriteria, boolean materialized) {
 	checkNotNull(delegate);
 	m_delegate = delegate;
 	m_predicateAlternatives = predicateAlternatives;
 	m_predicateCriteria = predicateCriteria;
+	m_materialized = materialized;
+	m_evaluations = null;
+    }
+
+    /**
+     * Forces the evaluations view returned by this object to compute again the alternatives and criteria it sees. Has
+     * no effect if this object does not materialize the filtered evaluations.
+     */
+    public void invalidate() {
+	if (m_evaluations != null) {
+	    m_evaluations.invalidate();
+	}
     }
 
     /**
@@ -94,8 +136,15 @@ public class ProblemDataFiltering implements IProblemData {
 
     @Override
     public EvaluationsRead getAlternativesEvaluations() {
-	return EvaluationsUtils.getFilteredView(m_delegate.getAlternativesEvaluations(), m_predicateAlternatives,
-		m_predicateCriteria);
+	final EvaluationsRead source = m_delegate.getAlternativesEvaluations();
+	if (!m_materialized) {
+	    return EvaluationsUtils.getFilteredView(source, m_predicateAlternatives, m_predicateCriteria);
+	}
+	if (m_evaluations == null || m_evaluations.getDelegate() != source) {
+	    m_evaluations = EvaluationsUtils.getMaterializedFilteredView(source, m_predicateAlternatives,
+		    m_predicateCriteria);
+	}
+	return m_evaluations;
     }
 
     @Override
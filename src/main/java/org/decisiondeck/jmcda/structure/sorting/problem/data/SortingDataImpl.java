@@ -12,6 +12,8 @@ import org.decision_deck.jmcda.structure.matrix.Evaluations;
 import org.decision_deck.jmcda.structure.matrix.EvaluationsRead;
 import org.decision_deck.jmcda.structure.matrix.EvaluationsUtils;
 import org.decision_deck.jmcda.structure.matrix.EvaluationsView;
+import org.decision_deck.jmcda.structure.matrix.VersionedEvaluationsRead;
+import org.decision_deck.jmcda.structure.matrix.VersionedEvaluationsView;
 import org.decision_deck.jmcda.structure.sorting.category.CatsAndProfs;
 import org.decision_deck.jmcda.structure.sorting.category.mess.CatsAndProfsWithObserverPriorities;
 import org.decision_deck.utils.IObserver;
@@ -26,6 +28,23 @@ import com.google.common.collect.Sets;
 public class SortingDataImpl implements ISortingData {
 
     public SortingDataImpl() {
+	this(EvaluationsUtils.newEvaluationMatrix());
+    }
+
+    /**
+     * Creates a new object storing its evaluations in the given matrix. This permits to choose the storage, e.g., to
+     * record the changes of the evaluations by giving a matrix returned by
+     * {@link EvaluationsUtils#newVersionedEvaluations(Evaluations)}, in which case the view returned by
+     * {@link #getAlternativesEvaluations()} is a {@link VersionedEvaluationsRead}.
+     * 
+     * @param evaluations
+     *            not {@code null}, empty, must not be modified afterwards except through this object.
+     */
+    public SortingDataImpl(Evaluations evaluations) {
+	Preconditions.checkNotNull(evaluations);
+	Preconditions.checkArgument(evaluations.isEmpty(), "The given evaluations must be empty.");
+	m_alternativesEvaluations = evaluations;
+	m_alternativesEvaluationsView = m_provideEvaluationsView.apply(m_alternativesEvaluations);
 	m_allAlternativesView = Sets.union(m_alternatives, m_profiles);
 	/**
 	 * As this object observe these categories to maintain its consistency, we must have priority notifications over
@@ -43,22 +62,29 @@ public class SortingDataImpl implements ISortingData {
     public static class ProvideEvaluationsView implements Function<EvaluationsRead, EvaluationsRead> {
 	@Override
 	public EvaluationsRead apply(EvaluationsRead from) {
+	    if (from instanceof VersionedEvaluationsRead) {
+		return new VersionedEvaluationsView((VersionedEvaluationsRead) from);
+	    }
 	    return new EvaluationsView(from);
 	}
     }
 
     private final Set<Alternative> m_alternatives = Sets.newLinkedHashSet();
-    private final Evaluations m_alternativesEvaluations = EvaluationsUtils.newEvaluationMatrix();
+    private final Evaluations m_alternativesEvaluations;
     private final CatsAndProfsWithObserverPriorities m_categories = new CatsAndProfsWithObserverPriorities();
     private final Set<Criterion> m_criteria = Sets.newLinkedHashSet();
     private final Set<Alternative> m_profiles = Sets.newLinkedHashSet();
     private final ProvideEvaluationsView m_provideEvaluationsView = new ProvideEvaluationsView();
+    /**
+     * A live view, thus it is built only once.
+     */
+    private final EvaluationsRead m_alternativesEvaluationsView;
     private final Map<Criterion, Interval> m_scales = Maps.newLinkedHashMap();
     private final Set<Alternative> m_allAlternativesView;
 
     @Override
     public EvaluationsRead getAlternativesEvaluations() {
-	return m_provideEvaluationsView.apply(m_alternativesEvaluations);
+	return m_alternativesEvaluationsView;
     }
 
     @Override
@@ -114,4 +114,26 @@ public class ProblemViewFactory {
         return view;
     }
 
+    /**
+     * Retrieves a view that sees only alternatives and criteria satisfying the given predicate. The evaluations of the
+     * returned view compute the set of alternatives and criteria they see only when the evaluations of the given data
+     * change, which makes them much faster to read than those of the view returned by
+     * {@link #getRestrictedData(IProblemData, Predicate, Predicate)}. The given predicates must always give the same
+     * answers, e.g. use {@link com.google.common.base.Predicates#in(java.util.Collection)} with a constant collection.
+     * 
+     * @param data
+     *            not {@code null}.
+     * @param predicateAlternatives
+     *            {@code null} to not filter alternatives.
+     * @param predicateCriteria
+     *            {@code null} to not filter criteria.
+     * @return not {@code null}.
+     * @see ProblemDataFiltering#invalidate()
+     */
+    public static ProblemDataFiltering getMaterializedRestrictedData(IProblemData data,
+            Predicate<Alternative> predicateAlternatives, Predicate<Criterion> predicateCriteria) {
+        Preconditions.checkNotNull(data);
+        return new ProblemDataFiltering(data, predicateAlternatives, predicateCriteria, true);
+    }
+
 }
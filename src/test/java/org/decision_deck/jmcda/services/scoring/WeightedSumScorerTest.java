@@ -0,0 +1,56 @@
+package org.decision_deck.jmcda.services.scoring;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Map;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.jmcda.structure.interval.Interval;
+import org.decision_deck.jmcda.structure.interval.Intervals;
+import org.decision_deck.jmcda.structure.interval.PreferenceDirection;
+import org.decision_deck.jmcda.structure.matrix.Evaluations;
+import org.decision_deck.jmcda.structure.matrix.EvaluationsUtils;
+import org.decision_deck.jmcda.structure.scores.AlternativesScores;
+import org.decision_deck.jmcda.structure.weights.Weights;
+import org.decision_deck.jmcda.structure.weights.WeightsUtils;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+@SuppressWarnings("boxing")
+public class WeightedSumScorerTest {
+
+    @Test
+    public void testScores() {
+	final Criterion g1 = new Criterion("g1");
+	final Criterion g2 = new Criterion("g2");
+	final Criterion unweighted = new Criterion("g3");
+	final Evaluations evaluations = EvaluationsUtils.newDenseEvaluationMatrix();
+	final int nbAlternatives = 5000;
+	for (int i = 0; i < nbAlternatives; ++i) {
+	    final Alternative alternative = new Alternative("a" + i);
+	    evaluations.put(alternative, g1, i % 11);
+	    evaluations.put(alternative, g2, i % 7);
+	    if (i % 2 == 0) {
+		evaluations.put(alternative, unweighted, 1d);
+	    }
+	}
+	final Weights weights = WeightsUtils.newWeights();
+	weights.putWeight(g1, 2d);
+	weights.putWeight(g2, 3d);
+
+	final AlternativesScores raw = new WeightedSumScorer().getScores(evaluations, weights);
+	assertEquals(nbAlternatives, raw.size());
+	assertEquals(2d * 10 + 3d * 6, raw.getScore(new Alternative("a1000")), 1e-9);
+
+	final Map<Criterion, Interval> scales = ImmutableMap.of(g1,
+		Intervals.newInterval(PreferenceDirection.MAXIMIZE, 0d, 10d), g2,
+		Intervals.newInterval(PreferenceDirection.MINIMIZE, 0d, 6d));
+	final AlternativesScores normalized = new WeightedSumScorer().setScales(scales).getScores(evaluations,
+		weights);
+	assertEquals(2d * 1 + 3d * 0, normalized.getScore(new Alternative("a1000")), 1e-9);
+	assertEquals(2d * 0 + 3d * 1, normalized.getScore(new Alternative("a0")), 1e-9);
+	assertEquals(2d * 0.3 + 3d * 0.5, normalized.getScore(new Alternative("a3")), 1e-9);
+    }
+}
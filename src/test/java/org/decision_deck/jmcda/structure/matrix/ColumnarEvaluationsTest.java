@@ -0,0 +1,102 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.DoubleBuffer;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+@SuppressWarnings("boxing")
+public class ColumnarEvaluationsTest {
+    private final Alternative m_a1 = new Alternative("a1");
+
+    private final Alternative m_a2 = new Alternative("a2");
+
+    private final Alternative m_a3 = new Alternative("a3");
+
+    private final Criterion m_g1 = new Criterion("g1");
+
+    private final Criterion m_g2 = new Criterion("g2");
+
+    private Evaluations getSource() {
+	final Evaluations source = EvaluationsUtils.newEvaluationMatrix();
+	source.put(m_a3, m_g2, -1.5d);
+	source.put(m_a1, m_g1, 1d);
+	source.put(m_a1, m_g2, 2d);
+	source.put(m_a2, m_g1, 0d);
+	return source;
+    }
+
+    @Test
+    public void testRoundTrip() {
+	final Evaluations source = getSource();
+	final ColumnarEvaluations columnar = EvaluationsUtils.newColumnarEvaluations(source);
+	assertEquals(ImmutableList.of(m_a3, m_a1, m_a2), columnar.getAlternatives());
+	assertEquals(source.getRows(), columnar.getRows());
+	assertEquals(source.getColumns(), columnar.getColumns());
+	assertEquals(4, columnar.getValueCount());
+	assertFalse(columnar.isComplete());
+	assertFalse(columnar.isEmpty());
+	for (Alternative alternative : source.getRows()) {
+	    for (Criterion criterion : source.getColumns()) {
+		assertEquals(source.getEntry(alternative, criterion), columnar.getEntry(alternative, criterion));
+	    }
+	}
+	assertNull(columnar.getEntry(new Alternative("unknown"), m_g1));
+	assertEquals(-1, columnar.getOrdinal(new Alternative("unknown")));
+	assertEquals(source.asTable(), columnar.asTable());
+	assertEquals(source, EvaluationsUtils.newEvaluationMatrix(columnar));
+
+	/** Modifying the source does not modify the copy. */
+	source.put(m_a2, m_g2, 5d);
+	assertNull(columnar.getEntry(m_a2, m_g2));
+    }
+
+    @Test
+    public void testColumn() {
+	final ColumnarEvaluations columnar = EvaluationsUtils.newColumnarEvaluations(getSource());
+	final DoubleBuffer column = columnar.getColumn(m_g2);
+	assertTrue(column.isReadOnly());
+	assertEquals(0, column.position());
+	assertEquals(3, column.limit());
+	assertEquals(-1.5d, column.get(columnar.getOrdinal(m_a3)), 0d);
+	assertEquals(2d, column.get(columnar.getOrdinal(m_a1)), 0d);
+	assertTrue(Double.isNaN(column.get(columnar.getOrdinal(m_a2))));
+	/** Buffers are independent. */
+	column.position(2);
+	assertEquals(0, columnar.getColumn(m_g2).position());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownColumn() {
+	EvaluationsUtils.newColumnarEvaluations(getSource()).getColumn(new Criterion("unknown"));
+    }
+
+    @Test
+    public void testEquals() {
+	final Evaluations source = getSource();
+	final ColumnarEvaluations columnar = EvaluationsUtils.newColumnarEvaluations(source);
+	assertTrue(columnar.equals(source));
+	assertTrue(source.equals(columnar));
+	assertEquals(source.hashCode(), columnar.hashCode());
+	assertEquals(columnar, EvaluationsUtils.newColumnarEvaluations(source));
+
+	final Evaluations other = getSource();
+	other.put(m_a2, m_g1, 0.5d);
+	assertFalse(columnar.equals(other));
+	assertFalse(other.equals(columnar));
+
+	final Evaluations empty = EvaluationsUtils.newEvaluationMatrix();
+	final ColumnarEvaluations emptyColumnar = EvaluationsUtils.newColumnarEvaluations(empty);
+	assertTrue(emptyColumnar.isEmpty());
+	assertEquals(empty, emptyColumnar);
+	assertEquals(empty.hashCode(), emptyColumnar.hashCode());
+    }
+}
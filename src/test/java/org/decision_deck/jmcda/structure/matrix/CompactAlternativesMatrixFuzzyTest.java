@@ -0,0 +1,157 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.junit.Test;
+
+@SuppressWarnings("boxing")
+public class CompactAlternativesMatrixFuzzyTest {
+    /**
+     * More than the side of a tile, thus the matrix spans several tiles and grows.
+     */
+    private static final int NB_ALTERNATIVES = 150;
+
+    private static Alternative[] getAlternatives() {
+	final Alternative[] alternatives = new Alternative[NB_ALTERNATIVES];
+	for (int i = 0; i < alternatives.length; ++i) {
+	    alternatives[i] = new Alternative("a" + i);
+	}
+	return alternatives;
+    }
+
+    @Test
+    public void testQuantizationBound() {
+	for (FuzzyPrecision precision : new FuzzyPrecision[] { FuzzyPrecision.BYTE, FuzzyPrecision.SHORT }) {
+	    final int levels = precision.getLevels();
+	    final double bound = 1d / (2d * levels);
+	    final SparseAlternativesMatrixFuzzy matrix = MatrixesMC.newAlternativesFuzzy(precision);
+	    final Alternative[] alternatives = getAlternatives();
+	    final Random random = new Random(42);
+	    double maxError = 0d;
+	    for (int r = 0; r < alternatives.length; ++r) {
+		for (int c = 0; c < alternatives.length; c += 7) {
+		    final double value = random.nextDouble();
+		    matrix.put(alternatives[r], alternatives[c], value);
+		    final double read = matrix.getValue(alternatives[r], alternatives[c]);
+		    final double error = Math.abs(read - value);
+		    assertTrue(precision + ": " + value + " read as " + read + ".", error <= bound + 1e-15);
+		    maxError = Math.max(maxError, error);
+		    /** The read value is a level. */
+		    assertEquals(Math.round(read * levels), read * levels, 1e-9);
+		}
+	    }
+	    /** The bound is nearly reached, thus it is tight. */
+	    assertTrue(maxError > bound * 0.9d);
+	}
+    }
+
+    @Test
+    public void testExactLevels() {
+	for (FuzzyPrecision precision : new FuzzyPrecision[] { FuzzyPrecision.BYTE, FuzzyPrecision.SHORT }) {
+	    final int levels = precision.getLevels();
+	    final SparseAlternativesMatrixFuzzy matrix = MatrixesMC.newAlternativesFuzzy(precision);
+	    final Alternative a = new Alternative("a");
+	    final Alternative b = new Alternative("b");
+	    for (int k = 0; k <= levels; k += levels >= 1000 ? 97 : 1) {
+		final double value = k / (double) levels;
+		matrix.put(a, b, value);
+		assertEquals(value, matrix.getValue(a, b), 0d);
+	    }
+	    matrix.put(a, b, 0d);
+	    assertEquals(0d, matrix.getValue(a, b), 0d);
+	    matrix.put(a, b, 1d);
+	    assertEquals(1d, matrix.getValue(a, b), 0d);
+	    matrix.put(a, b, 0.5d);
+	    assertEquals(Math.round(0.5d * levels) / (double) levels, matrix.getValue(a, b), 0d);
+	}
+    }
+
+    @Test
+    public void testFloat() {
+	final SparseAlternativesMatrixFuzzy matrix = MatrixesMC.newAlternativesFuzzy(FuzzyPrecision.FLOAT);
+	final Alternative a = new Alternative("a");
+	final Alternative b = new Alternative("b");
+	matrix.put(a, b, 0.5d);
+	assertEquals(0.5d, matrix.getValue(a, b), 0d);
+	matrix.put(a, b, 0.1d);
+	assertEquals(0.1d, matrix.getValue(a, b), 0.1d * Math.pow(2d, -24));
+	assertEquals((float) 0.1d, matrix.getValue(a, b), 0d);
+    }
+
+    @Test
+    public void testRoundTripAndEquals() {
+	for (FuzzyPrecision precision : FuzzyPrecision.values()) {
+	    final SparseAlternativesMatrixFuzzy compact = MatrixesMC.newAlternativesFuzzy(precision);
+	    final SparseAlternativesMatrixFuzzy reference = MatrixesMC.newAlternativesFuzzy();
+	    final Alternative[] alternatives = getAlternatives();
+	    int count = 0;
+	    for (int r = 0; r < alternatives.length; r += 3) {
+		for (int c = r % 5; c < alternatives.length; c += 11) {
+		    /** A level of every precision, thus stored exactly. */
+		    final double value = ((r + c) % 3) / 2d;
+		    assertNull(compact.put(alternatives[r], alternatives[c], value));
+		    reference.put(alternatives[r], alternatives[c], value);
+		    ++count;
+		}
+	    }
+	    assertEquals(count, compact.getValueCount());
+	    assertEquals(reference.getRows(), compact.getRows());
+	    assertEquals(reference.getColumns(), compact.getColumns());
+	    assertFalse(compact.isComplete());
+	    for (Alternative row : reference.getRows()) {
+		for (Alternative column : reference.getColumns()) {
+		    assertEquals(reference.getEntry(row, column), compact.getEntry(row, column));
+		}
+	    }
+	    assertEquals(reference.asTable(), compact.asTable());
+	    assertTrue(compact.equals(reference));
+	    assertTrue(reference.equals(compact));
+	    assertEquals(reference.hashCode(), compact.hashCode());
+	    assertEquals(compact.asTable().hashCode(), compact.hashCode());
+
+	    assertEquals(reference.getEntry(alternatives[0], alternatives[0]),
+		    compact.put(alternatives[0], alternatives[0], 1d));
+	    assertFalse(compact.equals(reference));
+	    reference.put(alternatives[0], alternatives[0], 1d);
+	    assertEquals(reference, compact);
+	    assertEquals(reference.hashCode(), compact.hashCode());
+	}
+    }
+
+    @Test
+    public void testRemove() {
+	final SparseAlternativesMatrixFuzzy matrix = MatrixesMC.newAlternativesFuzzy(FuzzyPrecision.BYTE);
+	final Alternative[] alternatives = getAlternatives();
+	for (int r = 0; r < alternatives.length; ++r) {
+	    matrix.put(alternatives[r], alternatives[(r + 1) % alternatives.length], 1d);
+	}
+	assertFalse(matrix.isComplete());
+	assertEquals(alternatives.length, matrix.getValueCount());
+	assertEquals(1d, matrix.remove(alternatives[0], alternatives[1]));
+	assertNull(matrix.remove(alternatives[0], alternatives[1]));
+	assertFalse(matrix.getRows().contains(alternatives[0]));
+	assertFalse(matrix.getColumns().contains(alternatives[1]));
+	assertTrue(matrix.removeRow(alternatives[5]));
+	assertFalse(matrix.removeRow(alternatives[5]));
+	assertTrue(matrix.removeColumn(alternatives[100]));
+	assertEquals(alternatives.length - 3, matrix.getValueCount());
+	assertNull(matrix.getEntry(alternatives[99], alternatives[100]));
+
+	/** Ordinals are reused. */
+	final Alternative other = new Alternative("other");
+	matrix.put(other, other, 0d);
+	assertEquals(0d, matrix.getValue(other, other), 0d);
+	assertEquals(alternatives.length - 2, matrix.getValueCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutOfRange() {
+	MatrixesMC.newAlternativesFuzzy(FuzzyPrecision.SHORT).put(new Alternative("a"), new Alternative("b"), 1.5d);
+    }
+}
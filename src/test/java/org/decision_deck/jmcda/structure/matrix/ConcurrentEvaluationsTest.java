@@ -0,0 +1,144 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+@SuppressWarnings("boxing")
+public class ConcurrentEvaluationsTest {
+    private static final int NB_WRITERS = 8;
+
+    private static final int NB_ROWS_PER_WRITER = 5000;
+
+    private static final int NB_CRITERIA = 6;
+
+    @Test
+    public void testConcurrentIngestion() throws Exception {
+	final ConcurrentEvaluations evaluations = EvaluationsUtils.newConcurrentEvaluationMatrix();
+	final Criterion[] criteria = new Criterion[NB_CRITERIA];
+	for (int c = 0; c < NB_CRITERIA; ++c) {
+	    criteria[c] = new Criterion("g" + c);
+	}
+	final AtomicBoolean writing = new AtomicBoolean(true);
+	final ExecutorService executor = Executors.newFixedThreadPool(NB_WRITERS + 1);
+	try {
+	    final List<Future<Void>> writers = Lists.newArrayList();
+	    for (int w = 0; w < NB_WRITERS; ++w) {
+		final int writer = w;
+		writers.add(executor.submit(new Callable<Void>() {
+		    @Override
+		    public Void call() {
+			final double[] values = new double[NB_CRITERIA];
+			for (int r = 0; r < NB_ROWS_PER_WRITER; ++r) {
+			    final Alternative alternative = new Alternative("a" + writer + "_" + r);
+			    for (int c = 0; c < NB_CRITERIA; ++c) {
+				values[c] = writer * NB_ROWS_PER_WRITER + r + c;
+			    }
+			    evaluations.putRow(alternative, criteria, values);
+			    if (r % 10 == 0) {
+				evaluations.removeRow(alternative);
+			    }
+			}
+			return null;
+		    }
+		}));
+	    }
+	    /** Rows are put and removed atomically, thus every consistent view of the matrix is complete. */
+	    final Future<Integer> reader = executor.submit(new Callable<Integer>() {
+		@Override
+		public Integer call() {
+		    int nbChecks = 0;
+		    while (writing.get()) {
+			final EvaluationsRead snapshot = evaluations.getSnapshot();
+			assertTrue(snapshot.isComplete());
+			assertEquals(snapshot.getRows().size() * snapshot.getColumns().size(), snapshot.getValueCount());
+			assertTrue(evaluations.isComplete());
+			++nbChecks;
+		    }
+		    return nbChecks;
+		}
+	    });
+	    for (Future<Void> writer : writers) {
+		writer.get();
+	    }
+	    writing.set(false);
+	    assertTrue(reader.get() >= 1);
+	} finally {
+	    executor.shutdown();
+	}
+
+	final int nbRows = NB_WRITERS * NB_ROWS_PER_WRITER * 9 / 10;
+	assertEquals(nbRows, evaluations.getRows().size());
+	assertEquals(NB_CRITERIA, evaluations.getColumns().size());
+	assertEquals(nbRows * NB_CRITERIA, evaluations.getValueCount());
+	assertNull(evaluations.getEntry(new Alternative("a3_10"), criteria[0]));
+	assertEquals(3 * NB_ROWS_PER_WRITER + 11 + 2, evaluations.getValue(new Alternative("a3_11"), criteria[2]), 0d);
+
+	assertTrue(evaluations.removeColumn(criteria[0]));
+	assertFalse(evaluations.getColumns().contains(criteria[0]));
+	assertEquals(nbRows * (NB_CRITERIA - 1), evaluations.getValueCount());
+	assertEquals(evaluations.asTable(), evaluations.getSnapshot().asTable());
+	final Evaluations copy = EvaluationsUtils.newDenseEvaluationMatrix(evaluations);
+	assertEquals(copy, evaluations);
+	assertEquals(copy.hashCode(), evaluations.hashCode());
+    }
+
+    /**
+     * Every writer puts its own criterion for every alternative, thus all writers contend for the same stripes.
+     */
+    @Test
+    public void testContendedIngestion() throws Exception {
+	final Alternative[] rows = new Alternative[NB_ROWS_PER_WRITER];
+	for (int r = 0; r < rows.length; ++r) {
+	    rows[r] = new Alternative("a" + r);
+	}
+	final ConcurrentEvaluations evaluations = EvaluationsUtils.newConcurrentEvaluationMatrix();
+	final ExecutorService executor = Executors.newFixedThreadPool(NB_WRITERS);
+	try {
+	    final List<Callable<Void>> writers = Lists.newArrayList();
+	    for (int w = 0; w < NB_WRITERS; ++w) {
+		final Criterion criterion = new Criterion("g" + w);
+		final int writer = w;
+		writers.add(new Callable<Void>() {
+		    @Override
+		    public Void call() {
+			for (int r = 0; r < rows.length; ++r) {
+			    evaluations.put(rows[r], criterion, writer * rows.length + r);
+			}
+			return null;
+		    }
+		});
+	    }
+	    for (Future<Void> writer : executor.invokeAll(writers)) {
+		writer.get();
+	    }
+	} finally {
+	    executor.shutdown();
+	}
+
+	assertEquals(rows.length, evaluations.getRows().size());
+	assertEquals(NB_WRITERS, evaluations.getColumns().size());
+	assertEquals(rows.length * NB_WRITERS, evaluations.getValueCount());
+	assertTrue(evaluations.isComplete());
+	for (int w = 0; w < NB_WRITERS; ++w) {
+	    for (int r = 0; r < rows.length; ++r) {
+		assertEquals(w * rows.length + r, evaluations.getValue(rows[r], new Criterion("g" + w)), 0d);
+	    }
+	}
+	assertEquals(evaluations.getSnapshot(), evaluations);
+    }
+}
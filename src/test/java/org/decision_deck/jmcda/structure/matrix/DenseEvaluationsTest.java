@@ -0,0 +1,137 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+@SuppressWarnings("boxing")
+public class DenseEvaluationsTest {
+
+    @Test
+    public void testPutRemove() {
+	final Evaluations evaluations = EvaluationsUtils.newDenseEvaluationMatrix(0, 0);
+	final Alternative a1 = new Alternative("a1");
+	final Alternative a2 = new Alternative("a2");
+	final Criterion g1 = new Criterion("g1");
+	final Criterion g2 = new Criterion("g2");
+	assertTrue(evaluations.isEmpty());
+	assertNull(evaluations.put(a1, g1, 1d));
+	assertEquals(1d, evaluations.put(a1, g1, 2d), 0d);
+	evaluations.put(a2, g2, 3d);
+	assertEquals(2, evaluations.getValueCount());
+	assertFalse(evaluations.isComplete());
+	assertEquals(ImmutableSet.of(a1, a2), evaluations.getRows());
+	assertEquals(ImmutableSet.of(g1, g2), evaluations.getColumns());
+	assertNull(evaluations.getEntry(a1, g2));
+	assertEquals(3d, evaluations.getValue(a2, g2), 0d);
+
+	assertEquals(2d, evaluations.remove(a1, g1), 0d);
+	assertNull(evaluations.remove(a1, g1));
+	assertEquals(ImmutableSet.of(a2), evaluations.getRows());
+	assertEquals(ImmutableSet.of(g2), evaluations.getColumns());
+	assertTrue(evaluations.isComplete());
+	assertTrue(evaluations.removeColumn(g2));
+	assertTrue(evaluations.isEmpty());
+	assertTrue(evaluations.getRows().isEmpty());
+    }
+
+    @Test
+    public void testGrowAndEquals() {
+	final Evaluations sparse = EvaluationsUtils.newEvaluationMatrix();
+	final Evaluations dense = EvaluationsUtils.newDenseEvaluationMatrix(1, 1);
+	for (int i = 0; i < 50; ++i) {
+	    for (int j = 0; j < 20; ++j) {
+		final double value = i * 100 + j;
+		sparse.put(new Alternative(i), new Criterion("g" + j), value);
+		dense.put(new Alternative(i), new Criterion("g" + j), value);
+	    }
+	}
+	assertTrue(dense.isComplete());
+	assertEquals(1000, dense.getValueCount());
+	assertEquals(4917d, dense.getValue(new Alternative(49), new Criterion("g17")), 0d);
+	assertEquals(dense, sparse);
+	assertEquals(sparse.asTable().hashCode(), dense.hashCode());
+	assertEquals(dense, EvaluationsUtils.newDenseEvaluationMatrix(sparse));
+	assertTrue(dense.approxEquals(sparse, 0d));
+
+	assertTrue(dense.removeRow(new Alternative(3)));
+	assertFalse(dense.removeRow(new Alternative(3)));
+	assertEquals(980, dense.getValueCount());
+	assertFalse(dense.approxEquals(sparse, 1d));
+	dense.put(new Alternative("new"), new Criterion("g0"), 1d);
+	assertEquals(50, dense.getRows().size());
+	assertFalse(dense.isComplete());
+    }
+
+    @Test
+    public void testBulkPuts() {
+	final Criterion[] criteria = new Criterion[] { new Criterion("g1"), new Criterion("g2"), new Criterion("g3") };
+	final Alternative[] alternatives = new Alternative[] { new Alternative("a1"), new Alternative("a2") };
+	final Evaluations dense = EvaluationsUtils.newDenseEvaluationMatrix(0, 0);
+	final Evaluations sparse = EvaluationsUtils.newEvaluationMatrix();
+	for (Evaluations evaluations : new Evaluations[] { dense, sparse }) {
+	    evaluations.putRow(alternatives[0], criteria, new double[] { 1d, 2d, 3d });
+	    evaluations.putColumn(criteria[1], alternatives, new double[] { 4d, 5d });
+	}
+	assertEquals(4, dense.getValueCount());
+	assertEquals(4d, dense.getValue(alternatives[0], criteria[1]), 0d);
+	assertEquals(5d, dense.getValue(alternatives[1], criteria[1]), 0d);
+	assertEquals(sparse, dense);
+
+	final Evaluations copy = EvaluationsUtils.newDenseEvaluationMatrix(dense);
+	assertEquals(dense, copy);
+	copy.putAll(EvaluationsUtils.newDenseEvaluationMatrix(sparse));
+	assertEquals(4, copy.getValueCount());
+	final Evaluations other = EvaluationsUtils.newEvaluationMatrix();
+	other.put(alternatives[1], new Criterion("g4"), 6d);
+	copy.putAll(other);
+	assertEquals(5, copy.getValueCount());
+	assertEquals(6d, copy.getValue(alternatives[1], new Criterion("g4")), 0d);
+    }
+
+    @Test
+    public void testBulkPutsInvalid() {
+	final Alternative a1 = new Alternative("a1");
+	final Criterion g1 = new Criterion("g1");
+	final Evaluations evaluations = EvaluationsUtils.newDenseEvaluationMatrix();
+	evaluations.put(a1, g1, 1d);
+	try {
+	    evaluations.putRow(new Alternative("a2"), new Criterion[] { g1, null }, new double[] { 2d, 3d });
+	    fail();
+	} catch (NullPointerException exc) {
+	    /** Expected. */
+	}
+	try {
+	    evaluations.putColumn(new Criterion("g2"), new Alternative[] { a1, null }, new double[] { 2d, 3d });
+	    fail();
+	} catch (NullPointerException exc) {
+	    /** Expected. */
+	}
+	try {
+	    evaluations.putRow(a1, new Criterion[] { new Criterion("g3"), g1 }, new double[] { 2d, Double.NaN });
+	    fail();
+	} catch (IllegalArgumentException exc) {
+	    /** Expected. */
+	}
+	/** Nothing has been modified. */
+	assertEquals(ImmutableSet.of(a1), evaluations.getRows());
+	assertEquals(ImmutableSet.of(g1), evaluations.getColumns());
+	assertEquals(1, evaluations.getValueCount());
+	assertEquals(1d, evaluations.getValue(a1, g1), 0d);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNaN() {
+	final Evaluations evaluations = EvaluationsUtils.newDenseEvaluationMatrix();
+	evaluations.put(new Alternative("a1"), new Criterion("g1"), Double.NaN);
+    }
+
+}
@@ -0,0 +1,104 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+@SuppressWarnings("boxing")
+public class EvaluationsComparisonsTest {
+    private final Alternative m_a1 = new Alternative("a1");
+
+    private final Alternative m_a2 = new Alternative("a2");
+
+    private final Criterion m_g1 = new Criterion("g1");
+
+    private final Criterion m_g2 = new Criterion("g2");
+
+    private Evaluations getDense(double shift) {
+	final Evaluations evaluations = EvaluationsUtils.newDenseEvaluationMatrix();
+	evaluations.put(m_a2, m_g2, 4d + shift);
+	evaluations.put(m_a1, m_g1, 1d + shift);
+	evaluations.put(m_a1, m_g2, 2d + shift);
+	evaluations.put(m_a2, m_g1, 3d + shift);
+	return evaluations;
+    }
+
+    @Test
+    public void testAcrossImplementations() {
+	final Evaluations dense = getDense(0d);
+	final EvaluationsRead frozen = EvaluationsUtils.freeze(dense);
+	final Evaluations sparse = EvaluationsUtils.newEvaluationMatrix(dense);
+	assertTrue(dense.equals(frozen));
+	assertTrue(frozen.equals(dense));
+	assertTrue(dense.equals(sparse));
+	assertEquals(dense.hashCode(), frozen.hashCode());
+	assertEquals(dense.hashCode(), EvaluationsUtils.getEquivalence().hash(sparse));
+
+	final Evaluations shifted = getDense(0.01d);
+	assertFalse(dense.equals(shifted));
+	assertTrue(dense.approxEquals(shifted, 0.02d));
+	assertTrue(frozen.approxEquals(EvaluationsUtils.freeze(shifted), 0.02d));
+	assertFalse(frozen.approxEquals(shifted, 0.001d));
+
+	shifted.remove(m_a2, m_g2);
+	assertFalse(dense.approxEquals(shifted, 1d));
+    }
+
+    @Test
+    public void testPairwise() {
+	final List<EvaluationsRead> matrices = ImmutableList.<EvaluationsRead> of(getDense(0d), getDense(5d),
+		EvaluationsUtils.freeze(getDense(1e-4d)), getDense(5.0002d), getDense(0.1d));
+	assertEquals(ImmutableList.of(ImmutableList.of(0, 2), ImmutableList.of(1, 3), ImmutableList.of(4)),
+		EvaluationsUtils.pairwiseApproxEquals(matrices, 1e-3d));
+	assertEquals(5, EvaluationsUtils.pairwiseApproxEquals(matrices, 0d).size());
+    }
+
+    @Test
+    public void testPairwiseCancellingValues() {
+	final Alternative a3 = new Alternative("a3");
+	final Evaluations first = EvaluationsUtils.newEvaluationMatrix();
+	first.put(m_a1, m_g1, 1e16d);
+	first.put(m_a2, m_g1, 1d);
+	first.put(a3, m_g1, -1e16d);
+	final Evaluations second = EvaluationsUtils.newEvaluationMatrix();
+	second.put(m_a1, m_g1, 1e16d);
+	second.put(a3, m_g1, -1e16d);
+	second.put(m_a2, m_g1, 1d);
+	assertTrue(EvaluationsUtils.getEquivalence().equivalent(first, second));
+	final List<EvaluationsRead> matrices = ImmutableList.<EvaluationsRead> of(first, second);
+	assertEquals(ImmutableList.of(ImmutableList.of(0, 1)), EvaluationsUtils.pairwiseApproxEquals(matrices, 0d));
+
+	final Evaluations close = EvaluationsUtils.newEvaluationMatrix();
+	close.put(a3, m_g1, -1e16d);
+	close.put(m_a2, m_g1, 1.0005d);
+	close.put(m_a1, m_g1, 1e16d);
+	final List<EvaluationsRead> approx = ImmutableList.<EvaluationsRead> of(first, close);
+	assertEquals(ImmutableList.of(ImmutableList.of(0, 1)), EvaluationsUtils.pairwiseApproxEquals(approx, 1e-3d));
+	assertEquals(2, EvaluationsUtils.pairwiseApproxEquals(approx, 1e-4d).size());
+    }
+
+    /**
+     * With a tolerance of one, the last matrix is approximately equal to both others, but in a lower bucket than the
+     * first one and in the same bucket as the second one. It must join the class of the first one.
+     */
+    @Test
+    public void testPairwiseFirstRepresentative() {
+	final List<EvaluationsRead> matrices = Lists.newArrayList();
+	for (double value : new double[] { 2d, 0.5d, 1.4d }) {
+	    final Evaluations evaluations = EvaluationsUtils.newEvaluationMatrix();
+	    evaluations.put(m_a1, m_g1, value);
+	    matrices.add(evaluations);
+	}
+	assertEquals(ImmutableList.of(ImmutableList.of(0, 2), ImmutableList.of(1)),
+		EvaluationsUtils.pairwiseApproxEquals(matrices, 1d));
+    }
+}
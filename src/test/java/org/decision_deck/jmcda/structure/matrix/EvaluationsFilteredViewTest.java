@@ -0,0 +1,93 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.utils.matrix.Matrixes;
+import org.decision_deck.utils.matrix.SparseMatrixD;
+import org.junit.Test;
+
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableSet;
+
+@SuppressWarnings("boxing")
+public class EvaluationsFilteredViewTest {
+
+    @Test
+    public void testInvalidation() {
+	final Alternative a1 = new Alternative("a1");
+	final Alternative a2 = new Alternative("a2");
+	final Alternative a3 = new Alternative("a3");
+	final Criterion g1 = new Criterion("g1");
+	final Criterion g2 = new Criterion("g2");
+	final Evaluations source = EvaluationsUtils.newEvaluationMatrix();
+	source.put(a1, g1, 1d);
+	source.put(a2, g1, 2d);
+	source.put(a2, g2, 3d);
+	final EvaluationsRead view = EvaluationsUtils.getMaterializedFilteredView(source,
+		Predicates.in(ImmutableSet.of(a1, a3)), null);
+	assertEquals(ImmutableSet.of(a1), view.getRows());
+	assertEquals(ImmutableSet.of(g1), view.getColumns());
+	assertEquals(1, view.getValueCount());
+	assertTrue(view.isComplete());
+	assertNull(view.getEntry(a2, g1));
+
+	/** Same counts, different content: seen thanks to the version. */
+	source.remove(a1, g1);
+	source.put(a3, g2, 4d);
+	assertEquals(ImmutableSet.of(a3), view.getRows());
+	assertEquals(ImmutableSet.of(g2), view.getColumns());
+	assertEquals(4d, view.getValue(a3, g2), 0d);
+	assertNull(view.getEntry(a1, g1));
+
+	source.put(a3, g2, 5d);
+	assertEquals(5d, view.getValue(a3, g2), 0d);
+	final Evaluations expected = EvaluationsUtils.newEvaluationMatrix();
+	expected.put(a3, g2, 5d);
+	assertEquals(expected.asTable(), view.asTable());
+    }
+
+    @Test
+    public void testVersionOnlyOnChange() {
+	final Alternative a1 = new Alternative("a1");
+	final Criterion g1 = new Criterion("g1");
+	final Evaluations evaluations = EvaluationsUtils.newEvaluationMatrix();
+	final VersionedEvaluationsRead versioned = (VersionedEvaluationsRead) evaluations;
+	final long initial = versioned.getVersion();
+	evaluations.put(a1, g1, 1d);
+	final long afterPut = versioned.getVersion();
+	assertTrue(afterPut != initial);
+	evaluations.put(a1, g1, 1d);
+	assertFalse(evaluations.removeRow(new Alternative("a2")));
+	assertFalse(evaluations.removeColumn(new Criterion("g2")));
+	assertNull(evaluations.remove(a1, new Criterion("g2")));
+	assertEquals(afterPut, versioned.getVersion());
+	evaluations.put(a1, g1, 2d);
+	assertTrue(versioned.getVersion() != afterPut);
+	final long afterChange = versioned.getVersion();
+	assertTrue(evaluations.removeRow(a1));
+	assertTrue(versioned.getVersion() != afterChange);
+    }
+
+    @Test
+    public void testByReferenceIsUnversioned() {
+	final Alternative a1 = new Alternative("a1");
+	final Alternative a2 = new Alternative("a2");
+	final Criterion g1 = new Criterion("g1");
+	final SparseMatrixD<Alternative, Criterion> storage = Matrixes.newSparseD();
+	final Evaluations byReference = new EvaluationMatrixImpl(storage);
+	assertFalse(byReference instanceof VersionedEvaluationsRead);
+	byReference.put(a1, g1, 1d);
+	final EvaluationsRead view = EvaluationsUtils.getMaterializedFilteredView(byReference, null, null);
+	assertEquals(ImmutableSet.of(a1), view.getRows());
+
+	/** Modified directly: the view must not trust a version which does not see the change. */
+	storage.put(a2, g1, 2d);
+	assertEquals(ImmutableSet.of(a1, a2), view.getRows());
+	assertEquals(2d, view.getValue(a2, g1), 0d);
+    }
+}
@@ -0,0 +1,48 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static org.junit.Assert.assertEquals;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.jmcda.structure.interval.PreferenceDirection;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+@SuppressWarnings("boxing")
+public class EvaluationsIndexTest {
+
+    @Test
+    public void testIncremental() {
+	final Alternative a1 = new Alternative("a1");
+	final Alternative a2 = new Alternative("a2");
+	final Alternative a3 = new Alternative("a3");
+	final Criterion g1 = new Criterion("g1");
+	final Criterion cost = new Criterion("cost");
+	final VersionedEvaluations evaluations = EvaluationsUtils.newVersionedEvaluations(EvaluationsUtils
+		.newDenseEvaluationMatrix());
+	evaluations.put(a1, g1, 1d);
+	evaluations.put(a2, g1, 2d);
+	evaluations.put(a3, g1, 2d);
+	evaluations.put(a1, cost, 10d);
+	evaluations.put(a2, cost, 20d);
+	evaluations.put(a3, cost, 30d);
+	final EvaluationsIndex index = EvaluationsUtils.newIndex(evaluations,
+		ImmutableMap.of(g1, PreferenceDirection.MAXIMIZE, cost, PreferenceDirection.MINIMIZE));
+	assertEquals(ImmutableList.of(a2, a3), index.alternativesAtLeast(g1, 1.5d));
+	assertEquals(ImmutableList.of(a2, a1), index.alternativesAtLeast(cost, 20d));
+	assertEquals(2, index.countBetween(cost, 25d, 5d));
+	assertEquals(0, index.getRank(a2, g1));
+	assertEquals(2, index.getRank(a1, g1));
+	assertEquals(0, index.getRank(a1, cost));
+
+	evaluations.put(a1, g1, 3d);
+	evaluations.remove(a2, g1);
+	assertEquals(ImmutableList.of(a3, a1), index.alternativesAtLeast(g1, 0d));
+	assertEquals(0, index.getRank(a1, g1));
+	assertEquals(2d, index.getWorstValue(g1), 0d);
+	assertEquals(1, index.countAtLeast(g1, 2.5d));
+	assertEquals(a1, index.getAlternativeAtRank(g1, 0));
+    }
+}
@@ -0,0 +1,126 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableTable;
+
+@SuppressWarnings("boxing")
+public class EvaluationsMergerTest {
+    private final Alternative m_a1 = new Alternative("a1");
+
+    private final Alternative m_a2 = new Alternative("a2");
+
+    private final Criterion m_g1 = new Criterion("g1");
+
+    private final Criterion m_g2 = new Criterion("g2");
+
+    @Test
+    public void testConflict() {
+	final Evaluations first = EvaluationsUtils.newEvaluationMatrix();
+	first.put(m_a1, m_g1, 1d);
+	first.put(m_a1, m_g2, 2d);
+	final Evaluations second = EvaluationsUtils.newEvaluationMatrix();
+	second.put(m_a1, m_g1, 5d);
+	second.put(m_a2, m_g1, 3d);
+	final Evaluations third = EvaluationsUtils.newEvaluationMatrix();
+	third.put(m_a1, m_g1, 1d);
+	third.put(m_a1, m_g2, 2d);
+	third.put(m_a2, m_g2, 4d);
+
+	final EvaluationsMergeResult result = EvaluationsUtils.merge(ImmutableList.of(first, second, third));
+	assertTrue(result.hasConflicts());
+	final ImmutableTable<Alternative, Criterion, List<Double>> conflicts = result.getConflicts();
+	assertEquals(1, conflicts.size());
+	assertEquals(ImmutableList.of(1d, 5d), conflicts.get(m_a1, m_g1));
+
+	final Evaluations merged = result.getMerged();
+	assertEquals(4, merged.getValueCount());
+	assertEquals(1d, merged.getValue(m_a1, m_g1), 0d);
+	assertEquals(2d, merged.getValue(m_a1, m_g2), 0d);
+	assertEquals(3d, merged.getValue(m_a2, m_g1), 0d);
+	assertEquals(4d, merged.getValue(m_a2, m_g2), 0d);
+    }
+
+    @Test
+    public void testDenseTarget() {
+	final Evaluations first = EvaluationsUtils.newEvaluationMatrix();
+	first.put(m_a1, m_g1, 1d);
+	first.put(m_a2, m_g1, 3d);
+	final Evaluations second = EvaluationsUtils.newEvaluationMatrix();
+	second.put(m_a1, m_g2, 2d);
+	second.put(m_a2, m_g2, 4d);
+
+	final EvaluationsMergeResult result = EvaluationsUtils.merge(ImmutableList.of(first, second));
+	assertFalse(result.hasConflicts());
+	final Evaluations merged = result.getMerged();
+	assertTrue(merged instanceof DenseEvaluations);
+	assertTrue(merged.isComplete());
+	final Evaluations expected = EvaluationsUtils.newEvaluationMatrix(first);
+	expected.putAll(second);
+	assertEquals(expected, merged);
+	merged.put(m_a1, m_g1, 7d);
+	assertEquals(1d, first.getValue(m_a1, m_g1), 0d);
+    }
+
+    /**
+     * Enough rows to be merged by several tasks, with one value per row, thus a sparse target.
+     */
+    @Test
+    public void testSparseTarget() {
+	final int nbRows = 5000;
+	final int nbColumns = 10;
+	final Criterion[] columns = new Criterion[nbColumns];
+	for (int c = 0; c < nbColumns; ++c) {
+	    columns[c] = new Criterion("g" + c);
+	}
+	final Evaluations first = EvaluationsUtils.newEvaluationMatrix();
+	final Evaluations second = EvaluationsUtils.newEvaluationMatrix();
+	final Evaluations expected = EvaluationsUtils.newEvaluationMatrix();
+	for (int r = 0; r < nbRows; ++r) {
+	    final Alternative row = new Alternative("a" + r);
+	    final Evaluations source = r % 2 == 0 ? first : second;
+	    source.put(row, columns[r % nbColumns], r);
+	    expected.put(row, columns[r % nbColumns], r);
+	}
+
+	final EvaluationsMergeResult result = EvaluationsUtils.merge(ImmutableList.of(first, second));
+	assertFalse(result.hasConflicts());
+	final Evaluations merged = result.getMerged();
+	assertFalse(merged instanceof DenseEvaluations);
+	assertEquals(nbRows, merged.getValueCount());
+	assertEquals(nbRows, merged.getRows().size());
+	assertEquals(nbColumns, merged.getColumns().size());
+	assertEquals(expected, merged);
+	assertEquals(expected.hashCode(), merged.hashCode());
+	assertEquals(1234d, merged.getValue(new Alternative("a1234"), columns[4]), 0d);
+    }
+
+    @Test
+    public void testNaNRejected() {
+	final Evaluations first = EvaluationsUtils.newEvaluationMatrix();
+	first.put(m_a1, m_g1, 1d);
+	final Evaluations second = EvaluationsUtils.newEvaluationMatrix();
+	second.put(m_a1, m_g1, Double.NaN);
+	second.put(m_a1, m_g2, 2d);
+	assertTrue(second.getEntry(m_a1, m_g1).isNaN());
+	for (List<Evaluations> sources : ImmutableList.of(ImmutableList.of(first, second),
+		ImmutableList.of(second, first))) {
+	    try {
+		EvaluationsUtils.merge(sources);
+		fail();
+	    } catch (IllegalArgumentException exc) {
+		/** Expected. */
+	    }
+	}
+    }
+}
@@ -0,0 +1,49 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Map;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.jmcda.structure.interval.Interval;
+import org.decision_deck.jmcda.structure.interval.Intervals;
+import org.decision_deck.jmcda.structure.interval.PreferenceDirection;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+@SuppressWarnings("boxing")
+public class EvaluationsNormalizerTest {
+
+    @Test
+    public void testNormalizedAndCached() {
+	final Alternative a1 = new Alternative("a1");
+	final Alternative a2 = new Alternative("a2");
+	final Criterion g1 = new Criterion("g1");
+	final Criterion g2 = new Criterion("g2");
+	final Evaluations source = EvaluationsUtils.newDenseEvaluationMatrix();
+	source.put(a1, g1, 5d);
+	source.put(a2, g1, 10d);
+	source.put(a1, g2, 20d);
+	final Map<Criterion, Interval> scales = ImmutableMap.of(g1,
+		Intervals.newInterval(PreferenceDirection.MAXIMIZE, 0d, 10d), g2,
+		Intervals.newInterval(PreferenceDirection.MINIMIZE, 0d, 100d));
+	final EvaluationsNormalizer normalizer = new EvaluationsNormalizer();
+	final ColumnarEvaluations normalized = normalizer.getNormalized(source, scales);
+	final Evaluations expected = EvaluationsUtils.newEvaluationMatrix();
+	expected.put(a1, g1, 0.5d);
+	expected.put(a2, g1, 1d);
+	expected.put(a1, g2, 0.8d);
+	assertEquals(expected.asTable(), normalized.asTable());
+
+	assertSame(normalized, normalizer.getNormalized(source, ImmutableMap.copyOf(scales)));
+	source.put(a2, g2, 0d);
+	final ColumnarEvaluations changed = normalizer.getNormalized(source, scales);
+	assertNotSame(normalized, changed);
+	assertEquals(1d, changed.getValue(a2, g2), 0d);
+	assertSame(changed, normalizer.getNormalized(source, scales));
+    }
+}
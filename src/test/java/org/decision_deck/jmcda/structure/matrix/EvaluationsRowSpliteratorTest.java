@@ -0,0 +1,169 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+@SuppressWarnings("boxing")
+public class EvaluationsRowSpliteratorTest {
+    /**
+     * A matrix with some absent values, whose rows and columns are inserted in an order which is not their natural
+     * order.
+     */
+    private static Evaluations getSparse() {
+	final Evaluations evaluations = EvaluationsUtils.newEvaluationMatrix();
+	for (int r = 37; r >= 1; --r) {
+	    for (int c = 5; c >= 1; --c) {
+		if ((r + c) % 4 != 0) {
+		    evaluations.put(new Alternative("a" + r), new Criterion("g" + c), r * 10d + c);
+		}
+	    }
+	}
+	return evaluations;
+    }
+
+    private static List<EvaluationsRead> getSources() {
+	final Evaluations sparse = getSparse();
+	return ImmutableList.of(sparse, EvaluationsUtils.newDenseEvaluationMatrix(sparse),
+		EvaluationsUtils.newColumnarEvaluations(sparse), EvaluationsUtils.freeze(sparse));
+    }
+
+    @Test
+    public void testRowContents() {
+	for (final EvaluationsRead source : getSources()) {
+	    final List<Alternative> visited = Lists.newArrayList();
+	    EvaluationsUtils.rows(source).forEachRemaining(new Consumer<EvaluationsRow>() {
+		@Override
+		public void accept(EvaluationsRow row) {
+		    visited.add(row.getAlternative());
+		    assertRow(source, row);
+		}
+	    });
+	    assertEquals(ImmutableList.copyOf(source.getRows()), visited);
+	}
+    }
+
+    @Test
+    public void testTryAdvance() {
+	for (final EvaluationsRead source : getSources()) {
+	    final Spliterator<EvaluationsRow> spliterator = EvaluationsUtils.rows(source);
+	    final List<Alternative> visited = Lists.newArrayList();
+	    final Consumer<EvaluationsRow> action = new Consumer<EvaluationsRow>() {
+		@Override
+		public void accept(EvaluationsRow row) {
+		    visited.add(row.getAlternative());
+		    assertRow(source, row);
+		}
+	    };
+	    while (spliterator.tryAdvance(action)) {
+		assertEquals(source.getRows().size() - visited.size(), spliterator.estimateSize());
+	    }
+	    assertFalse(spliterator.tryAdvance(action));
+	    assertEquals(ImmutableList.copyOf(source.getRows()), visited);
+	}
+    }
+
+    @Test
+    public void testSplit() {
+	for (final EvaluationsRead source : getSources()) {
+	    final Spliterator<EvaluationsRow> spliterator = EvaluationsUtils.rows(source);
+	    assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+	    assertTrue(spliterator.hasCharacteristics(Spliterator.SUBSIZED));
+	    assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED));
+	    assertEquals(source.getRows().size(), spliterator.estimateSize());
+	    assertEquals(source.getRows().size(), spliterator.getExactSizeIfKnown());
+	    final List<Alternative> visited = Lists.newArrayList();
+	    split(source, spliterator, visited);
+	    assertEquals(ImmutableList.copyOf(source.getRows()), visited);
+	}
+    }
+
+    /**
+     * Splits recursively, checking the sizes, then traverses the prefixes before the suffixes, thus in encounter
+     * order.
+     */
+    private static void split(final EvaluationsRead source, Spliterator<EvaluationsRow> spliterator,
+	    final List<Alternative> visited) {
+	final long size = spliterator.estimateSize();
+	final Spliterator<EvaluationsRow> prefix = spliterator.trySplit();
+	if (prefix == null) {
+	    assertTrue(size <= 1);
+	    spliterator.forEachRemaining(new Consumer<EvaluationsRow>() {
+		@Override
+		public void accept(EvaluationsRow row) {
+		    visited.add(row.getAlternative());
+		    assertRow(source, row);
+		}
+	    });
+	    return;
+	}
+	assertEquals(size, prefix.estimateSize() + spliterator.estimateSize());
+	assertTrue(Math.abs(prefix.estimateSize() - spliterator.estimateSize()) <= 1);
+	split(source, prefix, visited);
+	split(source, spliterator, visited);
+    }
+
+    @Test
+    public void testEmpty() {
+	final Spliterator<EvaluationsRow> spliterator = EvaluationsUtils.rows(EvaluationsUtils.newEvaluationMatrix());
+	assertEquals(0, spliterator.estimateSize());
+	assertNull(spliterator.trySplit());
+	assertFalse(spliterator.tryAdvance(new Consumer<EvaluationsRow>() {
+	    @Override
+	    public void accept(EvaluationsRow row) {
+		throw new AssertionError();
+	    }
+	}));
+    }
+
+    @Test
+    public void testParallelStream() {
+	for (final EvaluationsRead source : getSources()) {
+	    final long count = EvaluationsUtils.rowStream(source, true).mapToLong(
+		    new ToLongFunction<EvaluationsRow>() {
+			@Override
+			public long applyAsLong(EvaluationsRow row) {
+			    return row.getValueCount();
+			}
+		    }).sum();
+	    assertEquals(source.getValueCount(), count);
+	}
+    }
+
+    private static void assertRow(EvaluationsRead source, EvaluationsRow row) {
+	final Alternative alternative = row.getAlternative();
+	assertEquals(ImmutableList.copyOf(source.getColumns()), row.getCriteria());
+	final double[] values = new double[row.getCriteria().size()];
+	row.getValues(values);
+	int count = 0;
+	for (int c = 0; c < values.length; ++c) {
+	    final Criterion criterion = row.getCriteria().get(c);
+	    final Double expected = source.getEntry(alternative, criterion);
+	    if (expected == null) {
+		assertTrue(Double.isNaN(row.getValue(c)));
+		assertTrue(Double.isNaN(row.getValue(criterion)));
+		assertTrue(Double.isNaN(values[c]));
+	    } else {
+		++count;
+		assertEquals(expected.doubleValue(), row.getValue(c), 0d);
+		assertEquals(expected.doubleValue(), row.getValue(criterion), 0d);
+		assertEquals(expected.doubleValue(), values[c], 0d);
+	    }
+	}
+	assertEquals(count, row.getValueCount());
+	assertTrue(Double.isNaN(row.getValue(new Criterion("unknown"))));
+    }
+}
@@ -0,0 +1,218 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.jmcda.structure.interval.Intervals;
+import org.decision_deck.jmcda.structure.interval.PreferenceDirection;
+import org.junit.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Ordering;
+
+@SuppressWarnings("boxing")
+public class EvaluationsTransformerTest {
+    private final Alternative m_a1 = new Alternative("a1");
+
+    private final Alternative m_a2 = new Alternative("a2");
+
+    private final Alternative m_a3 = new Alternative("a3");
+
+    private final Criterion m_g1 = new Criterion("g1");
+
+    private final Criterion m_g2 = new Criterion("g2");
+
+    private final Criterion m_g3 = new Criterion("g3");
+
+    private Evaluations getSource() {
+	final Evaluations source = EvaluationsUtils.newEvaluationMatrix();
+	source.put(m_a1, m_g1, 10d);
+	source.put(m_a1, m_g2, 2d);
+	source.put(m_a1, m_g3, 7d);
+	source.put(m_a2, m_g1, 20d);
+	source.put(m_a2, m_g3, 8d);
+	source.put(m_a3, m_g1, 30d);
+	source.put(m_a3, m_g2, 4d);
+	return source;
+    }
+
+    /**
+     * Drops a2 and g3, rescales g1 on [0, 40] to minimize, renames the criteria with a prefix and orders them in
+     * reverse natural order.
+     */
+    private EvaluationsTransformer getTransformer() {
+	final EvaluationsTransformer transformer = new EvaluationsTransformer();
+	transformer.setAlternativesFilter(new Predicate<Alternative>() {
+	    @Override
+	    public boolean apply(Alternative input) {
+		return !input.equals(m_a2);
+	    }
+	});
+	transformer.setCriteriaFilter(new Predicate<Criterion>() {
+	    @Override
+	    public boolean apply(Criterion input) {
+		return !input.equals(m_g3);
+	    }
+	});
+	transformer.setScales(ImmutableMap.of(m_g1, Intervals.newInterval(PreferenceDirection.MINIMIZE, 0d, 40d)));
+	transformer.setCriteriaRenamer(new Function<Criterion, Criterion>() {
+	    @Override
+	    public Criterion apply(Criterion input) {
+		return new Criterion("new " + input.getId());
+	    }
+	});
+	transformer.setCriteriaOrder(Ordering.natural().reverse());
+	return transformer;
+    }
+
+    private Evaluations getExpected() {
+	final Criterion n1 = new Criterion("new g1");
+	final Criterion n2 = new Criterion("new g2");
+	final Evaluations expected = EvaluationsUtils.newEvaluationMatrix();
+	expected.put(m_a1, n1, 0.75d);
+	expected.put(m_a1, n2, 2d);
+	expected.put(m_a3, n1, 0.25d);
+	expected.put(m_a3, n2, 4d);
+	return expected;
+    }
+
+    @Test
+    public void testTransform() {
+	final Evaluations transformed = getTransformer().transform(getSource());
+	assertEquals(getExpected(), transformed);
+	assertEquals(ImmutableList.of(new Criterion("new g2"), new Criterion("new g1")),
+		ImmutableList.copyOf(transformed.getColumns()));
+	assertTrue(transformed.isComplete());
+    }
+
+    @Test
+    public void testNothingSet() {
+	final Evaluations source = getSource();
+	assertEquals(source, new EvaluationsTransformer().transform(source));
+	assertEquals(source, new EvaluationsTransformer().getView(source));
+    }
+
+    @Test
+    public void testView() {
+	final Evaluations source = getSource();
+	final EvaluationsRead view = getTransformer().getView(source);
+	assertEquals(getExpected(), view);
+	assertEquals(4, view.getValueCount());
+	assertTrue(view.isComplete());
+	assertNull(view.getEntry(m_a2, new Criterion("new g1")));
+	assertNull(view.getEntry(m_a1, m_g1));
+
+	/** Changes of values are seen by any view. */
+	source.put(m_a3, m_g2, 5d);
+	assertEquals(5d, view.getValue(m_a3, new Criterion("new g2")), 0d);
+    }
+
+    @Test
+    public void testViewOfVersioned() {
+	final VersionedEvaluations source = EvaluationsUtils.newVersionedEvaluations(getSource());
+	final EvaluationsRead view = getTransformer().getView(source);
+	assertEquals(4, view.getValueCount());
+	assertTrue(view.isComplete());
+
+	source.remove(m_a3, m_g2);
+	assertEquals(3, view.getValueCount());
+	assertFalse(view.isComplete());
+	assertNull(view.getEntry(m_a3, new Criterion("new g2")));
+
+	final Alternative a4 = new Alternative("a4");
+	source.put(a4, m_g2, 6d);
+	assertEquals(4, view.getValueCount());
+	assertEquals(3, view.getRows().size());
+	assertEquals(6d, view.getValue(a4, new Criterion("new g2")), 0d);
+
+	source.remove(a4, m_g2);
+	source.remove(m_a3, m_g1);
+	assertEquals(2, view.getValueCount());
+	assertEquals(ImmutableList.of(m_a1), ImmutableList.copyOf(view.getRows()));
+	assertTrue(view.isComplete());
+    }
+
+    @Test
+    public void testViewOfUnversionedKeepsPlan() {
+	final Evaluations source = getSource();
+	final EvaluationsRead unversioned = EvaluationsUtils.getReadView(source);
+	assertFalse(unversioned instanceof VersionedEvaluationsRead);
+	final EvaluationsRead view = getTransformer().getView(unversioned);
+	source.put(new Alternative("a4"), m_g1, 1d);
+	assertEquals(2, view.getRows().size());
+	assertEquals(4, view.getValueCount());
+	assertNull(view.getEntry(new Alternative("a4"), new Criterion("new g1")));
+    }
+
+    @Test
+    public void testViewOfVersionedMatrix() {
+	final Evaluations source = getSource();
+	final EvaluationsRead view = getTransformer().getView(source);
+	source.put(new Alternative("a4"), m_g1, 20d);
+	assertEquals(3, view.getRows().size());
+	assertEquals(5, view.getValueCount());
+	assertEquals(0.5d, view.getValue(new Alternative("a4"), new Criterion("new g1")), 0d);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRenameMergingCriteria() {
+	final EvaluationsTransformer transformer = new EvaluationsTransformer();
+	transformer.setCriteriaRenamer(new Function<Criterion, Criterion>() {
+	    @Override
+	    public Criterion apply(Criterion input) {
+		return input.equals(m_g2) ? m_g1 : input;
+	    }
+	});
+	transformer.transform(getSource());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testViewRenameMergingCriteria() {
+	final EvaluationsTransformer transformer = new EvaluationsTransformer();
+	transformer.setCriteriaRenamer(new Function<Criterion, Criterion>() {
+	    @Override
+	    public Criterion apply(Criterion input) {
+		return new Criterion("merged");
+	    }
+	});
+	transformer.getView(getSource());
+    }
+
+    @Test
+    public void testRenameMergingFilteredCriteria() {
+	final EvaluationsTransformer transformer = new EvaluationsTransformer();
+	transformer.setCriteriaFilter(new Predicate<Criterion>() {
+	    @Override
+	    public boolean apply(Criterion input) {
+		return !input.equals(m_g2);
+	    }
+	});
+	transformer.setCriteriaRenamer(new Function<Criterion, Criterion>() {
+	    @Override
+	    public Criterion apply(Criterion input) {
+		return input.equals(m_g2) ? m_g1 : input;
+	    }
+	});
+	/** The criterion renamed as an existing one is filtered out, thus nothing is merged. */
+	assertEquals(5, transformer.transform(getSource()).getValueCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRenameMergingAlternatives() {
+	final EvaluationsTransformer transformer = new EvaluationsTransformer();
+	transformer.setAlternativesRenamer(new Function<Alternative, Alternative>() {
+	    @Override
+	    public Alternative apply(Alternative input) {
+		return m_a1;
+	    }
+	});
+	transformer.transform(getSource());
+    }
+}
@@ -0,0 +1,85 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+@SuppressWarnings("boxing")
+public class FrozenEvaluationsTest {
+    private final Alternative m_a1 = new Alternative("a1");
+
+    private final Alternative m_a2 = new Alternative("a2");
+
+    private final Criterion m_g1 = new Criterion("g1");
+
+    private final Criterion m_g2 = new Criterion("g2");
+
+    private Evaluations getSource() {
+	final Evaluations source = EvaluationsUtils.newEvaluationMatrix();
+	source.put(m_a2, m_g2, 4d);
+	source.put(m_a1, m_g1, 1d);
+	source.put(m_a1, m_g2, -0d);
+	return source;
+    }
+
+    @Test
+    public void testRoundTrip() {
+	final Evaluations source = getSource();
+	final EvaluationsRead frozen = EvaluationsUtils.freeze(source);
+	assertEquals(source.getRows(), frozen.getRows());
+	assertEquals(source.getColumns(), frozen.getColumns());
+	assertEquals(ImmutableList.of(m_a1, m_a2), ImmutableList.copyOf(frozen.getRows()));
+	assertEquals(3, frozen.getValueCount());
+	assertFalse(frozen.isComplete());
+	for (Alternative alternative : source.getRows()) {
+	    for (Criterion criterion : source.getColumns()) {
+		assertEquals(source.getEntry(alternative, criterion), frozen.getEntry(alternative, criterion));
+	    }
+	}
+	assertNull(frozen.getEntry(m_a2, m_g1));
+	assertNull(frozen.getEntry(new Alternative("unknown"), m_g1));
+	assertEquals(source.asTable(), frozen.asTable());
+
+	source.put(m_a2, m_g1, 3d);
+	assertNull(frozen.getEntry(m_a2, m_g1));
+	assertSame(frozen, EvaluationsUtils.freeze(frozen));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetValueAbsent() {
+	EvaluationsUtils.freeze(getSource()).getValue(m_a2, m_g1);
+    }
+
+    @Test
+    public void testEquals() {
+	final Evaluations source = getSource();
+	final EvaluationsRead frozen = EvaluationsUtils.freeze(source);
+	assertTrue(frozen.equals(source));
+	assertTrue(source.equals(frozen));
+	assertEquals(source.hashCode(), frozen.hashCode());
+
+	final EvaluationsRead again = EvaluationsUtils.freeze(getSource());
+	assertEquals(frozen, again);
+	assertEquals(frozen.hashCode(), again.hashCode());
+
+	final Evaluations other = getSource();
+	other.put(m_a2, m_g2, 4.5d);
+	final EvaluationsRead otherFrozen = EvaluationsUtils.freeze(other);
+	assertFalse(frozen.equals(otherFrozen));
+	assertFalse(frozen.equals(other));
+	assertFalse(other.equals(frozen));
+
+	final Evaluations empty = EvaluationsUtils.newEvaluationMatrix();
+	assertEquals(empty, EvaluationsUtils.freeze(empty));
+	assertEquals(empty.hashCode(), EvaluationsUtils.freeze(empty).hashCode());
+	assertTrue(EvaluationsUtils.freeze(empty).isEmpty());
+    }
+}
@@ -0,0 +1,55 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.junit.Test;
+
+@SuppressWarnings("boxing")
+public class MappedEvaluationsTest {
+
+    @Test
+    public void testWriteOpen() throws IOException {
+	final Evaluations source = EvaluationsUtils.newEvaluationMatrix();
+	for (int i = 0; i < 100; ++i) {
+	    for (int j = 0; j < 7; ++j) {
+		if (i != 42 || j != 3) {
+		    source.put(new Alternative("a" + i), new Criterion("crit" + j), i * 0.5d - j);
+		}
+	    }
+	}
+	final File file = File.createTempFile("evaluations", ".bin");
+	file.deleteOnExit();
+	MappedEvaluations.write(source, file);
+	final MappedEvaluations mapped = MappedEvaluations.open(file);
+
+	assertEquals(699, mapped.getValueCount());
+	assertFalse(mapped.isComplete());
+	assertEquals(source.getRows(), mapped.getRows());
+	assertEquals(source.getColumns(), mapped.getColumns());
+	assertEquals(new Alternative("a0"), mapped.getRows().iterator().next());
+	assertEquals(17.5d, mapped.getValue(new Alternative("a37"), new Criterion("crit1")), 0d);
+	assertNull(mapped.getEntry(new Alternative("a42"), new Criterion("crit3")));
+	assertNull(mapped.getEntry(new Alternative("a100"), new Criterion("crit3")));
+	assertNull(mapped.getEntry(new Alternative("a1"), new Criterion("crit7")));
+	assertTrue(mapped.approxEquals(source, 0d));
+	assertEquals(mapped, EvaluationsUtils.newDenseEvaluationMatrix(source));
+	assertEquals(source.asTable().hashCode(), mapped.hashCode());
+	assertEquals(source.asTable(), mapped.asTable());
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAnEvaluationsFile() throws IOException {
+	final File file = File.createTempFile("evaluations", ".bin");
+	file.deleteOnExit();
+	MappedEvaluations.open(file);
+    }
+
+}
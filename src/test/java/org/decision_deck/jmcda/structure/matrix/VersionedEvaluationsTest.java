@@ -0,0 +1,111 @@
+package org.decision_deck.jmcda.structure.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+@SuppressWarnings("boxing")
+public class VersionedEvaluationsTest {
+
+    @Test
+    public void testNetChanges() {
+	final VersionedEvaluations evaluations = EvaluationsUtils.newVersionedEvaluations(EvaluationsUtils
+		.newEvaluationMatrix());
+	final Alternative a1 = new Alternative("a1");
+	final Alternative a2 = new Alternative("a2");
+	final Criterion g1 = new Criterion("g1");
+	evaluations.put(a1, g1, 1d);
+	evaluations.put(a2, g1, 5d);
+	assertEquals(2, evaluations.getVersion());
+	evaluations.put(a1, g1, 1d);
+	assertEquals(2, evaluations.getVersion());
+
+	evaluations.put(a1, g1, 2d);
+	evaluations.put(a1, g1, 3d);
+	evaluations.put(a2, g1, 6d);
+	evaluations.put(a2, g1, 5d);
+	assertEquals(6, evaluations.getVersion());
+	final List<EvaluationChange> changes = evaluations.getChangesSince(2);
+	assertEquals(ImmutableList.of(new EvaluationChange(a1, g1, 1d, 3d, 4)), changes);
+
+	final List<EvaluationChange> all = evaluations.getChangesSince(0);
+	assertEquals(2, all.size());
+	assertEquals(new EvaluationChange(a1, g1, null, 3d, 4), all.get(0));
+	assertEquals(new EvaluationChange(a2, g1, null, 5d, 6), all.get(1));
+
+	evaluations.remove(a2, g1);
+	assertEquals(ImmutableList.of(new EvaluationChange(a2, g1, 5d, null, 7)), evaluations.getChangesSince(6));
+	assertTrue(evaluations.getChangesSince(7).isEmpty());
+    }
+
+    @Test
+    public void testCompact() {
+	final VersionedEvaluations evaluations = EvaluationsUtils.newVersionedEvaluations(EvaluationsUtils
+		.newEvaluationMatrix());
+	final Alternative a1 = new Alternative("a1");
+	final Criterion g1 = new Criterion("g1");
+	final Criterion g2 = new Criterion("g2");
+	evaluations.put(a1, g1, 1d);
+	evaluations.put(a1, g2, 2d);
+	evaluations.put(a1, g1, 3d);
+	evaluations.compact(2);
+	assertEquals(2, evaluations.getOldestVersion());
+	assertNull(evaluations.getChangesSince(0));
+	assertNull(evaluations.getChangesSince(1));
+	assertEquals(ImmutableList.of(new EvaluationChange(a1, g1, 1d, 3d, 3)), evaluations.getChangesSince(2));
+	evaluations.compact(1);
+	assertEquals(2, evaluations.getOldestVersion());
+	evaluations.compact(3);
+	assertTrue(evaluations.getChangesSince(3).isEmpty());
+	assertNull(evaluations.getChangesSince(2));
+	assertEquals(3d, evaluations.getValue(a1, g1), 0d);
+    }
+
+    @Test
+    public void testAutoCompaction() {
+	final VersionedEvaluations evaluations = EvaluationsUtils.newVersionedEvaluations(
+		EvaluationsUtils.newEvaluationMatrix(), 4);
+	final Criterion g1 = new Criterion("g1");
+	for (int i = 0; i < 4; ++i) {
+	    evaluations.put(new Alternative(i), g1, i);
+	}
+	assertEquals(0, evaluations.getOldestVersion());
+	assertEquals(4, evaluations.getChangesSince(0).size());
+
+	evaluations.put(new Alternative(4), g1, 4d);
+	assertEquals(5, evaluations.getVersion());
+	assertEquals(2, evaluations.getOldestVersion());
+	assertNull(evaluations.getChangesSince(0));
+	assertNull(evaluations.getChangesSince(1));
+	final List<EvaluationChange> changes = evaluations.getChangesSince(2);
+	assertEquals(3, changes.size());
+	assertEquals(new EvaluationChange(new Alternative(2), g1, null, 2d, 3), changes.get(0));
+	assertEquals(new EvaluationChange(new Alternative(4), g1, null, 4d, 5), changes.get(2));
+	assertEquals(5, evaluations.getValueCount());
+    }
+
+    @Test
+    public void testNaNRejected() {
+	final VersionedEvaluations evaluations = EvaluationsUtils.newVersionedEvaluations(EvaluationsUtils
+		.newEvaluationMatrix());
+	final Alternative a1 = new Alternative("a1");
+	final Criterion g1 = new Criterion("g1");
+	try {
+	    evaluations.put(a1, g1, Double.NaN);
+	    fail();
+	} catch (IllegalArgumentException exc) {
+	    /** Expected. */
+	}
+	assertTrue(evaluations.isEmpty());
+	assertEquals(0, evaluations.getVersion());
+    }
+}
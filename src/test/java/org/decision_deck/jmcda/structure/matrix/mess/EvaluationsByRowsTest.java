@@ -0,0 +1,59 @@
+package org.decision_deck.jmcda.structure.matrix.mess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.jmcda.structure.matrix.AlternativeEvaluations;
+import org.decision_deck.jmcda.structure.matrix.Evaluations;
+import org.decision_deck.jmcda.structure.matrix.EvaluationsUtils;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+@SuppressWarnings("boxing")
+public class EvaluationsByRowsTest {
+
+    @Test
+    public void testColumnTracking() {
+	final Alternative a1 = new Alternative("a1");
+	final Alternative a2 = new Alternative("a2");
+	final Criterion g1 = new Criterion("g1");
+	final Criterion g2 = new Criterion("g2");
+	final EvaluationsByRows evaluations = new EvaluationsByRows();
+	evaluations.put(a1, g1, 1d);
+	evaluations.put(a2, g1, 2d);
+	assertEquals(ImmutableSet.of(g1), evaluations.getColumns());
+	assertTrue(evaluations.isComplete());
+
+	final AlternativeEvaluations row = new AlternativeEvaluations(ImmutableMap.of(g1, 3d, g2, 4d));
+	evaluations.put(a1, row);
+	assertSame(row, evaluations.getRow(a1));
+	assertEquals(ImmutableSet.of(g1, g2), evaluations.getColumns());
+	assertEquals(3, evaluations.getValueCount());
+	assertFalse(evaluations.isComplete());
+
+	evaluations.put(a2, g2, 5d);
+	assertTrue(evaluations.isComplete());
+	final Evaluations expected = EvaluationsUtils.newDenseEvaluationMatrix();
+	expected.put(a1, g1, 3d);
+	expected.put(a1, g2, 4d);
+	expected.put(a2, g1, 2d);
+	expected.put(a2, g2, 5d);
+	assertEquals(expected.asTable(), evaluations.asTable());
+	assertEquals(expected, evaluations);
+	assertTrue(evaluations.approxEquals(expected, 0d));
+
+	assertTrue(evaluations.removeColumn(g1));
+	assertEquals(ImmutableSet.of(g2), evaluations.getColumns());
+	assertTrue(evaluations.removeRow(a1));
+	evaluations.remove(a2, g2);
+	assertTrue(evaluations.getColumns().isEmpty());
+	assertTrue(evaluations.isEmpty());
+	assertEquals(0, evaluations.getValueCount());
+    }
+}
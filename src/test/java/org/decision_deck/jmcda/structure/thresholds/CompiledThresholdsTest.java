@@ -0,0 +1,109 @@
+package org.decision_deck.jmcda.structure.thresholds;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.decision_deck.jmcda.structure.Criterion;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class CompiledThresholdsTest {
+    private final Criterion m_g1 = new Criterion("g1");
+
+    private final Criterion m_g2 = new Criterion("g2");
+
+    private final Criterion m_g3 = new Criterion("g3");
+
+    private Thresholds getThresholds() {
+	final Thresholds thresholds = ThresholdsUtils.newThresholds();
+	thresholds.setIndifferenceThreshold(m_g1, 1d);
+	thresholds.setPreferenceThreshold(m_g1, 2d);
+	thresholds.setVetoThreshold(m_g1, 3d);
+	thresholds.setPreferenceThreshold(m_g2, 20d);
+	thresholds.setVetoThreshold(m_g3, 300d);
+	return thresholds;
+    }
+
+    @Test
+    public void testOrder() {
+	final CompiledThresholds compiled = ThresholdsUtils.compile(getThresholds(),
+		ImmutableList.of(m_g3, m_g1, m_g2));
+	assertEquals(3, compiled.size());
+	assertEquals(ImmutableList.of(m_g3, m_g1, m_g2), compiled.getCriteria());
+	assertEquals(0, compiled.getIndex(m_g3));
+	assertEquals(1, compiled.getIndex(m_g1));
+	assertEquals(2, compiled.getIndex(m_g2));
+	assertArrayEquals(new double[] { Double.NaN, 2d, 20d }, compiled.toPreferenceArray(), 0d);
+	assertArrayEquals(new double[] { Double.NaN, 1d, Double.NaN }, compiled.toIndifferenceArray(), 0d);
+	assertArrayEquals(new double[] { 300d, 3d, Double.NaN }, compiled.toVetoArray(), 0d);
+	assertEquals(2d, compiled.getPreferenceThreshold(1), 0d);
+	assertEquals(300d, compiled.getVetoThreshold(0), 0d);
+	assertTrue(Double.isNaN(compiled.getIndifferenceThreshold(2)));
+
+	final CompiledThresholds other = ThresholdsUtils.compile(getThresholds(), ImmutableList.of(m_g1, m_g2, m_g3));
+	assertArrayEquals(new double[] { 2d, 20d, Double.NaN }, other.toPreferenceArray(), 0d);
+	assertFalse(compiled.equals(other));
+    }
+
+    @Test
+    public void testAbsentCriterion() {
+	final Criterion g4 = new Criterion("g4");
+	final CompiledThresholds compiled = ThresholdsUtils.compile(getThresholds(), ImmutableList.of(g4, m_g2));
+	final int index = compiled.getIndex(g4);
+	assertTrue(Double.isNaN(compiled.getPreferenceThreshold(index)));
+	assertTrue(Double.isNaN(compiled.getIndifferenceThreshold(index)));
+	assertTrue(Double.isNaN(compiled.getVetoThreshold(index)));
+	assertEquals(20d, compiled.getPreferenceThreshold(compiled.getIndex(m_g2)), 0d);
+    }
+
+    @Test
+    public void testSnapshot() {
+	final Thresholds thresholds = getThresholds();
+	final CompiledThresholds compiled = ThresholdsUtils.compile(thresholds);
+	assertEquals(ImmutableList.copyOf(thresholds.getCriteria()), compiled.getCriteria());
+	thresholds.setPreferenceThreshold(m_g1, 5d);
+	assertEquals(2d, compiled.getPreferenceThreshold(compiled.getIndex(m_g1)), 0d);
+	final double[] array = compiled.toPreferenceArray();
+	array[0] = 42d;
+	assertFalse(42d == compiled.getPreferenceThreshold(0));
+	assertEquals(ThresholdsUtils.compile(getThresholds()), ThresholdsUtils.compile(getThresholds()));
+	assertEquals(ThresholdsUtils.compile(getThresholds()).hashCode(), ThresholdsUtils.compile(getThresholds())
+		.hashCode());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateCriteria() {
+	ThresholdsUtils.compile(getThresholds(), ImmutableList.of(m_g1, m_g1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownIndex() {
+	ThresholdsUtils.compile(getThresholds(), ImmutableList.of(m_g1)).getIndex(m_g2);
+    }
+
+    @Test
+    public void testMapBasedGetters() {
+	final Thresholds thresholds = getThresholds();
+	assertEquals(2d, thresholds.getPreferenceThreshold(m_g1), 0d);
+	assertEquals(1d, thresholds.getIndifferenceThreshold(m_g1), 0d);
+	assertEquals(300d, thresholds.getVetoThreshold(m_g3), 0d);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingPreference() {
+	getThresholds().getPreferenceThreshold(m_g3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingIndifference() {
+	getThresholds().getIndifferenceThreshold(m_g2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingVeto() {
+	getThresholds().getVetoThreshold(m_g2);
+    }
+}
@@ -0,0 +1,108 @@
+package org.decision_deck.jmcda.structure.thresholds;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.jmcda.structure.interval.Interval;
+import org.decision_deck.jmcda.structure.interval.Intervals;
+import org.decision_deck.jmcda.structure.interval.PreferenceDirection;
+import org.decision_deck.jmcda.structure.matrix.Evaluations;
+import org.decision_deck.jmcda.structure.matrix.EvaluationsUtils;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+public class PartialIndicesTest {
+    private final Alternative m_b1 = new Alternative("b1");
+
+    private final Alternative m_b2 = new Alternative("b2");
+
+    /**
+     * Discrete scale, to maximize.
+     */
+    private final Criterion m_g1 = new Criterion("g1");
+
+    /**
+     * Continuous scale, to minimize.
+     */
+    private final Criterion m_g2 = new Criterion("g2");
+
+    private final Map<Criterion, Interval> m_scales = ImmutableMap.of(m_g1,
+	    Intervals.newDiscreteInterval(PreferenceDirection.MAXIMIZE, 0d, 10d, 0.5d), m_g2,
+	    Intervals.newInterval(PreferenceDirection.MINIMIZE, 0d, 100d));
+
+    private ProfilesThresholds getThresholds(Evaluations profilesEvaluations) {
+	final AffineThresholds thresholds = ThresholdsUtils.newAffineThresholds();
+	thresholds.setIndifferenceThreshold(m_g1, new AffineThreshold(0.1d, 0.5d));
+	thresholds.setPreferenceThreshold(m_g1, new AffineThreshold(0.2d, 1d));
+	thresholds.setVetoThreshold(m_g1, AffineThreshold.constant(4d));
+	thresholds.setIndifferenceThreshold(m_g2, AffineThreshold.constant(5d));
+	thresholds.setPreferenceThreshold(m_g2, new AffineThreshold(0.1d, 10d));
+	thresholds.setVetoThreshold(m_g2, new AffineThreshold(0.2d, 30d));
+	return ThresholdsUtils.compile(thresholds, profilesEvaluations, ImmutableList.of(m_b1, m_b2),
+		ImmutableList.of(m_g1, m_g2));
+    }
+
+    private Evaluations getProfilesEvaluations() {
+	final Evaluations profilesEvaluations = EvaluationsUtils.newEvaluationMatrix();
+	profilesEvaluations.put(m_b1, m_g1, 3d);
+	profilesEvaluations.put(m_b1, m_g2, 60d);
+	profilesEvaluations.put(m_b2, m_g1, 7.5d);
+	profilesEvaluations.put(m_b2, m_g2, 25d);
+	return profilesEvaluations;
+    }
+
+    @Test
+    public void testTabulatedEqualsComputed() {
+	final Evaluations profilesEvaluations = getProfilesEvaluations();
+	final ProfilesThresholds thresholds = getThresholds(profilesEvaluations);
+	final PartialIndices tabulated = ThresholdsUtils.newPartialIndices(thresholds, profilesEvaluations, m_scales);
+	final PartialIndices computed = ThresholdsUtils.newPartialIndices(thresholds, profilesEvaluations, m_scales, 0);
+	assertTrue(tabulated.isTabulated(0));
+	assertFalse(tabulated.isTabulated(1));
+	assertFalse(computed.isTabulated(0));
+
+	final double[] onGrid = new double[21];
+	for (int s = 0; s < onGrid.length; ++s) {
+	    onGrid[s] = s * 0.5d;
+	}
+	assertAgree(tabulated, computed, 0, onGrid);
+	for (int s = 0; s < onGrid.length; ++s) {
+	    assertEquals(s, tabulated.getStep(0, onGrid[s]));
+	}
+
+	final double[] offGrid = new double[] { -1d, 0.25d, 1.1d, 3.3d, 6.8d, 7.2d, 9.99d, 12d };
+	assertAgree(tabulated, computed, 0, offGrid);
+
+	final double[] continuous = new double[] { 0d, 12.5d, 24.9d, 30d, 33.3d, 50d, 54.5d, 66.6d, 71d, 99.5d };
+	assertAgree(tabulated, computed, 1, continuous);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStepOffGrid() {
+	final Evaluations profilesEvaluations = getProfilesEvaluations();
+	final PartialIndices indices = ThresholdsUtils.newPartialIndices(getThresholds(profilesEvaluations),
+		profilesEvaluations, m_scales);
+	indices.getStep(0, 0.25d);
+    }
+
+    private static void assertAgree(PartialIndices tabulated, PartialIndices computed, int criterion, double[] values) {
+	for (int p = 0; p < 2; ++p) {
+	    for (double value : values) {
+		final String message = "Profile " + p + ", criterion " + criterion + ", value " + value + ".";
+		final double concordance = computed.getConcordance(p, criterion, value);
+		final double discordance = computed.getDiscordance(p, criterion, value);
+		assertTrue(message, concordance >= 0d && concordance <= 1d);
+		assertTrue(message, discordance >= 0d && discordance <= 1d);
+		assertEquals(message, concordance, tabulated.getConcordance(p, criterion, value), 1e-12);
+		assertEquals(message, discordance, tabulated.getDiscordance(p, criterion, value), 1e-12);
+	    }
+	}
+    }
+}
@@ -0,0 +1,145 @@
+package org.decision_deck.jmcda.structure.thresholds;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.decision_deck.jmcda.structure.Alternative;
+import org.decision_deck.jmcda.structure.Criterion;
+import org.decision_deck.jmcda.structure.matrix.Evaluations;
+import org.decision_deck.jmcda.structure.matrix.EvaluationsUtils;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+@SuppressWarnings("boxing")
+public class ProfilesThresholdsTest {
+    private final Alternative m_b1 = new Alternative("b1");
+
+    private final Alternative m_b2 = new Alternative("b2");
+
+    private final Criterion m_g1 = new Criterion("g1");
+
+    private final Criterion m_g2 = new Criterion("g2");
+
+    private final Criterion m_g3 = new Criterion("g3");
+
+    @Test
+    public void testAffineThreshold() {
+	final AffineThreshold threshold = new AffineThreshold(0.5d, 2d);
+	assertFalse(threshold.isConstant());
+	assertEquals(7d, threshold.getValue(10d), 0d);
+	assertEquals(2d, threshold.getValue(0d), 0d);
+	final AffineThreshold constant = AffineThreshold.constant(3d);
+	assertTrue(constant.isConstant());
+	assertEquals(3d, constant.getValue(Double.NaN), 0d);
+	assertEquals(new AffineThreshold(0d, 3d), constant);
+	assertEquals(new AffineThreshold(0d, 3d).hashCode(), constant.hashCode());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAffineThresholdNaN() {
+	new AffineThreshold(Double.NaN, 1d);
+    }
+
+    @Test
+    public void testAffineThresholds() {
+	final AffineThresholds thresholds = ThresholdsUtils.newAffineThresholds();
+	assertTrue(thresholds.isEmpty());
+	thresholds.setPreferenceThreshold(m_g1, new AffineThreshold(0.1d, 1d));
+	thresholds.setVetoThreshold(m_g2, AffineThreshold.constant(5d));
+	assertEquals(2, thresholds.getCriteria().size());
+	assertEquals(new AffineThreshold(0.1d, 1d), thresholds.getPreferenceThreshold(m_g1));
+	assertEquals(AffineThreshold.constant(5d), thresholds.setVetoThreshold(m_g2, null));
+	assertFalse(thresholds.getVetoThresholds().containsKey(m_g2));
+	assertEquals(1, thresholds.getCriteria().size());
+
+	final Thresholds constants = ThresholdsUtils.newThresholds();
+	constants.setIndifferenceThreshold(m_g1, 1d);
+	constants.setVetoThreshold(m_g3, 8d);
+	final AffineThresholds fromConstants = ThresholdsUtils.newAffineThresholds(constants);
+	assertEquals(AffineThreshold.constant(1d), fromConstants.getIndifferenceThreshold(m_g1));
+	assertEquals(AffineThreshold.constant(8d), fromConstants.getVetoThreshold(m_g3));
+	assertTrue(fromConstants.getPreferenceThresholds().isEmpty());
+    }
+
+    @Test
+    public void testCompile() {
+	final AffineThresholds thresholds = ThresholdsUtils.newAffineThresholds();
+	thresholds.setIndifferenceThreshold(m_g1, new AffineThreshold(0.1d, 1d));
+	thresholds.setPreferenceThreshold(m_g1, new AffineThreshold(0.2d, 2d));
+	thresholds.setVetoThreshold(m_g1, AffineThreshold.constant(10d));
+	thresholds.setPreferenceThreshold(m_g2, new AffineThreshold(-0.5d, 50d));
+	final Evaluations profilesEvaluations = EvaluationsUtils.newEvaluationMatrix();
+	profilesEvaluations.put(m_b1, m_g1, 10d);
+	profilesEvaluations.put(m_b2, m_g1, 20d);
+	profilesEvaluations.put(m_b1, m_g2, 40d);
+	profilesEvaluations.put(m_b2, m_g2, 60d);
+
+	/** g3 has no thresholds and no evaluations, which is fine as it needs none. */
+	final ProfilesThresholds compiled = ThresholdsUtils.compile(thresholds, profilesEvaluations,
+		ImmutableList.of(m_b2, m_b1), ImmutableList.of(m_g3, m_g2, m_g1));
+	assertEquals(ImmutableList.of(m_b2, m_b1), compiled.getProfiles());
+	assertEquals(ImmutableList.of(m_g3, m_g2, m_g1), compiled.getCriteria());
+	assertEquals(0, compiled.getProfileIndex(m_b2));
+	assertEquals(2, compiled.getCriterionIndex(m_g1));
+
+	final int b1 = compiled.getProfileIndex(m_b1);
+	final int b2 = compiled.getProfileIndex(m_b2);
+	final int g1 = compiled.getCriterionIndex(m_g1);
+	final int g2 = compiled.getCriterionIndex(m_g2);
+	final int g3 = compiled.getCriterionIndex(m_g3);
+	assertEquals(0.1d * 10d + 1d, compiled.getIndifferenceThreshold(b1, g1), 1e-12);
+	assertEquals(0.1d * 20d + 1d, compiled.getIndifferenceThreshold(b2, g1), 1e-12);
+	assertEquals(0.2d * 10d + 2d, compiled.getPreferenceThreshold(b1, g1), 1e-12);
+	assertEquals(0.2d * 20d + 2d, compiled.getPreferenceThreshold(b2, g1), 1e-12);
+	assertEquals(10d, compiled.getVetoThreshold(b1, g1), 0d);
+	assertEquals(10d, compiled.getVetoThreshold(b2, g1), 0d);
+	assertEquals(-0.5d * 40d + 50d, compiled.getPreferenceThreshold(b1, g2), 1e-12);
+	assertEquals(-0.5d * 60d + 50d, compiled.getPreferenceThreshold(b2, g2), 1e-12);
+
+	for (int p = 0; p < 2; ++p) {
+	    assertTrue(Double.isNaN(compiled.getIndifferenceThreshold(p, g2)));
+	    assertTrue(Double.isNaN(compiled.getVetoThreshold(p, g2)));
+	    assertTrue(Double.isNaN(compiled.getPreferenceThreshold(p, g3)));
+	    assertTrue(Double.isNaN(compiled.getIndifferenceThreshold(p, g3)));
+	    assertTrue(Double.isNaN(compiled.getVetoThreshold(p, g3)));
+	}
+
+	final Thresholds ofB2 = compiled.getThresholds(b2);
+	final Thresholds expected = ThresholdsUtils.newThresholds();
+	expected.setIndifferenceThreshold(m_g1, 0.1d * 20d + 1d);
+	expected.setPreferenceThreshold(m_g1, 0.2d * 20d + 2d);
+	expected.setVetoThreshold(m_g1, 10d);
+	expected.setPreferenceThreshold(m_g2, -0.5d * 60d + 50d);
+	assertTrue(ThresholdsUtils.getEquivalence().equivalent(expected, ofB2));
+	assertFalse(ofB2.getCriteria().contains(m_g3));
+
+	final ProfilesThresholds again = ThresholdsUtils.compile(thresholds, profilesEvaluations,
+		ImmutableList.of(m_b2, m_b1), ImmutableList.of(m_g3, m_g2, m_g1));
+	assertEquals(compiled, again);
+	assertEquals(compiled.hashCode(), again.hashCode());
+    }
+
+    @Test
+    public void testCompileConstantsRoundTrip() {
+	final Thresholds constants = ThresholdsUtils.newThresholds();
+	constants.setIndifferenceThreshold(m_g1, 1d);
+	constants.setPreferenceThreshold(m_g1, 2d);
+	constants.setVetoThreshold(m_g2, 8d);
+	/** Constant thresholds need no evaluations. */
+	final ProfilesThresholds compiled = ThresholdsUtils.compile(ThresholdsUtils.newAffineThresholds(constants),
+		EvaluationsUtils.newEvaluationMatrix(), ImmutableList.of(m_b1, m_b2), ImmutableList.of(m_g1, m_g2));
+	for (int p = 0; p < 2; ++p) {
+	    assertTrue(ThresholdsUtils.getEquivalence().equivalent(constants, compiled.getThresholds(p)));
+	}
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompileMissingEvaluation() {
+	final AffineThresholds thresholds = ThresholdsUtils.newAffineThresholds();
+	thresholds.setPreferenceThreshold(m_g1, new AffineThreshold(0.1d, 1d));
+	ThresholdsUtils.compile(thresholds, EvaluationsUtils.newEvaluationMatrix(), ImmutableList.of(m_b1),
+		ImmutableList.of(m_g1));
+    }
+}
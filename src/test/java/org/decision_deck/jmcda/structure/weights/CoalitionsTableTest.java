@@ -0,0 +1,131 @@
+package org.decision_deck.jmcda.structure.weights;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.decision_deck.jmcda.structure.Criterion;
+import org.junit.Test;
+
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+@SuppressWarnings("boxing")
+public class CoalitionsTableTest {
+
+    @Test
+    public void testSmall() {
+	final Criterion g1 = new Criterion("g1");
+	final Criterion g2 = new Criterion("g2");
+	final Criterion g3 = new Criterion("g3");
+	final Coalitions coalitions = CoalitionsUtils.newCoalitions();
+	coalitions.putWeight(g1, 0.5d);
+	coalitions.putWeight(g2, 0.3d);
+	coalitions.putWeight(g3, 0.2d);
+	coalitions.setMajorityThreshold(0.6d);
+	final CoalitionsTable table = CoalitionsUtils.getTable(coalitions);
+	assertSame(table, CoalitionsUtils.getTable(coalitions));
+	assertEquals(0.7d, table.getWeight(table.getMask(ImmutableSet.of(g1, g3))), 1e-6d);
+	assertTrue(table.isWinning(table.getMask(ImmutableSet.of(g1, g3))));
+	assertFalse(table.isWinning(table.getMask(ImmutableSet.of(g2, g3))));
+	assertFalse(table.isWinning(0L));
+
+	coalitions.setMajorityThreshold(0.5d);
+	final CoalitionsTable lowered = CoalitionsUtils.getTable(coalitions);
+	assertNotSame(table, lowered);
+	assertTrue(lowered.isWinning(lowered.getMask(ImmutableSet.of(g2, g3))));
+
+	coalitions.putWeight(g3, 0.1d);
+	final CoalitionsTable changed = CoalitionsUtils.getTable(coalitions);
+	assertNotSame(lowered, changed);
+	assertFalse(changed.isWinning(changed.getMask(ImmutableSet.of(g2, g3))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownCriteria() {
+	final Coalitions coalitions = CoalitionsUtils.newCoalitions();
+	coalitions.putWeight(new Criterion("g1"), 0.5d);
+	coalitions.putWeight(new Criterion("g2"), 0.5d);
+	coalitions.setMajorityThreshold(0.5d);
+	CoalitionsUtils.getTable(coalitions).isWinning(4L);
+    }
+
+    @Test
+    public void testLarge() {
+	final List<Criterion> criteria = Lists.newArrayList();
+	final Coalitions coalitions = CoalitionsUtils.newCoalitions();
+	for (int i = 0; i < 40; ++i) {
+	    final Criterion criterion = new Criterion("g" + i);
+	    criteria.add(criterion);
+	    coalitions.putWeight(criterion, i);
+	}
+	coalitions.setMajorityThreshold(400d);
+	final CoalitionsTable table = CoalitionsUtils.getTable(coalitions);
+	final long high = table.getMask(criteria.subList(20, 40));
+	assertEquals(590d, table.getWeight(high), 0d);
+	assertTrue(table.isWinning(high));
+	assertFalse(table.isWinning(table.getMask(criteria.subList(0, 28))));
+	assertEquals(780d, table.getWeight(-1L >>> 24), 0d);
+    }
+
+    @Test
+    public void testInterned() {
+	final Criterion g1 = new Criterion("g1");
+	final Criterion g2 = new Criterion("g2");
+	final Coalitions c1 = CoalitionsUtils.newCoalitions();
+	c1.putWeight(g1, 0.4d);
+	c1.putWeight(g2, 0.6d);
+	c1.setMajorityThreshold(0.5d);
+	final Coalitions c2 = CoalitionsUtils.newCoalitions(c1);
+	final Coalitions interned = CoalitionsUtils.intern(c1);
+	assertSame(interned, CoalitionsUtils.intern(c2));
+	assertEquals(c1, interned);
+	assertEquals(interned, c1);
+	assertEquals(c1.hashCode(), interned.hashCode());
+	assertSame(interned.getWeights(), WeightsUtils.intern(c1.getWeights()));
+	final CoalitionsTable table = CoalitionsUtils.getTable(interned);
+	assertSame(table, CoalitionsUtils.getTable(interned));
+	assertTrue(table.isWinning(table.getMask(g2)));
+	assertFalse(table.isWinning(table.getMask(g1)));
+
+	c2.setMajorityThreshold(0.3d);
+	final Coalitions other = CoalitionsUtils.intern(c2);
+	assertNotSame(interned, other);
+	assertFalse(interned.equals(other));
+	assertSame(interned.getWeights(), other.getWeights());
+    }
+
+    @Test
+    public void testFilteredView() {
+	final Criterion g1 = new Criterion("g1");
+	final Criterion g2 = new Criterion("g2");
+	final Criterion g3 = new Criterion("g3");
+	final Coalitions coalitions = CoalitionsUtils.newCoalitions();
+	coalitions.putWeight(g1, 0.2d);
+	coalitions.putWeight(g2, 0.3d);
+	coalitions.putWeight(g3, 0.5d);
+	coalitions.setMajorityThreshold(0.4d);
+	final Coalitions view = CoalitionsUtils.getFilteredView(coalitions, Predicates.not(Predicates.equalTo(g3)));
+	assertEquals(0.5d, view.getWeights().getSum(), 1e-6d);
+	final CoalitionsTable table = CoalitionsUtils.getTable(view);
+	assertSame(table, CoalitionsUtils.getTable(view));
+	assertEquals(ImmutableList.of(g1, g2), table.getCriteria());
+	assertTrue(table.isWinning(table.getMask(ImmutableSet.of(g1, g2))));
+	assertEquals(0.6d, view.getWeights().getNormalized().get(g2), 1e-6d);
+
+	coalitions.putWeight(g1, 0.05d);
+	assertEquals(0.35d, view.getWeights().getSum(), 1e-6d);
+	final CoalitionsTable changed = CoalitionsUtils.getTable(view);
+	assertNotSame(table, changed);
+	assertFalse(changed.isWinning(changed.getMask(ImmutableSet.of(g1, g2))));
+
+	coalitions.setMajorityThreshold(0.3d);
+	assertTrue(CoalitionsUtils.getTable(view).isWinning(changed.getMask(ImmutableSet.of(g1, g2))));
+    }
+}
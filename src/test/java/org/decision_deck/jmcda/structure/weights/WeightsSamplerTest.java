@@ -0,0 +1,64 @@
+package org.decision_deck.jmcda.structure.weights;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.decision_deck.jmcda.structure.Criterion;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+@SuppressWarnings("boxing")
+public class WeightsSamplerTest {
+    private final Criterion m_g1 = new Criterion("g1");
+
+    private final Criterion m_g2 = new Criterion("g2");
+
+    private final Criterion m_g3 = new Criterion("g3");
+
+    private final List<Criterion> m_criteria = ImmutableList.of(m_g1, m_g2, m_g3);
+
+    @Test
+    public void testReproducible() {
+	final double[] first = new double[3 * 1000];
+	final double[] second = new double[3 * 1000];
+	new WeightsSampler(m_criteria, 42L).sampleAll(first, 1000);
+	new WeightsSampler(m_criteria, 42L).sampleAll(second, 1000);
+	assertArrayEquals(first, second, 0d);
+
+	double mean1 = 0d;
+	for (int k = 0; k < 1000; ++k) {
+	    assertEquals(1d, first[3 * k] + first[3 * k + 1] + first[3 * k + 2], 1e-9d);
+	    mean1 += first[3 * k] / 1000;
+	}
+	assertEquals(1d / 3d, mean1, 0.05d);
+
+	final WeightsSampler sampler = new WeightsSampler(m_criteria, 42L);
+	final WeightsSampler split = sampler.split();
+	split.sampleAll(first, 1000);
+	sampler.sampleAll(second, 1000);
+	assertFalse(Arrays.equals(first, second));
+
+	final Weights weights = sampler.toWeights(second, 3);
+	assertEquals(m_criteria, ImmutableList.copyOf(weights.keySet()));
+	assertEquals(second[5], weights.getWeightBetter(m_g3), 0d);
+    }
+
+    @Test
+    public void testConstrained() {
+	final WeightsSampler sampler = new WeightsSampler(m_criteria, 7L);
+	sampler.setRankOrder(ImmutableList.of(m_g2, m_g3, m_g1));
+	sampler.setBounds(m_g2, 0.4d, 0.6d);
+	final double[] buffer = new double[3];
+	for (int k = 0; k < 1000; ++k) {
+	    sampler.sample(buffer, 0);
+	    assertTrue(buffer[1] >= buffer[2] && buffer[2] >= buffer[0]);
+	    assertTrue(buffer[1] >= 0.4d && buffer[1] <= 0.6d);
+	}
+    }
+}
@@ -2,11 +2,16 @@ package org.decision_deck.jmcda.structure.weights;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.decision_deck.jmcda.structure.Criterion;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
 @SuppressWarnings("boxing")
 public class WeightsTest {
 
@@ -76,6 +81,69 @@ public class WeightsTest {
         assertEquals(1d, normalized.get(g2), 1e-6d);
     }
 
+    @Test
+    public void testCompile() {
+	final Criterion g1 = new Criterion("g1");
+	final Criterion g2 = new Criterion("g2");
+	final Criterion g3 = new Criterion("g3");
+	final WeightsImpl weights = WeightsImpl.create();
+	weights.put(g1, 10d);
+	weights.put(g2, 30d);
+	final ImmutableList<Criterion> order = ImmutableList.of(g2, g3, g1);
+	final CompiledWeights compiled = weights.compile(order);
+	assertSame(compiled, weights.compile(Lists.newArrayList(g2, g3, g1)));
+	assertEquals(3, compiled.size());
+	assertEquals(30d, compiled.getWeight(0), 0d);
+	assertEquals(0d, compiled.getWeight(1), 0d);
+	assertEquals(0.25d, compiled.getNormalizedWeight(2), 1e-6d);
+	assertEquals(0.75d, weights.getNormalized().compile(order).getWeight(0), 1e-6d);
+
+	weights.put(g3, 60d);
+	final CompiledWeights recompiled = weights.compile(order);
+	assertNotSame(compiled, recompiled);
+	assertEquals(60d, recompiled.getWeight(1), 0d);
+	assertEquals(0.1d, recompiled.getNormalizedWeight(2), 1e-6d);
+	assertEquals(0d, compiled.getWeight(1), 0d);
+    }
+
+    @Test
+    public void testIntern() {
+	final Criterion g1 = new Criterion("g1");
+	final Criterion g2 = new Criterion("g2");
+	final Weights w1 = WeightsUtils.newWeights();
+	w1.put(g1, 1d);
+	w1.put(g2, 3d);
+	final Weights w2 = WeightsUtils.newWeights();
+	w2.put(g2, 3d);
+	w2.put(g1, 1d);
+	final Weights interned = WeightsUtils.intern(w1);
+	assertSame(interned, WeightsUtils.intern(w2));
+	assertSame(interned, WeightsUtils.intern(interned));
+	assertEquals(w2, interned);
+	assertEquals(interned, w2);
+	assertEquals(w2.hashCode(), interned.hashCode());
+	assertEquals(0.75d, interned.getNormalized().getWeightBetter(g2), 1e-6d);
+	w2.put(g1, 2d);
+	assertNotSame(interned, WeightsUtils.intern(w2));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testInternPut() {
+	final Weights weights = WeightsUtils.newWeights();
+	weights.put(new Criterion("g1"), 1d);
+	WeightsUtils.intern(weights).putWeight(new Criterion("g2"), 1d);
+    }
+
+    @Test
+    public void testInternZeroSum() {
+	final Criterion g1 = new Criterion("g1");
+	final Weights weights = WeightsUtils.newWeights();
+	weights.put(g1, 0d);
+	final Weights interned = WeightsUtils.intern(weights);
+	assertTrue(weights.getNormalized().isEmpty());
+	assertTrue(interned.getNormalized().isEmpty());
+    }
+
     @Test(expected = UnsupportedOperationException.class)
     public void testNormPut() {
 	final WeightsImpl weights = WeightsImpl.create();